@@ -0,0 +1,75 @@
+package com.dubravsky.threadpoolservice.benchmark;
+
+import com.dubravsky.threadpoolservice.NamedThreadPoolExecutor;
+import com.dubravsky.threadpoolservice.ThreadPoolService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class BatchSubmitBenchmark {
+
+    private static final int BATCH_SIZE = 1_000;
+
+    @Param({"SAFE", "SAFE_WORK_STEALING"})
+    private ExecutorType executorType;
+
+    @Param({"1", "4", "16"})
+    private int threads;
+
+    @Param({"0", "100"})
+    private int taskTokens;
+
+    private ThreadPoolService threadPoolService;
+    private NamedThreadPoolExecutor executorService;
+    private final AtomicReference<CountDownLatch> latch = new AtomicReference<>();
+    private List<Runnable> tasks;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        threadPoolService = ThreadPoolService.create();
+        executorService = (NamedThreadPoolExecutor) executorType.newExecutor(threadPoolService, threads);
+        tasks = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            tasks.add(() -> {
+                Blackhole.consumeCPU(taskTokens);
+                latch.get().countDown();
+            });
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        executorService.shutdown();
+        threadPoolService.shutdown();
+        executorService.awaitTermination(1, TimeUnit.MINUTES);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void executeLoop() throws InterruptedException {
+        CountDownLatch batchLatch = new CountDownLatch(BATCH_SIZE);
+        latch.set(batchLatch);
+        for (Runnable task : tasks) {
+            executorService.execute(task);
+        }
+        batchLatch.await();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void submitAll() throws InterruptedException, ExecutionException {
+        latch.set(new CountDownLatch(BATCH_SIZE));
+        executorService.submitAll(tasks).get();
+    }
+
+}
@@ -0,0 +1,93 @@
+package com.dubravsky.threadpoolservice.benchmark;
+
+import com.dubravsky.threadpoolservice.ThreadPoolService;
+import com.dubravsky.threadpoolservice.ThreadPoolServiceBuilder;
+import com.dubravsky.threadpoolservice.task.ContextPropagator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of context propagation per registered propagator. Each propagator moves one thread local, the way an MDC
+ * or a tracing adapter does; with 0 propagators the executor takes the fast path and captures nothing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ContextPropagationBenchmark {
+
+    private static final int BATCH_SIZE = 1_000;
+
+    @Param({"0", "1", "2", "4"})
+    private int propagators;
+
+    private ThreadPoolService threadPoolService;
+    private ExecutorService executorService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ThreadPoolServiceBuilder builder = ThreadPoolService.builder();
+        for (int i = 0; i < propagators; i++) {
+            ThreadLocalPropagator propagator = new ThreadLocalPropagator();
+            propagator.threadLocal.set("context-" + i);
+            builder.contextPropagator(propagator);
+        }
+        threadPoolService = builder.build();
+        executorService = threadPoolService.newFixedThreadPool(4, "Benchmark");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        executorService.shutdown();
+        threadPoolService.shutdown();
+        executorService.awaitTermination(1, TimeUnit.MINUTES);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void execute() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(BATCH_SIZE);
+        Runnable task = latch::countDown;
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            executorService.execute(task);
+        }
+        latch.await();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Object submitRoundTrip() throws InterruptedException, ExecutionException {
+        return executorService.submit(() -> Boolean.TRUE).get();
+    }
+
+    private static class ThreadLocalPropagator implements ContextPropagator<Object> {
+
+        private final ThreadLocal<Object> threadLocal = new ThreadLocal<>();
+
+        @Override
+        public Object capture() {
+            return threadLocal.get();
+        }
+
+        @Override
+        public Object apply(Object context) {
+            Object previous = threadLocal.get();
+            threadLocal.set(context);
+            return previous;
+        }
+
+        @Override
+        public void restore(Object previous) {
+            threadLocal.set(previous);
+        }
+
+    }
+
+}
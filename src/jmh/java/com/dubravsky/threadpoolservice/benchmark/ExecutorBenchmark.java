@@ -0,0 +1,97 @@
+package com.dubravsky.threadpoolservice.benchmark;
+
+import com.dubravsky.threadpoolservice.ThreadPoolService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ExecutorBenchmark {
+
+    private static final int BATCH_SIZE = 1_000;
+
+    @Param({"SAFE", "SAFE_WORK_STEALING", "FIXED", "FORK_JOIN"})
+    private ExecutorType executorType;
+
+    @Param({"1", "4", "16"})
+    private int threads;
+
+    @Param({"0", "100", "1000"})
+    private int taskTokens;
+
+    private ThreadPoolService threadPoolService;
+    private ExecutorService executorService;
+    private List<Callable<Long>> callables;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        threadPoolService = ThreadPoolService.create();
+        executorService = executorType.newExecutor(threadPoolService, threads);
+        callables = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            callables.add(this::work);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        executorService.shutdown();
+        threadPoolService.shutdown();
+        executorService.awaitTermination(1, TimeUnit.MINUTES);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void execute() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(BATCH_SIZE);
+        Runnable task = () -> {
+            work();
+            latch.countDown();
+        };
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            executorService.execute(task);
+        }
+        latch.await();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void submit(Blackhole blackhole) throws InterruptedException, ExecutionException {
+        List<Future<Long>> futures = new ArrayList<>(BATCH_SIZE);
+        for (Callable<Long> callable : callables) {
+            futures.add(executorService.submit(callable));
+        }
+        for (Future<Long> future : futures) {
+            blackhole.consume(future.get());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void invokeAll(Blackhole blackhole) throws InterruptedException, ExecutionException {
+        for (Future<Long> future : executorService.invokeAll(callables)) {
+            blackhole.consume(future.get());
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Long submitRoundTrip() throws InterruptedException, ExecutionException {
+        return executorService.submit(this::work).get();
+    }
+
+    private Long work() {
+        Blackhole.consumeCPU(taskTokens);
+        return (long) taskTokens;
+    }
+
+}
@@ -0,0 +1,91 @@
+package com.dubravsky.threadpoolservice.benchmark;
+
+import com.dubravsky.threadpoolservice.ThreadPoolService;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public enum ExecutorType {
+
+    SAFE {
+        @Override
+        ExecutorService newExecutor(ThreadPoolService threadPoolService, int threads) {
+            return threadPoolService.newFixedThreadPool(threads, BENCHMARK_POOL_NAME);
+        }
+
+        @Override
+        ScheduledExecutorService newScheduledExecutor(ThreadPoolService threadPoolService, int threads) {
+            return threadPoolService.newScheduledThreadPool(threads, BENCHMARK_POOL_NAME);
+        }
+    },
+
+    SAFE_WORK_STEALING {
+        @Override
+        ExecutorService newExecutor(ThreadPoolService threadPoolService, int threads) {
+            return threadPoolService.newWorkStealingPool(threads, BENCHMARK_POOL_NAME);
+        }
+
+        @Override
+        ScheduledExecutorService newScheduledExecutor(ThreadPoolService threadPoolService, int threads) {
+            throw new UnsupportedOperationException("Work-stealing pool does not support scheduling");
+        }
+    },
+
+    SAFE_SHARDED {
+        @Override
+        ExecutorService newExecutor(ThreadPoolService threadPoolService, int threads) {
+            return threadPoolService.newShardedThreadPool(threads, BENCHMARK_POOL_NAME);
+        }
+
+        @Override
+        ScheduledExecutorService newScheduledExecutor(ThreadPoolService threadPoolService, int threads) {
+            throw new UnsupportedOperationException("Sharded pool does not support scheduling");
+        }
+    },
+
+    SAFE_TIMER_WHEEL {
+        @Override
+        ExecutorService newExecutor(ThreadPoolService threadPoolService, int threads) {
+            return newScheduledExecutor(threadPoolService, threads);
+        }
+
+        @Override
+        ScheduledExecutorService newScheduledExecutor(ThreadPoolService threadPoolService, int threads) {
+            return threadPoolService.newTimerWheelScheduler(threads, BENCHMARK_POOL_NAME, 1, TimeUnit.MILLISECONDS, 512);
+        }
+    },
+
+    FIXED {
+        @Override
+        ExecutorService newExecutor(ThreadPoolService threadPoolService, int threads) {
+            return Executors.newFixedThreadPool(threads);
+        }
+
+        @Override
+        ScheduledExecutorService newScheduledExecutor(ThreadPoolService threadPoolService, int threads) {
+            return Executors.newScheduledThreadPool(threads);
+        }
+    },
+
+    FORK_JOIN {
+        @Override
+        ExecutorService newExecutor(ThreadPoolService threadPoolService, int threads) {
+            return new ForkJoinPool(threads);
+        }
+
+        @Override
+        ScheduledExecutorService newScheduledExecutor(ThreadPoolService threadPoolService, int threads) {
+            throw new UnsupportedOperationException("ForkJoinPool does not support scheduling");
+        }
+    };
+
+    static final String BENCHMARK_POOL_NAME = "Benchmark";
+
+    abstract ExecutorService newExecutor(ThreadPoolService threadPoolService, int threads);
+
+    abstract ScheduledExecutorService newScheduledExecutor(ThreadPoolService threadPoolService, int threads);
+
+}
@@ -0,0 +1,44 @@
+package com.dubravsky.threadpoolservice.benchmark;
+
+import com.dubravsky.threadpoolservice.util.LatencyHistogram;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class LatencyHistogramBenchmark {
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    @Benchmark
+    public long nanoTimePair() {
+        long startNanos = System.nanoTime();
+        return System.nanoTime() - startNanos;
+    }
+
+    @Benchmark
+    public void recordTaskLatencies() {
+        long submitNanos = System.nanoTime();
+        long startNanos = System.nanoTime();
+        histogram.record(startNanos - submitNanos);
+        histogram.record(System.nanoTime() - startNanos);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordTaskLatenciesContended() {
+        recordTaskLatencies();
+    }
+
+    @Benchmark
+    public LatencyHistogram.Snapshot snapshotAndReset() {
+        histogram.record(1_000);
+        return histogram.snapshotAndReset();
+    }
+
+}
@@ -0,0 +1,128 @@
+package com.dubravsky.threadpoolservice.benchmark;
+
+import com.dubravsky.threadpoolservice.util.MpmcArrayBlockingQueue;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.*;
+
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class QueueBenchmark {
+
+    private static final Integer ELEMENT = 1;
+    private static final int CAPACITY = 1 << 16;
+
+    public enum QueueImplementation {
+        MPMC_RING {
+            @Override
+            BlockingQueue<Object> newQueue() {
+                return new MpmcArrayBlockingQueue<>(CAPACITY);
+            }
+        },
+        LINKED {
+            @Override
+            BlockingQueue<Object> newQueue() {
+                return new LinkedBlockingQueue<>(CAPACITY);
+            }
+        },
+        ARRAY {
+            @Override
+            BlockingQueue<Object> newQueue() {
+                return new ArrayBlockingQueue<>(CAPACITY);
+            }
+        },
+        LINKED_TRANSFER {
+            @Override
+            BlockingQueue<Object> newQueue() {
+                return new LinkedTransferQueue<>();
+            }
+        };
+
+        abstract BlockingQueue<Object> newQueue();
+    }
+
+    @Param({"MPMC_RING", "LINKED", "ARRAY", "LINKED_TRANSFER"})
+    private QueueImplementation queueImplementation;
+
+    private BlockingQueue<Object> queue;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        queue = queueImplementation.newQueue();
+    }
+
+    @Benchmark
+    @Group("offerPoll")
+    @GroupThreads(4)
+    public boolean offer() {
+        return queue.offer(ELEMENT);
+    }
+
+    @Benchmark
+    @Group("offerPoll")
+    @GroupThreads(4)
+    public Object poll() {
+        return queue.poll();
+    }
+
+    @Benchmark
+    @Group("offerPollContended")
+    @GroupThreads(16)
+    public boolean contendedOffer() {
+        return queue.offer(ELEMENT);
+    }
+
+    @Benchmark
+    @Group("offerPollContended")
+    @GroupThreads(4)
+    public Object contendedPoll() {
+        return queue.poll();
+    }
+
+    @State(Scope.Benchmark)
+    public static class ExecutorState {
+
+        private static final int BATCH_SIZE = 1_000;
+
+        @Param({"MPMC_RING", "LINKED", "ARRAY", "LINKED_TRANSFER"})
+        private QueueImplementation queueImplementation;
+
+        @Param({"4", "16"})
+        private int threads;
+
+        private ThreadPoolExecutor executor;
+
+        @SuppressWarnings("unchecked")
+        @Setup(Level.Trial)
+        public void setUp() {
+            BlockingQueue<?> queue = queueImplementation.newQueue();
+            executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                    (BlockingQueue<Runnable>) queue, new ThreadPoolExecutor.CallerRunsPolicy());
+            executor.prestartAllCoreThreads();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws InterruptedException {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+
+    }
+
+    @Benchmark
+    @Group("executor")
+    @GroupThreads(4)
+    @OperationsPerInvocation(ExecutorState.BATCH_SIZE)
+    public void execute(ExecutorState state) throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(ExecutorState.BATCH_SIZE);
+        for (int i = 0; i < ExecutorState.BATCH_SIZE; i++) {
+            state.executor.execute(latch::countDown);
+        }
+        latch.await();
+    }
+
+}
@@ -0,0 +1,90 @@
+package com.dubravsky.threadpoolservice.benchmark;
+
+import com.dubravsky.threadpoolservice.ThreadPoolService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.*;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ScheduledExecutorBenchmark {
+
+    private static final int BATCH_SIZE = 1_000;
+
+    @Param({"SAFE", "SAFE_TIMER_WHEEL", "FIXED"})
+    private ExecutorType executorType;
+
+    @Param({"1", "4"})
+    private int threads;
+
+    @Param({"0", "100"})
+    private int taskTokens;
+
+    private ThreadPoolService threadPoolService;
+    private ScheduledExecutorService scheduledExecutorService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        threadPoolService = ThreadPoolService.create();
+        scheduledExecutorService = executorType.newScheduledExecutor(threadPoolService, threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        scheduledExecutorService.shutdownNow();
+        threadPoolService.shutdownNow();
+        scheduledExecutorService.awaitTermination(1, TimeUnit.MINUTES);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void scheduleImmediate() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(BATCH_SIZE);
+        Runnable task = () -> {
+            Blackhole.consumeCPU(taskTokens);
+            latch.countDown();
+        };
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            scheduledExecutorService.schedule(task, 0, TimeUnit.NANOSECONDS);
+        }
+        latch.await();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void scheduleAndCancel(Blackhole blackhole) {
+        Runnable task = () -> Blackhole.consumeCPU(taskTokens);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            ScheduledFuture<?> future = scheduledExecutorService.schedule(task, 1, TimeUnit.HOURS);
+            blackhole.consume(future.cancel(false));
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Object scheduleRoundTrip() throws InterruptedException, ExecutionException {
+        return scheduledExecutorService.schedule(() -> {
+            Blackhole.consumeCPU(taskTokens);
+            return taskTokens;
+        }, 0, TimeUnit.NANOSECONDS).get();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void scheduleAtFixedRate() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(BATCH_SIZE);
+        ScheduledFuture<?> future = scheduledExecutorService.scheduleAtFixedRate(() -> {
+            Blackhole.consumeCPU(taskTokens);
+            latch.countDown();
+        }, 0, 1, TimeUnit.MICROSECONDS);
+        latch.await();
+        future.cancel(false);
+    }
+
+}
@@ -0,0 +1,98 @@
+package com.dubravsky.threadpoolservice.benchmark;
+
+import com.dubravsky.threadpoolservice.ThreadPoolService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Short tasks submitted by several producers at once and by the workers themselves, the cases where a single queue
+ * is the point of contention. Producers are JMH threads, override their number with {@code -t} to scale them with the pool.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ShardedExecutorBenchmark {
+
+    private static final int BATCH_SIZE = 1_000;
+    private static final int PRODUCERS = 4;
+
+    @Param({"SAFE", "SAFE_SHARDED", "FORK_JOIN"})
+    private ExecutorType executorType;
+
+    @Param({"1", "4", "16", "64"})
+    private int threads;
+
+    @Param({"0", "100"})
+    private int taskTokens;
+
+    private ThreadPoolService threadPoolService;
+    private ExecutorService executorService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        threadPoolService = ThreadPoolService.create();
+        executorService = executorType.newExecutor(threadPoolService, threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        executorService.shutdown();
+        threadPoolService.shutdown();
+        executorService.awaitTermination(1, TimeUnit.MINUTES);
+    }
+
+    @Benchmark
+    @Threads(PRODUCERS)
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void executeFromProducers() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(BATCH_SIZE);
+        Runnable task = () -> {
+            Blackhole.consumeCPU(taskTokens);
+            latch.countDown();
+        };
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            executorService.execute(task);
+        }
+        latch.await();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void executeFromWorkers() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(BATCH_SIZE);
+        int chains = Math.max(1, threads);
+        for (int i = 0; i < chains; i++) {
+            executorService.execute(new Chain(latch, BATCH_SIZE / chains + (i < BATCH_SIZE % chains ? 1 : 0)));
+        }
+        latch.await();
+    }
+
+    private class Chain implements Runnable {
+
+        private final CountDownLatch latch;
+        private int remaining;
+
+        Chain(CountDownLatch latch, int remaining) {
+            this.latch = latch;
+            this.remaining = remaining;
+        }
+
+        @Override
+        public void run() {
+            Blackhole.consumeCPU(taskTokens);
+            latch.countDown();
+            if (--remaining > 0) {
+                executorService.execute(this);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.dubravsky.threadpoolservice.benchmark;
+
+import com.dubravsky.threadpoolservice.StatisticsObject;
+import com.dubravsky.threadpoolservice.ThreadPoolService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class StatisticsBenchmark {
+
+    @Param({"1", "16", "64"})
+    private int threads;
+
+    private ThreadPoolService threadPoolService;
+    private ExecutorService executorService;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        threadPoolService = ThreadPoolService.create();
+        executorService = ExecutorType.SAFE.newExecutor(threadPoolService, threads);
+        running.set(true);
+        for (int i = 0; i < threads; i++) {
+            executorService.execute(this::busyTask);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        running.set(false);
+        threadPoolService.shutdown();
+    }
+
+    @Benchmark
+    public StatisticsObject snapshot() {
+        return StatisticsObject.of((ThreadPoolExecutor) executorService);
+    }
+
+    @Benchmark
+    public String snapshotAndFormat() {
+        return StatisticsObject.of((ThreadPoolExecutor) executorService).toString();
+    }
+
+    private void busyTask() {
+        if (running.get()) {
+            Thread.yield();
+            executorService.execute(this::busyTask);
+        }
+    }
+
+}
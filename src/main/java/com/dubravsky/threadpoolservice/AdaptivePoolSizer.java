@@ -0,0 +1,42 @@
+package com.dubravsky.threadpoolservice;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+class AdaptivePoolSizer implements Runnable {
+
+    private final SafeThreadPoolExecutor executor;
+    private final AdaptiveSizingController controller;
+    private final long periodNanos;
+    private volatile ScheduledFuture<?> scheduledFuture;
+
+    AdaptivePoolSizer(SafeThreadPoolExecutor executor, AdaptiveSizingController controller, long periodNanos) {
+        this.executor = executor;
+        this.controller = controller;
+        this.periodNanos = periodNanos;
+    }
+
+    void start(ScheduledExecutorService scheduledExecutorService, long periodMillis) {
+        scheduledFuture = scheduledExecutorService.scheduleAtFixedRate(this, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void run() {
+        if (executor.isShutdown()) {
+            scheduledFuture.cancel(false);
+            return;
+        }
+        int poolSize = executor.getCorePoolSize();
+        int nextPoolSize = controller.nextPoolSize(poolSize, executor.getQueue().size(), executor.getCompletedTaskCount(),
+                executor.getBusyNanos(), periodNanos);
+        if (nextPoolSize > poolSize) {
+            executor.setMaximumPoolSize(nextPoolSize);
+            executor.setCorePoolSize(nextPoolSize);
+        } else if (nextPoolSize < poolSize) {
+            executor.setCorePoolSize(nextPoolSize);
+            executor.setMaximumPoolSize(nextPoolSize);
+        }
+    }
+
+}
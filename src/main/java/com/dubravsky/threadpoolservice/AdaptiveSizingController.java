@@ -0,0 +1,75 @@
+package com.dubravsky.threadpoolservice;
+
+class AdaptiveSizingController {
+
+    private static final double TARGET_UTILIZATION = 0.8;
+    private static final double SHRINK_THRESHOLD = 0.75;
+    private static final int GROW_AFTER_PERIODS = 2;
+    private static final int SHRINK_AFTER_PERIODS = 5;
+
+    private final int minPoolSize;
+    private final int maxPoolSize;
+    private boolean initialized;
+    private long previousCompletedTaskCount;
+    private long previousBusyNanos;
+    private int previousQueueSize;
+    private int growStreak;
+    private int shrinkStreak;
+
+    AdaptiveSizingController(int minPoolSize, int maxPoolSize) {
+        this.minPoolSize = minPoolSize;
+        this.maxPoolSize = maxPoolSize;
+    }
+
+    int nextPoolSize(int poolSize, int queueSize, long completedTaskCount, long busyNanos, long periodNanos) {
+        if (!initialized) {
+            remember(queueSize, completedTaskCount, busyNanos);
+            initialized = true;
+            return poolSize;
+        }
+        long completedTasks = completedTaskCount - previousCompletedTaskCount;
+        long busyTime = busyNanos - previousBusyNanos;
+        long arrivedTasks = Math.max(0, completedTasks + queueSize - previousQueueSize);
+        remember(queueSize, completedTaskCount, busyNanos);
+
+        int desiredPoolSize = clamp(desiredPoolSize(poolSize, queueSize, completedTasks, busyTime, arrivedTasks, periodNanos));
+        if (desiredPoolSize > poolSize) {
+            shrinkStreak = 0;
+            if (++growStreak >= GROW_AFTER_PERIODS) {
+                growStreak = 0;
+                return Math.min(desiredPoolSize, Math.max(poolSize + 1, 2 * poolSize));
+            }
+        } else if (desiredPoolSize < poolSize && (desiredPoolSize <= poolSize * SHRINK_THRESHOLD || desiredPoolSize == minPoolSize)) {
+            growStreak = 0;
+            if (++shrinkStreak >= SHRINK_AFTER_PERIODS) {
+                shrinkStreak = 0;
+                return Math.max(desiredPoolSize, poolSize - Math.max(1, poolSize / 4));
+            }
+        } else {
+            growStreak = 0;
+            shrinkStreak = 0;
+        }
+        return poolSize;
+    }
+
+    private static int desiredPoolSize(int poolSize, int queueSize, long completedTasks, long busyTime, long arrivedTasks, long periodNanos) {
+        if (completedTasks == 0) {
+            return queueSize > 0 ? poolSize + 1 : 0;
+        }
+        double serviceNanos = (double) busyTime / completedTasks;
+        double arrivalDemand = arrivedTasks * serviceNanos / periodNanos;
+        double backlogDemand = queueSize * serviceNanos / periodNanos;
+        return (int) Math.ceil((arrivalDemand + backlogDemand) / TARGET_UTILIZATION);
+    }
+
+    private int clamp(int poolSize) {
+        return Math.max(minPoolSize, Math.min(maxPoolSize, poolSize));
+    }
+
+    private void remember(int queueSize, long completedTaskCount, long busyNanos) {
+        this.previousQueueSize = queueSize;
+        this.previousCompletedTaskCount = completedTaskCount;
+        this.previousBusyNanos = busyNanos;
+    }
+
+}
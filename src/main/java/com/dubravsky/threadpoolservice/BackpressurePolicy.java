@@ -0,0 +1,123 @@
+package com.dubravsky.threadpoolservice;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+public abstract class BackpressurePolicy implements RejectedExecutionHandler {
+
+    public static BackpressurePolicy block(long timeout, TimeUnit unit) {
+        if (timeout < 0) {
+            throw new IllegalArgumentException("Timeout should not be negative but it is " + timeout);
+        }
+        if (unit == null) {
+            throw new IllegalArgumentException("TimeUnit should not be null");
+        }
+        return new BlockPolicy(unit.toNanos(timeout));
+    }
+
+    public static BackpressurePolicy callerRuns() {
+        return CallerRunsPolicy.INSTANCE;
+    }
+
+    public static BackpressurePolicy discardOldest() {
+        return DiscardOldestPolicy.INSTANCE;
+    }
+
+    public static BackpressurePolicy failFast() {
+        return FailFastPolicy.INSTANCE;
+    }
+
+    private BackpressurePolicy() {
+    }
+
+    private static RejectedExecutionException rejected(Runnable task, ThreadPoolExecutor executor) {
+        String name = executor instanceof NamedThreadPoolExecutor ? ((NamedThreadPoolExecutor) executor).getName() : executor.toString();
+        if (executor.isShutdown()) {
+            return new RejectedExecutionException("Task " + task + " rejected, thread pool " + name + " is shut down");
+        }
+        return new RejectedExecutionException("Task " + task + " rejected, queue of thread pool " + name + " is full");
+    }
+
+    private static class BlockPolicy extends BackpressurePolicy {
+
+        private final long timeoutNanos;
+
+        private BlockPolicy(long timeoutNanos) {
+            this.timeoutNanos = timeoutNanos;
+        }
+
+        @Override
+        public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+            if (executor.isShutdown()) {
+                throw rejected(task, executor);
+            }
+            try {
+                if (!executor.getQueue().offer(task, timeoutNanos, TimeUnit.NANOSECONDS)) {
+                    throw rejected(task, executor);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw rejected(task, executor);
+            }
+            if (executor.isShutdown() && executor.remove(task)) {
+                throw rejected(task, executor);
+            }
+        }
+
+    }
+
+    private static class CallerRunsPolicy extends BackpressurePolicy {
+
+        private static final CallerRunsPolicy INSTANCE = new CallerRunsPolicy();
+
+        @Override
+        public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+            if (executor.isShutdown()) {
+                throw rejected(task, executor);
+            }
+            if (executor instanceof MonitoredExecutor) {
+                ((MonitoredExecutor) executor).getTaskMetrics().runInCaller(task);
+            } else {
+                task.run();
+            }
+        }
+
+    }
+
+    private static class DiscardOldestPolicy extends BackpressurePolicy {
+
+        private static final DiscardOldestPolicy INSTANCE = new DiscardOldestPolicy();
+
+        @Override
+        public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+            if (executor.isShutdown()) {
+                throw rejected(task, executor);
+            }
+            while (!executor.getQueue().offer(task)) {
+                Runnable oldestTask = executor.getQueue().poll();
+                if (oldestTask instanceof Future) {
+                    ((Future<?>) oldestTask).cancel(false);
+                }
+            }
+            if (executor.isShutdown() && executor.remove(task)) {
+                throw rejected(task, executor);
+            }
+        }
+
+    }
+
+    private static class FailFastPolicy extends BackpressurePolicy {
+
+        private static final FailFastPolicy INSTANCE = new FailFastPolicy();
+
+        @Override
+        public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+            throw rejected(task, executor);
+        }
+
+    }
+
+}
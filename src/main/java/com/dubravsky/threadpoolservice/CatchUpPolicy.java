@@ -0,0 +1,87 @@
+package com.dubravsky.threadpoolservice;
+
+/**
+ * Decides when a fixed-rate task runs next once it has fallen behind its schedule, after a long run or a pause
+ * of the process. A task which is on time always runs one period after its previous scheduled time.
+ */
+public abstract class CatchUpPolicy {
+
+    /**
+     * Missed runs are dropped, the task runs at the next time of its original schedule.
+     */
+    public static CatchUpPolicy skip() {
+        return SkipPolicy.INSTANCE;
+    }
+
+    /**
+     * Missed runs are made up back to back, but at most {@code maxBurst} in a row, the rest of them are dropped.
+     */
+    public static CatchUpPolicy burst(int maxBurst) {
+        if (maxBurst <= 0) {
+            throw new IllegalArgumentException("Max burst should be positive but it is " + maxBurst);
+        }
+        return new BurstPolicy(maxBurst);
+    }
+
+    /**
+     * The task runs once right away and its schedule is shifted to start from that run.
+     */
+    public static CatchUpPolicy realign() {
+        return RealignPolicy.INSTANCE;
+    }
+
+    private CatchUpPolicy() {
+    }
+
+    /**
+     * Returns the time of the next run of a task which has fallen behind, that is
+     * {@code scheduledNanos + periodNanos < nowNanos}. {@code lateRuns} is the number of runs in a row
+     * which have already started late.
+     */
+    abstract long nextRunNanos(long scheduledNanos, long periodNanos, long nowNanos, int lateRuns);
+
+    private static long nextOnSchedule(long scheduledNanos, long periodNanos, long nowNanos) {
+        return scheduledNanos + ((nowNanos - scheduledNanos) / periodNanos + 1) * periodNanos;
+    }
+
+    private static class SkipPolicy extends CatchUpPolicy {
+
+        private static final SkipPolicy INSTANCE = new SkipPolicy();
+
+        @Override
+        long nextRunNanos(long scheduledNanos, long periodNanos, long nowNanos, int lateRuns) {
+            return nextOnSchedule(scheduledNanos, periodNanos, nowNanos);
+        }
+
+    }
+
+    private static class BurstPolicy extends CatchUpPolicy {
+
+        private final int maxBurst;
+
+        private BurstPolicy(int maxBurst) {
+            this.maxBurst = maxBurst;
+        }
+
+        @Override
+        long nextRunNanos(long scheduledNanos, long periodNanos, long nowNanos, int lateRuns) {
+            if (lateRuns < maxBurst) {
+                return scheduledNanos + periodNanos;
+            }
+            return nextOnSchedule(scheduledNanos, periodNanos, nowNanos);
+        }
+
+    }
+
+    private static class RealignPolicy extends CatchUpPolicy {
+
+        private static final RealignPolicy INSTANCE = new RealignPolicy();
+
+        @Override
+        long nextRunNanos(long scheduledNanos, long periodNanos, long nowNanos, int lateRuns) {
+            return nowNanos;
+        }
+
+    }
+
+}
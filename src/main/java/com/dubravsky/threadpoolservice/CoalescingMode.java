@@ -0,0 +1,16 @@
+package com.dubravsky.threadpoolservice;
+
+public enum CoalescingMode {
+
+    /**
+     * Every submission postpones the pending execution, the task runs once the key has been quiet for the delay.
+     */
+    DEBOUNCE,
+
+    /**
+     * The first submission fixes the time of the pending execution, later submissions merge into it,
+     * so the task runs at most once per delay however often the key is submitted.
+     */
+    THROTTLE
+
+}
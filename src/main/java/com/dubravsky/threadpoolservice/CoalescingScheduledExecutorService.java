@@ -0,0 +1,19 @@
+package com.dubravsky.threadpoolservice;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scheduler which merges repeated submissions for the same key into a single pending execution. The merged execution
+ * runs the latest submitted task, and executions of the same key never overlap: a submission made while the key
+ * is running is scheduled after the run.
+ */
+public interface CoalescingScheduledExecutorService extends ScheduledExecutorService {
+
+    default void scheduleCoalesced(Object key, long delay, TimeUnit unit, Runnable task) {
+        scheduleCoalesced(key, delay, unit, CoalescingMode.DEBOUNCE, task);
+    }
+
+    void scheduleCoalesced(Object key, long delay, TimeUnit unit, CoalescingMode mode, Runnable task);
+
+}
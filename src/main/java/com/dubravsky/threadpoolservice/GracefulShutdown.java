@@ -0,0 +1,121 @@
+package com.dubravsky.threadpoolservice;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shuts thread pools down in phases: scheduled pools and throttled views first, so they stop feeding the others, then all other pools,
+ * then the service pool. Pools of a phase drain in parallel, all phases share a single deadline.
+ * Drained tasks are counted from the start of the shutdown, pools which are still running at the deadline are stopped with shutdownNow. Scheduled tasks which are not due yet are abandoned
+ * instead of waited for.
+ */
+class GracefulShutdown {
+
+    private final List<List<PoolShutdown>> phases = new ArrayList<>();
+
+    GracefulShutdown(Collection<NamedThreadPoolExecutor> executorServices, ExecutorService serviceThreadPool) {
+        List<PoolShutdown> schedulers = new ArrayList<>();
+        List<PoolShutdown> workers = new ArrayList<>();
+        List<PoolShutdown> service = new ArrayList<>();
+        for (NamedThreadPoolExecutor executorService : executorServices) {
+            if (executorService == serviceThreadPool) {
+                service.add(new PoolShutdown(executorService));
+            } else if (executorService instanceof ScheduledExecutorService || executorService instanceof SafeThrottledExecutor) {
+                schedulers.add(new PoolShutdown(executorService));
+            } else {
+                workers.add(new PoolShutdown(executorService));
+            }
+        }
+        phases.add(schedulers);
+        phases.add(workers);
+        phases.add(service);
+    }
+
+    List<ShutdownReport> run(long timeout, TimeUnit unit) {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        boolean interrupted = false;
+        for (List<PoolShutdown> phase : phases) {
+            for (PoolShutdown poolShutdown : phase) {
+                poolShutdown.shutdown();
+            }
+            for (PoolShutdown poolShutdown : phase) {
+                if (!interrupted) {
+                    try {
+                        poolShutdown.awaitTermination(deadline);
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+                if (!poolShutdown.executorService.isTerminated()) {
+                    poolShutdown.shutdownNow();
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        List<ShutdownReport> reports = new ArrayList<>();
+        for (List<PoolShutdown> phase : phases) {
+            for (PoolShutdown poolShutdown : phase) {
+                reports.add(poolShutdown.report());
+            }
+        }
+        return reports;
+    }
+
+    private static class PoolShutdown {
+
+        private final NamedThreadPoolExecutor executorService;
+        private final long completedTaskCount;
+        private long forcedCompletedTaskCount = -1;
+        private long abandonedTaskCount;
+        private long interruptedTaskCount;
+
+        PoolShutdown(NamedThreadPoolExecutor executorService) {
+            this.executorService = executorService;
+            this.completedTaskCount = executorService.getStatistics(false).getCompletedTaskCount();
+        }
+
+        void shutdown() {
+            if (executorService instanceof ScheduledThreadPoolExecutor) {
+                ScheduledThreadPoolExecutor scheduledExecutorService = (ScheduledThreadPoolExecutor) executorService;
+                scheduledExecutorService.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+                int queueSize = scheduledExecutorService.getQueue().size();
+                executorService.shutdown();
+                abandonedTaskCount += Math.max(0, queueSize - scheduledExecutorService.getQueue().size());
+            } else if (executorService instanceof SafeTimerWheelScheduler) {
+                abandonedTaskCount += ((SafeTimerWheelScheduler) executorService).getPendingTimerCount();
+                executorService.shutdown();
+            } else {
+                executorService.shutdown();
+            }
+        }
+
+        void awaitTermination(long deadline) throws InterruptedException {
+            executorService.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        }
+
+        void shutdownNow() {
+            StatisticsObject statisticsObject = executorService.getStatistics(false);
+            forcedCompletedTaskCount = statisticsObject.getCompletedTaskCount();
+            int abandonedTasks = executorService.shutdownNow().size();
+            abandonedTaskCount += Math.max(abandonedTasks, statisticsObject.getQueueSize());
+            interruptedTaskCount += statisticsObject.getActiveCount();
+        }
+
+        ShutdownReport report() {
+            long drainedCompletedTaskCount = forcedCompletedTaskCount >= 0
+                    ? forcedCompletedTaskCount
+                    : executorService.getStatistics(false).getCompletedTaskCount();
+            return new ShutdownReport(executorService.getName(), executorService.isTerminated(),
+                    Math.max(0, drainedCompletedTaskCount - completedTaskCount), abandonedTaskCount, interruptedTaskCount);
+        }
+
+    }
+
+}
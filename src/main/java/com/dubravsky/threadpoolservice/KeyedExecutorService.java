@@ -0,0 +1,17 @@
+package com.dubravsky.threadpoolservice;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Executor which runs tasks with the same key one at a time in submission order, while tasks with different keys
+ * run in parallel on a shared pool. Tasks submitted through the plain {@link ExecutorService} methods are not ordered.
+ */
+public interface KeyedExecutorService extends ExecutorService {
+
+    void execute(Object key, Runnable task);
+
+    <T> Future<T> submit(Object key, Callable<T> task);
+
+}
@@ -0,0 +1,7 @@
+package com.dubravsky.threadpoolservice;
+
+interface MonitoredExecutor {
+
+    TaskMetrics getTaskMetrics();
+
+}
@@ -1,9 +1,34 @@
 package com.dubravsky.threadpoolservice;
 
+import com.dubravsky.threadpoolservice.task.JoinPolicy;
+import com.dubravsky.threadpoolservice.task.TaskScope;
+
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 public interface NamedThreadPoolExecutor extends ExecutorService {
 
     String getName();
 
+    default StatisticsObject getStatistics() {
+        return getStatistics(true);
+    }
+
+    StatisticsObject getStatistics(boolean startNewInterval);
+
+    void setResourceAccountingEnabled(boolean resourceAccountingEnabled);
+
+    void setSlowTaskThreshold(long slowTaskThreshold, TimeUnit unit);
+
+    CompletableFuture<Void> submitAll(Collection<? extends Runnable> tasks);
+
+    <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier);
+
+    CompletableFuture<Void> runAsync(Runnable task);
+
+    <T> TaskScope<T> newScope(JoinPolicy joinPolicy);
+
 }
@@ -0,0 +1,51 @@
+package com.dubravsky.threadpoolservice;
+
+/**
+ * Task for {@link java.util.concurrent.ScheduledExecutorService#scheduleAtFixedRate} of a scheduled thread pool
+ * which gives it a name and a {@link CatchUpPolicy}. Start lateness and run time of a named task are reported
+ * in the statistics of the pool.
+ */
+public final class PeriodicTask implements Runnable {
+
+    private final String name;
+    private final CatchUpPolicy catchUpPolicy;
+    private final Runnable task;
+
+    public static PeriodicTask of(String name, CatchUpPolicy catchUpPolicy, Runnable task) {
+        if (name == null) {
+            throw new IllegalArgumentException("Name should not be null");
+        }
+        if (catchUpPolicy == null) {
+            throw new IllegalArgumentException("CatchUpPolicy should not be null");
+        }
+        if (task == null) {
+            throw new IllegalArgumentException("Task should not be null");
+        }
+        return new PeriodicTask(name, catchUpPolicy, task);
+    }
+
+    private PeriodicTask(String name, CatchUpPolicy catchUpPolicy, Runnable task) {
+        this.name = name;
+        this.catchUpPolicy = catchUpPolicy;
+        this.task = task;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public CatchUpPolicy getCatchUpPolicy() {
+        return catchUpPolicy;
+    }
+
+    @Override
+    public void run() {
+        task.run();
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+}
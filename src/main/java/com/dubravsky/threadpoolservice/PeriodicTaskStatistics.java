@@ -0,0 +1,41 @@
+package com.dubravsky.threadpoolservice;
+
+import com.dubravsky.threadpoolservice.util.LatencyHistogram;
+
+public class PeriodicTaskStatistics {
+
+    private final String name;
+    private final long periodNanos;
+    private final long skippedRunCount;
+    private final LatencyHistogram.Snapshot lateness;
+    private final LatencyHistogram.Snapshot runTime;
+
+    PeriodicTaskStatistics(String name, long periodNanos, long skippedRunCount, LatencyHistogram.Snapshot lateness, LatencyHistogram.Snapshot runTime) {
+        this.name = name;
+        this.periodNanos = periodNanos;
+        this.skippedRunCount = skippedRunCount;
+        this.lateness = lateness;
+        this.runTime = runTime;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getPeriodNanos() {
+        return periodNanos;
+    }
+
+    public long getSkippedRunCount() {
+        return skippedRunCount;
+    }
+
+    public LatencyHistogram.Snapshot getLateness() {
+        return lateness;
+    }
+
+    public LatencyHistogram.Snapshot getRunTime() {
+        return runTime;
+    }
+
+}
@@ -0,0 +1,22 @@
+package com.dubravsky.threadpoolservice;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Executor which runs queued tasks in priority order, 0 being the highest priority.
+ * Tasks submitted through the plain {@link ExecutorService} methods get the lowest priority.
+ * A waiting task is aged by one priority level per aging period, so low priority tasks are delayed but never starved.
+ */
+public interface PriorityExecutorService extends ExecutorService {
+
+    int getPriorityLevels();
+
+    void execute(Runnable task, int priority);
+
+    <T> Future<T> submit(Callable<T> task, int priority);
+
+    Future<?> submit(Runnable task, int priority);
+
+}
@@ -0,0 +1,29 @@
+package com.dubravsky.threadpoolservice;
+
+import com.dubravsky.threadpoolservice.util.LatencyHistogram;
+
+public class PriorityStatistics {
+
+    private final int priority;
+    private final int queueSize;
+    private final LatencyHistogram.Snapshot waitTime;
+
+    PriorityStatistics(int priority, int queueSize, LatencyHistogram.Snapshot waitTime) {
+        this.priority = priority;
+        this.queueSize = queueSize;
+        this.waitTime = waitTime;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    public LatencyHistogram.Snapshot getWaitTime() {
+        return waitTime;
+    }
+
+}
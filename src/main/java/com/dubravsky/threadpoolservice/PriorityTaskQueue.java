@@ -0,0 +1,275 @@
+package com.dubravsky.threadpoolservice;
+
+import com.dubravsky.threadpoolservice.task.PrioritizedTask;
+import com.dubravsky.threadpoolservice.task.SubmittedTask;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Unbounded queue with a lock-free FIFO queue per priority level. Poll takes the head with the best rank,
+ * where the rank of a head is its level minus the number of aging periods it has been waiting for,
+ * so a task waiting at level N overtakes fresh level 0 tasks after N aging periods.
+ * Blocking operations park on a condition which is signalled only if somebody is actually waiting.
+ * Tasks which are not {@link PrioritizedTask} are queued at the lowest priority.
+ */
+class PriorityTaskQueue extends AbstractQueue<Runnable> implements BlockingQueue<Runnable> {
+
+    private final ConcurrentLinkedQueue<Runnable>[] queues;
+    private final LongAdder[] sizes;
+    private final long agingNanos;
+    private final AtomicInteger waitingConsumers = new AtomicInteger();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+
+    PriorityTaskQueue(int levels, long agingNanos) {
+        this.queues = newQueues(levels);
+        this.sizes = new LongAdder[levels];
+        for (int level = 0; level < levels; level++) {
+            queues[level] = new ConcurrentLinkedQueue<>();
+            sizes[level] = new LongAdder();
+        }
+        this.agingNanos = Math.min(agingNanos, Long.MAX_VALUE / 2 / levels);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ConcurrentLinkedQueue<Runnable>[] newQueues(int levels) {
+        return (ConcurrentLinkedQueue<Runnable>[]) new ConcurrentLinkedQueue<?>[levels];
+    }
+
+    int getLevels() {
+        return queues.length;
+    }
+
+    int levelOf(Runnable task) {
+        if (task instanceof PrioritizedTask) {
+            return Math.max(0, Math.min(queues.length - 1, ((PrioritizedTask) task).getPriority()));
+        }
+        return queues.length - 1;
+    }
+
+    int size(int level) {
+        return (int) Math.max(0, sizes[level].sum());
+    }
+
+    @Override
+    public boolean offer(Runnable task) {
+        if (task == null) {
+            throw new NullPointerException();
+        }
+        int level = levelOf(task);
+        queues[level].add(task);
+        sizes[level].increment();
+        if (waitingConsumers.get() > 0) {
+            lock.lock();
+            try {
+                notEmpty.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean offer(Runnable task, long timeout, TimeUnit unit) {
+        return offer(task);
+    }
+
+    @Override
+    public void put(Runnable task) {
+        offer(task);
+    }
+
+    @Override
+    public Runnable poll() {
+        while (true) {
+            int level = selectLevel(System.nanoTime());
+            if (level < 0) {
+                return null;
+            }
+            Runnable task = queues[level].poll();
+            if (task != null) {
+                sizes[level].decrement();
+                return task;
+            }
+        }
+    }
+
+    @Override
+    public Runnable peek() {
+        while (true) {
+            int level = selectLevel(System.nanoTime());
+            if (level < 0) {
+                return null;
+            }
+            Runnable task = queues[level].peek();
+            if (task != null) {
+                return task;
+            }
+        }
+    }
+
+    @Override
+    public Runnable take() throws InterruptedException {
+        Runnable task = poll();
+        if (task != null) {
+            return task;
+        }
+        lock.lockInterruptibly();
+        try {
+            waitingConsumers.incrementAndGet();
+            try {
+                while ((task = poll()) == null) {
+                    notEmpty.await();
+                }
+                return task;
+            } finally {
+                waitingConsumers.decrementAndGet();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Runnable poll(long timeout, TimeUnit unit) throws InterruptedException {
+        Runnable task = poll();
+        if (task != null) {
+            return task;
+        }
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            waitingConsumers.incrementAndGet();
+            try {
+                while ((task = poll()) == null) {
+                    if (nanos <= 0) {
+                        return null;
+                    }
+                    nanos = notEmpty.awaitNanos(nanos);
+                }
+                return task;
+            } finally {
+                waitingConsumers.decrementAndGet();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        long size = 0;
+        for (LongAdder levelSize : sizes) {
+            size += levelSize.sum();
+        }
+        return (int) Math.max(0, Math.min(Integer.MAX_VALUE, size));
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public boolean remove(Object task) {
+        if (task == null) {
+            return false;
+        }
+        for (int level = 0; level < queues.length; level++) {
+            if (queues[level].remove(task)) {
+                sizes[level].decrement();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int drainTo(Collection<? super Runnable> collection) {
+        return drainTo(collection, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super Runnable> collection, int maxElements) {
+        if (collection == null) {
+            throw new NullPointerException();
+        }
+        if (collection == this) {
+            throw new IllegalArgumentException();
+        }
+        int drained = 0;
+        Runnable task;
+        while (drained < maxElements && (task = poll()) != null) {
+            collection.add(task);
+            drained++;
+        }
+        return drained;
+    }
+
+    @Override
+    public Iterator<Runnable> iterator() {
+        List<Runnable> snapshot = new ArrayList<>();
+        for (ConcurrentLinkedQueue<Runnable> queue : queues) {
+            snapshot.addAll(queue);
+        }
+        Iterator<Runnable> iterator = snapshot.iterator();
+        return new Iterator<Runnable>() {
+
+            private Runnable current;
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Runnable next() {
+                current = iterator.next();
+                return current;
+            }
+
+            @Override
+            public void remove() {
+                if (current == null) {
+                    throw new IllegalStateException();
+                }
+                PriorityTaskQueue.this.remove(current);
+                current = null;
+            }
+
+        };
+    }
+
+    private int selectLevel(long nowNanos) {
+        int selectedLevel = -1;
+        long selectedRank = Long.MAX_VALUE;
+        for (int level = 0; level < queues.length; level++) {
+            Runnable head = queues[level].peek();
+            if (head != null) {
+                long rank = level * agingNanos - waitNanos(head, nowNanos);
+                if (rank < selectedRank) {
+                    selectedLevel = level;
+                    selectedRank = rank;
+                }
+            }
+        }
+        return selectedLevel;
+    }
+
+    private static long waitNanos(Runnable task, long nowNanos) {
+        return task instanceof SubmittedTask ? Math.max(0, nowNanos - ((SubmittedTask) task).getSubmitNanos()) : 0;
+    }
+
+}
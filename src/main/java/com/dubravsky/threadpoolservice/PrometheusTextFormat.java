@@ -0,0 +1,175 @@
+package com.dubravsky.threadpoolservice;
+
+import com.dubravsky.threadpoolservice.util.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Renders statistics in the Prometheus text exposition format (version 0.0.4).
+ * Histogram buckets are powers of four nanoseconds from about 1us to 17s, they match the buckets of
+ * {@link LatencyHistogram} exactly.
+ */
+public class PrometheusTextFormat {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final int MIN_BUCKET_EXPONENT = 10;
+    private static final int MAX_BUCKET_EXPONENT = 34;
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    private PrometheusTextFormat() {
+    }
+
+    public static String render(Collection<StatisticsObject> statistics) {
+        StringBuilder result = new StringBuilder();
+        gauge(result, statistics, "threadpool_threads", "Number of threads in the pool.", StatisticsObject::getPoolSize);
+        gauge(result, statistics, "threadpool_active_threads", "Number of threads running tasks.", StatisticsObject::getActiveCount);
+        gauge(result, statistics, "threadpool_queued_tasks", "Number of tasks waiting in the queue.", StatisticsObject::getQueueSize);
+        counter(result, statistics, "threadpool_submitted_tasks_total", "Number of submitted tasks.", StatisticsObject::getSubmittedTaskCount);
+        counter(result, statistics, "threadpool_started_tasks_total", "Number of started tasks.", StatisticsObject::getStartedTaskCount);
+        counter(result, statistics, "threadpool_completed_tasks_total", "Number of completed tasks.", StatisticsObject::getCompletedTaskCount);
+        counter(result, statistics, "threadpool_failed_tasks_total", "Number of tasks failed with an exception.", StatisticsObject::getFailedTaskCount);
+        counter(result, statistics, "threadpool_rejected_tasks_total", "Number of rejected tasks.", StatisticsObject::getRejectedTaskCount);
+        counter(result, statistics, "threadpool_queue_full_total", "Number of tasks rejected because the queue was full.", StatisticsObject::getQueueFullCount);
+        metrics(result, statistics, "threadpool_metric", "Pool type specific metrics.", "gauge", false);
+        metrics(result, statistics, "threadpool_metric_total", "Pool type specific counters.", "counter", true);
+        priorityQueues(result, statistics);
+        resourceUsage(result, statistics);
+        histogram(result, statistics, "threadpool_task_wait_seconds", "Time tasks spent waiting for a thread.", StatisticsObject::getWaitTimeHistogram);
+        histogram(result, statistics, "threadpool_task_run_seconds", "Time tasks spent running.", StatisticsObject::getRunTimeHistogram);
+        return result.toString();
+    }
+
+    private static void gauge(StringBuilder result, Collection<StatisticsObject> statistics, String name, String help,
+                              ToLongFunction<StatisticsObject> value) {
+        header(result, name, help, "gauge");
+        for (StatisticsObject statisticsObject : statistics) {
+            sample(result, name, statisticsObject, null, null, Long.toString(value.applyAsLong(statisticsObject)));
+        }
+    }
+
+    private static void counter(StringBuilder result, Collection<StatisticsObject> statistics, String name, String help,
+                                ToLongFunction<StatisticsObject> value) {
+        header(result, name, help, "counter");
+        for (StatisticsObject statisticsObject : statistics) {
+            sample(result, name, statisticsObject, null, null, Long.toString(value.applyAsLong(statisticsObject)));
+        }
+    }
+
+    private static void metrics(StringBuilder result, Collection<StatisticsObject> statistics, String name, String help,
+                                String type, boolean counters) {
+        Set<String> metricNames = new LinkedHashSet<>();
+        for (StatisticsObject statisticsObject : statistics) {
+            for (String metricName : statisticsObject.getMetrics().keySet()) {
+                if (statisticsObject.isCounterMetric(metricName) == counters) {
+                    metricNames.add(metricName);
+                }
+            }
+        }
+        if (metricNames.isEmpty()) {
+            return;
+        }
+        header(result, name, help, type);
+        for (String metricName : metricNames) {
+            for (StatisticsObject statisticsObject : statistics) {
+                Long value = statisticsObject.getMetrics().get(metricName);
+                if (value != null && statisticsObject.isCounterMetric(metricName) == counters) {
+                    sample(result, name, statisticsObject, "metric", metricName, Long.toString(value));
+                }
+            }
+        }
+    }
+
+    private static void priorityQueues(StringBuilder result, Collection<StatisticsObject> statistics) {
+        boolean hasPriorities = false;
+        for (StatisticsObject statisticsObject : statistics) {
+            hasPriorities |= !statisticsObject.getPriorityStatistics().isEmpty();
+        }
+        if (!hasPriorities) {
+            return;
+        }
+        header(result, "threadpool_priority_queued_tasks", "Number of tasks waiting in the queue per priority.", "gauge");
+        for (StatisticsObject statisticsObject : statistics) {
+            for (PriorityStatistics priority : statisticsObject.getPriorityStatistics()) {
+                sample(result, "threadpool_priority_queued_tasks", statisticsObject, "priority", Integer.toString(priority.getPriority()),
+                        Integer.toString(priority.getQueueSize()));
+            }
+        }
+    }
+
+    private static void resourceUsage(StringBuilder result, Collection<StatisticsObject> statistics) {
+        List<StatisticsObject> accountedStatistics = new ArrayList<>();
+        for (StatisticsObject statisticsObject : statistics) {
+            if (statisticsObject.isResourceAccountingEnabled() || statisticsObject.getTotalResourceUsage().getTaskCount() > 0) {
+                accountedStatistics.add(statisticsObject);
+            }
+        }
+        if (accountedStatistics.isEmpty()) {
+            return;
+        }
+        header(result, "threadpool_task_cpu_seconds_total", "CPU time of tasks run with resource accounting.", "counter");
+        for (StatisticsObject statisticsObject : accountedStatistics) {
+            sample(result, "threadpool_task_cpu_seconds_total", statisticsObject, null, null,
+                    Double.toString(statisticsObject.getTotalResourceUsage().getCpuTimeNanos() / NANOS_PER_SECOND));
+        }
+        header(result, "threadpool_task_allocated_bytes_total", "Bytes allocated by tasks run with resource accounting.", "counter");
+        for (StatisticsObject statisticsObject : accountedStatistics) {
+            sample(result, "threadpool_task_allocated_bytes_total", statisticsObject, null, null,
+                    Long.toString(statisticsObject.getTotalResourceUsage().getAllocatedBytes()));
+        }
+    }
+
+    private static void histogram(StringBuilder result, Collection<StatisticsObject> statistics, String name, String help,
+                                  Function<StatisticsObject, LatencyHistogram.Cumulative> histogram) {
+        header(result, name, help, "histogram");
+        for (StatisticsObject statisticsObject : statistics) {
+            LatencyHistogram.Cumulative cumulative = histogram.apply(statisticsObject);
+            for (int exponent = MIN_BUCKET_EXPONENT; exponent <= MAX_BUCKET_EXPONENT; exponent += 2) {
+                long upperBoundNanos = 1L << exponent;
+                sample(result, name + "_bucket", statisticsObject, "le", Double.toString(upperBoundNanos / NANOS_PER_SECOND),
+                        Long.toString(cumulative.getCountAtOrBelow(upperBoundNanos)));
+            }
+            sample(result, name + "_bucket", statisticsObject, "le", "+Inf", Long.toString(cumulative.getCount()));
+            sample(result, name + "_sum", statisticsObject, null, null, Double.toString(cumulative.getSum() / NANOS_PER_SECOND));
+            sample(result, name + "_count", statisticsObject, null, null, Long.toString(cumulative.getCount()));
+        }
+    }
+
+    private static void header(StringBuilder result, String name, String help, String type) {
+        result.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        result.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder result, String name, StatisticsObject statisticsObject,
+                               String labelName, String labelValue, String value) {
+        result.append(name).append("{pool=\"");
+        appendEscaped(result, statisticsObject.getName());
+        result.append('"');
+        if (labelName != null) {
+            result.append(',').append(labelName).append("=\"");
+            appendEscaped(result, labelValue);
+            result.append('"');
+        }
+        result.append("} ").append(value).append('\n');
+    }
+
+    private static void appendEscaped(StringBuilder result, String labelValue) {
+        for (int i = 0; i < labelValue.length(); i++) {
+            char character = labelValue.charAt(i);
+            if (character == '\\' || character == '"') {
+                result.append('\\').append(character);
+            } else if (character == '\n') {
+                result.append("\\n");
+            } else {
+                result.append(character);
+            }
+        }
+    }
+
+}
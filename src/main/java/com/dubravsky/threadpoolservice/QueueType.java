@@ -0,0 +1,34 @@
+package com.dubravsky.threadpoolservice;
+
+import com.dubravsky.threadpoolservice.util.MpmcArrayBlockingQueue;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+public enum QueueType {
+
+    ARRAY {
+        @Override
+        BlockingQueue<Runnable> newQueue(int capacity) {
+            return new ArrayBlockingQueue<>(capacity);
+        }
+    },
+
+    LINKED {
+        @Override
+        BlockingQueue<Runnable> newQueue(int capacity) {
+            return new LinkedBlockingQueue<>(capacity);
+        }
+    },
+
+    RING {
+        @Override
+        BlockingQueue<Runnable> newQueue(int capacity) {
+            return new MpmcArrayBlockingQueue<>(capacity);
+        }
+    };
+
+    abstract BlockingQueue<Runnable> newQueue(int capacity);
+
+}
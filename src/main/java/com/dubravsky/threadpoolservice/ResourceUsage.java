@@ -0,0 +1,68 @@
+package com.dubravsky.threadpoolservice;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CPU time and allocated bytes of the tasks run while resource accounting was enabled, together with their run time.
+ * The part of the run time which was not spent on CPU is time the tasks were blocked, waiting or descheduled.
+ */
+public class ResourceUsage {
+
+    public static final ResourceUsage EMPTY = new ResourceUsage(0, 0, 0, 0);
+
+    private static final double BYTES_PER_MEGABYTE = 1024.0 * 1024.0;
+
+    private final long taskCount;
+    private final long runTimeNanos;
+    private final long cpuTimeNanos;
+    private final long allocatedBytes;
+
+    ResourceUsage(long taskCount, long runTimeNanos, long cpuTimeNanos, long allocatedBytes) {
+        this.taskCount = taskCount;
+        this.runTimeNanos = runTimeNanos;
+        this.cpuTimeNanos = cpuTimeNanos;
+        this.allocatedBytes = allocatedBytes;
+    }
+
+    public long getTaskCount() {
+        return taskCount;
+    }
+
+    public long getRunTimeNanos() {
+        return runTimeNanos;
+    }
+
+    public long getCpuTimeNanos() {
+        return cpuTimeNanos;
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public long getCpuTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(cpuTimeNanos);
+    }
+
+    public double getAllocatedMegabytes() {
+        return allocatedBytes / BYTES_PER_MEGABYTE;
+    }
+
+    public double getOffCpuRatio() {
+        if (runTimeNanos <= 0) {
+            return 0;
+        }
+        return Math.max(0, Math.min(1, (runTimeNanos - cpuTimeNanos) / (double) runTimeNanos));
+    }
+
+    ResourceUsage minus(ResourceUsage other) {
+        return new ResourceUsage(taskCount - other.taskCount, runTimeNanos - other.runTimeNanos,
+                cpuTimeNanos - other.cpuTimeNanos, allocatedBytes - other.allocatedBytes);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CPU (ms): %d   Allocated (MB): %.1f   Off-CPU: %.0f%%", getCpuTimeMillis(), getAllocatedMegabytes(), getOffCpuRatio() * 100);
+    }
+
+}
@@ -0,0 +1,319 @@
+package com.dubravsky.threadpoolservice;
+
+import com.dubravsky.threadpoolservice.task.JoinPolicy;
+import com.dubravsky.threadpoolservice.task.ManagedCompletableFuture;
+import com.dubravsky.threadpoolservice.task.TaskBatch;
+import com.dubravsky.threadpoolservice.task.TaskContext;
+import com.dubravsky.threadpoolservice.task.TaskScope;
+import com.dubravsky.threadpoolservice.util.NamedForkJoinWorkerThreadFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+class SafeForkJoinPool extends ForkJoinPool implements NamedThreadPoolExecutor, MonitoredExecutor {
+
+    private final String name;
+    private final TaskMetrics taskMetrics = new TaskMetrics();
+    private final Consumer<Exception> exceptionHandler;
+    private TaskContext taskContext = TaskContext.NONE;
+
+    public SafeForkJoinPool(int parallelism, String threadName, Consumer<Exception> exceptionHandler) {
+        super(parallelism, NamedForkJoinWorkerThreadFactory.of(threadName), uncaughtExceptionHandler(exceptionHandler), false);
+        this.name = threadName;
+        this.exceptionHandler = taskMetrics.countingExceptionHandler(exceptionHandler);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public StatisticsObject getStatistics(boolean startNewInterval) {
+        return taskMetrics.snapshot(StatisticsObject.builder(this), startNewInterval).build();
+    }
+
+    @Override
+    public void setResourceAccountingEnabled(boolean resourceAccountingEnabled) {
+        taskMetrics.setResourceAccountingEnabled(resourceAccountingEnabled);
+    }
+
+    @Override
+    public void setSlowTaskThreshold(long slowTaskThreshold, TimeUnit unit) {
+        taskMetrics.setSlowTaskThreshold(slowTaskThreshold, unit);
+    }
+
+    @Override
+    public TaskMetrics getTaskMetrics() {
+        return taskMetrics;
+    }
+
+    @Override
+    public CompletableFuture<Void> submitAll(Collection<? extends Runnable> tasks) {
+        return TaskBatch.execute(this, tasks, exceptionHandler, getParallelism());
+    }
+
+    @Override
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier) {
+        return ManagedCompletableFuture.supplyAsync(supplier, this, exceptionHandler, taskContext);
+    }
+
+    @Override
+    public CompletableFuture<Void> runAsync(Runnable task) {
+        return ManagedCompletableFuture.runAsync(task, this, exceptionHandler, taskContext);
+    }
+
+    @Override
+    public <T> TaskScope<T> newScope(JoinPolicy joinPolicy) {
+        return new TaskScope<>(this, joinPolicy, taskContext);
+    }
+
+    public void setTaskContext(TaskContext taskContext) {
+        this.taskContext = taskContext;
+    }
+
+    public long getCompletedTaskCount() {
+        return taskMetrics.getCompletedCount();
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (task instanceof ForkJoinTask) {
+            push(instrumentedTask((ForkJoinTask<?>) task));
+        } else {
+            push(safeTask(task, null));
+        }
+    }
+
+    @Override
+    public void execute(ForkJoinTask<?> task) {
+        push(instrumentedTask(task));
+    }
+
+    @Override
+    public <T> ForkJoinTask<T> submit(ForkJoinTask<T> task) {
+        push(instrumentedTask(task));
+        return task;
+    }
+
+    @Override
+    public <T> T invoke(ForkJoinTask<T> task) {
+        push(instrumentedTask(task)).quietlyJoin();
+        return task.join();
+    }
+
+    @Override
+    public <T> ForkJoinTask<T> submit(Callable<T> task) {
+        return push(safeTask(task));
+    }
+
+    @Override
+    public <T> ForkJoinTask<T> submit(Runnable task, T result) {
+        return push(safeTask(task, result));
+    }
+
+    @Override
+    public ForkJoinTask<?> submit(Runnable task) {
+        if (task instanceof ForkJoinTask) {
+            ForkJoinTask<?> forkJoinTask = (ForkJoinTask<?>) task;
+            push(instrumentedTask(forkJoinTask));
+            return forkJoinTask;
+        }
+        return push(safeTask(task, null));
+    }
+
+    @Override
+    public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks) {
+        List<Future<T>> futures = new ArrayList<>(tasks.size());
+        try {
+            for (Callable<T> task : tasks) {
+                ForkJoinTask<T> safeTask = safeTask(task);
+                futures.add(safeTask);
+                push(safeTask);
+            }
+            for (Future<T> future : futures) {
+                ((ForkJoinTask<?>) future).quietlyJoin();
+            }
+            return futures;
+        } catch (Throwable throwable) {
+            for (Future<T> future : futures) {
+                future.cancel(false);
+            }
+            throw throwable;
+        }
+    }
+
+    @Override
+    protected <T> RunnableFuture<T> newTaskFor(Runnable task, T value) {
+        return new SafeTask<>(task, value);
+    }
+
+    @Override
+    protected <T> RunnableFuture<T> newTaskFor(Callable<T> task) {
+        return new SafeTask<>(task);
+    }
+
+    private <T> ForkJoinTask<T> push(ForkJoinTask<T> task) {
+        if (task == null) {
+            throw new NullPointerException();
+        }
+        taskMetrics.taskSubmitted();
+        try {
+            super.execute(task);
+        } catch (RejectedExecutionException e) {
+            taskMetrics.taskRejected();
+            throw e;
+        }
+        return task;
+    }
+
+    private ForkJoinTask<?> instrumentedTask(ForkJoinTask<?> task) {
+        if (task == null) {
+            throw new NullPointerException();
+        }
+        return task instanceof SafeTask || task instanceof InstrumentedTask ? task : new InstrumentedTask(task);
+    }
+
+    private <T> ForkJoinTask<T> safeTask(Callable<T> task) {
+        return new SafeTask<>(task);
+    }
+
+    private <T> ForkJoinTask<T> safeTask(Runnable task, T result) {
+        return new SafeTask<>(task, result);
+    }
+
+    private static Thread.UncaughtExceptionHandler uncaughtExceptionHandler(Consumer<Exception> exceptionHandler) {
+        return (thread, throwable) -> {
+            if (throwable instanceof Exception && exceptionHandler != null) {
+                exceptionHandler.accept((Exception) throwable);
+            }
+        };
+    }
+
+    private class SafeTask<T> extends ForkJoinTask<T> implements RunnableFuture<T> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Callable<T> callable;
+        private final Runnable runnable;
+        private final TaskContext.Snapshot context = taskContext.capture();
+        private final long submitNanos = System.nanoTime();
+        private T result;
+
+        SafeTask(Callable<T> callable) {
+            this.callable = callable;
+            this.runnable = null;
+        }
+
+        SafeTask(Runnable runnable, T result) {
+            this.callable = null;
+            this.runnable = runnable;
+            this.result = result;
+        }
+
+        @Override
+        public T getRawResult() {
+            return result;
+        }
+
+        @Override
+        protected void setRawResult(T value) {
+            this.result = value;
+        }
+
+        @Override
+        protected boolean exec() {
+            taskMetrics.taskStarted();
+            long startNanos = System.nanoTime();
+            taskMetrics.recordWaitTime(startNanos - submitNanos);
+            TaskMetrics.RunningTask runningTask = taskMetrics.runStarted(startNanos);
+            Object previousContext = context != null ? context.apply() : null;
+            try {
+                if (callable != null) {
+                    result = callable.call();
+                } else {
+                    runnable.run();
+                }
+            } catch (Exception e) {
+                result = null;
+                if (exceptionHandler != null) {
+                    exceptionHandler.accept(e);
+                }
+            } finally {
+                if (context != null) {
+                    context.restore(previousContext);
+                }
+                long runNanos = System.nanoTime() - startNanos;
+                taskMetrics.runFinished(runningTask, runNanos);
+                taskMetrics.recordRunTime(runNanos);
+                taskMetrics.taskCompleted();
+            }
+            return true;
+        }
+
+        @Override
+        public void run() {
+            invoke();
+        }
+
+    }
+
+    /**
+     * Runs a ForkJoinTask submitted from outside the pool with the same accounting as other tasks. The task
+     * keeps its own result and exception for its callers, an exception is also passed to the exception handler.
+     */
+    private class InstrumentedTask extends ForkJoinTask<Void> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final ForkJoinTask<?> task;
+        private final TaskContext.Snapshot context = taskContext.capture();
+        private final long submitNanos = System.nanoTime();
+
+        InstrumentedTask(ForkJoinTask<?> task) {
+            this.task = task;
+        }
+
+        @Override
+        public Void getRawResult() {
+            return null;
+        }
+
+        @Override
+        protected void setRawResult(Void value) {
+        }
+
+        @Override
+        protected boolean exec() {
+            taskMetrics.taskStarted();
+            long startNanos = System.nanoTime();
+            taskMetrics.recordWaitTime(startNanos - submitNanos);
+            TaskMetrics.RunningTask runningTask = taskMetrics.runStarted(startNanos);
+            Object previousContext = context != null ? context.apply() : null;
+            try {
+                task.quietlyInvoke();
+            } finally {
+                if (context != null) {
+                    context.restore(previousContext);
+                }
+                long runNanos = System.nanoTime() - startNanos;
+                taskMetrics.runFinished(runningTask, runNanos);
+                taskMetrics.recordRunTime(runNanos);
+                taskMetrics.taskCompleted();
+            }
+            if (task.isCompletedAbnormally() && !task.isCancelled()) {
+                Throwable throwable = task.getException();
+                if (throwable instanceof Exception && exceptionHandler != null) {
+                    exceptionHandler.accept((Exception) throwable);
+                }
+            }
+            return true;
+        }
+
+    }
+
+}
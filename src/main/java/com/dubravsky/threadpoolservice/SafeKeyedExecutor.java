@@ -0,0 +1,326 @@
+package com.dubravsky.threadpoolservice;
+
+import com.dubravsky.threadpoolservice.task.JoinPolicy;
+import com.dubravsky.threadpoolservice.task.ManagedCompletableFuture;
+import com.dubravsky.threadpoolservice.task.SafeFutureTask;
+import com.dubravsky.threadpoolservice.task.SafeRunnable;
+import com.dubravsky.threadpoolservice.task.SubmittedTask;
+import com.dubravsky.threadpoolservice.task.TaskContext;
+import com.dubravsky.threadpoolservice.task.TaskScope;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Keyed executor on top of a {@link SafeThreadPoolExecutor}. Every key has a mailbox with a lock-free queue and
+ * a task counter. A producer raises the counter before it adds the task, the producer which raises it from zero
+ * schedules the mailbox on the pool, and the mailbox runs its tasks one by one until the counter drops back to zero
+ * (waiting briefly for a task which is counted but not added yet). A mailbox is evicted once it is empty: it is closed
+ * by swapping the zero counter for a negative value, and producers which find it closed retry with a new mailbox.
+ * After a number of tasks a busy mailbox is rescheduled, so a hot key does not occupy a thread forever.
+ * Statistics count the keyed tasks, not the runs of their mailboxes.
+ */
+class SafeKeyedExecutor extends AbstractExecutorService implements KeyedExecutorService, NamedThreadPoolExecutor, MonitoredExecutor {
+
+    private static final int MAX_TASKS_PER_RUN = 32;
+    private static final int CLOSED = Integer.MIN_VALUE;
+
+    private final String name;
+    private final SafeThreadPoolExecutor workers;
+    private final TaskMetrics taskMetrics;
+    private final ConcurrentMap<Object, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    private final Function<Object, Mailbox> mailboxFactory = Mailbox::new;
+    private final LongAdder queuedTaskCount = new LongAdder();
+    private final AtomicLong maxMailboxDepth = new AtomicLong();
+    private volatile boolean stopped;
+    private Consumer<Exception> exceptionHandler;
+    private TaskContext taskContext = TaskContext.NONE;
+
+    public SafeKeyedExecutor(int parallelism, String threadName) {
+        this.name = threadName;
+        this.workers = new SafeThreadPoolExecutor(parallelism, threadName);
+        this.taskMetrics = workers.getTaskMetrics();
+        this.exceptionHandler = workers.getExceptionHandler();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public StatisticsObject getStatistics(boolean startNewInterval) {
+        return workers.statisticsBuilder(startNewInterval)
+                .queueSize((int) Math.min(Integer.MAX_VALUE, Math.max(0, queuedTaskCount.sum())))
+                .metric("Active Keys", mailboxes.size())
+                .metric("Max Mailbox Depth", startNewInterval ? maxMailboxDepth.getAndSet(0) : maxMailboxDepth.get())
+                .build();
+    }
+
+    @Override
+    public void setResourceAccountingEnabled(boolean resourceAccountingEnabled) {
+        workers.setResourceAccountingEnabled(resourceAccountingEnabled);
+    }
+
+    @Override
+    public void setSlowTaskThreshold(long slowTaskThreshold, TimeUnit unit) {
+        workers.setSlowTaskThreshold(slowTaskThreshold, unit);
+    }
+
+    @Override
+    public TaskMetrics getTaskMetrics() {
+        return taskMetrics;
+    }
+
+    @Override
+    public CompletableFuture<Void> submitAll(Collection<? extends Runnable> tasks) {
+        return workers.submitAll(tasks);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier) {
+        return ManagedCompletableFuture.supplyAsync(supplier, this, exceptionHandler, taskContext);
+    }
+
+    @Override
+    public CompletableFuture<Void> runAsync(Runnable task) {
+        return ManagedCompletableFuture.runAsync(task, this, exceptionHandler, taskContext);
+    }
+
+    @Override
+    public <T> TaskScope<T> newScope(JoinPolicy joinPolicy) {
+        return new TaskScope<>(this, joinPolicy, taskContext);
+    }
+
+    public void setExceptionHandler(Consumer<Exception> exceptionHandler) {
+        workers.setExceptionHandler(exceptionHandler);
+        this.exceptionHandler = workers.getExceptionHandler();
+    }
+
+    public void setTaskContext(TaskContext taskContext) {
+        workers.setTaskContext(taskContext);
+        this.taskContext = taskContext;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        workers.execute(task);
+    }
+
+    @Override
+    public void execute(Object key, Runnable task) {
+        if (key == null || task == null) {
+            throw new NullPointerException();
+        }
+        taskMetrics.taskSubmitted();
+        if (workers.isShutdown()) {
+            throw rejected(task);
+        }
+        KeyedTask keyedTask = new KeyedTask(taskContext.isEmpty() || task instanceof RunnableFuture ? task : new SafeRunnable(task, exceptionHandler, taskContext.capture()));
+        while (true) {
+            Mailbox mailbox = mailboxes.get(key);
+            if (mailbox == null) {
+                mailbox = mailboxes.computeIfAbsent(key, mailboxFactory);
+            }
+            if (mailbox.enqueue(keyedTask)) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public <T> Future<T> submit(Object key, Callable<T> task) {
+        if (task == null) {
+            throw new NullPointerException();
+        }
+        RunnableFuture<T> future = newTaskFor(task);
+        execute(key, future);
+        return future;
+    }
+
+    @Override
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        stopped = true;
+        List<Runnable> tasks = new ArrayList<>();
+        for (Runnable task : workers.shutdownNow()) {
+            if (!(task instanceof Mailbox)) {
+                tasks.add(task);
+            }
+        }
+        for (Mailbox mailbox : mailboxes.values()) {
+            mailbox.drainTo(tasks);
+        }
+        return tasks;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return workers.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return workers.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return workers.awaitTermination(timeout, unit);
+    }
+
+    @Override
+    protected <T> RunnableFuture<T> newTaskFor(Runnable task, T value) {
+        return new SafeFutureTask<>(task, value, exceptionHandler, taskContext.capture());
+    }
+
+    @Override
+    protected <T> RunnableFuture<T> newTaskFor(Callable<T> task) {
+        return new SafeFutureTask<>(task, exceptionHandler, taskContext.capture());
+    }
+
+    private RejectedExecutionException rejected(Object task) {
+        taskMetrics.taskRejected();
+        return new RejectedExecutionException("Task " + task + " rejected, executor " + name + " is shut down");
+    }
+
+    private static class KeyedTask implements Runnable, SubmittedTask {
+
+        private final Runnable task;
+        private final long submitNanos = System.nanoTime();
+
+        KeyedTask(Runnable task) {
+            this.task = task;
+        }
+
+        @Override
+        public long getSubmitNanos() {
+            return submitNanos;
+        }
+
+        @Override
+        public void run() {
+            task.run();
+        }
+
+    }
+
+    private class Mailbox implements SafeThreadPoolExecutor.AccountedTask {
+
+        private final Object key;
+        private final Queue<KeyedTask> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+
+        Mailbox(Object key) {
+            this.key = key;
+        }
+
+        boolean enqueue(KeyedTask task) {
+            int depth = size.incrementAndGet();
+            if (depth <= 0) {
+                return false;
+            }
+            tasks.add(task);
+            queuedTaskCount.increment();
+            if (depth > maxMailboxDepth.get()) {
+                maxMailboxDepth.accumulateAndGet(depth, Math::max);
+            }
+            if (depth == 1 && !schedule()) {
+                if (tasks.remove(task)) {
+                    queuedTaskCount.decrement();
+                    taskDone();
+                }
+                throw rejected(task.task);
+            }
+            return true;
+        }
+
+        @Override
+        public void run() {
+            int processed = 0;
+            Thread worker = Thread.currentThread();
+            while (!stopped) {
+                KeyedTask task = nextTask();
+                queuedTaskCount.decrement();
+                taskMetrics.beforeExecute(worker, task);
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    handleException(e);
+                } catch (Error e) {
+                    taskMetrics.afterExecute(e);
+                    if (taskDone()) {
+                        schedule();
+                    }
+                    throw e;
+                }
+                taskMetrics.afterExecute(null);
+                if (!taskDone()) {
+                    return;
+                }
+                if (++processed >= MAX_TASKS_PER_RUN) {
+                    if (schedule()) {
+                        return;
+                    }
+                    processed = 0;
+                }
+            }
+        }
+
+        private KeyedTask nextTask() {
+            KeyedTask task;
+            while ((task = tasks.poll()) == null) {
+                Thread.yield();
+            }
+            return task;
+        }
+
+        void drainTo(List<Runnable> drainedTasks) {
+            KeyedTask task;
+            while ((task = tasks.poll()) != null) {
+                queuedTaskCount.decrement();
+                drainedTasks.add(task.task);
+            }
+        }
+
+        private boolean taskDone() {
+            if (size.decrementAndGet() > 0) {
+                return true;
+            }
+            if (size.compareAndSet(0, CLOSED)) {
+                mailboxes.remove(key, this);
+            }
+            return false;
+        }
+
+        private boolean schedule() {
+            try {
+                workers.execute(this);
+                return true;
+            } catch (RejectedExecutionException e) {
+                return false;
+            }
+        }
+
+        private void handleException(Exception exception) {
+            if (exceptionHandler != null) {
+                exceptionHandler.accept(exception);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,111 @@
+package com.dubravsky.threadpoolservice;
+
+import com.dubravsky.threadpoolservice.task.PrioritizedFutureTask;
+import com.dubravsky.threadpoolservice.task.PrioritizedRunnable;
+import com.dubravsky.threadpoolservice.task.PrioritizedTask;
+import com.dubravsky.threadpoolservice.task.SubmittedTask;
+import com.dubravsky.threadpoolservice.util.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.RunnableFuture;
+
+class SafePriorityThreadPoolExecutor extends SafeThreadPoolExecutor implements PriorityExecutorService {
+
+    private final PriorityTaskQueue taskQueue;
+    private final LatencyHistogram[] waitTimeHistograms;
+
+    public SafePriorityThreadPoolExecutor(int nThreads, String threadName, int priorityLevels, long agingNanos) {
+        super(nThreads, threadName, new PriorityTaskQueue(priorityLevels, agingNanos), new AbortPolicy());
+        this.taskQueue = (PriorityTaskQueue) getQueue();
+        this.waitTimeHistograms = new LatencyHistogram[priorityLevels];
+        for (int priority = 0; priority < priorityLevels; priority++) {
+            waitTimeHistograms[priority] = new LatencyHistogram();
+        }
+    }
+
+    @Override
+    public int getPriorityLevels() {
+        return taskQueue.getLevels();
+    }
+
+    @Override
+    public StatisticsObject getStatistics(boolean startNewInterval) {
+        List<PriorityStatistics> priorityStatistics = new ArrayList<>(waitTimeHistograms.length);
+        for (int priority = 0; priority < waitTimeHistograms.length; priority++) {
+            LatencyHistogram waitTimeHistogram = waitTimeHistograms[priority];
+            priorityStatistics.add(new PriorityStatistics(priority, taskQueue.size(priority),
+                    startNewInterval ? waitTimeHistogram.snapshotAndReset() : waitTimeHistogram.snapshot()));
+        }
+        return statisticsBuilder(startNewInterval)
+                .priorityStatistics(priorityStatistics)
+                .build();
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        execute(task, getPriorityLevels() - 1);
+    }
+
+    @Override
+    public void execute(Runnable task, int priority) {
+        checkPriority(priority);
+        if (task == null) {
+            throw new NullPointerException();
+        }
+        if (task instanceof PrioritizedTask && ((PrioritizedTask) task).getPriority() == priority) {
+            super.execute(task);
+        } else {
+            super.execute(new PrioritizedRunnable(task, priority, getExceptionHandler(), getTaskContext().capture()));
+        }
+    }
+
+    @Override
+    public <T> Future<T> submit(Callable<T> task, int priority) {
+        checkPriority(priority);
+        if (task == null) {
+            throw new NullPointerException();
+        }
+        RunnableFuture<T> future = new PrioritizedFutureTask<>(task, priority, getExceptionHandler(), getTaskContext().capture());
+        execute(future, priority);
+        return future;
+    }
+
+    @Override
+    public Future<?> submit(Runnable task, int priority) {
+        checkPriority(priority);
+        if (task == null) {
+            throw new NullPointerException();
+        }
+        RunnableFuture<Void> future = new PrioritizedFutureTask<>(task, null, priority, getExceptionHandler(), getTaskContext().capture());
+        execute(future, priority);
+        return future;
+    }
+
+    @Override
+    protected void beforeExecute(Thread worker, Runnable task) {
+        super.beforeExecute(worker, task);
+        if (task instanceof SubmittedTask) {
+            waitTimeHistograms[taskQueue.levelOf(task)].record(System.nanoTime() - ((SubmittedTask) task).getSubmitNanos());
+        }
+    }
+
+    @Override
+    protected <T> RunnableFuture<T> newTaskFor(Runnable task, T value) {
+        return new PrioritizedFutureTask<>(task, value, getPriorityLevels() - 1, getExceptionHandler(), getTaskContext().capture());
+    }
+
+    @Override
+    protected <T> RunnableFuture<T> newTaskFor(Callable<T> task) {
+        return new PrioritizedFutureTask<>(task, getPriorityLevels() - 1, getExceptionHandler(), getTaskContext().capture());
+    }
+
+    private void checkPriority(int priority) {
+        if (priority < 0 || priority >= getPriorityLevels()) {
+            throw new IllegalArgumentException("Priority should be in range [0, " + (getPriorityLevels() - 1) + "] but it is " + priority);
+        }
+    }
+
+}
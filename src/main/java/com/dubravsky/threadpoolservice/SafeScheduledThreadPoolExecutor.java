@@ -1,23 +1,43 @@
 package com.dubravsky.threadpoolservice;
 
+import com.dubravsky.threadpoolservice.task.JoinPolicy;
+import com.dubravsky.threadpoolservice.task.ManagedCompletableFuture;
 import com.dubravsky.threadpoolservice.task.SafeCallable;
+import com.dubravsky.threadpoolservice.task.SafeFutureTask;
 import com.dubravsky.threadpoolservice.task.SafeRunnable;
+import com.dubravsky.threadpoolservice.task.SubmittedTask;
+import com.dubravsky.threadpoolservice.task.TaskBatch;
+import com.dubravsky.threadpoolservice.task.TaskContext;
+import com.dubravsky.threadpoolservice.task.TaskScope;
+import com.dubravsky.threadpoolservice.util.LatencyHistogram;
 import com.dubravsky.threadpoolservice.util.NamedThreadFactory;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
-public class SafeScheduledThreadPoolExecutor extends ScheduledThreadPoolExecutor implements NamedThreadPoolExecutor{
+public class SafeScheduledThreadPoolExecutor extends ScheduledThreadPoolExecutor implements CoalescingScheduledExecutorService, NamedThreadPoolExecutor, MonitoredExecutor {
 
     private final String name;
-    private Consumer<Exception> exceptionHandler;
+    private final TaskMetrics taskMetrics = new TaskMetrics();
+    private final ConcurrentMap<Object, CoalescedTask> coalescedTasks = new ConcurrentHashMap<>();
+    private final Set<Runnable> coalescedTimers = ConcurrentHashMap.newKeySet();
+    private final LongAdder mergedCount = new LongAdder();
+    private final LongAdder coalescedRunCount = new LongAdder();
+    private final Set<FixedRateTask> fixedRateTasks = ConcurrentHashMap.newKeySet();
+    private Consumer<Exception> exceptionHandler = taskMetrics.countingExceptionHandler(null);
+    private TaskContext taskContext = TaskContext.NONE;
 
     public SafeScheduledThreadPoolExecutor(int corePoolSize, String threadName) {
         super(corePoolSize, NamedThreadFactory.of(threadName));
         this.name = threadName;
+        setThreadFactory(taskMetrics.countingThreadFactory(getThreadFactory()));
+        setRejectedExecutionHandler(getRejectedExecutionHandler());
     }
 
     @Override
@@ -25,94 +45,506 @@ public class SafeScheduledThreadPoolExecutor extends ScheduledThreadPoolExecutor
         return name;
     }
 
+    @Override
+    public StatisticsObject getStatistics(boolean startNewInterval) {
+        return taskMetrics.snapshot(StatisticsObject.builder(name), startNewInterval)
+                .poolSize(getPoolSize())
+                .queueSize(getQueue().size())
+                .metric("Coalesced Keys", coalescedTasks.size())
+                .counterMetric("Merged Tasks", mergedCount.sum())
+                .counterMetric("Coalesced Runs", coalescedRunCount.sum())
+                .periodicTaskStatistics(periodicTaskStatistics(startNewInterval))
+                .build();
+    }
+
+    @Override
+    public void setResourceAccountingEnabled(boolean resourceAccountingEnabled) {
+        taskMetrics.setResourceAccountingEnabled(resourceAccountingEnabled);
+    }
+
+    @Override
+    public void setSlowTaskThreshold(long slowTaskThreshold, TimeUnit unit) {
+        taskMetrics.setSlowTaskThreshold(slowTaskThreshold, unit);
+    }
+
+    @Override
+    public TaskMetrics getTaskMetrics() {
+        return taskMetrics;
+    }
+
+    @Override
+    public CompletableFuture<Void> submitAll(Collection<? extends Runnable> tasks) {
+        return TaskBatch.execute(this, tasks, exceptionHandler, getCorePoolSize());
+    }
+
+    @Override
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier) {
+        return ManagedCompletableFuture.supplyAsync(supplier, this, exceptionHandler, taskContext);
+    }
+
+    @Override
+    public CompletableFuture<Void> runAsync(Runnable task) {
+        return ManagedCompletableFuture.runAsync(task, this, exceptionHandler, taskContext);
+    }
+
+    @Override
+    public <T> TaskScope<T> newScope(JoinPolicy joinPolicy) {
+        return new TaskScope<>(this, joinPolicy, taskContext);
+    }
+
     public void setExceptionHandler(Consumer<Exception> exceptionHandler) {
-        this.exceptionHandler = exceptionHandler;
+        this.exceptionHandler = taskMetrics.countingExceptionHandler(exceptionHandler);
+    }
+
+    public void setTaskContext(TaskContext taskContext) {
+        this.taskContext = taskContext;
+    }
+
+    @Override
+    public void setRejectedExecutionHandler(RejectedExecutionHandler rejectedExecutionHandler) {
+        if (rejectedExecutionHandler == null) {
+            throw new NullPointerException();
+        }
+        super.setRejectedExecutionHandler((task, executor) -> {
+            coalescedTimers.remove(task);
+            taskMetrics.taskRejected();
+            rejectedExecutionHandler.rejectedExecution(task, executor);
+        });
+    }
+
+    @Override
+    public int getPoolSize() {
+        return taskMetrics.getThreadCount();
+    }
+
+    @Override
+    public int getActiveCount() {
+        return taskMetrics.getActiveCount();
+    }
+
+    @Override
+    public long getCompletedTaskCount() {
+        return taskMetrics.getCompletedCount();
     }
 
     @Override
     public ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit) {
+        taskMetrics.taskSubmitted();
         return super.schedule(safeRunnable(task), delay, unit);
     }
 
     @Override
     public <V> ScheduledFuture<V> schedule(Callable<V> task, long delay, TimeUnit unit) {
-        return super.schedule(safeCallable(task), delay, unit);
+        taskMetrics.taskSubmitted();
+        return super.schedule(new SafeCallable<>(task, exceptionHandler, taskContext.capture()), delay, unit);
     }
 
     @Override
     public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, long initialDelay, long period, TimeUnit unit) {
+        if (task instanceof PeriodicTask) {
+            return scheduleAtFixedRate((PeriodicTask) task, initialDelay, period, unit);
+        }
+        taskMetrics.taskSubmitted();
         return super.scheduleAtFixedRate(safeRunnable(task), initialDelay, period, unit);
     }
 
     @Override
     public ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, long initialDelay, long delay, TimeUnit unit) {
+        taskMetrics.taskSubmitted();
         return super.scheduleWithFixedDelay(safeRunnable(task), initialDelay, delay, unit);
     }
 
     @Override
-    public void execute(Runnable task) {
-        super.execute(safeRunnable(task));
+    public void shutdown() {
+        super.shutdown();
+        if (!getExecuteExistingDelayedTasksAfterShutdownPolicy()) {
+            discardCoalescedTasks();
+        }
+        if (!getContinueExistingPeriodicTasksAfterShutdownPolicy() || !getExecuteExistingDelayedTasksAfterShutdownPolicy()) {
+            cancelFixedRateTasks();
+        }
     }
 
     @Override
-    public Future<?> submit(Runnable task) {
-        return super.submit(safeRunnable(task));
+    public List<Runnable> shutdownNow() {
+        List<Runnable> tasks = super.shutdownNow();
+        discardCoalescedTasks();
+        cancelFixedRateTasks();
+        return tasks;
     }
 
-    @Override
-    public <T> Future<T> submit(Runnable task, T result) {
-        return super.submit(safeRunnable(task), result);
+    private void discardCoalescedTasks() {
+        for (CoalescedTask coalescedTask : coalescedTasks.values()) {
+            synchronized (coalescedTask) {
+                coalescedTask.done = true;
+            }
+        }
+        coalescedTasks.clear();
+    }
+
+    private void cancelFixedRateTasks() {
+        for (FixedRateTask fixedRateTask : fixedRateTasks) {
+            fixedRateTask.cancel(false);
+        }
+    }
+
+    private ScheduledFuture<?> scheduleAtFixedRate(PeriodicTask task, long initialDelay, long period, TimeUnit unit) {
+        if (unit == null) {
+            throw new NullPointerException();
+        }
+        if (period <= 0) {
+            throw new IllegalArgumentException();
+        }
+        long initialDelayNanos = Math.max(0, unit.toNanos(initialDelay));
+        FixedRateTask fixedRateTask = new FixedRateTask(task, unit.toNanos(period), System.nanoTime() + initialDelayNanos);
+        fixedRateTasks.add(fixedRateTask);
+        taskMetrics.taskSubmitted();
+        try {
+            fixedRateTask.scheduleRun(initialDelayNanos);
+        } catch (RejectedExecutionException e) {
+            fixedRateTasks.remove(fixedRateTask);
+            throw e;
+        }
+        return fixedRateTask;
     }
 
     @Override
-    public <T> Future<T> submit(Callable<T> task) {
-        return super.submit(safeCallable(task));
+    public void scheduleCoalesced(Object key, long delay, TimeUnit unit, CoalescingMode mode, Runnable task) {
+        if (key == null || unit == null || mode == null || task == null) {
+            throw new NullPointerException();
+        }
+        long delayNanos = unit.toNanos(delay);
+        for (;;) {
+            if (isShutdown()) {
+                taskMetrics.taskRejected();
+                throw new RejectedExecutionException("Task " + task + " rejected, executor " + name + " is shut down");
+            }
+            CoalescedTask coalescedTask = coalescedTasks.get(key);
+            if (coalescedTask == null) {
+                coalescedTask = new CoalescedTask(key, mode, task, System.nanoTime() + delayNanos);
+                if (coalescedTasks.putIfAbsent(key, coalescedTask) == null) {
+                    taskMetrics.taskSubmitted();
+                    try {
+                        scheduleCoalesced(coalescedTask, delayNanos);
+                    } catch (RejectedExecutionException e) {
+                        synchronized (coalescedTask) {
+                            coalescedTask.done = true;
+                        }
+                        coalescedTasks.remove(key, coalescedTask);
+                        throw e;
+                    }
+                    return;
+                }
+            } else if (coalescedTask.merge(task, delayNanos)) {
+                mergedCount.increment();
+                return;
+            } else {
+                coalescedTasks.remove(key, coalescedTask);
+            }
+        }
     }
 
     @Override
-    protected <T> RunnableFuture<T> newTaskFor(Runnable task, T value) {
-        return super.newTaskFor(safeRunnable(task), value);
+    protected void beforeExecute(Thread worker, Runnable task) {
+        if (!coalescedTimers.contains(task)) {
+            taskMetrics.beforeExecute(worker, task);
+        }
     }
 
     @Override
-    protected <T> RunnableFuture<T> newTaskFor(Callable<T> task) {
-        return super.newTaskFor(safeCallable(task));
+    protected void afterExecute(Runnable task, Throwable throwable) {
+        if (!coalescedTimers.remove(task)) {
+            taskMetrics.afterExecute(throwable);
+        }
     }
 
     @Override
-    public <T> T invokeAny(Collection<? extends Callable<T>> tasks) throws InterruptedException, ExecutionException {
-        return super.invokeAny(safeCallables(tasks));
+    protected <V> RunnableScheduledFuture<V> decorateTask(Runnable runnable, RunnableScheduledFuture<V> task) {
+        if (runnable instanceof CoalescedTask) {
+            coalescedTimers.add(task);
+        }
+        return task;
     }
 
     @Override
-    public <T> T invokeAny(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
-        return super.invokeAny(safeCallables(tasks), timeout, unit);
+    protected void terminated() {
+        coalescedTimers.clear();
+        super.terminated();
     }
 
     @Override
-    public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks) throws InterruptedException {
-        return super.invokeAll(safeCallables(tasks));
+    protected <T> RunnableFuture<T> newTaskFor(Runnable task, T value) {
+        return new SafeFutureTask<>(task, value, exceptionHandler, taskContext.capture());
     }
 
     @Override
-    public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit) throws InterruptedException {
-        return super.invokeAll(safeCallables(tasks), timeout, unit);
+    protected <T> RunnableFuture<T> newTaskFor(Callable<T> task) {
+        return new SafeFutureTask<>(task, exceptionHandler, taskContext.capture());
+    }
+
+    private Runnable safeRunnable(Runnable task) {
+        return task instanceof RunnableFuture || task instanceof SubmittedTask ? task : new SafeRunnable(task, exceptionHandler, taskContext.capture());
+    }
+
+    private List<PeriodicTaskStatistics> periodicTaskStatistics(boolean startNewInterval) {
+        List<PeriodicTaskStatistics> periodicTaskStatistics = new ArrayList<>();
+        for (FixedRateTask fixedRateTask : fixedRateTasks) {
+            periodicTaskStatistics.add(fixedRateTask.statistics(startNewInterval));
+        }
+        return periodicTaskStatistics;
     }
 
-    private SafeRunnable safeRunnable(Runnable task) {
-        return new SafeRunnable(task, exceptionHandler);
+    private void scheduleCoalesced(CoalescedTask coalescedTask, long delayNanos) {
+        super.schedule(coalescedTask, delayNanos, TimeUnit.NANOSECONDS);
     }
 
-    private <T> SafeCallable safeCallable(Callable<T> task) {
-        return new SafeCallable<>(task, exceptionHandler);
+    /**
+     * Pending execution of a key. It stays in the map from the first submission until a run finishes with nothing
+     * merged into it, so a burst of submissions allocates a single entry and schedules a single timer. A debounced
+     * entry does not reschedule its timer on every submission, it only moves the deadline and the timer sleeps again
+     * for the rest of it when it fires early. An entry which is done refuses merges and the submitter creates a new one.
+     * Its timers bypass the executor accounting: a submission is counted when the entry is created or a merge asks for
+     * another run, and only the runs themselves are counted as started and completed.
+     */
+    private class CoalescedTask implements Runnable {
+
+        private final Object key;
+        private final CoalescingMode mode;
+        private Runnable task;
+        private TaskContext.Snapshot context;
+        private long deadlineNanos;
+        private boolean scheduled = true;
+        private boolean done;
+
+        CoalescedTask(Object key, CoalescingMode mode, Runnable task, long deadlineNanos) {
+            this.key = key;
+            this.mode = mode;
+            this.task = task;
+            this.context = taskContext.capture();
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        synchronized boolean merge(Runnable task, long delayNanos) {
+            if (done) {
+                return false;
+            }
+            this.task = task;
+            this.context = taskContext.capture();
+            if (!scheduled) {
+                taskMetrics.taskSubmitted();
+                scheduled = true;
+                deadlineNanos = System.nanoTime() + delayNanos;
+            } else if (mode == CoalescingMode.DEBOUNCE) {
+                deadlineNanos = System.nanoTime() + delayNanos;
+            }
+            return true;
+        }
+
+        @Override
+        public void run() {
+            Runnable currentTask;
+            TaskContext.Snapshot currentContext;
+            long currentDeadlineNanos;
+            synchronized (this) {
+                long remainingNanos = deadlineNanos - System.nanoTime();
+                if (remainingNanos > 0) {
+                    reschedule(remainingNanos);
+                    return;
+                }
+                currentTask = task;
+                currentContext = context;
+                currentDeadlineNanos = deadlineNanos;
+                task = null;
+                context = null;
+                scheduled = false;
+            }
+            taskMetrics.taskStarted();
+            long startNanos = System.nanoTime();
+            taskMetrics.recordWaitTime(startNanos - currentDeadlineNanos);
+            TaskMetrics.RunningTask runningTask = taskMetrics.runStarted(startNanos);
+            Object previousContext = currentContext != null ? currentContext.apply() : null;
+            try {
+                currentTask.run();
+            } catch (Exception e) {
+                if (exceptionHandler != null) {
+                    exceptionHandler.accept(e);
+                }
+            } finally {
+                if (currentContext != null) {
+                    currentContext.restore(previousContext);
+                }
+                long runNanos = System.nanoTime() - startNanos;
+                taskMetrics.runFinished(runningTask, runNanos);
+                taskMetrics.recordRunTime(runNanos);
+                taskMetrics.taskCompleted();
+                coalescedRunCount.increment();
+                synchronized (this) {
+                    if (scheduled) {
+                        reschedule(deadlineNanos - System.nanoTime());
+                    } else {
+                        done = true;
+                        coalescedTasks.remove(key, this);
+                    }
+                }
+            }
+        }
+
+        private void reschedule(long delayNanos) {
+            try {
+                scheduleCoalesced(this, delayNanos);
+            } catch (RejectedExecutionException e) {
+                done = true;
+                coalescedTasks.remove(key, this);
+            }
+        }
+
     }
 
-    private <T> Collection<? extends Callable<T>> safeCallables(Collection<? extends Callable<T>> tasks) {
-        Collection<SafeCallable<T>> result = new ArrayList<>();
-        for (Callable<T> task : tasks) {
-            result.add(new SafeCallable<>(task, exceptionHandler));
+    /**
+     * Fixed-rate task which schedules each of its runs as a one-shot task, so that the time of the next run is chosen
+     * by its {@link CatchUpPolicy} after the previous run has finished. The task itself is the future returned
+     * to the caller; like a periodic task of the JDK it is never completed normally, only cancelled. It is cancelled
+     * by {@link #shutdownNow()}, and by {@link #shutdown()} unless the pool keeps both existing periodic and delayed
+     * tasks after shutdown, in which case its pending run still executes before it is cancelled.
+     */
+    private class FixedRateTask implements Runnable, ScheduledFuture<Object> {
+
+        private final PeriodicTask task;
+        private final long periodNanos;
+        private final CompletableFuture<Object> completion = new CompletableFuture<>();
+        private final LatencyHistogram latenessHistogram = new LatencyHistogram();
+        private final LatencyHistogram runTimeHistogram = new LatencyHistogram();
+        private final LongAdder skippedRunCount = new LongAdder();
+        private final TaskContext.Snapshot context = taskContext.capture();
+        private volatile long scheduledNanos;
+        private volatile Future<?> nextRun;
+        private int lateRuns;
+
+        FixedRateTask(PeriodicTask task, long periodNanos, long scheduledNanos) {
+            this.task = task;
+            this.periodNanos = periodNanos;
+            this.scheduledNanos = scheduledNanos;
+        }
+
+        @Override
+        public void run() {
+            if (completion.isDone()) {
+                return;
+            }
+            if (isShutdown() && !getContinueExistingPeriodicTasksAfterShutdownPolicy()) {
+                cancel(false);
+                return;
+            }
+            long startNanos = System.nanoTime();
+            latenessHistogram.record(startNanos - scheduledNanos);
+            Object previousContext = context != null ? context.apply() : null;
+            try {
+                task.run();
+            } catch (Exception e) {
+                if (exceptionHandler != null) {
+                    exceptionHandler.accept(e);
+                }
+            } finally {
+                if (context != null) {
+                    context.restore(previousContext);
+                }
+                long endNanos = System.nanoTime();
+                runTimeHistogram.record(endNanos - startNanos);
+                scheduleNextRun(endNanos);
+            }
+        }
+
+        private void scheduleNextRun(long nowNanos) {
+            long nextRunNanos = scheduledNanos + periodNanos;
+            if (nextRunNanos < nowNanos) {
+                long catchUpRunNanos = task.getCatchUpPolicy().nextRunNanos(scheduledNanos, periodNanos, nowNanos, lateRuns);
+                if (catchUpRunNanos > nextRunNanos) {
+                    skippedRunCount.add((catchUpRunNanos - nextRunNanos) / periodNanos);
+                }
+                nextRunNanos = catchUpRunNanos;
+            }
+            lateRuns = nextRunNanos <= nowNanos ? lateRuns + 1 : 0;
+            scheduledNanos = nextRunNanos;
+            if (isShutdown()) {
+                cancel(false);
+                return;
+            }
+            try {
+                scheduleRun(Math.max(0, nextRunNanos - nowNanos));
+            } catch (RejectedExecutionException e) {
+                cancel(false);
+            }
+        }
+
+        void scheduleRun(long delayNanos) {
+            Future<?> future = SafeScheduledThreadPoolExecutor.super.schedule(this, delayNanos, TimeUnit.NANOSECONDS);
+            nextRun = future;
+            if (completion.isDone()) {
+                cancelRun(future, false);
+            }
+        }
+
+        private void cancelRun(Future<?> future, boolean mayInterruptIfRunning) {
+            future.cancel(mayInterruptIfRunning);
+            if (future instanceof Runnable) {
+                remove((Runnable) future);
+            }
+        }
+
+        PeriodicTaskStatistics statistics(boolean startNewInterval) {
+            return new PeriodicTaskStatistics(task.getName(), periodNanos, skippedRunCount.sum(),
+                    startNewInterval ? latenessHistogram.snapshotAndReset() : latenessHistogram.snapshot(),
+                    startNewInterval ? runTimeHistogram.snapshotAndReset() : runTimeHistogram.snapshot());
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(scheduledNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
         }
-        return result;
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = completion.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                fixedRateTasks.remove(this);
+                Future<?> future = nextRun;
+                if (future != null) {
+                    cancelRun(future, mayInterruptIfRunning);
+                }
+            }
+            return cancelled;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return completion.isCancelled();
+        }
+
+        @Override
+        public boolean isDone() {
+            return completion.isDone();
+        }
+
+        @Override
+        public Object get() throws InterruptedException, ExecutionException {
+            return completion.get();
+        }
+
+        @Override
+        public Object get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+            return completion.get(timeout, unit);
+        }
+
+        @Override
+        public String toString() {
+            return task.toString();
+        }
+
     }
 
 }
@@ -0,0 +1,379 @@
+package com.dubravsky.threadpoolservice;
+
+import com.dubravsky.threadpoolservice.task.JoinPolicy;
+import com.dubravsky.threadpoolservice.task.ManagedCompletableFuture;
+import com.dubravsky.threadpoolservice.task.SafeFutureTask;
+import com.dubravsky.threadpoolservice.task.SafeRunnable;
+import com.dubravsky.threadpoolservice.task.SubmittedTask;
+import com.dubravsky.threadpoolservice.task.TaskBatch;
+import com.dubravsky.threadpoolservice.task.TaskContext;
+import com.dubravsky.threadpoolservice.task.TaskScope;
+import com.dubravsky.threadpoolservice.util.NamedThreadFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Thread pool with a lock-free queue per worker. A worker takes tasks from its own shard first and steals from
+ * the next shards when it is empty. A worker parks only after it has announced itself idle and found every shard empty,
+ * and a producer wakes the owner of the shard it queued to or, if the owner is busy, any idle worker.
+ * The park is timed, so a missed wakeup delays a task by at most {@link #PARK_NANOS}.
+ */
+class SafeShardedThreadPool extends AbstractExecutorService implements ShardedExecutorService, NamedThreadPoolExecutor, MonitoredExecutor {
+
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final int RUNNING = 0;
+    private static final int SHUTDOWN = 1;
+    private static final int STOP = 2;
+
+    private final String name;
+    private final Shard[] shards;
+    private final ThreadAffinity threadAffinity;
+    private final TaskMetrics taskMetrics = new TaskMetrics();
+    private final ThreadFactory threadFactory;
+    private final ThreadLocal<Shard> currentShard = new ThreadLocal<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private final AtomicInteger liveCount = new AtomicInteger();
+    private final LongAdder stealCount = new LongAdder();
+    private final CountDownLatch terminationLatch = new CountDownLatch(1);
+    private volatile int runState = RUNNING;
+    private Consumer<Exception> exceptionHandler = taskMetrics.countingExceptionHandler(null);
+    private TaskContext taskContext = TaskContext.NONE;
+
+    public SafeShardedThreadPool(int nThreads, String threadName, ThreadAffinity threadAffinity) {
+        this.name = threadName;
+        this.threadAffinity = threadAffinity;
+        this.threadFactory = taskMetrics.countingThreadFactory(NamedThreadFactory.of(threadName));
+        this.shards = new Shard[nThreads];
+        for (int i = 0; i < nThreads; i++) {
+            shards[i] = new Shard(i);
+        }
+        for (Shard shard : shards) {
+            startWorker(shard);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    @Override
+    public StatisticsObject getStatistics(boolean startNewInterval) {
+        long queueSize = 0;
+        long maxShardQueueSize = 0;
+        for (Shard shard : shards) {
+            long shardQueueSize = Math.max(0, shard.size.sum());
+            queueSize += shardQueueSize;
+            maxShardQueueSize = Math.max(maxShardQueueSize, shardQueueSize);
+        }
+        StatisticsObject.Builder builder = StatisticsObject.builder(name)
+                .poolSize(taskMetrics.getThreadCount())
+                .queueSize((int) Math.min(Integer.MAX_VALUE, queueSize))
+                .metric("Shards", shards.length)
+                .metric("Max Shard Queue", maxShardQueueSize)
+                .counterMetric("Steals", stealCount.sum());
+        return taskMetrics.snapshot(builder, startNewInterval).build();
+    }
+
+    @Override
+    public void setResourceAccountingEnabled(boolean resourceAccountingEnabled) {
+        taskMetrics.setResourceAccountingEnabled(resourceAccountingEnabled);
+    }
+
+    @Override
+    public void setSlowTaskThreshold(long slowTaskThreshold, TimeUnit unit) {
+        taskMetrics.setSlowTaskThreshold(slowTaskThreshold, unit);
+    }
+
+    @Override
+    public TaskMetrics getTaskMetrics() {
+        return taskMetrics;
+    }
+
+    @Override
+    public CompletableFuture<Void> submitAll(Collection<? extends Runnable> tasks) {
+        return TaskBatch.execute(this, tasks, exceptionHandler, shards.length);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier) {
+        return ManagedCompletableFuture.supplyAsync(supplier, this, exceptionHandler, taskContext);
+    }
+
+    @Override
+    public CompletableFuture<Void> runAsync(Runnable task) {
+        return ManagedCompletableFuture.runAsync(task, this, exceptionHandler, taskContext);
+    }
+
+    @Override
+    public <T> TaskScope<T> newScope(JoinPolicy joinPolicy) {
+        return new TaskScope<>(this, joinPolicy, taskContext);
+    }
+
+    public void setExceptionHandler(Consumer<Exception> exceptionHandler) {
+        this.exceptionHandler = taskMetrics.countingExceptionHandler(exceptionHandler);
+    }
+
+    public void setTaskContext(TaskContext taskContext) {
+        this.taskContext = taskContext;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        Shard shard = currentShard.get();
+        execute(shard != null ? shard : shards[shardIndex(Thread.currentThread().getId())], task);
+    }
+
+    @Override
+    public void execute(Object key, Runnable task) {
+        if (key == null) {
+            throw new NullPointerException();
+        }
+        execute(shards[shardIndex(key.hashCode())], task);
+    }
+
+    @Override
+    public void shutdown() {
+        setRunState(SHUTDOWN);
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        setRunState(STOP);
+        List<Runnable> tasks = new ArrayList<>();
+        for (Shard shard : shards) {
+            Thread thread = shard.thread;
+            if (thread != null) {
+                thread.interrupt();
+            }
+            Runnable task;
+            while ((task = shard.poll()) != null) {
+                tasks.add(task);
+            }
+        }
+        return tasks;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return runState != RUNNING;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return terminationLatch.getCount() == 0;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return terminationLatch.await(timeout, unit);
+    }
+
+    @Override
+    protected <T> RunnableFuture<T> newTaskFor(Runnable task, T value) {
+        return new SafeFutureTask<>(task, value, exceptionHandler, taskContext.capture());
+    }
+
+    @Override
+    protected <T> RunnableFuture<T> newTaskFor(Callable<T> task) {
+        return new SafeFutureTask<>(task, exceptionHandler, taskContext.capture());
+    }
+
+    private void execute(Shard shard, Runnable task) {
+        if (task == null) {
+            throw new NullPointerException();
+        }
+        taskMetrics.taskSubmitted();
+        if (runState != RUNNING) {
+            throw rejected(task);
+        }
+        Runnable safeTask = task instanceof RunnableFuture || task instanceof SubmittedTask ? task : new SafeRunnable(task, exceptionHandler, taskContext.capture());
+        shard.add(safeTask);
+        if (runState != RUNNING && shard.remove(safeTask)) {
+            throw rejected(task);
+        }
+        signal(shard);
+    }
+
+    private void signal(Shard shard) {
+        if (shard.parked) {
+            LockSupport.unpark(shard.thread);
+        } else if (idleCount.get() > 0) {
+            for (int i = 1; i < shards.length; i++) {
+                Shard idleShard = shards[(shard.index + i) % shards.length];
+                if (idleShard.parked) {
+                    LockSupport.unpark(idleShard.thread);
+                    return;
+                }
+            }
+        }
+    }
+
+    private void startWorker(Shard shard) {
+        liveCount.incrementAndGet();
+        Thread thread = threadFactory.newThread(() -> runWorker(shard));
+        shard.thread = thread;
+        thread.start();
+    }
+
+    private void runWorker(Shard shard) {
+        boolean completedAbruptly = true;
+        try {
+            currentShard.set(shard);
+            try {
+                threadAffinity.pin(shard.index, shards.length);
+            } catch (Exception e) {
+                handleException(e);
+            }
+            while (runState != STOP) {
+                Runnable task = shard.poll();
+                if (task == null) {
+                    task = steal(shard);
+                }
+                if (task != null) {
+                    runTask(task);
+                } else if (runState == SHUTDOWN && isEmpty()) {
+                    break;
+                } else {
+                    park(shard);
+                }
+            }
+            completedAbruptly = false;
+        } finally {
+            if (completedAbruptly && runState != STOP) {
+                startWorker(shard);
+            }
+            if (liveCount.decrementAndGet() == 0 && runState != RUNNING) {
+                terminationLatch.countDown();
+            }
+        }
+    }
+
+    private void runTask(Runnable task) {
+        taskMetrics.beforeExecute(Thread.currentThread(), task);
+        Throwable throwable = null;
+        try {
+            task.run();
+        } catch (Throwable t) {
+            throwable = t;
+            throw t;
+        } finally {
+            taskMetrics.afterExecute(throwable);
+            if (runState != STOP) {
+                Thread.interrupted();
+            }
+        }
+    }
+
+    private Runnable steal(Shard thief) {
+        for (int i = 1; i < shards.length; i++) {
+            Runnable task = shards[(thief.index + i) % shards.length].poll();
+            if (task != null) {
+                stealCount.increment();
+                return task;
+            }
+        }
+        return null;
+    }
+
+    private void park(Shard shard) {
+        shard.parked = true;
+        idleCount.incrementAndGet();
+        try {
+            if (runState == RUNNING && isEmpty()) {
+                LockSupport.parkNanos(this, PARK_NANOS);
+            }
+        } finally {
+            idleCount.decrementAndGet();
+            shard.parked = false;
+        }
+    }
+
+    private boolean isEmpty() {
+        for (Shard shard : shards) {
+            if (!shard.tasks.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private synchronized void setRunState(int targetState) {
+        if (runState >= targetState) {
+            return;
+        }
+        runState = targetState;
+        for (Shard shard : shards) {
+            LockSupport.unpark(shard.thread);
+        }
+        if (liveCount.get() == 0) {
+            terminationLatch.countDown();
+        }
+    }
+
+    private int shardIndex(long hash) {
+        long spread = hash * 0x9E3779B97F4A7C15L;
+        return (int) ((spread >>> 32) % shards.length);
+    }
+
+    private void handleException(Exception exception) {
+        if (exceptionHandler != null) {
+            exceptionHandler.accept(exception);
+        }
+    }
+
+    private RejectedExecutionException rejected(Runnable task) {
+        taskMetrics.taskRejected();
+        return new RejectedExecutionException("Task " + task + " rejected, executor " + name + " is shut down");
+    }
+
+    private static class Shard {
+
+        private final int index;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final LongAdder size = new LongAdder();
+        private volatile Thread thread;
+        private volatile boolean parked;
+
+        Shard(int index) {
+            this.index = index;
+        }
+
+        void add(Runnable task) {
+            tasks.add(task);
+            size.increment();
+        }
+
+        Runnable poll() {
+            Runnable task = tasks.poll();
+            if (task != null) {
+                size.decrement();
+            }
+            return task;
+        }
+
+        boolean remove(Runnable task) {
+            if (tasks.remove(task)) {
+                size.decrement();
+                return true;
+            }
+            return false;
+        }
+
+    }
+
+}
@@ -1,26 +1,41 @@
 package com.dubravsky.threadpoolservice;
 
-import com.dubravsky.threadpoolservice.task.SafeCallable;
+import com.dubravsky.threadpoolservice.task.JoinPolicy;
+import com.dubravsky.threadpoolservice.task.ManagedCompletableFuture;
+import com.dubravsky.threadpoolservice.task.SafeFutureTask;
 import com.dubravsky.threadpoolservice.task.SafeRunnable;
+import com.dubravsky.threadpoolservice.task.SubmittedTask;
+import com.dubravsky.threadpoolservice.task.TaskBatch;
+import com.dubravsky.threadpoolservice.task.TaskContext;
+import com.dubravsky.threadpoolservice.task.TaskScope;
 import com.dubravsky.threadpoolservice.util.NamedThreadFactory;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
-class SafeThreadPoolExecutor extends ThreadPoolExecutor implements NamedThreadPoolExecutor {
+class SafeThreadPoolExecutor extends ThreadPoolExecutor implements NamedThreadPoolExecutor, MonitoredExecutor {
 
     private final String name;
-    private Consumer<Exception> exceptionHandler;
+    private final LongAdder queueFullCount = new LongAdder();
+    private final TaskMetrics taskMetrics = new TaskMetrics();
+    private Consumer<Exception> exceptionHandler = taskMetrics.countingExceptionHandler(null);
+    private TaskContext taskContext = TaskContext.NONE;
 
     public SafeThreadPoolExecutor(int nThreads, String threadName) {
+        this(nThreads, threadName, new LinkedBlockingQueue<>(), new AbortPolicy());
+    }
+
+    public SafeThreadPoolExecutor(int nThreads, String threadName, BlockingQueue<Runnable> workQueue, RejectedExecutionHandler rejectedExecutionHandler) {
         super(nThreads, nThreads,
                 0L, TimeUnit.MILLISECONDS,
-                new LinkedBlockingQueue<>(),
+                workQueue,
                 NamedThreadFactory.of(threadName));
         this.name = threadName;
+        setThreadFactory(taskMetrics.countingThreadFactory(getThreadFactory()));
+        setRejectedExecutionHandler(rejectedExecutionHandler);
     }
 
     @Override
@@ -28,74 +43,149 @@ class SafeThreadPoolExecutor extends ThreadPoolExecutor implements NamedThreadPo
         return name;
     }
 
-    public void setExceptionHandler(Consumer<Exception> exceptionHandler) {
-        this.exceptionHandler = exceptionHandler;
+    @Override
+    public StatisticsObject getStatistics(boolean startNewInterval) {
+        return statisticsBuilder(startNewInterval).build();
+    }
+
+    StatisticsObject.Builder statisticsBuilder(boolean startNewInterval) {
+        return taskMetrics.snapshot(StatisticsObject.builder(name), startNewInterval)
+                .poolSize(getPoolSize())
+                .queueSize(getQueue().size())
+                .queueFullCount(getQueueFullCount());
     }
 
     @Override
-    public void execute(Runnable task) {
-        super.execute(safeRunnable(task));
+    public void setResourceAccountingEnabled(boolean resourceAccountingEnabled) {
+        taskMetrics.setResourceAccountingEnabled(resourceAccountingEnabled);
     }
 
     @Override
-    public Future<?> submit(Runnable task) {
-        return super.submit(safeRunnable(task));
+    public void setSlowTaskThreshold(long slowTaskThreshold, TimeUnit unit) {
+        taskMetrics.setSlowTaskThreshold(slowTaskThreshold, unit);
     }
 
     @Override
-    public <T> Future<T> submit(Runnable task, T result) {
-        return super.submit(safeRunnable(task), result);
+    public TaskMetrics getTaskMetrics() {
+        return taskMetrics;
     }
 
     @Override
-    public <T> Future<T> submit(Callable<T> task) {
-        return super.submit(safeCallable(task));
+    public CompletableFuture<Void> submitAll(Collection<? extends Runnable> tasks) {
+        return TaskBatch.execute(this, tasks, exceptionHandler, getMaximumPoolSize());
     }
 
     @Override
-    public <T> T invokeAny(Collection<? extends Callable<T>> tasks) throws InterruptedException, ExecutionException {
-        return super.invokeAny(safeCallables(tasks));
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier) {
+        return ManagedCompletableFuture.supplyAsync(supplier, this, exceptionHandler, taskContext);
     }
 
     @Override
-    public <T> T invokeAny(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
-        return super.invokeAny(safeCallables(tasks), timeout, unit);
+    public CompletableFuture<Void> runAsync(Runnable task) {
+        return ManagedCompletableFuture.runAsync(task, this, exceptionHandler, taskContext);
     }
 
     @Override
-    public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks) throws InterruptedException {
-        return super.invokeAll(safeCallables(tasks));
+    public <T> TaskScope<T> newScope(JoinPolicy joinPolicy) {
+        return new TaskScope<>(this, joinPolicy, taskContext);
+    }
+
+    public void setExceptionHandler(Consumer<Exception> exceptionHandler) {
+        this.exceptionHandler = taskMetrics.countingExceptionHandler(exceptionHandler);
+    }
+
+    public void setTaskContext(TaskContext taskContext) {
+        this.taskContext = taskContext;
+    }
+
+    Consumer<Exception> getExceptionHandler() {
+        return exceptionHandler;
+    }
+
+    TaskContext getTaskContext() {
+        return taskContext;
     }
 
     @Override
-    public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit) throws InterruptedException {
-        return super.invokeAll(safeCallables(tasks), timeout, unit);
+    public void setRejectedExecutionHandler(RejectedExecutionHandler rejectedExecutionHandler) {
+        if (rejectedExecutionHandler == null) {
+            throw new NullPointerException();
+        }
+        super.setRejectedExecutionHandler((task, executor) -> {
+            if (!executor.isShutdown()) {
+                queueFullCount.increment();
+            }
+            rejectedExecutionHandler.rejectedExecution(task, executor);
+        });
+    }
+
+    public long getBusyNanos() {
+        return taskMetrics.getBusyNanos();
+    }
+
+    public long getQueueFullCount() {
+        return queueFullCount.sum();
     }
 
     @Override
-    protected <T> RunnableFuture<T> newTaskFor(Runnable task, T value) {
-        return super.newTaskFor(safeRunnable(task), value);
+    public int getPoolSize() {
+        return taskMetrics.getThreadCount();
     }
 
     @Override
-    protected <T> RunnableFuture<T> newTaskFor(Callable<T> task) {
-        return super.newTaskFor(safeCallable(task));
+    public int getActiveCount() {
+        return taskMetrics.getActiveCount();
     }
 
-    private SafeRunnable safeRunnable(Runnable task) {
-        return new SafeRunnable(task, exceptionHandler);
+    @Override
+    public long getCompletedTaskCount() {
+        return taskMetrics.getCompletedCount();
     }
 
-    private <T> SafeCallable safeCallable(Callable<T> task) {
-        return new SafeCallable<>(task, exceptionHandler);
+    @Override
+    public void execute(Runnable task) {
+        if (task instanceof AccountedTask) {
+            super.execute(task);
+            return;
+        }
+        taskMetrics.taskSubmitted();
+        try {
+            super.execute(task instanceof RunnableFuture || task instanceof SubmittedTask ? task : new SafeRunnable(task, exceptionHandler, taskContext.capture()));
+        } catch (RejectedExecutionException e) {
+            taskMetrics.taskRejected();
+            throw e;
+        }
     }
 
-    private <T> Collection<? extends Callable<T>> safeCallables(Collection<? extends Callable<T>> tasks) {
-        Collection<SafeCallable<T>> result = new ArrayList<>();
-        for (Callable<T> task : tasks) {
-            result.add(new SafeCallable<>(task, exceptionHandler));
+    @Override
+    protected void beforeExecute(Thread worker, Runnable task) {
+        if (!(task instanceof AccountedTask)) {
+            taskMetrics.beforeExecute(worker, task);
+        }
+    }
+
+    @Override
+    protected void afterExecute(Runnable task, Throwable throwable) {
+        if (!(task instanceof AccountedTask)) {
+            taskMetrics.afterExecute(throwable);
         }
-        return result;
+    }
+
+    @Override
+    protected <T> RunnableFuture<T> newTaskFor(Runnable task, T value) {
+        return new SafeFutureTask<>(task, value, exceptionHandler, taskContext.capture());
+    }
+
+    @Override
+    protected <T> RunnableFuture<T> newTaskFor(Callable<T> task) {
+        return new SafeFutureTask<>(task, exceptionHandler, taskContext.capture());
+    }
+
+    /**
+     * Task which accounts the tasks it runs itself, like a mailbox of a keyed executor: the pool counts neither its
+     * submission nor its run.
+     */
+    interface AccountedTask extends Runnable {
     }
 
 }
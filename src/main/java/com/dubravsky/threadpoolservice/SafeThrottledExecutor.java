@@ -0,0 +1,308 @@
+package com.dubravsky.threadpoolservice;
+
+import com.dubravsky.threadpoolservice.task.JoinPolicy;
+import com.dubravsky.threadpoolservice.task.ManagedCompletableFuture;
+import com.dubravsky.threadpoolservice.task.SafeFutureTask;
+import com.dubravsky.threadpoolservice.task.SafeRunnable;
+import com.dubravsky.threadpoolservice.task.SubmittedTask;
+import com.dubravsky.threadpoolservice.task.TaskBatch;
+import com.dubravsky.threadpoolservice.task.TaskContext;
+import com.dubravsky.threadpoolservice.task.TaskScope;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * View of a thread pool which dispatches tasks only when its {@link Throttle} grants a permit, tasks wait in
+ * a lock-free backlog and hold no thread meanwhile. The backlog is drained by a single thread at a time
+ * (the submitter, the thread completing a task, or a drain scheduled for the next rate permit), a work-in-progress
+ * counter makes sure that a submission or a release racing with a finishing drain is not missed.
+ */
+class SafeThrottledExecutor extends AbstractExecutorService implements NamedThreadPoolExecutor, MonitoredExecutor {
+
+    private final String name;
+    private final ExecutorService executorService;
+    private final Throttle throttle;
+    private final ScheduledExecutorService scheduler;
+    private final Queue<ThrottledTask> backlog = new ConcurrentLinkedQueue<>();
+    private final LongAdder backlogSize = new LongAdder();
+    private final AtomicInteger drainWork = new AtomicInteger();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final Runnable scheduledDrain = this::runScheduledDrain;
+    private final TaskMetrics taskMetrics = new TaskMetrics();
+    private final CountDownLatch terminationLatch = new CountDownLatch(1);
+    private volatile boolean shutdown;
+    private Consumer<Exception> exceptionHandler = taskMetrics.countingExceptionHandler(null);
+    private Consumer<Exception> rejectionHandler;
+    private TaskContext taskContext = TaskContext.NONE;
+
+    public SafeThrottledExecutor(String name, ExecutorService executorService, Throttle throttle, ScheduledExecutorService scheduler) {
+        this.name = name;
+        this.executorService = executorService;
+        this.throttle = throttle;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public StatisticsObject getStatistics(boolean startNewInterval) {
+        StatisticsObject.Builder builder = StatisticsObject.builder(name)
+                .queueSize((int) Math.min(Integer.MAX_VALUE, Math.max(0, backlogSize.sum())));
+        return taskMetrics.snapshot(throttle.snapshot(builder), startNewInterval).build();
+    }
+
+    @Override
+    public void setResourceAccountingEnabled(boolean resourceAccountingEnabled) {
+        taskMetrics.setResourceAccountingEnabled(resourceAccountingEnabled);
+    }
+
+    @Override
+    public void setSlowTaskThreshold(long slowTaskThreshold, TimeUnit unit) {
+        taskMetrics.setSlowTaskThreshold(slowTaskThreshold, unit);
+    }
+
+    @Override
+    public TaskMetrics getTaskMetrics() {
+        return taskMetrics;
+    }
+
+    @Override
+    public CompletableFuture<Void> submitAll(Collection<? extends Runnable> tasks) {
+        TaskBatch taskBatch = new TaskBatch(tasks, exceptionHandler);
+        for (int i = 0; i < taskBatch.size(); i++) {
+            try {
+                execute(taskBatch::runNext);
+            } catch (RejectedExecutionException e) {
+                if (i == 0) {
+                    throw e;
+                }
+                taskBatch.getFuture().completeExceptionally(e);
+                break;
+            }
+        }
+        return taskBatch.getFuture();
+    }
+
+    @Override
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier) {
+        return ManagedCompletableFuture.supplyAsync(supplier, this, exceptionHandler, taskContext);
+    }
+
+    @Override
+    public CompletableFuture<Void> runAsync(Runnable task) {
+        return ManagedCompletableFuture.runAsync(task, this, exceptionHandler, taskContext);
+    }
+
+    @Override
+    public <T> TaskScope<T> newScope(JoinPolicy joinPolicy) {
+        return new TaskScope<>(this, joinPolicy, taskContext);
+    }
+
+    public void setExceptionHandler(Consumer<Exception> exceptionHandler) {
+        this.exceptionHandler = taskMetrics.countingExceptionHandler(exceptionHandler);
+        this.rejectionHandler = exceptionHandler;
+    }
+
+    public void setTaskContext(TaskContext taskContext) {
+        this.taskContext = taskContext;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (task == null) {
+            throw new NullPointerException();
+        }
+        taskMetrics.taskSubmitted();
+        pendingCount.incrementAndGet();
+        if (shutdown) {
+            taskDone();
+            throw rejected(task);
+        }
+        backlog.add(new ThrottledTask(task instanceof RunnableFuture || task instanceof SubmittedTask ? task : new SafeRunnable(task, exceptionHandler, taskContext.capture())));
+        backlogSize.increment();
+        drain();
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+        tryTerminate();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown();
+        List<Runnable> tasks = new ArrayList<>();
+        ThrottledTask throttledTask;
+        while ((throttledTask = backlog.poll()) != null) {
+            backlogSize.decrement();
+            tasks.add(throttledTask.task);
+            taskDone();
+        }
+        return tasks;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return terminationLatch.getCount() == 0;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return terminationLatch.await(timeout, unit);
+    }
+
+    @Override
+    protected <T> RunnableFuture<T> newTaskFor(Runnable task, T value) {
+        return new SafeFutureTask<>(task, value, exceptionHandler, taskContext.capture());
+    }
+
+    @Override
+    protected <T> RunnableFuture<T> newTaskFor(Callable<T> task) {
+        return new SafeFutureTask<>(task, exceptionHandler, taskContext.capture());
+    }
+
+    private void drain() {
+        if (drainWork.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            ThrottledTask throttledTask;
+            while ((throttledTask = backlog.peek()) != null && throttle.tryAcquire(System.nanoTime())) {
+                backlog.poll();
+                backlogSize.decrement();
+                dispatch(throttledTask);
+            }
+            if (throttledTask != null) {
+                scheduleDrain();
+            }
+            missed = drainWork.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void scheduleDrain() {
+        long delayNanos = throttle.nanosUntilAvailable(System.nanoTime());
+        if (delayNanos < 0 || !drainScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            scheduler.schedule(scheduledDrain, delayNanos, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            drainScheduled.set(false);
+            rejectBacklog(e);
+        }
+    }
+
+    private void runScheduledDrain() {
+        drainScheduled.set(false);
+        drain();
+    }
+
+    private void dispatch(ThrottledTask throttledTask) {
+        throttledTask.dispatchNanos = System.nanoTime();
+        try {
+            executorService.execute(throttledTask);
+        } catch (RejectedExecutionException e) {
+            throttle.release();
+            reject(throttledTask, e);
+            if (executorService.isShutdown()) {
+                rejectBacklog(e);
+            }
+        }
+    }
+
+    /**
+     * Once the scheduler or the thread pool is shut down the backlog can never be dispatched, it is rejected so that
+     * this executor terminates.
+     */
+    private void rejectBacklog(RejectedExecutionException e) {
+        ThrottledTask throttledTask;
+        while ((throttledTask = backlog.poll()) != null) {
+            backlogSize.decrement();
+            reject(throttledTask, e);
+        }
+    }
+
+    private void reject(ThrottledTask throttledTask, RejectedExecutionException e) {
+        taskMetrics.taskRejected();
+        if (throttledTask.task instanceof Future) {
+            ((Future<?>) throttledTask.task).cancel(false);
+        } else if (rejectionHandler != null) {
+            rejectionHandler.accept(e);
+        }
+        taskDone();
+    }
+
+    private void taskDone() {
+        if (pendingCount.decrementAndGet() == 0) {
+            tryTerminate();
+        }
+    }
+
+    private void tryTerminate() {
+        if (shutdown && pendingCount.get() == 0) {
+            terminationLatch.countDown();
+        }
+    }
+
+    private RejectedExecutionException rejected(Runnable task) {
+        taskMetrics.taskRejected();
+        return new RejectedExecutionException("Task " + task + " rejected, executor " + name + " is shut down");
+    }
+
+    private class ThrottledTask implements Runnable, SubmittedTask {
+
+        private final Runnable task;
+        private final long submitNanos = System.nanoTime();
+        private volatile long dispatchNanos;
+
+        ThrottledTask(Runnable task) {
+            this.task = task;
+        }
+
+        @Override
+        public long getSubmitNanos() {
+            return dispatchNanos;
+        }
+
+        @Override
+        public void run() {
+            taskMetrics.taskStarted();
+            long startNanos = System.nanoTime();
+            taskMetrics.recordWaitTime(dispatchNanos - submitNanos);
+            TaskMetrics.RunningTask runningTask = taskMetrics.runStarted(startNanos);
+            try {
+                task.run();
+            } finally {
+                long runNanos = System.nanoTime() - startNanos;
+                taskMetrics.runFinished(runningTask, runNanos);
+                taskMetrics.recordRunTime(runNanos);
+                taskMetrics.taskCompleted();
+                throttle.release();
+                taskDone();
+                drain();
+            }
+        }
+
+    }
+
+}
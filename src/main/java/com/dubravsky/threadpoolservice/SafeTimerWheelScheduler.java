@@ -0,0 +1,367 @@
+package com.dubravsky.threadpoolservice;
+
+import com.dubravsky.threadpoolservice.task.JoinPolicy;
+import com.dubravsky.threadpoolservice.task.ManagedCompletableFuture;
+import com.dubravsky.threadpoolservice.task.SafeCallable;
+import com.dubravsky.threadpoolservice.task.SafeFutureTask;
+import com.dubravsky.threadpoolservice.task.SafeRunnable;
+import com.dubravsky.threadpoolservice.task.TaskContext;
+import com.dubravsky.threadpoolservice.task.TaskScope;
+import com.dubravsky.threadpoolservice.util.NamedThreadFactory;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Scheduled executor backed by a {@link TimingWheel}. Scheduling and cancellation only enqueue the timer,
+ * a single timer thread moves it into or out of the wheel once per tick and hands expired timers off to the worker pool.
+ * Timers which are already due bypass the wheel. Timers never fire early but may fire up to one tick late. Timers still pending on shutdown are cancelled.
+ */
+class SafeTimerWheelScheduler extends AbstractExecutorService implements ScheduledExecutorService, NamedThreadPoolExecutor, MonitoredExecutor {
+
+    private static final long MAX_DELAY_NANOS = Long.MAX_VALUE >> 1;
+
+    private final String name;
+    private final long tickNanos;
+    private final long startNanos = System.nanoTime();
+    private final TimingWheel timingWheel;
+    private final SafeThreadPoolExecutor workers;
+    private final Thread timerThread;
+    private final Queue<TimerTask<?>> scheduledTimers = new ConcurrentLinkedQueue<>();
+    private final Queue<TimerTask<?>> cancelledTimers = new ConcurrentLinkedQueue<>();
+    private final LongAdder pendingCount = new LongAdder();
+    private final LongAdder firedCount = new LongAdder();
+    private final LongAdder cancelledCount = new LongAdder();
+    private volatile boolean shutdown;
+    private Consumer<Exception> exceptionHandler;
+    private TaskContext taskContext = TaskContext.NONE;
+
+    public SafeTimerWheelScheduler(int nThreads, String threadName, long tickDuration, TimeUnit unit, int wheelSize) {
+        this.name = threadName;
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.timingWheel = new TimingWheel(wheelSize);
+        this.workers = new SafeThreadPoolExecutor(nThreads, threadName);
+        this.timerThread = NamedThreadFactory.of(threadName + "-Timer").newThread(this::runTimer);
+        this.timerThread.start();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public StatisticsObject getStatistics(boolean startNewInterval) {
+        return workers.statisticsBuilder(startNewInterval)
+                .metric("Pending Timers", pendingCount.sum())
+                .counterMetric("Fired Timers", firedCount.sum())
+                .counterMetric("Cancelled Timers", cancelledCount.sum())
+                .build();
+    }
+
+    @Override
+    public void setResourceAccountingEnabled(boolean resourceAccountingEnabled) {
+        workers.setResourceAccountingEnabled(resourceAccountingEnabled);
+    }
+
+    @Override
+    public void setSlowTaskThreshold(long slowTaskThreshold, TimeUnit unit) {
+        workers.setSlowTaskThreshold(slowTaskThreshold, unit);
+    }
+
+    @Override
+    public TaskMetrics getTaskMetrics() {
+        return workers.getTaskMetrics();
+    }
+
+    @Override
+    public CompletableFuture<Void> submitAll(Collection<? extends Runnable> tasks) {
+        if (shutdown) {
+            throw new RejectedExecutionException("Batch of " + tasks.size() + " tasks rejected, executor " + name + " is shut down");
+        }
+        return workers.submitAll(tasks);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier) {
+        return ManagedCompletableFuture.supplyAsync(supplier, this, exceptionHandler, taskContext);
+    }
+
+    @Override
+    public CompletableFuture<Void> runAsync(Runnable task) {
+        return ManagedCompletableFuture.runAsync(task, this, exceptionHandler, taskContext);
+    }
+
+    @Override
+    public <T> TaskScope<T> newScope(JoinPolicy joinPolicy) {
+        return new TaskScope<>(this, joinPolicy, taskContext);
+    }
+
+    long getPendingTimerCount() {
+        return pendingCount.sum();
+    }
+
+    BlockingQueue<Runnable> getWorkerQueue() {
+        return workers.getQueue();
+    }
+
+    public void setExceptionHandler(Consumer<Exception> exceptionHandler) {
+        workers.setExceptionHandler(exceptionHandler);
+        this.exceptionHandler = workers.getExceptionHandler();
+    }
+
+    public void setTaskContext(TaskContext taskContext) {
+        workers.setTaskContext(taskContext);
+        this.taskContext = taskContext;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (task == null) {
+            throw new NullPointerException();
+        }
+        if (shutdown) {
+            throw rejected(task);
+        }
+        workers.execute(task);
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit) {
+        return schedule(new TimerTask<Void>(safeRunnable(task), null, deadline(delay, unit), 0));
+    }
+
+    @Override
+    public <V> ScheduledFuture<V> schedule(Callable<V> task, long delay, TimeUnit unit) {
+        if (task == null) {
+            throw new NullPointerException();
+        }
+        return schedule(new TimerTask<>(new SafeCallable<>(task, exceptionHandler, taskContext.capture()), deadline(delay, unit)));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, long initialDelay, long period, TimeUnit unit) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("Period should be positive but it is " + period);
+        }
+        return schedule(new TimerTask<Void>(safeRunnable(task), null, deadline(initialDelay, unit), unit.toNanos(period)));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, long initialDelay, long delay, TimeUnit unit) {
+        if (delay <= 0) {
+            throw new IllegalArgumentException("Delay should be positive but it is " + delay);
+        }
+        return schedule(new TimerTask<Void>(safeRunnable(task), null, deadline(initialDelay, unit), -unit.toNanos(delay)));
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+        LockSupport.unpark(timerThread);
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown();
+        return workers.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return !timerThread.isAlive() && workers.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        TimeUnit.NANOSECONDS.timedJoin(timerThread, deadline - System.nanoTime());
+        return !timerThread.isAlive() && workers.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    protected <T> RunnableFuture<T> newTaskFor(Runnable task, T value) {
+        return new SafeFutureTask<>(task, value, exceptionHandler, taskContext.capture());
+    }
+
+    @Override
+    protected <T> RunnableFuture<T> newTaskFor(Callable<T> task) {
+        return new SafeFutureTask<>(task, exceptionHandler, taskContext.capture());
+    }
+
+    private <V> ScheduledFuture<V> schedule(TimerTask<V> timerTask) {
+        if (shutdown) {
+            throw rejected(timerTask);
+        }
+        enqueue(timerTask);
+        return timerTask;
+    }
+
+    private void enqueue(TimerTask<?> timerTask) {
+        if (shutdown) {
+            timerTask.cancel(false);
+            return;
+        }
+        if (timerTask.deadlineNanos - System.nanoTime() <= 0) {
+            handOff(timerTask);
+            return;
+        }
+        pendingCount.increment();
+        scheduledTimers.add(timerTask);
+        if (shutdown) {
+            timerTask.cancel(false);
+        }
+    }
+
+    private void runTimer() {
+        while (!shutdown) {
+            long sleepNanos = startNanos + (timingWheel.getCurrentTick() + 1) * tickNanos - System.nanoTime();
+            if (sleepNanos > 0) {
+                LockSupport.parkNanos(this, sleepNanos);
+                continue;
+            }
+            processScheduledTimers();
+            processCancelledTimers();
+            timingWheel.advance(this::fire);
+        }
+        TimerTask<?> timerTask;
+        while ((timerTask = scheduledTimers.poll()) != null) {
+            drop(timerTask);
+        }
+        timingWheel.clear(this::drop);
+        cancelledTimers.clear();
+        workers.shutdown();
+    }
+
+    private void processScheduledTimers() {
+        TimerTask<?> timerTask;
+        while ((timerTask = scheduledTimers.poll()) != null) {
+            if (timerTask.isCancelled()) {
+                pendingCount.decrement();
+            } else if (!timingWheel.add(timerTask, deadlineTick(timerTask.deadlineNanos))) {
+                fire(timerTask);
+            }
+        }
+    }
+
+    private void processCancelledTimers() {
+        TimerTask<?> timerTask;
+        while ((timerTask = cancelledTimers.poll()) != null) {
+            if (timingWheel.remove(timerTask)) {
+                pendingCount.decrement();
+            }
+        }
+    }
+
+    private void fire(TimingWheel.Entry<?> entry) {
+        pendingCount.decrement();
+        if (!entry.isCancelled()) {
+            handOff(entry);
+        }
+    }
+
+    private void handOff(TimingWheel.Entry<?> entry) {
+        firedCount.increment();
+        try {
+            workers.execute(entry);
+        } catch (RejectedExecutionException e) {
+            entry.cancel(false);
+        }
+    }
+
+    private void drop(TimingWheel.Entry<?> entry) {
+        pendingCount.decrement();
+        entry.cancel(false);
+    }
+
+    private long deadline(long delay, TimeUnit unit) {
+        return System.nanoTime() + Math.min(Math.max(0, unit.toNanos(delay)), MAX_DELAY_NANOS);
+    }
+
+    private long deadlineTick(long deadlineNanos) {
+        long elapsedNanos = deadlineNanos - startNanos;
+        return elapsedNanos <= 0 ? 0 : (elapsedNanos - 1) / tickNanos + 1;
+    }
+
+    private Runnable safeRunnable(Runnable task) {
+        if (task == null) {
+            throw new NullPointerException();
+        }
+        return new SafeRunnable(task, exceptionHandler, taskContext.capture());
+    }
+
+    private RejectedExecutionException rejected(Object task) {
+        return new RejectedExecutionException("Task " + task + " rejected, executor " + name + " is shut down");
+    }
+
+    private class TimerTask<V> extends TimingWheel.Entry<V> implements RunnableScheduledFuture<V> {
+
+        private final long period;
+        private volatile long deadlineNanos;
+
+        TimerTask(Callable<V> task, long deadlineNanos) {
+            super(task);
+            this.deadlineNanos = deadlineNanos;
+            this.period = 0;
+        }
+
+        TimerTask(Runnable task, V result, long deadlineNanos, long period) {
+            super(task, result);
+            this.deadlineNanos = deadlineNanos;
+            this.period = period;
+        }
+
+        @Override
+        public boolean isPeriodic() {
+            return period != 0;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            if (other == this) {
+                return 0;
+            }
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                cancelledCount.increment();
+                if (timerThread.isAlive()) {
+                    cancelledTimers.add(this);
+                }
+            }
+            return cancelled;
+        }
+
+        @Override
+        public void run() {
+            if (!isPeriodic()) {
+                super.run();
+            } else if (runAndReset()) {
+                deadlineNanos = period > 0 ? deadlineNanos + period : System.nanoTime() - period;
+                enqueue(this);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,242 @@
+package com.dubravsky.threadpoolservice;
+
+import com.dubravsky.threadpoolservice.task.JoinPolicy;
+import com.dubravsky.threadpoolservice.task.ManagedCompletableFuture;
+import com.dubravsky.threadpoolservice.task.SafeFutureTask;
+import com.dubravsky.threadpoolservice.task.SafeRunnable;
+import com.dubravsky.threadpoolservice.task.SubmittedTask;
+import com.dubravsky.threadpoolservice.task.TaskBatch;
+import com.dubravsky.threadpoolservice.task.TaskContext;
+import com.dubravsky.threadpoolservice.task.TaskScope;
+import com.dubravsky.threadpoolservice.util.VirtualThreadFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+class SafeVirtualThreadExecutor extends AbstractExecutorService implements NamedThreadPoolExecutor, MonitoredExecutor {
+
+    private final String name;
+    private final ThreadFactory threadFactory;
+    private final int maxConcurrency;
+    private final Semaphore permits;
+    private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+    private final Set<VirtualTask> pendingTasks = ConcurrentHashMap.newKeySet();
+    private final TaskMetrics taskMetrics = new TaskMetrics();
+    private final CountDownLatch terminationLatch = new CountDownLatch(1);
+    private volatile boolean shutdown;
+    private Consumer<Exception> exceptionHandler = taskMetrics.countingExceptionHandler(null);
+    private TaskContext taskContext = TaskContext.NONE;
+
+    public SafeVirtualThreadExecutor(String threadName, int maxConcurrency) {
+        this.name = threadName;
+        this.threadFactory = VirtualThreadFactory.of(threadName);
+        this.maxConcurrency = maxConcurrency;
+        this.permits = maxConcurrency > 0 ? new Semaphore(maxConcurrency) : null;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public StatisticsObject getStatistics(boolean startNewInterval) {
+        int liveCount = threads.size();
+        StatisticsObject.Builder builder = StatisticsObject.builder(name)
+                .poolSize(liveCount)
+                .queueSize(Math.max(0, liveCount - taskMetrics.getActiveCount()))
+                .metric("Live", liveCount)
+                .metric("Virtual", isVirtual() ? 1L : 0L);
+        return taskMetrics.snapshot(builder, startNewInterval).build();
+    }
+
+    @Override
+    public void setResourceAccountingEnabled(boolean resourceAccountingEnabled) {
+        taskMetrics.setResourceAccountingEnabled(resourceAccountingEnabled);
+    }
+
+    @Override
+    public void setSlowTaskThreshold(long slowTaskThreshold, TimeUnit unit) {
+        taskMetrics.setSlowTaskThreshold(slowTaskThreshold, unit);
+    }
+
+    @Override
+    public TaskMetrics getTaskMetrics() {
+        return taskMetrics;
+    }
+
+    @Override
+    public CompletableFuture<Void> submitAll(Collection<? extends Runnable> tasks) {
+        return TaskBatch.execute(this, tasks, exceptionHandler, maxConcurrency > 0 ? maxConcurrency : tasks.size());
+    }
+
+    @Override
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier) {
+        return ManagedCompletableFuture.supplyAsync(supplier, this, exceptionHandler, taskContext);
+    }
+
+    @Override
+    public CompletableFuture<Void> runAsync(Runnable task) {
+        return ManagedCompletableFuture.runAsync(task, this, exceptionHandler, taskContext);
+    }
+
+    @Override
+    public <T> TaskScope<T> newScope(JoinPolicy joinPolicy) {
+        return new TaskScope<>(this, joinPolicy, taskContext);
+    }
+
+    public boolean isVirtual() {
+        return VirtualThreadFactory.isSupported();
+    }
+
+    public void setExceptionHandler(Consumer<Exception> exceptionHandler) {
+        this.exceptionHandler = taskMetrics.countingExceptionHandler(exceptionHandler);
+    }
+
+    public void setTaskContext(TaskContext taskContext) {
+        this.taskContext = taskContext;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (task == null) {
+            throw new NullPointerException();
+        }
+        taskMetrics.taskSubmitted();
+        if (shutdown) {
+            throw rejected(task);
+        }
+        Runnable safeTask = task instanceof RunnableFuture || task instanceof SubmittedTask ? task : new SafeRunnable(task, exceptionHandler, taskContext.capture());
+        VirtualTask virtualTask = new VirtualTask(safeTask);
+        Thread thread = threadFactory.newThread(virtualTask);
+        pendingTasks.add(virtualTask);
+        threads.add(thread);
+        if (shutdown) {
+            pendingTasks.remove(virtualTask);
+            threads.remove(thread);
+            tryTerminate();
+            throw rejected(task);
+        }
+        thread.start();
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+        tryTerminate();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown();
+        List<Runnable> tasks = new ArrayList<>();
+        for (VirtualTask virtualTask : pendingTasks) {
+            if (pendingTasks.remove(virtualTask)) {
+                tasks.add(virtualTask.task);
+            }
+        }
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+        return tasks;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return terminationLatch.getCount() == 0;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return terminationLatch.await(timeout, unit);
+    }
+
+    @Override
+    protected <T> RunnableFuture<T> newTaskFor(Runnable task, T value) {
+        return new SafeFutureTask<>(task, value, exceptionHandler, taskContext.capture());
+    }
+
+    @Override
+    protected <T> RunnableFuture<T> newTaskFor(Callable<T> task) {
+        return new SafeFutureTask<>(task, exceptionHandler, taskContext.capture());
+    }
+
+    private void run(VirtualTask virtualTask) {
+        Runnable task = virtualTask.task;
+        try {
+            if (permits != null) {
+                permits.acquire();
+            }
+            if (!pendingTasks.remove(virtualTask)) {
+                if (permits != null) {
+                    permits.release();
+                }
+                return;
+            }
+            taskMetrics.taskStarted();
+            long startNanos = System.nanoTime();
+            taskMetrics.recordWaitTime(startNanos - virtualTask.submitNanos);
+            TaskMetrics.RunningTask runningTask = taskMetrics.runStarted(startNanos);
+            try {
+                task.run();
+            } finally {
+                long runNanos = System.nanoTime() - startNanos;
+                taskMetrics.runFinished(runningTask, runNanos);
+                taskMetrics.recordRunTime(runNanos);
+                taskMetrics.taskCompleted();
+                if (permits != null) {
+                    permits.release();
+                }
+            }
+        } catch (InterruptedException e) {
+            if (pendingTasks.remove(virtualTask) && task instanceof Future) {
+                ((Future<?>) task).cancel(false);
+            }
+        } finally {
+            threads.remove(Thread.currentThread());
+            tryTerminate();
+        }
+    }
+
+    private void tryTerminate() {
+        if (shutdown && threads.isEmpty()) {
+            terminationLatch.countDown();
+        }
+    }
+
+    private RejectedExecutionException rejected(Runnable task) {
+        taskMetrics.taskRejected();
+        return new RejectedExecutionException("Task " + task + " rejected, executor " + name + " is shut down");
+    }
+
+    /**
+     * Task accepted by the executor, it is pending until either its thread starts running it
+     * or shutdownNow takes it back, whichever removes it from the pending tasks first.
+     */
+    private class VirtualTask implements Runnable {
+
+        private final Runnable task;
+        private final long submitNanos = System.nanoTime();
+
+        VirtualTask(Runnable task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            SafeVirtualThreadExecutor.this.run(this);
+        }
+
+    }
+
+}
@@ -0,0 +1,16 @@
+package com.dubravsky.threadpoolservice;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Executor with a queue per worker. Tasks are queued to the shard of the submitting worker, to a shard chosen by
+ * the submitting thread, or to the shard of a key; idle workers steal tasks from the other shards.
+ * Keys only choose the shard, tasks with the same key are not ordered.
+ */
+public interface ShardedExecutorService extends ExecutorService {
+
+    int getShardCount();
+
+    void execute(Object key, Runnable task);
+
+}
@@ -0,0 +1,49 @@
+package com.dubravsky.threadpoolservice;
+
+/**
+ * Outcome of a graceful shutdown of a single thread pool. Drained tasks completed after the shutdown started,
+ * abandoned tasks were accepted but will never run, interrupted tasks were running when the pool was forced to stop.
+ */
+public class ShutdownReport {
+
+    private final String threadPoolName;
+    private final boolean terminated;
+    private final long drainedTaskCount;
+    private final long abandonedTaskCount;
+    private final long interruptedTaskCount;
+
+    ShutdownReport(String threadPoolName, boolean terminated, long drainedTaskCount, long abandonedTaskCount, long interruptedTaskCount) {
+        this.threadPoolName = threadPoolName;
+        this.terminated = terminated;
+        this.drainedTaskCount = drainedTaskCount;
+        this.abandonedTaskCount = abandonedTaskCount;
+        this.interruptedTaskCount = interruptedTaskCount;
+    }
+
+    public String getThreadPoolName() {
+        return threadPoolName;
+    }
+
+    public boolean isTerminated() {
+        return terminated;
+    }
+
+    public long getDrainedTaskCount() {
+        return drainedTaskCount;
+    }
+
+    public long getAbandonedTaskCount() {
+        return abandonedTaskCount;
+    }
+
+    public long getInterruptedTaskCount() {
+        return interruptedTaskCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-32s   Terminated: %-5s   Drained: %6d   Abandoned: %6d   Interrupted: %6d",
+                threadPoolName, terminated, drainedTaskCount, abandonedTaskCount, interruptedTaskCount);
+    }
+
+}
@@ -1,6 +1,16 @@
 package com.dubravsky.threadpoolservice;
 
+import com.dubravsky.threadpoolservice.util.LatencyHistogram;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 public class StatisticsObject {
 
@@ -8,23 +18,67 @@ public class StatisticsObject {
     private final int poolSize;
     private final int activeCount;
     private final int queueSize;
+    private final long submittedTaskCount;
+    private final long startedTaskCount;
     private final long completedTaskCount;
+    private final long failedTaskCount;
+    private final long rejectedTaskCount;
+    private final long queueFullCount;
+    private final Map<String, Long> metrics;
+    private final Set<String> counterMetrics;
+    private final LatencyHistogram.Snapshot waitTime;
+    private final LatencyHistogram.Snapshot runTime;
+    private final LatencyHistogram.Cumulative waitTimeHistogram;
+    private final LatencyHistogram.Cumulative runTimeHistogram;
+    private final boolean resourceAccountingEnabled;
+    private final ResourceUsage resourceUsage;
+    private final ResourceUsage totalResourceUsage;
+    private final List<PriorityStatistics> priorityStatistics;
+    private final List<PeriodicTaskStatistics> periodicTaskStatistics;
 
     public static StatisticsObject of(ThreadPoolExecutor threadPoolExecutor) {
-        return new StatisticsObject(
-                ((NamedThreadPoolExecutor) threadPoolExecutor).getName(),
-                threadPoolExecutor.getPoolSize(),
-                threadPoolExecutor.getActiveCount(),
-                threadPoolExecutor.getQueue().size(),
-                threadPoolExecutor.getCompletedTaskCount());
+        return ((NamedThreadPoolExecutor) threadPoolExecutor).getStatistics(false);
+    }
+
+    public static StatisticsObject of(ForkJoinPool forkJoinPool) {
+        return ((NamedThreadPoolExecutor) forkJoinPool).getStatistics(false);
+    }
+
+    static Builder builder(ForkJoinPool forkJoinPool) {
+        return builder(((NamedThreadPoolExecutor) forkJoinPool).getName())
+                .poolSize(forkJoinPool.getPoolSize())
+                .queueSize((int) Math.min(Integer.MAX_VALUE, forkJoinPool.getQueuedTaskCount() + forkJoinPool.getQueuedSubmissionCount()))
+                .counterMetric("Steals", forkJoinPool.getStealCount())
+                .metric("Queued Submissions", forkJoinPool.getQueuedSubmissionCount())
+                .metric("Running Threads", forkJoinPool.getRunningThreadCount());
     }
 
-    private StatisticsObject(String name, int poolSize, int activeCount, int queueSize, long completedTaskCount) {
-        this.name = name;
-        this.poolSize = poolSize;
-        this.activeCount = activeCount;
-        this.queueSize = queueSize;
-        this.completedTaskCount = completedTaskCount;
+    static Builder builder(String name) {
+        return new Builder(name);
+    }
+
+    private StatisticsObject(Builder builder) {
+        this.name = builder.name;
+        this.poolSize = builder.poolSize;
+        this.activeCount = builder.activeCount;
+        this.queueSize = builder.queueSize;
+        this.submittedTaskCount = builder.submittedTaskCount;
+        this.startedTaskCount = builder.startedTaskCount;
+        this.completedTaskCount = builder.completedTaskCount;
+        this.failedTaskCount = builder.failedTaskCount;
+        this.rejectedTaskCount = builder.rejectedTaskCount;
+        this.queueFullCount = builder.queueFullCount;
+        this.metrics = Collections.unmodifiableMap(builder.metrics);
+        this.counterMetrics = Collections.unmodifiableSet(builder.counterMetrics);
+        this.waitTime = builder.waitTime;
+        this.runTime = builder.runTime;
+        this.waitTimeHistogram = builder.waitTimeHistogram;
+        this.runTimeHistogram = builder.runTimeHistogram;
+        this.resourceAccountingEnabled = builder.resourceAccountingEnabled;
+        this.resourceUsage = builder.resourceUsage;
+        this.totalResourceUsage = builder.totalResourceUsage;
+        this.priorityStatistics = Collections.unmodifiableList(builder.priorityStatistics);
+        this.periodicTaskStatistics = Collections.unmodifiableList(builder.periodicTaskStatistics);
     }
 
     public String getName() {
@@ -43,17 +97,256 @@ public class StatisticsObject {
         return queueSize;
     }
 
+    public long getSubmittedTaskCount() {
+        return submittedTaskCount;
+    }
+
+    public long getStartedTaskCount() {
+        return startedTaskCount;
+    }
+
     public long getCompletedTaskCount() {
         return completedTaskCount;
     }
 
+    public long getFailedTaskCount() {
+        return failedTaskCount;
+    }
+
+    public long getRejectedTaskCount() {
+        return rejectedTaskCount;
+    }
+
+    public long getQueueFullCount() {
+        return queueFullCount;
+    }
+
+    public Map<String, Long> getMetrics() {
+        return metrics;
+    }
+
+    public long getMetric(String metricName) {
+        Long value = metrics.get(metricName);
+        return value != null ? value : 0L;
+    }
+
+    /**
+     * Whether the metric only grows over the pool lifetime, the other metrics are current values.
+     */
+    public boolean isCounterMetric(String metricName) {
+        return counterMetrics.contains(metricName);
+    }
+
+    public LatencyHistogram.Snapshot getWaitTime() {
+        return waitTime;
+    }
+
+    public LatencyHistogram.Snapshot getRunTime() {
+        return runTime;
+    }
+
+    public LatencyHistogram.Cumulative getWaitTimeHistogram() {
+        return waitTimeHistogram;
+    }
+
+    public LatencyHistogram.Cumulative getRunTimeHistogram() {
+        return runTimeHistogram;
+    }
+
+    public boolean isResourceAccountingEnabled() {
+        return resourceAccountingEnabled;
+    }
+
+    public ResourceUsage getResourceUsage() {
+        return resourceUsage;
+    }
+
+    public ResourceUsage getTotalResourceUsage() {
+        return totalResourceUsage;
+    }
+
+    public List<PriorityStatistics> getPriorityStatistics() {
+        return priorityStatistics;
+    }
+
+    public List<PeriodicTaskStatistics> getPeriodicTaskStatistics() {
+        return periodicTaskStatistics;
+    }
+
     @Override
     public String toString() {
-        return String.format("%-32s   Threads: %3d   Active: %3d   Tasks in Queue: %6d   Completed Tasks: %6d",
+        StringBuilder result = new StringBuilder(String.format("%-32s   Threads: %3d   Active: %3d   Tasks in Queue: %6d   Completed Tasks: %6d   Failed Tasks: %6d   Rejected Tasks: %6d   Queue Full: %6d",
                 getName(),
                 getPoolSize(),
                 getActiveCount(),
                 getQueueSize(),
-                getCompletedTaskCount());
+                getCompletedTaskCount(),
+                getFailedTaskCount(),
+                getRejectedTaskCount(),
+                getQueueFullCount()));
+        metrics.forEach((metricName, value) -> result.append(String.format("   %s: %6d", metricName, value)));
+        appendLatency(result, "Wait", waitTime);
+        appendLatency(result, "Run", runTime);
+        for (PriorityStatistics priority : priorityStatistics) {
+            result.append(String.format("   P%d Queue: %6d", priority.getPriority(), priority.getQueueSize()));
+            appendLatency(result, "P" + priority.getPriority() + " Wait", priority.getWaitTime());
+        }
+        for (PeriodicTaskStatistics periodicTask : periodicTaskStatistics) {
+            result.append(String.format("   %s Skipped Runs: %6d", periodicTask.getName(), periodicTask.getSkippedRunCount()));
+            appendLatency(result, periodicTask.getName() + " Lateness", periodicTask.getLateness());
+            appendLatency(result, periodicTask.getName() + " Run", periodicTask.getRunTime());
+        }
+        if (resourceAccountingEnabled) {
+            result.append("   ").append(resourceUsage);
+        }
+        return result.toString();
+    }
+
+    private static void appendLatency(StringBuilder result, String latencyName, LatencyHistogram.Snapshot snapshot) {
+        if (snapshot.getCount() == 0) {
+            return;
+        }
+        result.append(String.format("   %s (us) p50: %d p90: %d p99: %d p99.9: %d max: %d",
+                latencyName,
+                TimeUnit.NANOSECONDS.toMicros(snapshot.getP50()),
+                TimeUnit.NANOSECONDS.toMicros(snapshot.getP90()),
+                TimeUnit.NANOSECONDS.toMicros(snapshot.getP99()),
+                TimeUnit.NANOSECONDS.toMicros(snapshot.getP999()),
+                TimeUnit.NANOSECONDS.toMicros(snapshot.getMax())));
     }
+
+    static class Builder {
+
+        private final String name;
+        private int poolSize;
+        private int activeCount;
+        private int queueSize;
+        private long submittedTaskCount;
+        private long startedTaskCount;
+        private long completedTaskCount;
+        private long failedTaskCount;
+        private long rejectedTaskCount;
+        private long queueFullCount;
+        private final Map<String, Long> metrics = new LinkedHashMap<>();
+        private final Set<String> counterMetrics = new HashSet<>();
+        private LatencyHistogram.Snapshot waitTime = LatencyHistogram.Snapshot.EMPTY;
+        private LatencyHistogram.Snapshot runTime = LatencyHistogram.Snapshot.EMPTY;
+        private LatencyHistogram.Cumulative waitTimeHistogram = LatencyHistogram.Cumulative.EMPTY;
+        private LatencyHistogram.Cumulative runTimeHistogram = LatencyHistogram.Cumulative.EMPTY;
+        private boolean resourceAccountingEnabled;
+        private ResourceUsage resourceUsage = ResourceUsage.EMPTY;
+        private ResourceUsage totalResourceUsage = ResourceUsage.EMPTY;
+        private List<PriorityStatistics> priorityStatistics = Collections.emptyList();
+        private List<PeriodicTaskStatistics> periodicTaskStatistics = Collections.emptyList();
+
+        private Builder(String name) {
+            this.name = name;
+        }
+
+        Builder poolSize(int poolSize) {
+            this.poolSize = poolSize;
+            return this;
+        }
+
+        Builder activeCount(int activeCount) {
+            this.activeCount = activeCount;
+            return this;
+        }
+
+        Builder queueSize(int queueSize) {
+            this.queueSize = queueSize;
+            return this;
+        }
+
+        Builder submittedTaskCount(long submittedTaskCount) {
+            this.submittedTaskCount = submittedTaskCount;
+            return this;
+        }
+
+        Builder startedTaskCount(long startedTaskCount) {
+            this.startedTaskCount = startedTaskCount;
+            return this;
+        }
+
+        Builder completedTaskCount(long completedTaskCount) {
+            this.completedTaskCount = completedTaskCount;
+            return this;
+        }
+
+        Builder failedTaskCount(long failedTaskCount) {
+            this.failedTaskCount = failedTaskCount;
+            return this;
+        }
+
+        Builder rejectedTaskCount(long rejectedTaskCount) {
+            this.rejectedTaskCount = rejectedTaskCount;
+            return this;
+        }
+
+        Builder queueFullCount(long queueFullCount) {
+            this.queueFullCount = queueFullCount;
+            return this;
+        }
+
+        Builder metric(String metricName, long value) {
+            metrics.put(metricName, value);
+            return this;
+        }
+
+        Builder counterMetric(String metricName, long value) {
+            counterMetrics.add(metricName);
+            return metric(metricName, value);
+        }
+
+        Builder waitTime(LatencyHistogram.Snapshot waitTime) {
+            this.waitTime = waitTime;
+            return this;
+        }
+
+        Builder runTime(LatencyHistogram.Snapshot runTime) {
+            this.runTime = runTime;
+            return this;
+        }
+
+        Builder waitTimeHistogram(LatencyHistogram.Cumulative waitTimeHistogram) {
+            this.waitTimeHistogram = waitTimeHistogram;
+            return this;
+        }
+
+        Builder runTimeHistogram(LatencyHistogram.Cumulative runTimeHistogram) {
+            this.runTimeHistogram = runTimeHistogram;
+            return this;
+        }
+
+        Builder resourceAccountingEnabled(boolean resourceAccountingEnabled) {
+            this.resourceAccountingEnabled = resourceAccountingEnabled;
+            return this;
+        }
+
+        Builder resourceUsage(ResourceUsage resourceUsage) {
+            this.resourceUsage = resourceUsage;
+            return this;
+        }
+
+        Builder totalResourceUsage(ResourceUsage totalResourceUsage) {
+            this.totalResourceUsage = totalResourceUsage;
+            return this;
+        }
+
+        Builder priorityStatistics(List<PriorityStatistics> priorityStatistics) {
+            this.priorityStatistics = priorityStatistics;
+            return this;
+        }
+
+        Builder periodicTaskStatistics(List<PeriodicTaskStatistics> periodicTaskStatistics) {
+            this.periodicTaskStatistics = periodicTaskStatistics;
+            return this;
+        }
+
+        StatisticsObject build() {
+            return new StatisticsObject(this);
+        }
+
+    }
+
 }
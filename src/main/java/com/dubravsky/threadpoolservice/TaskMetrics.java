@@ -0,0 +1,276 @@
+package com.dubravsky.threadpoolservice;
+
+import com.dubravsky.threadpoolservice.task.SubmittedTask;
+import com.dubravsky.threadpoolservice.util.LatencyHistogram;
+import com.dubravsky.threadpoolservice.util.ThreadResourceMeter;
+import com.dubravsky.threadpoolservice.util.WorkerThread;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Per-executor task counters and latency histograms. All of them are striped (counters are LongAdders, histograms add
+ * bucket stripes when recording threads collide), so they are updated without contention and read without taking
+ * any executor lock.
+ */
+class TaskMetrics {
+
+    private final LatencyHistogram waitTimeHistogram = new LatencyHistogram();
+    private final LatencyHistogram runTimeHistogram = new LatencyHistogram();
+    private final LongAdder busyNanos = new LongAdder();
+    private final LongAdder submittedCount = new LongAdder();
+    private final LongAdder startedCount = new LongAdder();
+    private final LongAdder completedCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+    private final LongAdder activeCount = new LongAdder();
+    private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+    private final Set<RunningTask> runningTasks = ConcurrentHashMap.newKeySet();
+    private final LongAdder accountedTaskCount = new LongAdder();
+    private final LongAdder accountedRunNanos = new LongAdder();
+    private final LongAdder cpuNanos = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+    private volatile boolean resourceAccountingEnabled;
+    private volatile long slowTaskThresholdNanos;
+    private ResourceUsage intervalStartResourceUsage = ResourceUsage.EMPTY;
+
+    void setResourceAccountingEnabled(boolean resourceAccountingEnabled) {
+        if (resourceAccountingEnabled) {
+            ThreadResourceMeter.enable();
+        }
+        this.resourceAccountingEnabled = resourceAccountingEnabled;
+    }
+
+    boolean isResourceAccountingEnabled() {
+        return resourceAccountingEnabled;
+    }
+
+    void setSlowTaskThreshold(long slowTaskThreshold, TimeUnit unit) {
+        if (slowTaskThreshold <= 0) {
+            throw new IllegalArgumentException("Slow task threshold should be positive but it is " + slowTaskThreshold);
+        }
+        if (unit == null) {
+            throw new IllegalArgumentException("TimeUnit should not be null");
+        }
+        this.slowTaskThresholdNanos = unit.toNanos(slowTaskThreshold);
+    }
+
+    long getSlowTaskThresholdNanos() {
+        return slowTaskThresholdNanos;
+    }
+
+    Set<Thread> getThreads() {
+        return threads;
+    }
+
+    Set<RunningTask> getRunningTasks() {
+        return runningTasks;
+    }
+
+    ThreadFactory countingThreadFactory(ThreadFactory threadFactory) {
+        return runnable -> threadFactory.newThread(() -> {
+            Thread thread = Thread.currentThread();
+            threads.add(thread);
+            try {
+                runnable.run();
+            } finally {
+                threads.remove(thread);
+            }
+        });
+    }
+
+    Consumer<Exception> countingExceptionHandler(Consumer<Exception> exceptionHandler) {
+        return exception -> {
+            failedCount.increment();
+            if (exceptionHandler != null) {
+                exceptionHandler.accept(exception);
+            }
+        };
+    }
+
+    void taskSubmitted() {
+        submittedCount.increment();
+    }
+
+    void taskRejected() {
+        rejectedCount.increment();
+    }
+
+    void taskStarted() {
+        startedCount.increment();
+        activeCount.increment();
+    }
+
+    void taskCompleted() {
+        activeCount.decrement();
+        completedCount.increment();
+    }
+
+    void beforeExecute(Thread worker, Runnable task) {
+        taskStarted();
+        long startNanos = System.nanoTime();
+        if (task instanceof SubmittedTask) {
+            waitTimeHistogram.record(startNanos - ((SubmittedTask) task).getSubmitNanos());
+        } else if (task instanceof Delayed) {
+            waitTimeHistogram.record(-((Delayed) task).getDelay(TimeUnit.NANOSECONDS));
+        }
+        if (worker instanceof WorkerThread) {
+            WorkerThread workerThread = (WorkerThread) worker;
+            workerThread.setTaskStartNanos(startNanos);
+            if (slowTaskThresholdNanos > 0) {
+                workerThread.setRunningTaskStartNanos(startNanos);
+            }
+            if (resourceAccountingEnabled) {
+                workerThread.setTaskStartCpuNanos(ThreadResourceMeter.currentThreadCpuNanos());
+                workerThread.setTaskStartAllocatedBytes(ThreadResourceMeter.currentThreadAllocatedBytes());
+            }
+        }
+    }
+
+    void afterExecute(Throwable throwable) {
+        Thread worker = Thread.currentThread();
+        if (worker instanceof WorkerThread) {
+            WorkerThread workerThread = (WorkerThread) worker;
+            if (workerThread.getRunningTaskStartNanos() != WorkerThread.NOT_RUNNING) {
+                workerThread.setRunningTaskStartNanos(WorkerThread.NOT_RUNNING);
+            }
+            long runNanos = System.nanoTime() - workerThread.getTaskStartNanos();
+            recordRunTime(runNanos);
+            if (workerThread.getTaskStartCpuNanos() >= 0 || workerThread.getTaskStartAllocatedBytes() >= 0) {
+                recordResourceUsage(workerThread.getTaskStartCpuNanos(), workerThread.getTaskStartAllocatedBytes(), runNanos);
+                workerThread.setTaskStartCpuNanos(-1);
+                workerThread.setTaskStartAllocatedBytes(-1);
+            }
+        }
+        if (throwable != null) {
+            failedCount.increment();
+        }
+        taskCompleted();
+    }
+
+    void runInCaller(Runnable task) {
+        taskStarted();
+        long startNanos = System.nanoTime();
+        try {
+            task.run();
+        } finally {
+            recordRunTime(System.nanoTime() - startNanos);
+            taskCompleted();
+        }
+    }
+
+    /**
+     * Start of a task run by a thread which is not a {@link WorkerThread} of the pool (a ForkJoinPool worker, a virtual
+     * thread or a thread of the pool behind a view). Nothing is allocated unless slow task detection or resource
+     * accounting is on, the result is passed to {@link #runFinished(RunningTask, long)}.
+     */
+    RunningTask runStarted(long startNanos) {
+        boolean trackSlowTasks = slowTaskThresholdNanos > 0;
+        if (!trackSlowTasks && !resourceAccountingEnabled) {
+            return null;
+        }
+        RunningTask runningTask = new RunningTask(Thread.currentThread(), startNanos, resourceAccountingEnabled);
+        if (trackSlowTasks) {
+            runningTasks.add(runningTask);
+        }
+        return runningTask;
+    }
+
+    void runFinished(RunningTask runningTask, long runNanos) {
+        if (runningTask == null) {
+            return;
+        }
+        runningTasks.remove(runningTask);
+        if (runningTask.startCpuNanos >= 0 || runningTask.startAllocatedBytes >= 0) {
+            recordResourceUsage(runningTask.startCpuNanos, runningTask.startAllocatedBytes, runNanos);
+        }
+    }
+
+    void recordWaitTime(long waitNanos) {
+        waitTimeHistogram.record(waitNanos);
+    }
+
+    void recordRunTime(long runNanos) {
+        runTimeHistogram.record(runNanos);
+        busyNanos.add(runNanos);
+    }
+
+    private void recordResourceUsage(long startCpuNanos, long startAllocatedBytes, long runNanos) {
+        if (startCpuNanos >= 0) {
+            cpuNanos.add(Math.max(0, ThreadResourceMeter.currentThreadCpuNanos() - startCpuNanos));
+        }
+        if (startAllocatedBytes >= 0) {
+            allocatedBytes.add(Math.max(0, ThreadResourceMeter.currentThreadAllocatedBytes() - startAllocatedBytes));
+        }
+        accountedRunNanos.add(runNanos);
+        accountedTaskCount.increment();
+    }
+
+    long getBusyNanos() {
+        return busyNanos.sum();
+    }
+
+    long getCompletedCount() {
+        return completedCount.sum();
+    }
+
+    int getActiveCount() {
+        return (int) Math.max(0, activeCount.sum());
+    }
+
+    int getThreadCount() {
+        return threads.size();
+    }
+
+    StatisticsObject.Builder snapshot(StatisticsObject.Builder builder, boolean startNewInterval) {
+        return snapshotResourceUsage(builder, startNewInterval)
+                .activeCount(getActiveCount())
+                .submittedTaskCount(submittedCount.sum())
+                .startedTaskCount(startedCount.sum())
+                .completedTaskCount(completedCount.sum())
+                .failedTaskCount(failedCount.sum())
+                .rejectedTaskCount(rejectedCount.sum())
+                .waitTime(startNewInterval ? waitTimeHistogram.snapshotAndReset() : waitTimeHistogram.snapshot())
+                .runTime(startNewInterval ? runTimeHistogram.snapshotAndReset() : runTimeHistogram.snapshot())
+                .waitTimeHistogram(waitTimeHistogram.cumulativeSnapshot())
+                .runTimeHistogram(runTimeHistogram.cumulativeSnapshot())
+                .resourceAccountingEnabled(resourceAccountingEnabled);
+    }
+
+    private StatisticsObject.Builder snapshotResourceUsage(StatisticsObject.Builder builder, boolean startNewInterval) {
+        ResourceUsage totalResourceUsage = new ResourceUsage(accountedTaskCount.sum(), accountedRunNanos.sum(), cpuNanos.sum(), allocatedBytes.sum());
+        ResourceUsage intervalResourceUsage;
+        synchronized (this) {
+            intervalResourceUsage = totalResourceUsage.minus(intervalStartResourceUsage);
+            if (startNewInterval) {
+                intervalStartResourceUsage = totalResourceUsage;
+            }
+        }
+        return builder
+                .resourceUsage(intervalResourceUsage)
+                .totalResourceUsage(totalResourceUsage);
+    }
+
+    static class RunningTask {
+
+        final Thread thread;
+        final long startNanos;
+        final long startCpuNanos;
+        final long startAllocatedBytes;
+        boolean reported;
+
+        RunningTask(Thread thread, long startNanos, boolean resourceAccountingEnabled) {
+            this.thread = thread;
+            this.startNanos = startNanos;
+            this.startCpuNanos = resourceAccountingEnabled ? ThreadResourceMeter.currentThreadCpuNanos() : -1;
+            this.startAllocatedBytes = resourceAccountingEnabled ? ThreadResourceMeter.currentThreadAllocatedBytes() : -1;
+        }
+
+    }
+
+}
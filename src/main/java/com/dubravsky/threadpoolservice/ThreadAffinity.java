@@ -0,0 +1,15 @@
+package com.dubravsky.threadpoolservice;
+
+/**
+ * Hook which places the workers of a sharded thread pool on CPUs, for example with an affinity library.
+ * It is called on the worker thread itself before the worker takes its first task.
+ */
+@FunctionalInterface
+public interface ThreadAffinity {
+
+    ThreadAffinity NONE = (shard, shardCount) -> {
+    };
+
+    void pin(int shard, int shardCount);
+
+}
@@ -0,0 +1,61 @@
+package com.dubravsky.threadpoolservice;
+
+import java.util.Map;
+
+public interface ThreadPoolMXBean {
+
+    String getName();
+
+    int getPoolSize();
+
+    int getActiveCount();
+
+    int getQueueSize();
+
+    long getSubmittedTaskCount();
+
+    long getStartedTaskCount();
+
+    long getCompletedTaskCount();
+
+    long getFailedTaskCount();
+
+    long getRejectedTaskCount();
+
+    long getQueueFullCount();
+
+    Map<String, Long> getMetrics();
+
+    long getWaitTimeCount();
+
+    long getWaitTimeSumNanos();
+
+    long getWaitTimeP50Nanos();
+
+    long getWaitTimeP99Nanos();
+
+    long getWaitTimeMaxNanos();
+
+    long getRunTimeCount();
+
+    long getRunTimeSumNanos();
+
+    long getRunTimeP50Nanos();
+
+    long getRunTimeP99Nanos();
+
+    long getRunTimeMaxNanos();
+
+    boolean isResourceAccountingEnabled();
+
+    void setResourceAccountingEnabled(boolean resourceAccountingEnabled);
+
+    long getCpuTimeNanos();
+
+    long getAllocatedBytes();
+
+    boolean isShutdown();
+
+    boolean isTerminated();
+
+}
@@ -0,0 +1,174 @@
+package com.dubravsky.threadpoolservice;
+
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+class ThreadPoolMXBeanAdapter implements ThreadPoolMXBean {
+
+    private static final String OBJECT_NAME_PREFIX = "com.dubravsky.threadpoolservice:type=ThreadPool,name=";
+    private static final long STATISTICS_LIFETIME_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final NamedThreadPoolExecutor executorService;
+    private volatile StatisticsObject statistics;
+    private volatile long statisticsNanos;
+
+    static ObjectName objectName(String name) throws MalformedObjectNameException {
+        return new ObjectName(OBJECT_NAME_PREFIX + ObjectName.quote(name));
+    }
+
+    ThreadPoolMXBeanAdapter(NamedThreadPoolExecutor executorService) {
+        this.executorService = executorService;
+    }
+
+    @Override
+    public String getName() {
+        return executorService.getName();
+    }
+
+    @Override
+    public int getPoolSize() {
+        return statistics().getPoolSize();
+    }
+
+    @Override
+    public int getActiveCount() {
+        return statistics().getActiveCount();
+    }
+
+    @Override
+    public int getQueueSize() {
+        return statistics().getQueueSize();
+    }
+
+    @Override
+    public long getSubmittedTaskCount() {
+        return statistics().getSubmittedTaskCount();
+    }
+
+    @Override
+    public long getStartedTaskCount() {
+        return statistics().getStartedTaskCount();
+    }
+
+    @Override
+    public long getCompletedTaskCount() {
+        return statistics().getCompletedTaskCount();
+    }
+
+    @Override
+    public long getFailedTaskCount() {
+        return statistics().getFailedTaskCount();
+    }
+
+    @Override
+    public long getRejectedTaskCount() {
+        return statistics().getRejectedTaskCount();
+    }
+
+    @Override
+    public long getQueueFullCount() {
+        return statistics().getQueueFullCount();
+    }
+
+    @Override
+    public Map<String, Long> getMetrics() {
+        return statistics().getMetrics();
+    }
+
+    @Override
+    public long getWaitTimeCount() {
+        return statistics().getWaitTimeHistogram().getCount();
+    }
+
+    @Override
+    public long getWaitTimeSumNanos() {
+        return statistics().getWaitTimeHistogram().getSum();
+    }
+
+    @Override
+    public long getWaitTimeP50Nanos() {
+        return statistics().getWaitTime().getP50();
+    }
+
+    @Override
+    public long getWaitTimeP99Nanos() {
+        return statistics().getWaitTime().getP99();
+    }
+
+    @Override
+    public long getWaitTimeMaxNanos() {
+        return statistics().getWaitTime().getMax();
+    }
+
+    @Override
+    public long getRunTimeCount() {
+        return statistics().getRunTimeHistogram().getCount();
+    }
+
+    @Override
+    public long getRunTimeSumNanos() {
+        return statistics().getRunTimeHistogram().getSum();
+    }
+
+    @Override
+    public long getRunTimeP50Nanos() {
+        return statistics().getRunTime().getP50();
+    }
+
+    @Override
+    public long getRunTimeP99Nanos() {
+        return statistics().getRunTime().getP99();
+    }
+
+    @Override
+    public long getRunTimeMaxNanos() {
+        return statistics().getRunTime().getMax();
+    }
+
+    @Override
+    public boolean isResourceAccountingEnabled() {
+        return statistics().isResourceAccountingEnabled();
+    }
+
+    @Override
+    public void setResourceAccountingEnabled(boolean resourceAccountingEnabled) {
+        executorService.setResourceAccountingEnabled(resourceAccountingEnabled);
+    }
+
+    @Override
+    public long getCpuTimeNanos() {
+        return statistics().getTotalResourceUsage().getCpuTimeNanos();
+    }
+
+    @Override
+    public long getAllocatedBytes() {
+        return statistics().getTotalResourceUsage().getAllocatedBytes();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return executorService.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return executorService.isTerminated();
+    }
+
+    /**
+     * JMX clients read the attributes one by one, so a single snapshot serves all reads made within a short window.
+     */
+    private StatisticsObject statistics() {
+        StatisticsObject currentStatistics = statistics;
+        long nanos = System.nanoTime();
+        if (currentStatistics == null || nanos - statisticsNanos > STATISTICS_LIFETIME_NANOS) {
+            currentStatistics = executorService.getStatistics(false);
+            statistics = currentStatistics;
+            statisticsNanos = nanos;
+        }
+        return currentStatistics;
+    }
+
+}
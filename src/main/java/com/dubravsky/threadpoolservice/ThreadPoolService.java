@@ -1,19 +1,35 @@
 package com.dubravsky.threadpoolservice;
 
+import com.dubravsky.threadpoolservice.task.TaskContext;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 public class ThreadPoolService {
 
-    private final List<NamedThreadPoolExecutor> executorServices = new ArrayList<>();
+    private static final long DEFAULT_AGING_PERIOD_MILLIS = 100;
+
+    private final ConcurrentMap<String, NamedThreadPoolExecutor> executorServices = new ConcurrentHashMap<>();
+    private final Set<NamedThreadPoolExecutor> mBeanExecutorServices = ConcurrentHashMap.newKeySet();
     private final Consumer<Exception> exceptionHandler;
+    private final TaskContext taskContext;
     private final StatisticsHandler statisticsHandler;
-    private final ScheduledExecutorService serviceThreadPool;
+    private final long adaptiveSizingPeriod;
+    private final boolean jmxEnabled;
+    private final long slowTaskThreshold;
+    private ScheduledExecutorService serviceThreadPool;
 
     public static ThreadPoolService create() {
         return builder().build();
@@ -24,25 +40,79 @@ public class ThreadPoolService {
     }
 
     ThreadPoolService(Consumer<Exception> exceptionHandler, StatisticsHandler statisticsHandler, long statisticsOutputDelay) {
-        this.exceptionHandler = exceptionHandler;
-        this.statisticsHandler = statisticsHandler;
-        this.serviceThreadPool = startStatisticsPrinting(statisticsOutputDelay);
+        this(new ThreadPoolServiceBuilder(exceptionHandler, statisticsHandler, statisticsOutputDelay));
+    }
+
+    ThreadPoolService(ThreadPoolServiceBuilder builder) {
+        this.exceptionHandler = builder.getExceptionHandler();
+        this.taskContext = TaskContext.of(builder.getContextPropagators());
+        this.statisticsHandler = builder.getStatisticsHandler();
+        this.adaptiveSizingPeriod = builder.getAdaptiveSizingPeriod();
+        this.jmxEnabled = builder.isJmxEnabled();
+        this.slowTaskThreshold = builder.getWatchdogHandler() != null ? builder.getSlowTaskThreshold() : 0;
+        startStatisticsPrinting(builder.getStatisticsOutputDelay());
+        startWatchdog(builder.getWatchdogHandler(), builder.getWatchdogPeriod(), builder.getSaturationThreshold());
+    }
+
+    private void startWatchdog(WatchdogHandler watchdogHandler, long periodMillis, long saturationThresholdMillis) {
+        if (watchdogHandler == null) {
+            return;
+        }
+
+        ScheduledExecutorService serviceThreadPool = serviceThreadPool();
+        Watchdog watchdog = new Watchdog(() -> watchedExecutorServices(serviceThreadPool), watchdogHandler,
+                TimeUnit.MILLISECONDS.toNanos(saturationThresholdMillis));
+        serviceThreadPool.scheduleWithFixedDelay(watchdog, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
     }
 
-    private ScheduledExecutorService startStatisticsPrinting(Long delayMillis) {
+    private Collection<NamedThreadPoolExecutor> watchedExecutorServices(ScheduledExecutorService serviceThreadPool) {
+        List<NamedThreadPoolExecutor> watchedExecutorServices = new ArrayList<>(executorServices.values());
+        watchedExecutorServices.remove(serviceThreadPool);
+        return watchedExecutorServices;
+    }
+
+    private void startStatisticsPrinting(long delayMillis) {
         if (delayMillis <= 0 || statisticsHandler == null) {
-            return null;
+            return;
+        }
+
+        serviceThreadPool().scheduleAtFixedRate(this::printStatistics, delayMillis, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized ScheduledExecutorService serviceThreadPool() {
+        if (serviceThreadPool == null) {
+            serviceThreadPool = newSingleScheduledThreadPool("ServicePool");
         }
+        return serviceThreadPool;
+    }
 
-        ScheduledExecutorService result = newSingleScheduledThreadPool("ServicePool");
-        result.scheduleAtFixedRate(this::printStatistics, delayMillis, delayMillis, TimeUnit.MILLISECONDS);
-        return result;
+    private synchronized ScheduledExecutorService getServiceThreadPool() {
+        return serviceThreadPool;
     }
 
     public int getThreadPoolNumber() {
+        removeTerminated();
         return executorServices.size();
     }
 
+    public NamedThreadPoolExecutor getExecutor(String name) {
+        NamedThreadPoolExecutor executorService = executorServices.get(name);
+        if (executorService != null && executorService.isTerminated()) {
+            remove(executorService);
+            return null;
+        }
+        return executorService;
+    }
+
+    public List<StatisticsObject> getStatistics() {
+        removeTerminated();
+        List<StatisticsObject> statistics = new ArrayList<>(executorServices.size());
+        for (NamedThreadPoolExecutor executorService : executorServices.values()) {
+            statistics.add(executorService.getStatistics(false));
+        }
+        return statistics;
+    }
+
     public ExecutorService newSingleThreadExecutor(String threadName) {
         return newFixedThreadPool(1, threadName);
     }
@@ -50,37 +120,221 @@ public class ThreadPoolService {
     public ExecutorService newFixedThreadPool(int nThreads, String threadName) {
         SafeThreadPoolExecutor executorService = new SafeThreadPoolExecutor(nThreads, threadName);
         executorService.setExceptionHandler(exceptionHandler);
+        executorService.setTaskContext(taskContext);
+        add(executorService);
+        return executorService;
+    }
+
+    public ExecutorService newFixedThreadPool(int nThreads, String threadName, int queueCapacity, QueueType queueType, BackpressurePolicy backpressurePolicy) {
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("Queue capacity should be positive but it is " + queueCapacity);
+        }
+        if (queueType == null) {
+            throw new IllegalArgumentException("QueueType should not be null");
+        }
+        if (backpressurePolicy == null) {
+            throw new IllegalArgumentException("BackpressurePolicy should not be null");
+        }
+        SafeThreadPoolExecutor executorService = new SafeThreadPoolExecutor(nThreads, threadName, queueType.newQueue(queueCapacity), backpressurePolicy);
+        executorService.setExceptionHandler(exceptionHandler);
+        executorService.setTaskContext(taskContext);
+        add(executorService);
+        return executorService;
+    }
+
+    public ExecutorService newAdaptiveThreadPool(int minThreads, int maxThreads, String threadName) {
+        if (minThreads <= 0) {
+            throw new IllegalArgumentException("Min threads should be positive but it is " + minThreads);
+        }
+        if (maxThreads < minThreads) {
+            throw new IllegalArgumentException("Max threads should not be less than " + minThreads + " but it is " + maxThreads);
+        }
+        SafeThreadPoolExecutor executorService = new SafeThreadPoolExecutor(minThreads, threadName);
+        executorService.setExceptionHandler(exceptionHandler);
+        executorService.setTaskContext(taskContext);
+        add(executorService);
+        AdaptivePoolSizer adaptivePoolSizer = new AdaptivePoolSizer(executorService, new AdaptiveSizingController(minThreads, maxThreads),
+                TimeUnit.MILLISECONDS.toNanos(adaptiveSizingPeriod));
+        adaptivePoolSizer.start(serviceThreadPool(), adaptiveSizingPeriod);
+        return executorService;
+    }
+
+    public PriorityExecutorService newPriorityThreadPool(int nThreads, String threadName, int priorityLevels) {
+        return newPriorityThreadPool(nThreads, threadName, priorityLevels, DEFAULT_AGING_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public PriorityExecutorService newPriorityThreadPool(int nThreads, String threadName, int priorityLevels, long agingPeriod, TimeUnit unit) {
+        if (priorityLevels <= 0) {
+            throw new IllegalArgumentException("Priority levels should be positive but it is " + priorityLevels);
+        }
+        if (agingPeriod <= 0) {
+            throw new IllegalArgumentException("Aging period should be positive but it is " + agingPeriod);
+        }
+        if (unit == null) {
+            throw new IllegalArgumentException("TimeUnit should not be null");
+        }
+        SafePriorityThreadPoolExecutor executorService = new SafePriorityThreadPoolExecutor(nThreads, threadName, priorityLevels, unit.toNanos(agingPeriod));
+        executorService.setExceptionHandler(exceptionHandler);
+        executorService.setTaskContext(taskContext);
+        add(executorService);
+        return executorService;
+    }
+
+    public ShardedExecutorService newShardedThreadPool(int nThreads, String threadName) {
+        return newShardedThreadPool(nThreads, threadName, ThreadAffinity.NONE);
+    }
+
+    public ShardedExecutorService newShardedThreadPool(int nThreads, String threadName, ThreadAffinity threadAffinity) {
+        if (nThreads <= 0) {
+            throw new IllegalArgumentException("Number of threads should be positive but it is " + nThreads);
+        }
+        if (threadAffinity == null) {
+            throw new IllegalArgumentException("ThreadAffinity should not be null");
+        }
+        SafeShardedThreadPool executorService = new SafeShardedThreadPool(nThreads, threadName, threadAffinity);
+        executorService.setExceptionHandler(exceptionHandler);
+        executorService.setTaskContext(taskContext);
+        add(executorService);
+        return executorService;
+    }
+
+    public KeyedExecutorService newKeyedExecutor(int parallelism, String threadName) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism should be positive but it is " + parallelism);
+        }
+        SafeKeyedExecutor executorService = new SafeKeyedExecutor(parallelism, threadName);
+        executorService.setExceptionHandler(exceptionHandler);
+        executorService.setTaskContext(taskContext);
         add(executorService);
         return executorService;
     }
 
-    public ScheduledExecutorService newSingleScheduledThreadPool(String threadName) {
+    public ExecutorService newRateLimitedExecutor(ExecutorService executorService, String name, double permitsPerSecond, int burst) {
+        if (executorService == null) {
+            throw new IllegalArgumentException("ExecutorService should not be null");
+        }
+        if (!(permitsPerSecond > 0)) {
+            throw new IllegalArgumentException("Permits per second should be positive but it is " + permitsPerSecond);
+        }
+        if (burst <= 0) {
+            throw new IllegalArgumentException("Burst should be positive but it is " + burst);
+        }
+        return newThrottledExecutor(executorService, name, Throttle.rate(permitsPerSecond, burst), serviceThreadPool());
+    }
+
+    public ExecutorService newConcurrencyLimitedExecutor(ExecutorService executorService, String name, int maxConcurrency) {
+        if (executorService == null) {
+            throw new IllegalArgumentException("ExecutorService should not be null");
+        }
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("Max concurrency should be positive but it is " + maxConcurrency);
+        }
+        return newThrottledExecutor(executorService, name, Throttle.concurrency(maxConcurrency), null);
+    }
+
+    private ExecutorService newThrottledExecutor(ExecutorService executorService, String name, Throttle throttle, ScheduledExecutorService scheduler) {
+        SafeThrottledExecutor throttledExecutorService = new SafeThrottledExecutor(name, executorService, throttle, scheduler);
+        throttledExecutorService.setExceptionHandler(exceptionHandler);
+        throttledExecutorService.setTaskContext(taskContext);
+        add(throttledExecutorService);
+        return throttledExecutorService;
+    }
+
+    public ExecutorService newWorkStealingPool(String threadName) {
+        return newWorkStealingPool(Runtime.getRuntime().availableProcessors(), threadName);
+    }
+
+    public ExecutorService newWorkStealingPool(int parallelism, String threadName) {
+        SafeForkJoinPool executorService = new SafeForkJoinPool(parallelism, threadName, exceptionHandler);
+        executorService.setTaskContext(taskContext);
+        add(executorService);
+        return executorService;
+    }
+
+    public ExecutorService newVirtualThreadExecutor(String threadName) {
+        return newVirtualThreadExecutor(threadName, 0);
+    }
+
+    public ExecutorService newVirtualThreadExecutor(String threadName, int maxConcurrency) {
+        if (maxConcurrency < 0) {
+            throw new IllegalArgumentException("Max concurrency should not be negative but it is " + maxConcurrency);
+        }
+        SafeVirtualThreadExecutor executorService = new SafeVirtualThreadExecutor(threadName, maxConcurrency);
+        executorService.setExceptionHandler(exceptionHandler);
+        executorService.setTaskContext(taskContext);
+        add(executorService);
+        return executorService;
+    }
+
+    public CoalescingScheduledExecutorService newSingleScheduledThreadPool(String threadName) {
         return newScheduledThreadPool(1, threadName);
     }
 
-    public ScheduledExecutorService newScheduledThreadPool(int corePoolSize, String threadName) {
+    public CoalescingScheduledExecutorService newScheduledThreadPool(int corePoolSize, String threadName) {
         SafeScheduledThreadPoolExecutor scheduledExecutorService = new SafeScheduledThreadPoolExecutor(corePoolSize, threadName);
         scheduledExecutorService.setExceptionHandler(exceptionHandler);
+        scheduledExecutorService.setTaskContext(taskContext);
+        add(scheduledExecutorService);
+        return scheduledExecutorService;
+    }
+
+    public ScheduledExecutorService newTimerWheelScheduler(String threadName, long tickDuration, TimeUnit unit, int wheelSize) {
+        return newTimerWheelScheduler(1, threadName, tickDuration, unit, wheelSize);
+    }
+
+    public ScheduledExecutorService newTimerWheelScheduler(int nThreads, String threadName, long tickDuration, TimeUnit unit, int wheelSize) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("Tick duration should be positive but it is " + tickDuration);
+        }
+        if (unit == null) {
+            throw new IllegalArgumentException("TimeUnit should not be null");
+        }
+        if (wheelSize <= 0) {
+            throw new IllegalArgumentException("Wheel size should be positive but it is " + wheelSize);
+        }
+        SafeTimerWheelScheduler scheduledExecutorService = new SafeTimerWheelScheduler(nThreads, threadName, tickDuration, unit, wheelSize);
+        scheduledExecutorService.setExceptionHandler(exceptionHandler);
+        scheduledExecutorService.setTaskContext(taskContext);
         add(scheduledExecutorService);
         return scheduledExecutorService;
     }
 
     public void shutdown() {
-        for (ExecutorService executorService : executorServices) {
+        for (ExecutorService executorService : executorServices.values()) {
             executorService.shutdown();
         }
     }
 
     public List<Runnable> shutdownNow() {
         List<Runnable> tasks = new ArrayList<>();
-        for (ExecutorService executorService : executorServices) {
+        for (ExecutorService executorService : executorServices.values()) {
             tasks.addAll(executorService.shutdownNow());
         }
         return tasks;
     }
 
+    public List<ShutdownReport> shutdownGracefully(long timeout, TimeUnit unit) {
+        if (timeout < 0) {
+            throw new IllegalArgumentException("Timeout should not be negative but it is " + timeout);
+        }
+        if (unit == null) {
+            throw new IllegalArgumentException("TimeUnit should not be null");
+        }
+        return new GracefulShutdown(executorServices.values(), getServiceThreadPool()).run(timeout, unit);
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (ExecutorService executorService : executorServices.values()) {
+            if (!executorService.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public boolean isShutdown() {
-        for (ExecutorService executorService : executorServices) {
+        for (ExecutorService executorService : executorServices.values()) {
             if (!executorService.isShutdown()) {
                 return false;
             }
@@ -89,7 +343,7 @@ public class ThreadPoolService {
     }
 
     public boolean isTerminated() {
-        for (ExecutorService executorService : executorServices) {
+        for (ExecutorService executorService : executorServices.values()) {
             if (!executorService.isTerminated()) {
                 return false;
             }
@@ -98,23 +352,76 @@ public class ThreadPoolService {
     }
 
     private void add(NamedThreadPoolExecutor executorService) {
-        if (!uniqueName(executorService.getName())) {
-            throw new IllegalArgumentException("Not unique thread pool name: " + executorService.getName());
+        String name = executorService.getName();
+        if (name == null) {
+            executorService.shutdownNow();
+            throw new IllegalArgumentException("Thread pool name should not be null");
+        }
+        NamedThreadPoolExecutor existingExecutorService = executorServices.get(name);
+        if (existingExecutorService != null && existingExecutorService.isTerminated()) {
+            remove(existingExecutorService);
+        }
+        if (executorServices.putIfAbsent(name, executorService) != null) {
+            executorService.shutdownNow();
+            throw new IllegalArgumentException("Not unique thread pool name: " + name);
+        }
+        if (slowTaskThreshold > 0 && executorService instanceof MonitoredExecutor) {
+            executorService.setSlowTaskThreshold(slowTaskThreshold, TimeUnit.MILLISECONDS);
+        }
+        if (jmxEnabled) {
+            registerMBean(executorService);
+        }
+    }
+
+    private void remove(NamedThreadPoolExecutor executorService) {
+        if (executorServices.remove(executorService.getName(), executorService) && mBeanExecutorServices.remove(executorService)) {
+            unregisterMBean(executorService);
+        }
+    }
+
+    private void removeTerminated() {
+        for (NamedThreadPoolExecutor executorService : executorServices.values()) {
+            if (executorService.isTerminated()) {
+                remove(executorService);
+            }
         }
-        executorServices.add(executorService);
     }
 
-    private boolean uniqueName(String name) {
-        return executorServices.stream()
-                .noneMatch(namedThreadPoolExecutor -> namedThreadPoolExecutor.getName().equals(name));
+    private void registerMBean(NamedThreadPoolExecutor executorService) {
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = ThreadPoolMXBeanAdapter.objectName(executorService.getName());
+            if (mBeanServer.isRegistered(objectName) && Boolean.TRUE.equals(mBeanServer.getAttribute(objectName, "Terminated"))) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+            mBeanServer.registerMBean(new ThreadPoolMXBeanAdapter(executorService), objectName);
+            mBeanExecutorServices.add(executorService);
+        } catch (JMException e) {
+            handleException(e);
+        }
+    }
+
+    private void unregisterMBean(NamedThreadPoolExecutor executorService) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(ThreadPoolMXBeanAdapter.objectName(executorService.getName()));
+        } catch (JMException e) {
+            handleException(e);
+        }
+    }
+
+    private void handleException(Exception exception) {
+        if (exceptionHandler != null) {
+            exceptionHandler.accept(exception);
+        }
     }
 
     private void printStatistics() {
-        executorServices.forEach(executorService -> printStatistics((ThreadPoolExecutor) executorService));
+        removeTerminated();
+        executorServices.values().forEach(this::printStatistics);
     }
 
-    private void printStatistics(ThreadPoolExecutor threadPoolExecutor) {
-        StatisticsObject statisticsObject = StatisticsObject.of(threadPoolExecutor);
+    private void printStatistics(NamedThreadPoolExecutor executorService) {
+        StatisticsObject statisticsObject = executorService.getStatistics();
         statisticsHandler.handle(statisticsObject, statisticsObject.toString());
     }
 
@@ -1,18 +1,39 @@
 package com.dubravsky.threadpoolservice;
 
+import com.dubravsky.threadpoolservice.task.ContextPropagator;
+
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Consumer;
 
 public class ThreadPoolServiceBuilder {
 
     private static final long DEFAULT_STATISTICS_OUTPUT_DELAY = 10_000L;
+    private static final long DEFAULT_ADAPTIVE_SIZING_PERIOD = 1_000L;
+    private static final long DEFAULT_WATCHDOG_PERIOD = 1_000L;
+    private static final long DEFAULT_SLOW_TASK_THRESHOLD = 10_000L;
+    private static final long DEFAULT_SATURATION_THRESHOLD = 10_000L;
 
     private Consumer<Exception> exceptionHandler;
     private StatisticsHandler statisticsHandler;
     private long statisticsOutputDelay = DEFAULT_STATISTICS_OUTPUT_DELAY;
+    private long adaptiveSizingPeriod = DEFAULT_ADAPTIVE_SIZING_PERIOD;
+    private boolean jmxEnabled;
+    private WatchdogHandler watchdogHandler;
+    private long watchdogPeriod = DEFAULT_WATCHDOG_PERIOD;
+    private long slowTaskThreshold = DEFAULT_SLOW_TASK_THRESHOLD;
+    private long saturationThreshold = DEFAULT_SATURATION_THRESHOLD;
+    private final List<ContextPropagator<?>> contextPropagators = new ArrayList<>();
 
     ThreadPoolServiceBuilder() {
     }
 
+    ThreadPoolServiceBuilder(Consumer<Exception> exceptionHandler, StatisticsHandler statisticsHandler, long statisticsOutputDelay) {
+        this.exceptionHandler = exceptionHandler;
+        this.statisticsHandler = statisticsHandler;
+        this.statisticsOutputDelay = statisticsOutputDelay;
+    }
+
     public ThreadPoolServiceBuilder exceptionHandler(Consumer<Exception> exceptionHandler) {
         if (exceptionHandler == null) {
             throw new IllegalArgumentException("ExceptionHandler should not be null");
@@ -37,8 +58,101 @@ public class ThreadPoolServiceBuilder {
         return this;
     }
 
+    public ThreadPoolServiceBuilder adaptiveSizingPeriod(long adaptiveSizingPeriod) {
+        if (adaptiveSizingPeriod <= 0) {
+            throw new IllegalArgumentException("Adaptive sizing period should be positive but it is " + adaptiveSizingPeriod);
+        }
+        this.adaptiveSizingPeriod = adaptiveSizingPeriod;
+        return this;
+    }
+
+    public ThreadPoolServiceBuilder jmxEnabled(boolean jmxEnabled) {
+        this.jmxEnabled = jmxEnabled;
+        return this;
+    }
+
+    public ThreadPoolServiceBuilder watchdogHandler(WatchdogHandler watchdogHandler) {
+        if (watchdogHandler == null) {
+            throw new IllegalArgumentException("WatchdogHandler should not be null");
+        }
+        this.watchdogHandler = watchdogHandler;
+        return this;
+    }
+
+    public ThreadPoolServiceBuilder watchdogPeriod(long watchdogPeriod) {
+        if (watchdogPeriod <= 0) {
+            throw new IllegalArgumentException("Watchdog period should be positive but it is " + watchdogPeriod);
+        }
+        this.watchdogPeriod = watchdogPeriod;
+        return this;
+    }
+
+    public ThreadPoolServiceBuilder slowTaskThreshold(long slowTaskThreshold) {
+        if (slowTaskThreshold <= 0) {
+            throw new IllegalArgumentException("Slow task threshold should be positive but it is " + slowTaskThreshold);
+        }
+        this.slowTaskThreshold = slowTaskThreshold;
+        return this;
+    }
+
+    public ThreadPoolServiceBuilder saturationThreshold(long saturationThreshold) {
+        if (saturationThreshold <= 0) {
+            throw new IllegalArgumentException("Saturation threshold should be positive but it is " + saturationThreshold);
+        }
+        this.saturationThreshold = saturationThreshold;
+        return this;
+    }
+
+    public ThreadPoolServiceBuilder contextPropagator(ContextPropagator<?> contextPropagator) {
+        if (contextPropagator == null) {
+            throw new IllegalArgumentException("ContextPropagator should not be null");
+        }
+        contextPropagators.add(contextPropagator);
+        return this;
+    }
+
     public ThreadPoolService build() {
-        return new ThreadPoolService(exceptionHandler, statisticsHandler, statisticsOutputDelay);
+        return new ThreadPoolService(this);
+    }
+
+    Consumer<Exception> getExceptionHandler() {
+        return exceptionHandler;
+    }
+
+    StatisticsHandler getStatisticsHandler() {
+        return statisticsHandler;
+    }
+
+    long getStatisticsOutputDelay() {
+        return statisticsOutputDelay;
+    }
+
+    long getAdaptiveSizingPeriod() {
+        return adaptiveSizingPeriod;
+    }
+
+    boolean isJmxEnabled() {
+        return jmxEnabled;
+    }
+
+    WatchdogHandler getWatchdogHandler() {
+        return watchdogHandler;
+    }
+
+    long getWatchdogPeriod() {
+        return watchdogPeriod;
+    }
+
+    long getSlowTaskThreshold() {
+        return slowTaskThreshold;
+    }
+
+    long getSaturationThreshold() {
+        return saturationThreshold;
+    }
+
+    List<ContextPropagator<?>> getContextPropagators() {
+        return contextPropagators;
     }
 
 }
@@ -0,0 +1,125 @@
+package com.dubravsky.threadpoolservice;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+abstract class Throttle {
+
+    static Throttle rate(double permitsPerSecond, int burst) {
+        return new RateThrottle(permitsPerSecond, burst);
+    }
+
+    static Throttle concurrency(int maxConcurrency) {
+        return new ConcurrencyThrottle(maxConcurrency);
+    }
+
+    private Throttle() {
+    }
+
+    abstract boolean tryAcquire(long nowNanos);
+
+    abstract void release();
+
+    /**
+     * Time until {@link #tryAcquire(long)} may succeed, or -1 if it depends on {@link #release()} rather than on time.
+     */
+    abstract long nanosUntilAvailable(long nowNanos);
+
+    abstract StatisticsObject.Builder snapshot(StatisticsObject.Builder builder);
+
+    /**
+     * Token bucket implemented as a generic cell rate algorithm: the only state is the theoretical arrival time of
+     * the next permit, which is moved forward by one interval per permit with a CAS. A permit is granted
+     * if that time is at most a burst of intervals ahead of now.
+     */
+    private static class RateThrottle extends Throttle {
+
+        private final double permitsPerSecond;
+        private final int burst;
+        private final long intervalNanos;
+        private final long toleranceNanos;
+        private final AtomicLong theoreticalArrivalNanos = new AtomicLong(System.nanoTime());
+
+        RateThrottle(double permitsPerSecond, int burst) {
+            this.permitsPerSecond = permitsPerSecond;
+            this.burst = burst;
+            this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+            this.toleranceNanos = (burst - 1) * intervalNanos;
+        }
+
+        @Override
+        boolean tryAcquire(long nowNanos) {
+            while (true) {
+                long arrivalNanos = theoreticalArrivalNanos.get();
+                long nextArrivalNanos = Math.max(arrivalNanos - nowNanos, 0) + nowNanos + intervalNanos;
+                if (nextArrivalNanos - nowNanos > toleranceNanos + intervalNanos) {
+                    return false;
+                }
+                if (theoreticalArrivalNanos.compareAndSet(arrivalNanos, nextArrivalNanos)) {
+                    return true;
+                }
+            }
+        }
+
+        @Override
+        void release() {
+        }
+
+        @Override
+        long nanosUntilAvailable(long nowNanos) {
+            return Math.max(0, theoreticalArrivalNanos.get() - toleranceNanos - nowNanos);
+        }
+
+        @Override
+        StatisticsObject.Builder snapshot(StatisticsObject.Builder builder) {
+            return builder
+                    .metric("Permits Per Second", (long) permitsPerSecond)
+                    .metric("Burst", burst);
+        }
+
+    }
+
+    private static class ConcurrencyThrottle extends Throttle {
+
+        private final int maxConcurrency;
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        ConcurrencyThrottle(int maxConcurrency) {
+            this.maxConcurrency = maxConcurrency;
+        }
+
+        @Override
+        boolean tryAcquire(long nowNanos) {
+            while (true) {
+                int current = inFlight.get();
+                if (current >= maxConcurrency) {
+                    return false;
+                }
+                if (inFlight.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        @Override
+        void release() {
+            inFlight.decrementAndGet();
+        }
+
+        @Override
+        long nanosUntilAvailable(long nowNanos) {
+            return -1;
+        }
+
+        @Override
+        StatisticsObject.Builder snapshot(StatisticsObject.Builder builder) {
+            return builder
+                    .poolSize(maxConcurrency)
+                    .metric("In Flight", inFlight.get())
+                    .metric("Max Concurrency", maxConcurrency);
+        }
+
+    }
+
+}
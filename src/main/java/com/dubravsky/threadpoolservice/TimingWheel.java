@@ -0,0 +1,183 @@
+package com.dubravsky.threadpoolservice;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical hashed timing wheel. Level 0 has a bucket per tick, every next level has buckets wheelSize times wider,
+ * and the entries of a higher level bucket are cascaded to the lower levels when the wheel reaches it.
+ * Adding and removing an entry is O(1). The wheel is not thread-safe, it is owned by a single timer thread.
+ */
+class TimingWheel {
+
+    private static final int MAX_WHEEL_SIZE = 1 << 30;
+
+    private final int wheelBits;
+    private final int mask;
+    private final Bucket[][] levels;
+    private long currentTick;
+    private int size;
+
+    TimingWheel(int wheelSize) {
+        if (wheelSize <= 0 || wheelSize > MAX_WHEEL_SIZE) {
+            throw new IllegalArgumentException("Wheel size should be in range [1, " + MAX_WHEEL_SIZE + "] but it is " + wheelSize);
+        }
+        int roundedWheelSize = Math.max(2, Integer.highestOneBit(wheelSize - 1) << 1);
+        this.wheelBits = Integer.numberOfTrailingZeros(roundedWheelSize);
+        this.mask = roundedWheelSize - 1;
+        this.levels = new Bucket[(Long.SIZE - 1 + wheelBits - 1) / wheelBits][];
+    }
+
+    long getCurrentTick() {
+        return currentTick;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean add(Entry<?> entry, long deadlineTick) {
+        long distance = deadlineTick - currentTick;
+        if (distance <= 0) {
+            return false;
+        }
+        int level = 0;
+        while (level < levels.length - 1 && distance >>> (wheelBits * (level + 1)) != 0) {
+            level++;
+        }
+        entry.deadlineTick = deadlineTick;
+        bucket(level, (int) (deadlineTick >>> (wheelBits * level)) & mask).add(entry);
+        size++;
+        return true;
+    }
+
+    boolean remove(Entry<?> entry) {
+        if (entry.bucket == null) {
+            return false;
+        }
+        entry.bucket.remove(entry);
+        size--;
+        return true;
+    }
+
+    void advance(Consumer<Entry<?>> expiredEntryConsumer) {
+        currentTick++;
+        for (int level = levels.length - 1; level > 0; level--) {
+            if (levels[level] != null && (currentTick & ((1L << (wheelBits * level)) - 1)) == 0) {
+                flush(levels[level][(int) (currentTick >>> (wheelBits * level)) & mask], expiredEntryConsumer);
+            }
+        }
+        if (levels[0] != null) {
+            flush(levels[0][(int) currentTick & mask], expiredEntryConsumer);
+        }
+    }
+
+    void clear(Consumer<Entry<?>> entryConsumer) {
+        for (Bucket[] buckets : levels) {
+            if (buckets == null) {
+                continue;
+            }
+            for (Bucket bucket : buckets) {
+                Entry<?> entry = bucket != null ? bucket.detach() : null;
+                while (entry != null) {
+                    Entry<?> next = entry.next;
+                    entry.next = null;
+                    size--;
+                    entryConsumer.accept(entry);
+                    entry = next;
+                }
+            }
+        }
+    }
+
+    private void flush(Bucket bucket, Consumer<Entry<?>> expiredEntryConsumer) {
+        Entry<?> entry = bucket != null ? bucket.detach() : null;
+        while (entry != null) {
+            Entry<?> next = entry.next;
+            entry.next = null;
+            size--;
+            if (!add(entry, entry.deadlineTick)) {
+                expiredEntryConsumer.accept(entry);
+            }
+            entry = next;
+        }
+    }
+
+    private Bucket bucket(int level, int index) {
+        Bucket[] buckets = levels[level];
+        if (buckets == null) {
+            buckets = new Bucket[mask + 1];
+            levels[level] = buckets;
+        }
+        Bucket bucket = buckets[index];
+        if (bucket == null) {
+            bucket = new Bucket();
+            buckets[index] = bucket;
+        }
+        return bucket;
+    }
+
+    abstract static class Entry<V> extends FutureTask<V> {
+
+        private long deadlineTick;
+        private Bucket bucket;
+        private Entry<?> previous;
+        private Entry<?> next;
+
+        Entry(Callable<V> task) {
+            super(task);
+        }
+
+        Entry(Runnable task, V result) {
+            super(task, result);
+        }
+
+    }
+
+    private static class Bucket {
+
+        private Entry<?> head;
+        private Entry<?> tail;
+
+        void add(Entry<?> entry) {
+            entry.bucket = this;
+            entry.previous = tail;
+            if (tail == null) {
+                head = entry;
+            } else {
+                tail.next = entry;
+            }
+            tail = entry;
+        }
+
+        void remove(Entry<?> entry) {
+            if (entry.previous == null) {
+                head = entry.next;
+            } else {
+                entry.previous.next = entry.next;
+            }
+            if (entry.next == null) {
+                tail = entry.previous;
+            } else {
+                entry.next.previous = entry.previous;
+            }
+            entry.bucket = null;
+            entry.previous = null;
+            entry.next = null;
+        }
+
+        Entry<?> detach() {
+            Entry<?> entry = head;
+            for (Entry<?> current = head; current != null; current = current.next) {
+                current.bucket = null;
+                current.previous = null;
+            }
+            head = null;
+            tail = null;
+            return entry;
+        }
+
+    }
+
+}
@@ -0,0 +1,152 @@
+package com.dubravsky.threadpoolservice;
+
+import com.dubravsky.threadpoolservice.util.WorkerThread;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Periodically checks the thread pools for slow tasks and saturation. Workers publish the start time of their current task
+ * in a field of their own, so tracking costs a volatile write per task and nothing is allocated. Pools without their own
+ * worker threads register the running task in {@link TaskMetrics} while slow task detection is on. Every slow task is reported once,
+ * stack traces are captured for at most {@link #MAX_STACK_TRACES_PER_CHECK} tasks per check.
+ * A thread pool is saturated while all its threads are busy and tasks are waiting in the queue. Scheduled tasks which are
+ * not due yet are not waiting, so only due entries of scheduled thread pools are counted.
+ */
+class Watchdog implements Runnable {
+
+    static final int MAX_STACK_TRACES_PER_CHECK = 4;
+
+    private final Supplier<Collection<NamedThreadPoolExecutor>> executorServices;
+    private final WatchdogHandler watchdogHandler;
+    private final long saturationThresholdNanos;
+    private Map<NamedThreadPoolExecutor, Saturation> saturations = new HashMap<>();
+
+    Watchdog(Supplier<Collection<NamedThreadPoolExecutor>> executorServices, WatchdogHandler watchdogHandler, long saturationThresholdNanos) {
+        this.executorServices = executorServices;
+        this.watchdogHandler = watchdogHandler;
+        this.saturationThresholdNanos = saturationThresholdNanos;
+    }
+
+    @Override
+    public void run() {
+        long nowNanos = System.nanoTime();
+        int stackTraceBudget = MAX_STACK_TRACES_PER_CHECK;
+        Map<NamedThreadPoolExecutor, Saturation> currentSaturations = new HashMap<>();
+        for (NamedThreadPoolExecutor executorService : executorServices.get()) {
+            if (executorService.isShutdown()) {
+                continue;
+            }
+            if (executorService instanceof MonitoredExecutor) {
+                stackTraceBudget = checkSlowTasks(executorService.getName(), ((MonitoredExecutor) executorService).getTaskMetrics(), nowNanos, stackTraceBudget);
+            }
+            checkSaturation(executorService, nowNanos, currentSaturations);
+        }
+        saturations = currentSaturations;
+    }
+
+    private int checkSlowTasks(String threadPoolName, TaskMetrics taskMetrics, long nowNanos, int stackTraceBudget) {
+        long thresholdNanos = taskMetrics.getSlowTaskThresholdNanos();
+        if (thresholdNanos <= 0) {
+            return stackTraceBudget;
+        }
+        for (Thread thread : taskMetrics.getThreads()) {
+            if (!(thread instanceof WorkerThread)) {
+                continue;
+            }
+            WorkerThread worker = (WorkerThread) thread;
+            long taskStartNanos = worker.getRunningTaskStartNanos();
+            if (taskStartNanos == WorkerThread.NOT_RUNNING || nowNanos - taskStartNanos < thresholdNanos
+                    || worker.getReportedTaskStartNanos() == taskStartNanos) {
+                continue;
+            }
+            StackTraceElement[] stackTrace = null;
+            if (stackTraceBudget > 0) {
+                stackTrace = worker.getStackTrace();
+                stackTraceBudget--;
+                if (worker.getRunningTaskStartNanos() != taskStartNanos) {
+                    continue;
+                }
+            }
+            worker.setReportedTaskStartNanos(taskStartNanos);
+            handle(WatchdogEvent.slowTask(threadPoolName, worker.getName(), nowNanos - taskStartNanos, stackTrace));
+        }
+        for (TaskMetrics.RunningTask runningTask : taskMetrics.getRunningTasks()) {
+            if (runningTask.reported || nowNanos - runningTask.startNanos < thresholdNanos) {
+                continue;
+            }
+            StackTraceElement[] stackTrace = null;
+            if (stackTraceBudget > 0) {
+                stackTrace = runningTask.thread.getStackTrace();
+                stackTraceBudget--;
+                if (!taskMetrics.getRunningTasks().contains(runningTask)) {
+                    continue;
+                }
+            }
+            runningTask.reported = true;
+            handle(WatchdogEvent.slowTask(threadPoolName, runningTask.thread.getName(), nowNanos - runningTask.startNanos, stackTrace));
+        }
+        return stackTraceBudget;
+    }
+
+    private void checkSaturation(NamedThreadPoolExecutor executorService, long nowNanos, Map<NamedThreadPoolExecutor, Saturation> currentSaturations) {
+        StatisticsObject statisticsObject = executorService.getStatistics(false);
+        boolean saturated = statisticsObject.getActiveCount() > 0
+                && statisticsObject.getActiveCount() >= statisticsObject.getPoolSize()
+                && statisticsObject.getQueueSize() > 0
+                && hasWaitingTasks(executorService);
+        if (!saturated) {
+            return;
+        }
+        Saturation saturation = saturations.get(executorService);
+        if (saturation == null) {
+            saturation = new Saturation(nowNanos);
+        }
+        currentSaturations.put(executorService, saturation);
+        long saturatedNanos = nowNanos - saturation.startNanos;
+        if (saturatedNanos >= saturation.reportedNanos + saturationThresholdNanos) {
+            saturation.reportedNanos = saturatedNanos - saturatedNanos % saturationThresholdNanos;
+            handle(WatchdogEvent.poolSaturated(executorService.getName(), saturatedNanos));
+        }
+    }
+
+    private static boolean hasWaitingTasks(NamedThreadPoolExecutor executorService) {
+        if (executorService instanceof ScheduledThreadPoolExecutor) {
+            return hasDueTasks(((ScheduledThreadPoolExecutor) executorService).getQueue());
+        }
+        if (executorService instanceof SafeTimerWheelScheduler) {
+            return hasDueTasks(((SafeTimerWheelScheduler) executorService).getWorkerQueue());
+        }
+        return true;
+    }
+
+    private static boolean hasDueTasks(Collection<Runnable> queue) {
+        for (Runnable task : queue) {
+            if (!(task instanceof Delayed) || ((Delayed) task).getDelay(TimeUnit.NANOSECONDS) <= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void handle(WatchdogEvent watchdogEvent) {
+        watchdogHandler.handle(watchdogEvent, watchdogEvent.toString());
+    }
+
+    private static class Saturation {
+
+        private final long startNanos;
+        private long reportedNanos;
+
+        Saturation(long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+    }
+
+}
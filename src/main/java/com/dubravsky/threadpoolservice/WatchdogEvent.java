@@ -0,0 +1,72 @@
+package com.dubravsky.threadpoolservice;
+
+import java.util.concurrent.TimeUnit;
+
+public class WatchdogEvent {
+
+    private static final StackTraceElement[] NO_STACK_TRACE = new StackTraceElement[0];
+
+    public enum Type {
+        SLOW_TASK,
+        POOL_SATURATED
+    }
+
+    private final Type type;
+    private final String threadPoolName;
+    private final String threadName;
+    private final long durationNanos;
+    private final StackTraceElement[] stackTrace;
+
+    static WatchdogEvent slowTask(String threadPoolName, String threadName, long durationNanos, StackTraceElement[] stackTrace) {
+        return new WatchdogEvent(Type.SLOW_TASK, threadPoolName, threadName, durationNanos, stackTrace != null ? stackTrace : NO_STACK_TRACE);
+    }
+
+    static WatchdogEvent poolSaturated(String threadPoolName, long durationNanos) {
+        return new WatchdogEvent(Type.POOL_SATURATED, threadPoolName, null, durationNanos, NO_STACK_TRACE);
+    }
+
+    private WatchdogEvent(Type type, String threadPoolName, String threadName, long durationNanos, StackTraceElement[] stackTrace) {
+        this.type = type;
+        this.threadPoolName = threadPoolName;
+        this.threadName = threadName;
+        this.durationNanos = durationNanos;
+        this.stackTrace = stackTrace;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getThreadPoolName() {
+        return threadPoolName;
+    }
+
+    public String getThreadName() {
+        return threadName;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * Stack trace of the slow task's thread, it is empty for saturation events and when stack sampling was rate-limited.
+     */
+    public StackTraceElement[] getStackTrace() {
+        return stackTrace.clone();
+    }
+
+    @Override
+    public String toString() {
+        if (type == Type.POOL_SATURATED) {
+            return String.format("Thread pool %s saturated for %d ms", threadPoolName, TimeUnit.NANOSECONDS.toMillis(durationNanos));
+        }
+        StringBuilder result = new StringBuilder(String.format("Task in thread %s of thread pool %s running for %d ms",
+                threadName, threadPoolName, TimeUnit.NANOSECONDS.toMillis(durationNanos)));
+        for (StackTraceElement stackTraceElement : stackTrace) {
+            result.append("\n\tat ").append(stackTraceElement);
+        }
+        return result.toString();
+    }
+
+}
@@ -0,0 +1,7 @@
+package com.dubravsky.threadpoolservice;
+
+public interface WatchdogHandler {
+
+    void handle(WatchdogEvent watchdogEvent, String message);
+
+}
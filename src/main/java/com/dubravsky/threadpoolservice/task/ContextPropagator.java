@@ -0,0 +1,25 @@
+package com.dubravsky.threadpoolservice.task;
+
+/**
+ * Carries a thread-bound context, for example the MDC or the current trace span, from the thread which submits a task
+ * to the thread which runs it. The context is captured when the task is submitted, applied before it runs
+ * and the previous context of the worker is restored after it.
+ */
+public interface ContextPropagator<C> {
+
+    /**
+     * Returns the context of the current thread, it is called on the submitting thread.
+     */
+    C capture();
+
+    /**
+     * Makes the captured context current and returns the context it replaces, it is called on the worker thread.
+     */
+    C apply(C context);
+
+    /**
+     * Makes the context returned by {@link #apply} current again once the task has run.
+     */
+    void restore(C previous);
+
+}
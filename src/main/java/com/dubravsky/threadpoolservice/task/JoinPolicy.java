@@ -0,0 +1,17 @@
+package com.dubravsky.threadpoolservice.task;
+
+public enum JoinPolicy {
+
+    /**
+     * The scope succeeds when every subtask succeeds, the first failure cancels the remaining subtasks
+     * and is rethrown by the join.
+     */
+    ALL_SUCCESSFUL,
+
+    /**
+     * The scope succeeds with the first successful subtask and cancels the remaining ones,
+     * the join fails only when every subtask has failed.
+     */
+    ANY_SUCCESSFUL
+
+}
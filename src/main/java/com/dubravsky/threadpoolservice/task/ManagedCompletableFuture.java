@@ -0,0 +1,328 @@
+package com.dubravsky.threadpoolservice.task;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * CompletableFuture bound to the executor it was started on. Async stages without an explicit executor
+ * and the futures they return run on that executor instead of the common pool
+ * ({@link #defaultExecutor()} and {@link #newIncompleteFuture()} override the JDK 9+ methods of CompletableFuture).
+ * Java 8 has neither hook, so the stage methods are overridden as well: async stages without an executor
+ * delegate to the executor overloads and every dependent future is bound to the same executor.
+ */
+public class ManagedCompletableFuture<T> extends CompletableFuture<T> {
+
+    private final Executor executor;
+
+    public static <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier, Executor executor, Consumer<Exception> exceptionHandler) {
+        return supplyAsync(supplier, executor, exceptionHandler, TaskContext.NONE);
+    }
+
+    public static <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier, Executor executor, Consumer<Exception> exceptionHandler,
+                                                       TaskContext taskContext) {
+        if (supplier == null) {
+            throw new NullPointerException();
+        }
+        ManagedCompletableFuture<T> future = new ManagedCompletableFuture<>(executor);
+        executor.execute(new AsyncTask<>(future, supplier, exceptionHandler, taskContext.capture()));
+        return future;
+    }
+
+    public static CompletableFuture<Void> runAsync(Runnable task, Executor executor, Consumer<Exception> exceptionHandler) {
+        return runAsync(task, executor, exceptionHandler, TaskContext.NONE);
+    }
+
+    public static CompletableFuture<Void> runAsync(Runnable task, Executor executor, Consumer<Exception> exceptionHandler,
+                                                   TaskContext taskContext) {
+        if (task == null) {
+            throw new NullPointerException();
+        }
+        return supplyAsync(() -> {
+            task.run();
+            return null;
+        }, executor, exceptionHandler, taskContext);
+    }
+
+    public ManagedCompletableFuture(Executor executor) {
+        this.executor = executor;
+    }
+
+    public Executor defaultExecutor() {
+        return executor;
+    }
+
+    public <U> CompletableFuture<U> newIncompleteFuture() {
+        return new ManagedCompletableFuture<>(executor);
+    }
+
+    @Override
+    public <U> CompletableFuture<U> thenApply(Function<? super T, ? extends U> fn) {
+        return managed(super.thenApply(fn));
+    }
+
+    @Override
+    public <U> CompletableFuture<U> thenApplyAsync(Function<? super T, ? extends U> fn) {
+        return thenApplyAsync(fn, executor);
+    }
+
+    @Override
+    public <U> CompletableFuture<U> thenApplyAsync(Function<? super T, ? extends U> fn, Executor executor) {
+        return managed(super.thenApplyAsync(fn, executor));
+    }
+
+    @Override
+    public CompletableFuture<Void> thenAccept(Consumer<? super T> action) {
+        return managed(super.thenAccept(action));
+    }
+
+    @Override
+    public CompletableFuture<Void> thenAcceptAsync(Consumer<? super T> action) {
+        return thenAcceptAsync(action, executor);
+    }
+
+    @Override
+    public CompletableFuture<Void> thenAcceptAsync(Consumer<? super T> action, Executor executor) {
+        return managed(super.thenAcceptAsync(action, executor));
+    }
+
+    @Override
+    public CompletableFuture<Void> thenRun(Runnable action) {
+        return managed(super.thenRun(action));
+    }
+
+    @Override
+    public CompletableFuture<Void> thenRunAsync(Runnable action) {
+        return thenRunAsync(action, executor);
+    }
+
+    @Override
+    public CompletableFuture<Void> thenRunAsync(Runnable action, Executor executor) {
+        return managed(super.thenRunAsync(action, executor));
+    }
+
+    @Override
+    public <U, V> CompletableFuture<V> thenCombine(CompletionStage<? extends U> other,
+                                                  BiFunction<? super T, ? super U, ? extends V> fn) {
+        return managed(super.thenCombine(other, fn));
+    }
+
+    @Override
+    public <U, V> CompletableFuture<V> thenCombineAsync(CompletionStage<? extends U> other,
+                                                       BiFunction<? super T, ? super U, ? extends V> fn) {
+        return thenCombineAsync(other, fn, executor);
+    }
+
+    @Override
+    public <U, V> CompletableFuture<V> thenCombineAsync(CompletionStage<? extends U> other,
+                                                       BiFunction<? super T, ? super U, ? extends V> fn, Executor executor) {
+        return managed(super.thenCombineAsync(other, fn, executor));
+    }
+
+    @Override
+    public <U> CompletableFuture<Void> thenAcceptBoth(CompletionStage<? extends U> other,
+                                                     BiConsumer<? super T, ? super U> action) {
+        return managed(super.thenAcceptBoth(other, action));
+    }
+
+    @Override
+    public <U> CompletableFuture<Void> thenAcceptBothAsync(CompletionStage<? extends U> other,
+                                                          BiConsumer<? super T, ? super U> action) {
+        return thenAcceptBothAsync(other, action, executor);
+    }
+
+    @Override
+    public <U> CompletableFuture<Void> thenAcceptBothAsync(CompletionStage<? extends U> other,
+                                                          BiConsumer<? super T, ? super U> action, Executor executor) {
+        return managed(super.thenAcceptBothAsync(other, action, executor));
+    }
+
+    @Override
+    public CompletableFuture<Void> runAfterBoth(CompletionStage<?> other, Runnable action) {
+        return managed(super.runAfterBoth(other, action));
+    }
+
+    @Override
+    public CompletableFuture<Void> runAfterBothAsync(CompletionStage<?> other, Runnable action) {
+        return runAfterBothAsync(other, action, executor);
+    }
+
+    @Override
+    public CompletableFuture<Void> runAfterBothAsync(CompletionStage<?> other, Runnable action, Executor executor) {
+        return managed(super.runAfterBothAsync(other, action, executor));
+    }
+
+    @Override
+    public <U> CompletableFuture<U> applyToEither(CompletionStage<? extends T> other, Function<? super T, U> fn) {
+        return managed(super.applyToEither(other, fn));
+    }
+
+    @Override
+    public <U> CompletableFuture<U> applyToEitherAsync(CompletionStage<? extends T> other, Function<? super T, U> fn) {
+        return applyToEitherAsync(other, fn, executor);
+    }
+
+    @Override
+    public <U> CompletableFuture<U> applyToEitherAsync(CompletionStage<? extends T> other, Function<? super T, U> fn,
+                                                      Executor executor) {
+        return managed(super.applyToEitherAsync(other, fn, executor));
+    }
+
+    @Override
+    public CompletableFuture<Void> acceptEither(CompletionStage<? extends T> other, Consumer<? super T> action) {
+        return managed(super.acceptEither(other, action));
+    }
+
+    @Override
+    public CompletableFuture<Void> acceptEitherAsync(CompletionStage<? extends T> other, Consumer<? super T> action) {
+        return acceptEitherAsync(other, action, executor);
+    }
+
+    @Override
+    public CompletableFuture<Void> acceptEitherAsync(CompletionStage<? extends T> other, Consumer<? super T> action,
+                                                     Executor executor) {
+        return managed(super.acceptEitherAsync(other, action, executor));
+    }
+
+    @Override
+    public CompletableFuture<Void> runAfterEither(CompletionStage<?> other, Runnable action) {
+        return managed(super.runAfterEither(other, action));
+    }
+
+    @Override
+    public CompletableFuture<Void> runAfterEitherAsync(CompletionStage<?> other, Runnable action) {
+        return runAfterEitherAsync(other, action, executor);
+    }
+
+    @Override
+    public CompletableFuture<Void> runAfterEitherAsync(CompletionStage<?> other, Runnable action, Executor executor) {
+        return managed(super.runAfterEitherAsync(other, action, executor));
+    }
+
+    @Override
+    public <U> CompletableFuture<U> thenCompose(Function<? super T, ? extends CompletionStage<U>> fn) {
+        return managed(super.thenCompose(fn));
+    }
+
+    @Override
+    public <U> CompletableFuture<U> thenComposeAsync(Function<? super T, ? extends CompletionStage<U>> fn) {
+        return thenComposeAsync(fn, executor);
+    }
+
+    @Override
+    public <U> CompletableFuture<U> thenComposeAsync(Function<? super T, ? extends CompletionStage<U>> fn, Executor executor) {
+        return managed(super.thenComposeAsync(fn, executor));
+    }
+
+    @Override
+    public CompletableFuture<T> whenComplete(BiConsumer<? super T, ? super Throwable> action) {
+        return managed(super.whenComplete(action));
+    }
+
+    @Override
+    public CompletableFuture<T> whenCompleteAsync(BiConsumer<? super T, ? super Throwable> action) {
+        return whenCompleteAsync(action, executor);
+    }
+
+    @Override
+    public CompletableFuture<T> whenCompleteAsync(BiConsumer<? super T, ? super Throwable> action, Executor executor) {
+        return managed(super.whenCompleteAsync(action, executor));
+    }
+
+    @Override
+    public <U> CompletableFuture<U> handle(BiFunction<? super T, Throwable, ? extends U> fn) {
+        return managed(super.handle(fn));
+    }
+
+    @Override
+    public <U> CompletableFuture<U> handleAsync(BiFunction<? super T, Throwable, ? extends U> fn) {
+        return handleAsync(fn, executor);
+    }
+
+    @Override
+    public <U> CompletableFuture<U> handleAsync(BiFunction<? super T, Throwable, ? extends U> fn, Executor executor) {
+        return managed(super.handleAsync(fn, executor));
+    }
+
+    @Override
+    public CompletableFuture<T> exceptionally(Function<Throwable, ? extends T> fn) {
+        return managed(super.exceptionally(fn));
+    }
+
+    private <U> CompletableFuture<U> managed(CompletableFuture<U> stage) {
+        if (stage instanceof ManagedCompletableFuture) {
+            return stage;
+        }
+        ManagedCompletableFuture<U> future = new ManagedCompletableFuture<>(executor);
+        stage.whenComplete((result, throwable) -> {
+            if (throwable != null) {
+                future.completeExceptionally(throwable);
+            } else {
+                future.complete(result);
+            }
+        });
+        return future;
+    }
+
+    private static class AsyncTask<T> implements Runnable, SubmittedTask {
+
+        private final CompletableFuture<T> future;
+        private final Supplier<T> supplier;
+        private final Consumer<Exception> exceptionHandler;
+        private final TaskContext.Snapshot context;
+        private final long submitNanos = System.nanoTime();
+
+        AsyncTask(CompletableFuture<T> future, Supplier<T> supplier, Consumer<Exception> exceptionHandler, TaskContext.Snapshot context) {
+            this.future = future;
+            this.supplier = supplier;
+            this.exceptionHandler = exceptionHandler;
+            this.context = context;
+        }
+
+        @Override
+        public long getSubmitNanos() {
+            return submitNanos;
+        }
+
+        @Override
+        public void run() {
+            if (future.isDone()) {
+                return;
+            }
+            if (context == null) {
+                complete();
+                return;
+            }
+            Object previousContext = context.apply();
+            try {
+                complete();
+            } finally {
+                context.restore(previousContext);
+            }
+        }
+
+        private void complete() {
+            try {
+                future.complete(supplier.get());
+            } catch (Exception e) {
+                try {
+                    if (exceptionHandler != null) {
+                        exceptionHandler.accept(e);
+                    }
+                } catch (Exception handlerException) {
+                    e.addSuppressed(handlerException);
+                }
+                future.completeExceptionally(e);
+            } catch (Throwable throwable) {
+                future.completeExceptionally(throwable);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,33 @@
+package com.dubravsky.threadpoolservice.task;
+
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+
+public class PrioritizedFutureTask<T> extends SafeFutureTask<T> implements PrioritizedTask {
+
+    private final int priority;
+
+    public PrioritizedFutureTask(Callable<T> task, int priority, Consumer<Exception> exceptionHandler) {
+        this(task, priority, exceptionHandler, null);
+    }
+
+    public PrioritizedFutureTask(Callable<T> task, int priority, Consumer<Exception> exceptionHandler, TaskContext.Snapshot context) {
+        super(task, exceptionHandler, context);
+        this.priority = priority;
+    }
+
+    public PrioritizedFutureTask(Runnable task, T result, int priority, Consumer<Exception> exceptionHandler) {
+        this(task, result, priority, exceptionHandler, null);
+    }
+
+    public PrioritizedFutureTask(Runnable task, T result, int priority, Consumer<Exception> exceptionHandler, TaskContext.Snapshot context) {
+        super(task, result, exceptionHandler, context);
+        this.priority = priority;
+    }
+
+    @Override
+    public int getPriority() {
+        return priority;
+    }
+
+}
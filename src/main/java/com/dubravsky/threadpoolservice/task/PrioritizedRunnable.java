@@ -0,0 +1,23 @@
+package com.dubravsky.threadpoolservice.task;
+
+import java.util.function.Consumer;
+
+public class PrioritizedRunnable extends SafeRunnable implements PrioritizedTask {
+
+    private final int priority;
+
+    public PrioritizedRunnable(Runnable task, int priority, Consumer<Exception> exceptionHandler) {
+        this(task, priority, exceptionHandler, null);
+    }
+
+    public PrioritizedRunnable(Runnable task, int priority, Consumer<Exception> exceptionHandler, TaskContext.Snapshot context) {
+        super(task, exceptionHandler, context);
+        this.priority = priority;
+    }
+
+    @Override
+    public int getPriority() {
+        return priority;
+    }
+
+}
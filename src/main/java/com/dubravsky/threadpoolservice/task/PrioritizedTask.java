@@ -0,0 +1,7 @@
+package com.dubravsky.threadpoolservice.task;
+
+public interface PrioritizedTask extends SubmittedTask {
+
+    int getPriority();
+
+}
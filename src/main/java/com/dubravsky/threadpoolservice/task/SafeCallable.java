@@ -7,14 +7,32 @@ public class SafeCallable<T> implements Callable<T> {
 
     private final Callable<T> task;
     private final Consumer<Exception> exceptionHandler;
+    private final TaskContext.Snapshot context;
 
     public SafeCallable(Callable<T> task, Consumer<Exception> exceptionHandler) {
+        this(task, exceptionHandler, null);
+    }
+
+    public SafeCallable(Callable<T> task, Consumer<Exception> exceptionHandler, TaskContext.Snapshot context) {
         this.task = task;
         this.exceptionHandler = exceptionHandler;
+        this.context = context;
     }
 
     @Override
     public T call() {
+        if (context == null) {
+            return callTask();
+        }
+        Object previousContext = context.apply();
+        try {
+            return callTask();
+        } finally {
+            context.restore(previousContext);
+        }
+    }
+
+    private T callTask() {
         try {
             return task.call();
         } catch (Exception e) {
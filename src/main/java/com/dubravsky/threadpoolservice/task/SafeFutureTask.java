@@ -0,0 +1,69 @@
+package com.dubravsky.threadpoolservice.task;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+import java.util.function.Consumer;
+
+public class SafeFutureTask<T> extends FutureTask<T> implements SubmittedTask {
+
+    private final Consumer<Exception> exceptionHandler;
+    private final TaskContext.Snapshot context;
+    private final long submitNanos = System.nanoTime();
+
+    public SafeFutureTask(Callable<T> task, Consumer<Exception> exceptionHandler) {
+        this(task, exceptionHandler, null);
+    }
+
+    public SafeFutureTask(Callable<T> task, Consumer<Exception> exceptionHandler, TaskContext.Snapshot context) {
+        super(task);
+        this.exceptionHandler = exceptionHandler;
+        this.context = context;
+    }
+
+    public SafeFutureTask(Runnable task, T result, Consumer<Exception> exceptionHandler) {
+        this(task, result, exceptionHandler, null);
+    }
+
+    public SafeFutureTask(Runnable task, T result, Consumer<Exception> exceptionHandler, TaskContext.Snapshot context) {
+        super(task, result);
+        this.exceptionHandler = exceptionHandler;
+        this.context = context;
+    }
+
+    @Override
+    public long getSubmitNanos() {
+        return submitNanos;
+    }
+
+    @Override
+    public void run() {
+        if (context == null) {
+            super.run();
+            return;
+        }
+        Object previousContext = context.apply();
+        try {
+            super.run();
+        } finally {
+            context.restore(previousContext);
+        }
+    }
+
+    @Override
+    protected void setException(Throwable throwable) {
+        if (!(throwable instanceof Exception)) {
+            super.setException(throwable);
+            return;
+        }
+        try {
+            if (exceptionHandler != null) {
+                exceptionHandler.accept((Exception) throwable);
+            }
+        } catch (Exception handlerException) {
+            super.setException(handlerException);
+            return;
+        }
+        set(null);
+    }
+
+}
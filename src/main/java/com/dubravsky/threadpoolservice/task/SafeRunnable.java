@@ -2,18 +2,43 @@ package com.dubravsky.threadpoolservice.task;
 
 import java.util.function.Consumer;
 
-public class SafeRunnable implements Runnable {
+public class SafeRunnable implements Runnable, SubmittedTask {
 
     private final Runnable task;
     private final Consumer<Exception> exceptionHandler;
+    private final TaskContext.Snapshot context;
+    private final long submitNanos = System.nanoTime();
 
     public SafeRunnable(Runnable task, Consumer<Exception> exceptionHandler) {
+        this(task, exceptionHandler, null);
+    }
+
+    public SafeRunnable(Runnable task, Consumer<Exception> exceptionHandler, TaskContext.Snapshot context) {
         this.task = task;
         this.exceptionHandler = exceptionHandler;
+        this.context = context;
+    }
+
+    @Override
+    public long getSubmitNanos() {
+        return submitNanos;
     }
 
     @Override
     public void run() {
+        if (context == null) {
+            runTask();
+            return;
+        }
+        Object previousContext = context.apply();
+        try {
+            runTask();
+        } finally {
+            context.restore(previousContext);
+        }
+    }
+
+    private void runTask() {
         try {
             task.run();
         } catch (Exception e) {
@@ -0,0 +1,121 @@
+package com.dubravsky.threadpoolservice.task;
+
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Runs a batch of tasks on a few workers instead of enqueueing every task separately.
+ * The batch itself is submitted once per participating worker, every worker claims the next task with a single
+ * atomic increment until the batch is drained. The future completes when all tasks have run,
+ * task exceptions go to the exception handler. An error thrown by a task or by the exception handler does not stop
+ * the worker, the batch is still drained and its future then completes exceptionally with the first of them.
+ * Cancelling the future skips the tasks which have not started yet.
+ */
+public class TaskBatch implements Runnable {
+
+    private final Runnable[] tasks;
+    private final Consumer<Exception> exceptionHandler;
+    private final AtomicInteger nextTaskIndex = new AtomicInteger();
+    private final AtomicInteger remainingTaskCount;
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+    public static CompletableFuture<Void> execute(Executor executor, Collection<? extends Runnable> tasks,
+                                                  Consumer<Exception> exceptionHandler, int maxWorkers) {
+        TaskBatch taskBatch = new TaskBatch(tasks, exceptionHandler);
+        int workers = Math.min(taskBatch.size(), Math.max(1, maxWorkers));
+        int acceptedWorkers = 0;
+        for (int i = 0; i < workers; i++) {
+            try {
+                executor.execute(taskBatch);
+                acceptedWorkers++;
+            } catch (RejectedExecutionException e) {
+                if (acceptedWorkers == 0) {
+                    throw e;
+                }
+            }
+        }
+        return taskBatch.getFuture();
+    }
+
+    public TaskBatch(Collection<? extends Runnable> tasks, Consumer<Exception> exceptionHandler) {
+        this.tasks = tasks.toArray(new Runnable[0]);
+        for (Runnable task : this.tasks) {
+            if (task == null) {
+                throw new NullPointerException();
+            }
+        }
+        this.exceptionHandler = exceptionHandler;
+        this.remainingTaskCount = new AtomicInteger(this.tasks.length);
+        if (this.tasks.length == 0) {
+            future.complete(null);
+        }
+    }
+
+    public int size() {
+        return tasks.length;
+    }
+
+    public CompletableFuture<Void> getFuture() {
+        return future;
+    }
+
+    @Override
+    public void run() {
+        int taskIndex;
+        while (!future.isDone() && (taskIndex = nextTaskIndex.getAndIncrement()) < tasks.length) {
+            run(taskIndex);
+        }
+    }
+
+    /**
+     * Runs only the next task of the batch, for executors which have to admit every task separately.
+     */
+    public void runNext() {
+        int taskIndex;
+        if (!future.isDone() && (taskIndex = nextTaskIndex.getAndIncrement()) < tasks.length) {
+            run(taskIndex);
+        }
+    }
+
+    private void run(int taskIndex) {
+        Runnable task = tasks[taskIndex];
+        tasks[taskIndex] = null;
+        try {
+            task.run();
+        } catch (Throwable throwable) {
+            handle(throwable);
+        } finally {
+            if (remainingTaskCount.decrementAndGet() == 0) {
+                complete();
+            }
+        }
+    }
+
+    private void handle(Throwable throwable) {
+        if (throwable instanceof Exception && exceptionHandler != null) {
+            try {
+                exceptionHandler.accept((Exception) throwable);
+            } catch (Throwable handlerThrowable) {
+                failure.compareAndSet(null, handlerThrowable);
+            }
+        } else if (!(throwable instanceof Exception)) {
+            failure.compareAndSet(null, throwable);
+        }
+    }
+
+    private void complete() {
+        Throwable throwable = failure.get();
+        if (throwable != null) {
+            future.completeExceptionally(throwable);
+        } else {
+            future.complete(null);
+        }
+    }
+
+}
@@ -0,0 +1,84 @@
+package com.dubravsky.threadpoolservice.task;
+
+import java.util.Collection;
+
+/**
+ * Context propagators of a thread pool. A task keeps the {@link Snapshot} captured on submission in its Safe wrapper,
+ * so propagation needs no wrapper of its own; without propagators the snapshot is {@code null} and nothing is
+ * captured or applied.
+ */
+public final class TaskContext {
+
+    public static final TaskContext NONE = new TaskContext(new ContextPropagator<?>[0]);
+
+    private final ContextPropagator<Object>[] propagators;
+
+    public static TaskContext of(Collection<ContextPropagator<?>> propagators) {
+        if (propagators.isEmpty()) {
+            return NONE;
+        }
+        return new TaskContext(propagators.toArray(new ContextPropagator<?>[0]));
+    }
+
+    @SuppressWarnings("unchecked")
+    private TaskContext(ContextPropagator<?>[] propagators) {
+        this.propagators = (ContextPropagator<Object>[]) propagators;
+    }
+
+    public boolean isEmpty() {
+        return propagators.length == 0;
+    }
+
+    public Snapshot capture() {
+        if (propagators.length == 0) {
+            return null;
+        }
+        if (propagators.length == 1) {
+            return new Snapshot(propagators, propagators[0].capture());
+        }
+        Object[] contexts = new Object[propagators.length];
+        for (int i = 0; i < propagators.length; i++) {
+            contexts[i] = propagators[i].capture();
+        }
+        return new Snapshot(propagators, contexts);
+    }
+
+    /**
+     * Contexts captured by all propagators. A single context is kept as is, several of them in an array.
+     */
+    public static final class Snapshot {
+
+        private final ContextPropagator<Object>[] propagators;
+        private final Object context;
+
+        private Snapshot(ContextPropagator<Object>[] propagators, Object context) {
+            this.propagators = propagators;
+            this.context = context;
+        }
+
+        public Object apply() {
+            if (propagators.length == 1) {
+                return propagators[0].apply(context);
+            }
+            Object[] contexts = (Object[]) context;
+            Object[] previousContexts = new Object[propagators.length];
+            for (int i = 0; i < propagators.length; i++) {
+                previousContexts[i] = propagators[i].apply(contexts[i]);
+            }
+            return previousContexts;
+        }
+
+        public void restore(Object previousContext) {
+            if (propagators.length == 1) {
+                propagators[0].restore(previousContext);
+                return;
+            }
+            Object[] previousContexts = (Object[]) previousContext;
+            for (int i = propagators.length - 1; i >= 0; i--) {
+                propagators[i].restore(previousContexts[i]);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,294 @@
+package com.dubravsky.threadpoolservice.task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Fan-out of subtasks over a thread pool, owned by the thread which opened it. Depending on the {@link JoinPolicy}
+ * the first failure or the first success decides the outcome and cancels the remaining subtasks at once: queued
+ * subtasks are skipped and running ones are interrupted, the same happens on a join deadline, on interruption
+ * of the owner and on {@link #close()}. Join and close return only when no subtask is running any more, so a cancelled
+ * subtask never outlives its scope. Subtasks go to the pool as they are, so their exceptions reach the owner
+ * instead of the exception handler of the pool.
+ */
+public class TaskScope<T> implements AutoCloseable {
+
+    private final Executor executor;
+    private final JoinPolicy joinPolicy;
+    private final TaskContext taskContext;
+    private final Thread owner = Thread.currentThread();
+    private final List<Subtask> subtasks = new ArrayList<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final AtomicReference<Subtask> winner = new AtomicReference<>();
+    private volatile boolean finished;
+    private boolean joined;
+    private boolean closed;
+
+    public TaskScope(Executor executor, JoinPolicy joinPolicy, TaskContext taskContext) {
+        if (joinPolicy == null) {
+            throw new IllegalArgumentException("JoinPolicy should not be null");
+        }
+        this.executor = executor;
+        this.joinPolicy = joinPolicy;
+        this.taskContext = taskContext;
+    }
+
+    public Future<T> fork(Callable<? extends T> task) {
+        if (task == null) {
+            throw new NullPointerException();
+        }
+        checkOwner();
+        if (closed) {
+            throw new IllegalStateException("Task scope is closed");
+        }
+        Subtask subtask = new Subtask(task, taskContext.capture());
+        pendingCount.incrementAndGet();
+        synchronized (subtasks) {
+            subtasks.add(subtask);
+        }
+        if (finished) {
+            subtask.cancel(false);
+            return subtask;
+        }
+        try {
+            executor.execute(subtask);
+        } catch (RejectedExecutionException e) {
+            subtask.reject(e);
+            throw e;
+        }
+        return subtask;
+    }
+
+    public TaskScope<T> join() throws InterruptedException, ExecutionException {
+        await(false, 0);
+        return outcome();
+    }
+
+    public TaskScope<T> join(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        if (!await(true, unit.toNanos(timeout))) {
+            finish();
+            awaitSubtasks();
+            throw new TimeoutException("Task scope has not completed in " + timeout + " " + unit);
+        }
+        return outcome();
+    }
+
+    /**
+     * Results of all subtasks in the order they were forked, available after a successful join of
+     * an {@link JoinPolicy#ALL_SUCCESSFUL} scope.
+     */
+    public List<T> results() {
+        checkJoined(JoinPolicy.ALL_SUCCESSFUL);
+        List<T> results = new ArrayList<>(subtasks.size());
+        for (Subtask subtask : subtasks) {
+            results.add(subtask.resultNow());
+        }
+        return results;
+    }
+
+    /**
+     * Result of the first successful subtask, available after a successful join of
+     * an {@link JoinPolicy#ANY_SUCCESSFUL} scope.
+     */
+    public T result() {
+        checkJoined(JoinPolicy.ANY_SUCCESSFUL);
+        return winner.get().resultNow();
+    }
+
+    @Override
+    public void close() {
+        checkOwner();
+        closed = true;
+        if (!finished && pendingCount.get() != 0) {
+            finish();
+        }
+        awaitSubtasks();
+    }
+
+    private boolean await(boolean timed, long nanos) throws InterruptedException {
+        checkOwner();
+        long deadline = timed ? System.nanoTime() + nanos : 0;
+        while (!finished && pendingCount.get() != 0) {
+            if (Thread.interrupted()) {
+                finish();
+                awaitSubtasks();
+                throw new InterruptedException();
+            }
+            if (!timed) {
+                LockSupport.park(this);
+            } else {
+                long remainingNanos = deadline - System.nanoTime();
+                if (remainingNanos <= 0) {
+                    return false;
+                }
+                LockSupport.parkNanos(this, remainingNanos);
+            }
+        }
+        awaitSubtasks();
+        return true;
+    }
+
+    /**
+     * Waits until the subtasks cancelled by {@link #finish()} have stopped running, interruption is deferred.
+     */
+    private void awaitSubtasks() {
+        boolean interrupted = false;
+        while (pendingCount.get() != 0) {
+            LockSupport.park(this);
+            interrupted |= Thread.interrupted();
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private TaskScope<T> outcome() throws ExecutionException {
+        Throwable throwable = failure.get();
+        if (joinPolicy == JoinPolicy.ALL_SUCCESSFUL ? throwable != null : winner.get() == null) {
+            if (throwable == null) {
+                throw new IllegalStateException("Task scope has no subtasks");
+            }
+            throw new ExecutionException(throwable);
+        }
+        joined = true;
+        return this;
+    }
+
+    private void finish() {
+        finished = true;
+        synchronized (subtasks) {
+            for (Subtask subtask : subtasks) {
+                subtask.cancel(true);
+            }
+        }
+        LockSupport.unpark(owner);
+    }
+
+    private void subtaskDone(Subtask subtask) {
+        if (!finished) {
+            if (subtask.isCancelled()) {
+                failed(new CancellationException("Subtask was cancelled"));
+            } else {
+                try {
+                    subtask.get();
+                    succeeded(subtask);
+                } catch (ExecutionException e) {
+                    failed(e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    private void subtaskStopped() {
+        if (pendingCount.decrementAndGet() == 0) {
+            LockSupport.unpark(owner);
+        }
+    }
+
+    private void succeeded(Subtask subtask) {
+        if (joinPolicy == JoinPolicy.ANY_SUCCESSFUL && winner.compareAndSet(null, subtask)) {
+            finish();
+        }
+    }
+
+    private void failed(Throwable throwable) {
+        if (failure.compareAndSet(null, throwable) && joinPolicy == JoinPolicy.ALL_SUCCESSFUL) {
+            finish();
+        }
+    }
+
+    private void checkOwner() {
+        if (Thread.currentThread() != owner) {
+            throw new IllegalStateException("Task scope is owned by thread " + owner.getName());
+        }
+    }
+
+    private void checkJoined(JoinPolicy expectedJoinPolicy) {
+        checkOwner();
+        if (joinPolicy != expectedJoinPolicy) {
+            throw new IllegalStateException("Task scope joins with policy " + joinPolicy);
+        }
+        if (!joined) {
+            throw new IllegalStateException("Task scope has not been joined successfully");
+        }
+    }
+
+    /**
+     * A subtask stops either when its run returns or, if it is cancelled before it started, when it is cancelled.
+     * Cancelling a running subtask completes its future at once, so the stop is tracked apart from completion.
+     */
+    private class Subtask extends FutureTask<T> implements SubmittedTask {
+
+        private final TaskContext.Snapshot context;
+        private final long submitNanos = System.nanoTime();
+        private final AtomicBoolean started = new AtomicBoolean();
+
+        @SuppressWarnings("unchecked")
+        Subtask(Callable<? extends T> task, TaskContext.Snapshot context) {
+            super((Callable<T>) task);
+            this.context = context;
+        }
+
+        @Override
+        public long getSubmitNanos() {
+            return submitNanos;
+        }
+
+        @Override
+        public void run() {
+            if (!started.compareAndSet(false, true)) {
+                return;
+            }
+            Object previousContext = context != null ? context.apply() : null;
+            try {
+                super.run();
+            } finally {
+                if (context != null) {
+                    context.restore(previousContext);
+                }
+                subtaskStopped();
+            }
+        }
+
+        @Override
+        protected void done() {
+            subtaskDone(this);
+            if (isCancelled() && started.compareAndSet(false, true)) {
+                subtaskStopped();
+            }
+        }
+
+        void reject(RejectedExecutionException e) {
+            if (started.compareAndSet(false, true)) {
+                setException(e);
+                subtaskStopped();
+            }
+        }
+
+        T resultNow() {
+            try {
+                return get();
+            } catch (InterruptedException | ExecutionException | CancellationException e) {
+                throw new IllegalStateException("Subtask has not completed successfully", e);
+            }
+        }
+
+    }
+
+}
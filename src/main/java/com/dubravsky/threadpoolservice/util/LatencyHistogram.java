@@ -0,0 +1,251 @@
+package com.dubravsky.threadpoolservice.util;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free log-linear histogram of non-negative values with 8 sub-buckets per power of two,
+ * so every recorded value is reported with a relative error below 12.5%. Buckets include their upper bound,
+ * so the count of values at or below a power of two is exact.
+ * Recording is a single atomic increment of a stripe chosen by the recording thread. There is one stripe at first,
+ * more are added (up to the number of processors) when recording threads collide, and snapshots sum them up.
+ * {@link #snapshotAndReset()} starts a new interval without losing values,
+ * and {@link #cumulativeSnapshot()} returns the counts since creation regardless of intervals.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+    private static final double[] PERCENTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final int MAX_STRIPE_COUNT = maxStripeCount(Runtime.getRuntime().availableProcessors());
+
+    private volatile AtomicLongArray[] stripes = {new AtomicLongArray(BUCKET_COUNT)};
+    private final AtomicLong max = new AtomicLong();
+    private final LongAdder sum = new LongAdder();
+    private final long[] previousIntervalCounts = new long[BUCKET_COUNT];
+
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        int bucketIndex = bucketIndex(value > 0 ? value - 1 : 0);
+        AtomicLongArray[] currentStripes = stripes;
+        AtomicLongArray stripe = currentStripes[stripeIndex(currentStripes.length)];
+        long count = stripe.get(bucketIndex);
+        if (!stripe.compareAndSet(bucketIndex, count, count + 1)) {
+            stripe.incrementAndGet(bucketIndex);
+            addStripes(currentStripes);
+        }
+        sum.add(value);
+        if (value > max.get()) {
+            max.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    public synchronized Snapshot snapshotAndReset() {
+        long[] snapshot = new long[BUCKET_COUNT];
+        for (AtomicLongArray stripe : stripes) {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                if (stripe.get(i) != 0) {
+                    snapshot[i] += stripe.getAndSet(i, 0);
+                }
+            }
+        }
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            previousIntervalCounts[i] += snapshot[i];
+        }
+        return snapshot(snapshot, max.getAndSet(0));
+    }
+
+    public Snapshot snapshot() {
+        return snapshot(intervalCounts(), max.get());
+    }
+
+    public synchronized Cumulative cumulativeSnapshot() {
+        long[] snapshot = intervalCounts();
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] += previousIntervalCounts[i];
+        }
+        return new Cumulative(snapshot, sum.sum());
+    }
+
+    int getStripeCount() {
+        return stripes.length;
+    }
+
+    private long[] intervalCounts() {
+        long[] counts = new long[BUCKET_COUNT];
+        for (AtomicLongArray stripe : stripes) {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                counts[i] += stripe.get(i);
+            }
+        }
+        return counts;
+    }
+
+    private void addStripes(AtomicLongArray[] currentStripes) {
+        if (currentStripes.length >= MAX_STRIPE_COUNT) {
+            return;
+        }
+        synchronized (previousIntervalCounts) {
+            if (stripes != currentStripes) {
+                return;
+            }
+            AtomicLongArray[] newStripes = Arrays.copyOf(currentStripes, currentStripes.length * 2);
+            for (int i = currentStripes.length; i < newStripes.length; i++) {
+                newStripes[i] = new AtomicLongArray(BUCKET_COUNT);
+            }
+            stripes = newStripes;
+        }
+    }
+
+    private static int stripeIndex(int stripeCount) {
+        long id = Thread.currentThread().getId();
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 32) & (stripeCount - 1);
+    }
+
+    static int maxStripeCount(int processorCount) {
+        return processorCount <= 1 ? 1 : Integer.highestOneBit(processorCount - 1) << 1;
+    }
+
+    private static Snapshot snapshot(long[] snapshot, long maxValue) {
+        long totalCount = 0;
+        for (long count : snapshot) {
+            totalCount += count;
+        }
+        long[] percentileValues = new long[PERCENTILES.length];
+        int percentileIndex = 0;
+        long cumulativeCount = 0;
+        for (int i = 0; i < BUCKET_COUNT && percentileIndex < PERCENTILES.length; i++) {
+            cumulativeCount += snapshot[i];
+            while (percentileIndex < PERCENTILES.length && totalCount > 0
+                    && cumulativeCount >= Math.ceil(PERCENTILES[percentileIndex] * totalCount)) {
+                percentileValues[percentileIndex++] = Math.min(maxValue, upperBound(i));
+            }
+        }
+        return new Snapshot(totalCount, percentileValues[0], percentileValues[1], percentileValues[2], percentileValues[3], maxValue);
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    static long highestValue(int bucketIndex) {
+        if (bucketIndex < SUB_BUCKET_COUNT) {
+            return bucketIndex;
+        }
+        int exponent = bucketIndex / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+        long subBucket = bucketIndex % SUB_BUCKET_COUNT;
+        long lowestValue = (SUB_BUCKET_COUNT + subBucket) << (exponent - SUB_BUCKET_BITS);
+        long bucketWidth = 1L << (exponent - SUB_BUCKET_BITS);
+        return lowestValue + bucketWidth - 1 < 0 ? Long.MAX_VALUE : lowestValue + bucketWidth - 1;
+    }
+
+    private static long upperBound(int bucketIndex) {
+        long highestValue = highestValue(bucketIndex);
+        return highestValue == Long.MAX_VALUE ? highestValue : highestValue + 1;
+    }
+
+    public static class Cumulative {
+
+        public static final Cumulative EMPTY = new Cumulative(new long[BUCKET_COUNT], 0);
+
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+
+        private Cumulative(long[] counts, long sum) {
+            long totalCount = 0;
+            for (long bucketCount : counts) {
+                totalCount += bucketCount;
+            }
+            this.counts = counts;
+            this.count = totalCount;
+            this.sum = sum;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getSum() {
+            return sum;
+        }
+
+        /**
+         * Number of recorded values lower than or equal to the given one. It is exact for powers of two and values
+         * from 1 to 8, otherwise values of the bucket containing the given one are not counted.
+         */
+        public long getCountAtOrBelow(long value) {
+            if (value <= 0) {
+                return 0;
+            }
+            long result = 0;
+            for (int i = 0, limit = bucketIndex(value); i < limit; i++) {
+                result += counts[i];
+            }
+            return result;
+        }
+
+    }
+
+    public static class Snapshot {
+
+        public static final Snapshot EMPTY = new Snapshot(0, 0, 0, 0, 0, 0);
+
+        private final long count;
+        private final long p50;
+        private final long p90;
+        private final long p99;
+        private final long p999;
+        private final long max;
+
+        private Snapshot(long count, long p50, long p90, long p99, long p999, long max) {
+            this.count = count;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+            this.p999 = p999;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getP50() {
+            return p50;
+        }
+
+        public long getP90() {
+            return p90;
+        }
+
+        public long getP99() {
+            return p99;
+        }
+
+        public long getP999() {
+            return p999;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("p50: %d   p90: %d   p99: %d   p99.9: %d   max: %d", p50, p90, p99, p999, max);
+        }
+
+    }
+
+}
@@ -0,0 +1,371 @@
+package com.dubravsky.threadpoolservice.util;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded multi-producer/multi-consumer ring buffer based on sequence numbers per slot.
+ * Offer and poll are lock-free; blocking operations spin for a while and then park on a condition
+ * which is signalled only if somebody is actually waiting. The capacity is rounded up to a power of two
+ * (at least two, a single slot can not distinguish a full queue from an empty one).
+ * {@link #remove(Object)} replaces the element in its slot with a tombstone, consumers skip tombstones
+ * and free their slots, so a removed element keeps its slot until the consumers reach it.
+ */
+public class MpmcArrayBlockingQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+    private static final int MIN_CAPACITY = 2;
+    private static final int MAX_CAPACITY = 1 << 30;
+    private static final int CACHE_LINE_LONGS = 8;
+    private static final int PRODUCER_INDEX = CACHE_LINE_LONGS;
+    private static final int CONSUMER_INDEX = 2 * CACHE_LINE_LONGS;
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 10;
+    private static final Object TOMBSTONE = new Object();
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<Object> elements;
+    private final AtomicLongArray sequences;
+    private final AtomicLongArray indexes = new AtomicLongArray(3 * CACHE_LINE_LONGS);
+    private final AtomicInteger removedCount = new AtomicInteger();
+    private final AtomicInteger waitingConsumers = new AtomicInteger();
+    private final AtomicInteger waitingProducers = new AtomicInteger();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+
+    public MpmcArrayBlockingQueue(int capacity) {
+        if (capacity <= 0 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Capacity should be in range [1, " + MAX_CAPACITY + "] but it is " + capacity);
+        }
+        this.capacity = Math.max(MIN_CAPACITY, Integer.highestOneBit(capacity - 1) << 1);
+        this.mask = this.capacity - 1;
+        this.elements = new AtomicReferenceArray<>(this.capacity);
+        this.sequences = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public boolean offer(E element) {
+        if (element == null) {
+            throw new NullPointerException();
+        }
+        long position = indexes.get(PRODUCER_INDEX);
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (indexes.compareAndSet(PRODUCER_INDEX, position, position + 1)) {
+                    elements.lazySet(index, element);
+                    sequences.set(index, position + 1);
+                    signal(waitingConsumers, notEmpty);
+                    return true;
+                }
+            } else if (difference < 0) {
+                return false;
+            }
+            position = indexes.get(PRODUCER_INDEX);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long position = indexes.get(CONSUMER_INDEX);
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - (position + 1);
+            if (difference == 0) {
+                if (indexes.compareAndSet(CONSUMER_INDEX, position, position + 1)) {
+                    Object element = take(index, position);
+                    if (element != TOMBSTONE) {
+                        return (E) element;
+                    }
+                }
+            } else if (difference < 0) {
+                return null;
+            }
+            position = indexes.get(CONSUMER_INDEX);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        while (true) {
+            long position = indexes.get(CONSUMER_INDEX);
+            int index = (int) position & mask;
+            if (sequences.get(index) - (position + 1) < 0) {
+                return null;
+            }
+            Object element = elements.get(index);
+            if (element == TOMBSTONE) {
+                if (indexes.compareAndSet(CONSUMER_INDEX, position, position + 1)) {
+                    take(index, position);
+                }
+            } else if (element != null && indexes.get(CONSUMER_INDEX) == position) {
+                return (E) element;
+            }
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return peek() == null;
+    }
+
+    @Override
+    public void put(E element) throws InterruptedException {
+        if (spinOffer(element)) {
+            return;
+        }
+        lock.lockInterruptibly();
+        try {
+            waitingProducers.incrementAndGet();
+            try {
+                while (!offer(element)) {
+                    notFull.await();
+                }
+            } finally {
+                waitingProducers.decrementAndGet();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean offer(E element, long timeout, TimeUnit unit) throws InterruptedException {
+        if (spinOffer(element)) {
+            return true;
+        }
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            waitingProducers.incrementAndGet();
+            try {
+                while (!offer(element)) {
+                    if (nanos <= 0) {
+                        return false;
+                    }
+                    nanos = notFull.awaitNanos(nanos);
+                }
+                return true;
+            } finally {
+                waitingProducers.decrementAndGet();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        E element = spinPoll();
+        if (element != null) {
+            return element;
+        }
+        lock.lockInterruptibly();
+        try {
+            waitingConsumers.incrementAndGet();
+            try {
+                while ((element = poll()) == null) {
+                    notEmpty.await();
+                }
+                return element;
+            } finally {
+                waitingConsumers.decrementAndGet();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        E element = spinPoll();
+        if (element != null) {
+            return element;
+        }
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            waitingConsumers.incrementAndGet();
+            try {
+                while ((element = poll()) == null) {
+                    if (nanos <= 0) {
+                        return null;
+                    }
+                    nanos = notEmpty.awaitNanos(nanos);
+                }
+                return element;
+            } finally {
+                waitingConsumers.decrementAndGet();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        long consumerIndex = indexes.get(CONSUMER_INDEX);
+        long producerIndex = indexes.get(PRODUCER_INDEX);
+        return (int) Math.max(0, Math.min(capacity, producerIndex - consumerIndex - removedCount.get()));
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return capacity - size();
+    }
+
+    @Override
+    public boolean remove(Object element) {
+        if (element == null) {
+            return false;
+        }
+        long producerIndex = indexes.get(PRODUCER_INDEX);
+        for (long position = indexes.get(CONSUMER_INDEX); position < producerIndex; position++) {
+            int index = (int) position & mask;
+            Object candidate = elements.get(index);
+            if (candidate != null && candidate != TOMBSTONE && sequences.get(index) == position + 1 && element.equals(candidate)
+                    && elements.compareAndSet(index, candidate, TOMBSTONE)) {
+                removedCount.incrementAndGet();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> collection) {
+        return drainTo(collection, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> collection, int maxElements) {
+        if (collection == null) {
+            throw new NullPointerException();
+        }
+        if (collection == this) {
+            throw new IllegalArgumentException();
+        }
+        int drained = 0;
+        E element;
+        while (drained < maxElements && (element = poll()) != null) {
+            collection.add(element);
+            drained++;
+        }
+        return drained;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        Iterator<E> iterator = snapshot().iterator();
+        return new Iterator<E>() {
+
+            private E lastElement;
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public E next() {
+                lastElement = iterator.next();
+                return lastElement;
+            }
+
+            @Override
+            public void remove() {
+                if (lastElement == null) {
+                    throw new IllegalStateException();
+                }
+                MpmcArrayBlockingQueue.this.remove(lastElement);
+                lastElement = null;
+            }
+
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<E> snapshot() {
+        long consumerIndex = indexes.get(CONSUMER_INDEX);
+        long producerIndex = indexes.get(PRODUCER_INDEX);
+        List<E> result = new ArrayList<>((int) Math.max(0, Math.min(capacity, producerIndex - consumerIndex)));
+        for (long position = consumerIndex; position < producerIndex; position++) {
+            int index = (int) position & mask;
+            Object element = elements.get(index);
+            if (element != null && element != TOMBSTONE && sequences.get(index) == position + 1) {
+                result.add((E) element);
+            }
+        }
+        return result;
+    }
+
+    private Object take(int index, long position) {
+        Object element = elements.getAndSet(index, null);
+        sequences.set(index, position + capacity);
+        signal(waitingProducers, notFull);
+        if (element == TOMBSTONE) {
+            removedCount.decrementAndGet();
+        }
+        return element;
+    }
+
+    private boolean spinOffer(E element) {
+        for (int i = 0; i < SPIN_TRIES + YIELD_TRIES; i++) {
+            if (offer(element)) {
+                return true;
+            }
+            backOff(i);
+        }
+        return false;
+    }
+
+    private E spinPoll() {
+        for (int i = 0; i < SPIN_TRIES + YIELD_TRIES; i++) {
+            E element = poll();
+            if (element != null) {
+                return element;
+            }
+            backOff(i);
+        }
+        return null;
+    }
+
+    private static void backOff(int attempt) {
+        if (attempt >= SPIN_TRIES) {
+            Thread.yield();
+        }
+    }
+
+    private void signal(AtomicInteger waiters, Condition condition) {
+        if (waiters.get() > 0) {
+            lock.lock();
+            try {
+                condition.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,27 @@
+package com.dubravsky.threadpoolservice.util;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class NamedForkJoinWorkerThreadFactory implements ForkJoinPool.ForkJoinWorkerThreadFactory {
+
+    private final AtomicLong threadIndex = new AtomicLong(0);
+    private final String threadName;
+
+    public static ForkJoinPool.ForkJoinWorkerThreadFactory of(String threadName) {
+        return new NamedForkJoinWorkerThreadFactory(threadName);
+    }
+
+    private NamedForkJoinWorkerThreadFactory(String threadName) {
+        this.threadName = threadName;
+    }
+
+    @Override
+    public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName(threadName + "-" + threadIndex.getAndIncrement());
+        return thread;
+    }
+
+}
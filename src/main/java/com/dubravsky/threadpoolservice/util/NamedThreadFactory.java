@@ -18,7 +18,7 @@ public class NamedThreadFactory implements ThreadFactory {
 
     @Override
     public Thread newThread(Runnable runnable) {
-        Thread thread = new Thread(runnable);
+        Thread thread = new WorkerThread(runnable);
         thread.setName(threadName + "-" + threadIndex.getAndIncrement());
         return thread;
     }
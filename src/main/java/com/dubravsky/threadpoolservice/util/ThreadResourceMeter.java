@@ -0,0 +1,49 @@
+package com.dubravsky.threadpoolservice.util;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * CPU time and allocated bytes of the current thread. Allocation is measured with the HotSpot extension of
+ * {@link ThreadMXBean}; on JVMs without it, or when a measurement is disabled, -1 is returned.
+ */
+public class ThreadResourceMeter {
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+    private static final com.sun.management.ThreadMXBean ALLOCATION_MX_BEAN = allocationMXBean();
+
+    private ThreadResourceMeter() {
+    }
+
+    public static void enable() {
+        if (THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported() && !THREAD_MX_BEAN.isThreadCpuTimeEnabled()) {
+            THREAD_MX_BEAN.setThreadCpuTimeEnabled(true);
+        }
+        if (ALLOCATION_MX_BEAN != null && !ALLOCATION_MX_BEAN.isThreadAllocatedMemoryEnabled()) {
+            ALLOCATION_MX_BEAN.setThreadAllocatedMemoryEnabled(true);
+        }
+    }
+
+    public static long currentThreadCpuNanos() {
+        return THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported() ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : -1;
+    }
+
+    public static long currentThreadAllocatedBytes() {
+        return ALLOCATION_MX_BEAN != null ? ALLOCATION_MX_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId()) : -1;
+    }
+
+    private static com.sun.management.ThreadMXBean allocationMXBean() {
+        try {
+            if (THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) THREAD_MX_BEAN;
+                if (threadMXBean.isThreadAllocatedMemorySupported()) {
+                    return threadMXBean;
+                }
+            }
+        } catch (LinkageError e) {
+            // not a HotSpot based JVM
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,49 @@
+package com.dubravsky.threadpoolservice.util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+public class VirtualThreadFactory {
+
+    private static final Method OF_VIRTUAL;
+    private static final Method NAME;
+    private static final Method FACTORY;
+
+    static {
+        Method ofVirtual = null;
+        Method name = null;
+        Method factory = null;
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            name = builderClass.getMethod("name", String.class, long.class);
+            factory = builderClass.getMethod("factory");
+            factory.invoke(ofVirtual.invoke(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        FACTORY = factory;
+    }
+
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    public static ThreadFactory of(String threadName) {
+        if (!isSupported()) {
+            return NamedThreadFactory.of(threadName);
+        }
+        try {
+            Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), threadName + "-", 0L);
+            return (ThreadFactory) FACTORY.invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create virtual thread factory", e);
+        }
+    }
+
+    private VirtualThreadFactory() {
+    }
+
+}
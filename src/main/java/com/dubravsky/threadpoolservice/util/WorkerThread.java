@@ -0,0 +1,60 @@
+package com.dubravsky.threadpoolservice.util;
+
+public class WorkerThread extends Thread {
+
+    public static final long NOT_RUNNING = Long.MIN_VALUE;
+
+    private long taskStartNanos;
+    private volatile long runningTaskStartNanos = NOT_RUNNING;
+    private long reportedTaskStartNanos = NOT_RUNNING;
+    private long taskStartCpuNanos = -1;
+    private long taskStartAllocatedBytes = -1;
+
+    public WorkerThread(Runnable runnable) {
+        super(runnable);
+    }
+
+    public long getTaskStartNanos() {
+        return taskStartNanos;
+    }
+
+    public void setTaskStartNanos(long taskStartNanos) {
+        this.taskStartNanos = taskStartNanos;
+    }
+
+    /**
+     * Start time of the task which is running now or {@link #NOT_RUNNING}, it is published for monitoring threads.
+     */
+    public long getRunningTaskStartNanos() {
+        return runningTaskStartNanos;
+    }
+
+    public void setRunningTaskStartNanos(long runningTaskStartNanos) {
+        this.runningTaskStartNanos = runningTaskStartNanos;
+    }
+
+    public long getReportedTaskStartNanos() {
+        return reportedTaskStartNanos;
+    }
+
+    public void setReportedTaskStartNanos(long reportedTaskStartNanos) {
+        this.reportedTaskStartNanos = reportedTaskStartNanos;
+    }
+
+    public long getTaskStartCpuNanos() {
+        return taskStartCpuNanos;
+    }
+
+    public void setTaskStartCpuNanos(long taskStartCpuNanos) {
+        this.taskStartCpuNanos = taskStartCpuNanos;
+    }
+
+    public long getTaskStartAllocatedBytes() {
+        return taskStartAllocatedBytes;
+    }
+
+    public void setTaskStartAllocatedBytes(long taskStartAllocatedBytes) {
+        this.taskStartAllocatedBytes = taskStartAllocatedBytes;
+    }
+
+}
@@ -0,0 +1,160 @@
+package com.dubravsky.threadpoolservice;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static com.dubravsky.threadpoolservice.ThreadPoolServiceTest.ANY_THREAD_POOL_NAME;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveSizingControllerTest {
+
+    private static final long PERIOD_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long SERVICE_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final int MIN_POOL_SIZE = 1;
+    private static final int MAX_POOL_SIZE = 64;
+
+    private ThreadPoolService threadPoolService;
+
+    @After
+    public void shutdown() {
+        if (threadPoolService != null) {
+            threadPoolService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldGrowDuringBurstAndShrinkAfterIt() {
+        Simulation simulation = new Simulation(MIN_POOL_SIZE, MAX_POOL_SIZE);
+
+        simulation.replay(constantTrace(20, 100));
+        int poolSizeBeforeBurst = simulation.poolSize;
+        simulation.replay(constantTrace(20, 2_000));
+        int poolSizeDuringBurst = simulation.poolSize;
+        simulation.replay(constantTrace(60, 100));
+
+        assertTrue("Pool size before burst: " + poolSizeBeforeBurst, poolSizeBeforeBurst <= 2);
+        assertTrue("Pool size during burst: " + poolSizeDuringBurst, poolSizeDuringBurst >= 20);
+        assertTrue("Pool size after burst: " + simulation.poolSize, simulation.poolSize <= 3);
+        assertThat(simulation.queueSize, is(0L));
+    }
+
+    @Test
+    public void shouldNotOscillateUnderNoisySteadyLoad() {
+        Simulation simulation = new Simulation(MIN_POOL_SIZE, MAX_POOL_SIZE);
+        Random random = new Random(42);
+        long[] trace = new long[200];
+        for (int i = 0; i < trace.length; i++) {
+            trace[i] = 450 + random.nextInt(100);
+        }
+
+        simulation.replay(trace, 20);
+
+        assertTrue("Pool size changes: " + simulation.changeCount, simulation.changeCount <= 2);
+        assertTrue("Queue size: " + simulation.queueSize, simulation.queueSize < 1_000);
+    }
+
+    @Test
+    public void shouldStayWithinBounds() {
+        Simulation simulation = new Simulation(2, 8);
+
+        simulation.replay(constantTrace(10, 5_000));
+        assertThat(simulation.poolSize, is(8));
+
+        simulation.replay(constantTrace(200, 0));
+        assertThat(simulation.poolSize, is(2));
+    }
+
+    @Test
+    public void shouldRequireSeveralPeriodsBeforeResizing() {
+        Simulation simulation = new Simulation(MIN_POOL_SIZE, MAX_POOL_SIZE);
+        simulation.replay(constantTrace(10, 50));
+
+        simulation.replay(new long[]{2_000});
+
+        assertThat(simulation.poolSize, is(MIN_POOL_SIZE));
+    }
+
+    @Test
+    public void adaptiveThreadPoolShouldGrowUnderLoad() throws Exception {
+        threadPoolService = ThreadPoolService.builder()
+                .adaptiveSizingPeriod(20)
+                .build();
+        ExecutorService executorService = threadPoolService.newAdaptiveThreadPool(1, 4, ANY_THREAD_POOL_NAME);
+
+        for (int i = 0; i < 500; i++) {
+            executorService.execute(() -> sleep(5));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (((ThreadPoolExecutor) executorService).getCorePoolSize() == 1 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(((ThreadPoolExecutor) executorService).getCorePoolSize() > 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionIfMaxThreadsIsLessThanMinThreads() {
+        threadPoolService = ThreadPoolService.create();
+
+        threadPoolService.newAdaptiveThreadPool(4, 2, ANY_THREAD_POOL_NAME);
+    }
+
+    private static long[] constantTrace(int periods, long arrivalsPerPeriod) {
+        long[] trace = new long[periods];
+        Arrays.fill(trace, arrivalsPerPeriod);
+        return trace;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class Simulation {
+
+        private final AdaptiveSizingController controller;
+        private int poolSize;
+        private long queueSize;
+        private long completedTaskCount;
+        private long busyNanos;
+        private int changeCount;
+
+        Simulation(int minPoolSize, int maxPoolSize) {
+            this.controller = new AdaptiveSizingController(minPoolSize, maxPoolSize);
+            this.poolSize = minPoolSize;
+        }
+
+        void replay(long[] arrivalsPerPeriod) {
+            replay(arrivalsPerPeriod, 0);
+        }
+
+        void replay(long[] arrivalsPerPeriod, int warmUpPeriods) {
+            for (int period = 0; period < arrivalsPerPeriod.length; period++) {
+                long capacity = poolSize * (PERIOD_NANOS / SERVICE_NANOS);
+                long completed = Math.min(queueSize + arrivalsPerPeriod[period], capacity);
+                queueSize += arrivalsPerPeriod[period] - completed;
+                completedTaskCount += completed;
+                busyNanos += completed * SERVICE_NANOS;
+
+                int nextPoolSize = controller.nextPoolSize(poolSize, (int) queueSize, completedTaskCount, busyNanos, PERIOD_NANOS);
+                if (nextPoolSize != poolSize && period >= warmUpPeriods) {
+                    changeCount++;
+                }
+                poolSize = nextPoolSize;
+            }
+        }
+
+    }
+
+}
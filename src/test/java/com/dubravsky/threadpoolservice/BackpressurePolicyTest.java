@@ -0,0 +1,122 @@
+package com.dubravsky.threadpoolservice;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.dubravsky.threadpoolservice.ThreadPoolServiceTest.*;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.*;
+
+public class BackpressurePolicyTest {
+
+    private static final int QUEUE_CAPACITY = 1;
+
+    private ThreadPoolService threadPoolService;
+    private CountDownLatch workerLatch;
+
+    @Before
+    public void init() {
+        threadPoolService = ThreadPoolService.create();
+        workerLatch = new CountDownLatch(1);
+    }
+
+    @After
+    public void shutdown() {
+        workerLatch.countDown();
+        threadPoolService.shutdown();
+    }
+
+    @Test
+    public void failFastShouldRejectAndCountQueueFullEvents() {
+        ExecutorService executorService = fullExecutor(QueueType.ARRAY, BackpressurePolicy.failFast());
+
+        try {
+            executorService.execute(mock(Runnable.class));
+            fail("Task should be rejected");
+        } catch (RejectedExecutionException expected) {
+        }
+
+        assertThat(StatisticsObject.of((ThreadPoolExecutor) executorService).getQueueFullCount(), is(1L));
+    }
+
+    @Test
+    public void callerRunsShouldExecuteTaskInCallerThread() {
+        ExecutorService executorService = fullExecutor(QueueType.LINKED, BackpressurePolicy.callerRuns());
+        AtomicReference<Thread> executionThread = new AtomicReference<>();
+
+        executorService.execute(() -> executionThread.set(Thread.currentThread()));
+
+        assertThat(executionThread.get(), is(Thread.currentThread()));
+        StatisticsObject statisticsObject = ((NamedThreadPoolExecutor) executorService).getStatistics();
+        assertThat(statisticsObject.getSubmittedTaskCount(), is(3L));
+        assertThat(statisticsObject.getCompletedTaskCount(), is(1L));
+    }
+
+    @Test
+    public void discardOldestShouldCancelOldestTask() throws Exception {
+        ExecutorService executorService = threadPoolService.newFixedThreadPool(1, ANY_THREAD_POOL_NAME,
+                QUEUE_CAPACITY, QueueType.ARRAY, BackpressurePolicy.discardOldest());
+        executorService.execute(this::awaitLatch);
+        Future<?> oldestFuture = executorService.submit(mock(Runnable.class));
+        Runnable task = mock(Runnable.class);
+
+        executorService.execute(task);
+        workerLatch.countDown();
+
+        assertThat(oldestFuture.isCancelled(), is(true));
+        verify(task, timeout(DELAY).times(1)).run();
+        assertThat(((NamedThreadPoolExecutor) executorService).getStatistics().getSubmittedTaskCount(), is(3L));
+    }
+
+    @Test
+    public void blockShouldWaitForFreeSpaceInQueue() {
+        ExecutorService executorService = fullExecutor(QueueType.LINKED, BackpressurePolicy.block(DELAY, TimeUnit.MILLISECONDS));
+        Runnable task = mock(Runnable.class);
+
+        threadPoolService.newSingleScheduledThreadPool(SECOND_ANY_THREAD_POOL_NAME)
+                .schedule(workerLatch::countDown, SHORT_DELAY, TimeUnit.MILLISECONDS);
+        executorService.execute(task);
+
+        verify(task, timeout(DELAY).times(1)).run();
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void blockShouldRejectTaskAfterTimeout() {
+        ExecutorService executorService = fullExecutor(QueueType.ARRAY, BackpressurePolicy.block(SHORT_DELAY, TimeUnit.MILLISECONDS));
+
+        executorService.execute(mock(Runnable.class));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionIfQueueCapacityIsNotPositive() {
+        threadPoolService.newFixedThreadPool(1, ANY_THREAD_POOL_NAME, 0, QueueType.ARRAY, BackpressurePolicy.failFast());
+    }
+
+    private ExecutorService fullExecutor(QueueType queueType, BackpressurePolicy backpressurePolicy) {
+        ExecutorService executorService = threadPoolService.newFixedThreadPool(1, ANY_THREAD_POOL_NAME,
+                QUEUE_CAPACITY, queueType, backpressurePolicy);
+        executorService.execute(this::awaitLatch);
+        executorService.execute(mock(Runnable.class));
+        return executorService;
+    }
+
+    private void awaitLatch() {
+        try {
+            workerLatch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
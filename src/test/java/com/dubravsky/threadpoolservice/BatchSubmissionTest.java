@@ -0,0 +1,193 @@
+package com.dubravsky.threadpoolservice;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static com.dubravsky.threadpoolservice.ThreadPoolServiceTest.*;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.*;
+
+public class BatchSubmissionTest {
+
+    private static final int THREAD_NUMBER = 4;
+    private static final int TASK_NUMBER = 10_000;
+
+    private ThreadPoolService threadPoolService;
+    private Consumer<Exception> exceptionHandler;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void init() {
+        exceptionHandler = mock(Consumer.class);
+        threadPoolService = ThreadPoolService.builder()
+                .exceptionHandler(exceptionHandler)
+                .build();
+    }
+
+    @After
+    public void shutdown() {
+        threadPoolService.shutdownNow();
+    }
+
+    @Test
+    public void shouldRunAllTasksOfBatch() throws Exception {
+        List<NamedThreadPoolExecutor> executorServices = Arrays.asList(
+                (NamedThreadPoolExecutor) threadPoolService.newFixedThreadPool(THREAD_NUMBER, ANY_THREAD_POOL_NAME),
+                (NamedThreadPoolExecutor) threadPoolService.newWorkStealingPool(THREAD_NUMBER, SECOND_ANY_THREAD_POOL_NAME),
+                (NamedThreadPoolExecutor) threadPoolService.newVirtualThreadExecutor("VirtualThreadPool", THREAD_NUMBER),
+                (NamedThreadPoolExecutor) threadPoolService.newScheduledThreadPool(THREAD_NUMBER, "ScheduledThreadPool"));
+
+        for (NamedThreadPoolExecutor executorService : executorServices) {
+            AtomicInteger executedTasks = new AtomicInteger();
+
+            executorService.submitAll(tasks(executedTasks::incrementAndGet)).get(10, TimeUnit.SECONDS);
+
+            assertThat(executorService.getName(), executedTasks.get(), is(TASK_NUMBER));
+        }
+    }
+
+    @Test
+    public void shouldUseOneQueueEntryPerWorker() throws Exception {
+        NamedThreadPoolExecutor executorService = (NamedThreadPoolExecutor) threadPoolService.newFixedThreadPool(THREAD_NUMBER, ANY_THREAD_POOL_NAME);
+
+        executorService.submitAll(tasks(mock(Runnable.class))).get(10, TimeUnit.SECONDS);
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertTrue(executorService.getStatistics().getCompletedTaskCount() <= THREAD_NUMBER);
+    }
+
+    @Test
+    public void shouldRouteTaskExceptionsToExceptionHandler() throws Exception {
+        NamedThreadPoolExecutor executorService = (NamedThreadPoolExecutor) threadPoolService.newFixedThreadPool(THREAD_NUMBER, ANY_THREAD_POOL_NAME);
+        AtomicInteger executedTasks = new AtomicInteger();
+
+        CompletableFuture<Void> future = executorService.submitAll(tasks(() -> {
+            if (executedTasks.incrementAndGet() % 2 == 0) {
+                throw ANY_EXCEPTION;
+            }
+        }));
+        future.get(10, TimeUnit.SECONDS);
+
+        assertThat(executedTasks.get(), is(TASK_NUMBER));
+        assertThat(future.isCompletedExceptionally(), is(false));
+        verify(exceptionHandler, times(TASK_NUMBER / 2)).accept(ANY_EXCEPTION);
+    }
+
+    @Test
+    public void shouldDrainBatchWhenTaskThrowsError() throws Exception {
+        NamedThreadPoolExecutor executorService = (NamedThreadPoolExecutor) threadPoolService.newSingleThreadExecutor(ANY_THREAD_POOL_NAME);
+        AtomicInteger executedTasks = new AtomicInteger();
+        AssertionError error = new AssertionError();
+
+        CompletableFuture<Void> future = executorService.submitAll(tasks(() -> {
+            if (executedTasks.incrementAndGet() == 1) {
+                throw error;
+            }
+        }));
+
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), is(error));
+        }
+        assertThat(executedTasks.get(), is(TASK_NUMBER));
+    }
+
+    @Test
+    public void shouldDrainBatchWhenExceptionHandlerThrows() throws Exception {
+        NamedThreadPoolExecutor executorService = (NamedThreadPoolExecutor) threadPoolService.newSingleThreadExecutor(ANY_THREAD_POOL_NAME);
+        AtomicInteger executedTasks = new AtomicInteger();
+        doThrow(ANY_EXCEPTION).when(exceptionHandler).accept(any());
+
+        CompletableFuture<Void> future = executorService.submitAll(tasks(() -> {
+            executedTasks.incrementAndGet();
+            throw ANY_EXCEPTION;
+        }));
+
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), is(ANY_EXCEPTION));
+        }
+        assertThat(executedTasks.get(), is(TASK_NUMBER));
+    }
+
+    @Test
+    public void shouldSkipNotStartedTasksAfterCancel() throws Exception {
+        NamedThreadPoolExecutor executorService = (NamedThreadPoolExecutor) threadPoolService.newSingleThreadExecutor(ANY_THREAD_POOL_NAME);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch cancelled = new CountDownLatch(1);
+        AtomicInteger executedTasks = new AtomicInteger();
+
+        CompletableFuture<Void> future = executorService.submitAll(tasks(() -> {
+            executedTasks.incrementAndGet();
+            started.countDown();
+            await(cancelled);
+        }));
+        started.await();
+        future.cancel(false);
+        cancelled.countDown();
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertThat(executedTasks.get(), is(1));
+    }
+
+    @Test
+    public void shouldCompleteEmptyBatch() {
+        NamedThreadPoolExecutor executorService = (NamedThreadPoolExecutor) threadPoolService.newFixedThreadPool(THREAD_NUMBER, ANY_THREAD_POOL_NAME);
+
+        assertThat(executorService.submitAll(Collections.emptyList()).isDone(), is(true));
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void shouldRejectBatchAfterShutdown() {
+        NamedThreadPoolExecutor executorService = (NamedThreadPoolExecutor) threadPoolService.newFixedThreadPool(THREAD_NUMBER, ANY_THREAD_POOL_NAME);
+        executorService.shutdown();
+
+        executorService.submitAll(tasks(mock(Runnable.class)));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void shouldThrowExceptionIfTaskIsNull() {
+        NamedThreadPoolExecutor executorService = (NamedThreadPoolExecutor) threadPoolService.newFixedThreadPool(THREAD_NUMBER, ANY_THREAD_POOL_NAME);
+
+        executorService.submitAll(Collections.singletonList(null));
+    }
+
+    private static List<Runnable> tasks(Runnable task) {
+        List<Runnable> tasks = new ArrayList<>(TASK_NUMBER);
+        for (int i = 0; i < TASK_NUMBER; i++) {
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
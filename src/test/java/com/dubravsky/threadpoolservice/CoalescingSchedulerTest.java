@@ -0,0 +1,178 @@
+package com.dubravsky.threadpoolservice;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static com.dubravsky.threadpoolservice.ThreadPoolServiceTest.*;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.*;
+
+public class CoalescingSchedulerTest {
+
+    private static final int EVENT_NUMBER = 1_000;
+    private static final String KEY = "key";
+
+    private ThreadPoolService threadPoolService;
+    private Consumer<Exception> exceptionHandler;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void init() {
+        exceptionHandler = mock(Consumer.class);
+        threadPoolService = ThreadPoolService.builder()
+                .exceptionHandler(exceptionHandler)
+                .build();
+    }
+
+    @After
+    public void shutdown() {
+        threadPoolService.shutdownNow();
+    }
+
+    @Test
+    public void shouldMergeBurstIntoSingleExecution() throws Exception {
+        CoalescingScheduledExecutorService executorService = threadPoolService.newScheduledThreadPool(2, ANY_THREAD_POOL_NAME);
+        AtomicInteger runs = new AtomicInteger();
+
+        for (int i = 0; i < EVENT_NUMBER; i++) {
+            executorService.scheduleCoalesced(KEY, SHORT_DELAY, TimeUnit.MILLISECONDS, runs::incrementAndGet);
+        }
+        sleep(DELAY);
+
+        StatisticsObject statisticsObject = threadPoolService.getExecutor(ANY_THREAD_POOL_NAME).getStatistics();
+        assertThat(runs.get(), is(1));
+        assertThat(statisticsObject.getMetric("Merged Tasks"), is((long) EVENT_NUMBER - 1));
+        assertThat(statisticsObject.getMetric("Coalesced Runs"), is(1L));
+        assertThat(statisticsObject.getMetric("Coalesced Keys"), is(0L));
+    }
+
+    @Test
+    public void shouldRunLatestTask() throws Exception {
+        CoalescingScheduledExecutorService executorService = threadPoolService.newScheduledThreadPool(2, ANY_THREAD_POOL_NAME);
+        AtomicInteger executed = new AtomicInteger();
+
+        for (int i = 1; i <= 3; i++) {
+            int index = i;
+            executorService.scheduleCoalesced(KEY, SHORT_DELAY, TimeUnit.MILLISECONDS, () -> executed.set(index));
+        }
+        sleep(DELAY);
+
+        assertThat(executed.get(), is(3));
+    }
+
+    @Test
+    public void shouldPostponeDebouncedExecution() throws Exception {
+        CoalescingScheduledExecutorService executorService = threadPoolService.newScheduledThreadPool(2, ANY_THREAD_POOL_NAME);
+        AtomicInteger runs = new AtomicInteger();
+
+        for (int i = 0; i < 5; i++) {
+            executorService.scheduleCoalesced(KEY, DELAY, TimeUnit.MILLISECONDS, CoalescingMode.DEBOUNCE, runs::incrementAndGet);
+            sleep(SHORT_DELAY);
+        }
+
+        assertThat(runs.get(), is(0));
+        sleep(2 * DELAY);
+        assertThat(runs.get(), is(1));
+
+        StatisticsObject statisticsObject = threadPoolService.getExecutor(ANY_THREAD_POOL_NAME).getStatistics();
+        assertThat(statisticsObject.getSubmittedTaskCount(), is(1L));
+        assertThat(statisticsObject.getStartedTaskCount(), is(1L));
+        assertThat(statisticsObject.getCompletedTaskCount(), is(1L));
+    }
+
+    @Test
+    public void shouldThrottleExecutions() throws Exception {
+        CoalescingScheduledExecutorService executorService = threadPoolService.newScheduledThreadPool(2, ANY_THREAD_POOL_NAME);
+        AtomicInteger runs = new AtomicInteger();
+
+        for (int i = 0; i < 9; i++) {
+            executorService.scheduleCoalesced(KEY, DELAY, TimeUnit.MILLISECONDS, CoalescingMode.THROTTLE, runs::incrementAndGet);
+            sleep(SHORT_DELAY);
+        }
+
+        assertTrue(runs.get() >= 2);
+        assertTrue(runs.get() <= 3);
+    }
+
+    @Test
+    public void shouldNotOverlapExecutionsOfKey() throws Exception {
+        CoalescingScheduledExecutorService executorService = threadPoolService.newScheduledThreadPool(4, ANY_THREAD_POOL_NAME);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch completed = new CountDownLatch(2);
+        Runnable task = () -> {
+            if (running.incrementAndGet() > 1) {
+                overlaps.incrementAndGet();
+            }
+            started.countDown();
+            sleepUninterruptibly(DELAY);
+            running.decrementAndGet();
+            completed.countDown();
+        };
+
+        executorService.scheduleCoalesced(KEY, 0, TimeUnit.MILLISECONDS, task);
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        executorService.scheduleCoalesced(KEY, 0, TimeUnit.MILLISECONDS, task);
+
+        assertTrue(completed.await(1, TimeUnit.SECONDS));
+        assertThat(overlaps.get(), is(0));
+    }
+
+    @Test
+    public void shouldCoalesceKeysIndependently() throws Exception {
+        CoalescingScheduledExecutorService executorService = threadPoolService.newScheduledThreadPool(2, ANY_THREAD_POOL_NAME);
+        CountDownLatch completed = new CountDownLatch(2);
+
+        executorService.scheduleCoalesced("first", SHORT_DELAY, TimeUnit.MILLISECONDS, completed::countDown);
+        executorService.scheduleCoalesced("second", SHORT_DELAY, TimeUnit.MILLISECONDS, completed::countDown);
+
+        assertTrue(completed.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldCatchExceptions() {
+        CoalescingScheduledExecutorService executorService = threadPoolService.newScheduledThreadPool(2, ANY_THREAD_POOL_NAME);
+
+        executorService.scheduleCoalesced(KEY, 0, TimeUnit.MILLISECONDS, () -> {
+            throw ANY_EXCEPTION;
+        });
+
+        verify(exceptionHandler, timeout(DELAY)).accept(ANY_EXCEPTION);
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void shouldRejectMergeAfterShutdown() throws Exception {
+        CoalescingScheduledExecutorService executorService = threadPoolService.newScheduledThreadPool(2, ANY_THREAD_POOL_NAME);
+        executorService.scheduleCoalesced(KEY, 1, TimeUnit.HOURS, () -> {
+        });
+
+        executorService.shutdownNow();
+
+        assertTrue(executorService.awaitTermination(1, TimeUnit.SECONDS));
+        executorService.scheduleCoalesced(KEY, 0, TimeUnit.MILLISECONDS, () -> {
+        });
+    }
+
+    private static void sleep(long millis) throws InterruptedException {
+        TimeUnit.MILLISECONDS.sleep(millis);
+    }
+
+    private static void sleepUninterruptibly(long millis) {
+        try {
+            sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,97 @@
+package com.dubravsky.threadpoolservice;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static com.dubravsky.threadpoolservice.ThreadPoolServiceTest.*;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.*;
+
+public class CompletableFutureTest {
+
+    private ThreadPoolService threadPoolService;
+    private Consumer<Exception> exceptionHandler;
+    private NamedThreadPoolExecutor executorService;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void init() {
+        exceptionHandler = mock(Consumer.class);
+        threadPoolService = ThreadPoolService.builder()
+                .exceptionHandler(exceptionHandler)
+                .build();
+        executorService = (NamedThreadPoolExecutor) threadPoolService.newFixedThreadPool(2, ANY_THREAD_POOL_NAME);
+    }
+
+    @After
+    public void shutdown() {
+        threadPoolService.shutdownNow();
+    }
+
+    @Test
+    public void shouldSupplyResultOnNamedPool() throws Exception {
+        String threadName = executorService.supplyAsync(() -> Thread.currentThread().getName()).get(10, TimeUnit.SECONDS);
+
+        assertThat(threadName, startsWith(ANY_THREAD_POOL_NAME + "-"));
+    }
+
+    @Test
+    public void shouldRunDependentAsyncStagesOnSamePool() throws Exception {
+        List<NamedThreadPoolExecutor> executorServices = Arrays.asList(executorService,
+                (NamedThreadPoolExecutor) threadPoolService.newWorkStealingPool(2, SECOND_ANY_THREAD_POOL_NAME));
+
+        for (NamedThreadPoolExecutor namedExecutorService : executorServices) {
+            String threadName = namedExecutorService.runAsync(mock(Runnable.class))
+                    .thenApplyAsync(ignored -> "stage")
+                    .thenApplyAsync(ignored -> Thread.currentThread().getName())
+                    .get(10, TimeUnit.SECONDS);
+
+            assertThat(threadName, startsWith(namedExecutorService.getName() + "-"));
+        }
+    }
+
+    @Test
+    public void shouldPassExceptionToFutureAndExceptionHandler() throws Exception {
+        CompletableFuture<String> future = executorService.supplyAsync(() -> {
+            throw ANY_EXCEPTION;
+        });
+
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            fail("Exception is expected");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), is(ANY_EXCEPTION));
+        }
+        verify(exceptionHandler).accept(ANY_EXCEPTION);
+    }
+
+    @Test
+    public void shouldPassExceptionOfRunnableToFutureAndExceptionHandler() throws Exception {
+        CompletableFuture<Void> future = executorService.runAsync(() -> {
+            throw ANY_EXCEPTION;
+        });
+
+        assertThat(future.handle((result, throwable) -> throwable).get(10, TimeUnit.SECONDS), is(ANY_EXCEPTION));
+        verify(exceptionHandler).accept(ANY_EXCEPTION);
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void shouldRejectAfterShutdown() {
+        executorService.shutdown();
+
+        executorService.supplyAsync(() -> ANY_THREAD_POOL_NAME);
+    }
+
+}
@@ -0,0 +1,167 @@
+package com.dubravsky.threadpoolservice;
+
+import com.dubravsky.threadpoolservice.task.ContextPropagator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.dubravsky.threadpoolservice.ThreadPoolServiceTest.*;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class ContextPropagationTest {
+
+    private static final String CONTEXT = "request-1";
+    private static final String SECOND_CONTEXT = "span-1";
+    private static final ThreadLocal<String> REQUEST = new ThreadLocal<>();
+    private static final ThreadLocal<String> SPAN = new ThreadLocal<>();
+
+    private List<String> events;
+    private ThreadPoolService threadPoolService;
+
+    @Before
+    public void init() {
+        events = new CopyOnWriteArrayList<>();
+        threadPoolService = ThreadPoolService.builder()
+                .contextPropagator(new ThreadLocalPropagator("request", REQUEST))
+                .contextPropagator(new ThreadLocalPropagator("span", SPAN))
+                .build();
+        REQUEST.set(CONTEXT);
+        SPAN.set(SECOND_CONTEXT);
+    }
+
+    @After
+    public void shutdown() {
+        REQUEST.remove();
+        SPAN.remove();
+        threadPoolService.shutdownNow();
+    }
+
+    @Test
+    public void shouldPropagateContextToExecutedTask() throws Exception {
+        ExecutorService executorService = threadPoolService.newSingleThreadExecutor(ANY_THREAD_POOL_NAME);
+        AtomicReference<String> context = new AtomicReference<>();
+
+        executorService.execute(() -> context.set(REQUEST.get() + "/" + SPAN.get()));
+
+        assertThat(executorService.submit(REQUEST::get).get(1, TimeUnit.SECONDS), is(CONTEXT));
+        assertThat(context.get(), is(CONTEXT + "/" + SECOND_CONTEXT));
+    }
+
+    @Test
+    public void shouldRestoreWorkerContextAfterTask() throws Exception {
+        ExecutorService executorService = threadPoolService.newSingleThreadExecutor(ANY_THREAD_POOL_NAME);
+        executorService.submit(REQUEST::get).get(1, TimeUnit.SECONDS);
+        REQUEST.remove();
+        SPAN.remove();
+
+        assertThat(executorService.submit(REQUEST::get).get(1, TimeUnit.SECONDS), is(nullValue()));
+        assertThat(executorService.submit(SPAN::get).get(1, TimeUnit.SECONDS), is(nullValue()));
+    }
+
+    @Test
+    public void shouldRestoreInReverseOrder() throws Exception {
+        ExecutorService executorService = threadPoolService.newSingleThreadExecutor(ANY_THREAD_POOL_NAME);
+
+        executorService.submit(() -> events.add("task")).get(1, TimeUnit.SECONDS);
+        executorService.shutdown();
+
+        assertTrue(executorService.awaitTermination(1, TimeUnit.SECONDS));
+
+        assertThat(events, is(Arrays.asList("capture request", "capture span",
+                "apply request", "apply span", "task", "restore span", "restore request")));
+    }
+
+    @Test
+    public void shouldPropagateContextToAllExecutorTypes() throws Exception {
+        ScheduledExecutorService scheduledExecutorService = threadPoolService.newSingleScheduledThreadPool(ANY_THREAD_POOL_NAME);
+
+        assertThat(scheduledExecutorService.schedule(REQUEST::get, 1, TimeUnit.MILLISECONDS).get(1, TimeUnit.SECONDS), is(CONTEXT));
+        assertThat(threadPoolService.newWorkStealingPool(SECOND_ANY_THREAD_POOL_NAME).submit(REQUEST::get).get(1, TimeUnit.SECONDS), is(CONTEXT));
+        assertThat(threadPoolService.newVirtualThreadExecutor("Virtual").submit(REQUEST::get).get(1, TimeUnit.SECONDS), is(CONTEXT));
+        assertThat(((NamedThreadPoolExecutor) threadPoolService.newFixedThreadPool(2, "Async")).supplyAsync(REQUEST::get).get(1, TimeUnit.SECONDS), is(CONTEXT));
+    }
+
+    @Test
+    public void shouldPropagateContextToKeyedTask() throws Exception {
+        KeyedExecutorService executorService = threadPoolService.newKeyedExecutor(2, ANY_THREAD_POOL_NAME);
+        AtomicReference<String> context = new AtomicReference<>();
+
+        executorService.execute("key", () -> context.set(REQUEST.get()));
+
+        assertThat(executorService.submit("key", REQUEST::get).get(1, TimeUnit.SECONDS), is(CONTEXT));
+        assertThat(context.get(), is(CONTEXT));
+    }
+
+    @Test
+    public void shouldHandleExceptionWithinContext() throws Exception {
+        AtomicReference<String> context = new AtomicReference<>();
+        CountDownLatch handled = new CountDownLatch(1);
+        ThreadPoolService service = ThreadPoolService.builder()
+                .contextPropagator(new ThreadLocalPropagator("request", REQUEST))
+                .exceptionHandler(exception -> {
+                    context.set(REQUEST.get());
+                    handled.countDown();
+                })
+                .build();
+        try {
+            service.newSingleThreadExecutor(ANY_THREAD_POOL_NAME).execute(() -> {
+                throw ANY_EXCEPTION;
+            });
+
+            assertTrue(handled.await(1, TimeUnit.SECONDS));
+            assertThat(context.get(), is(CONTEXT));
+        } finally {
+            service.shutdownNow();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotAcceptNullPropagator() {
+        ThreadPoolService.builder().contextPropagator(null);
+    }
+
+    private class ThreadLocalPropagator implements ContextPropagator<String> {
+
+        private final String name;
+        private final ThreadLocal<String> threadLocal;
+
+        ThreadLocalPropagator(String name, ThreadLocal<String> threadLocal) {
+            this.name = name;
+            this.threadLocal = threadLocal;
+        }
+
+        @Override
+        public String capture() {
+            events.add("capture " + name);
+            return threadLocal.get();
+        }
+
+        @Override
+        public String apply(String context) {
+            events.add("apply " + name);
+            String previous = threadLocal.get();
+            threadLocal.set(context);
+            return previous;
+        }
+
+        @Override
+        public void restore(String previous) {
+            events.add("restore " + name);
+            threadLocal.set(previous);
+        }
+
+    }
+
+}
@@ -0,0 +1,147 @@
+package com.dubravsky.threadpoolservice;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.dubravsky.threadpoolservice.ThreadPoolServiceTest.ANY_THREAD_POOL_NAME;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class ExecutorRegistryTest {
+
+    private static final int THREAD_NUMBER = 8;
+    private static final int NAME_NUMBER = 50;
+    private static final int ROUND_NUMBER = 20;
+
+    private ThreadPoolService threadPoolService;
+    private StatisticsHandler statisticsHandler;
+
+    @Before
+    public void init() {
+        statisticsHandler = mock(StatisticsHandler.class);
+        threadPoolService = ThreadPoolService.builder()
+                .statisticsHandler(statisticsHandler)
+                .statisticsOutputDelay(1)
+                .build();
+    }
+
+    @After
+    public void shutdown() {
+        threadPoolService.shutdownNow();
+    }
+
+    @Test
+    public void shouldLookUpExecutorByName() {
+        ExecutorService executorService = threadPoolService.newSingleThreadExecutor(ANY_THREAD_POOL_NAME);
+
+        assertThat(threadPoolService.getExecutor(ANY_THREAD_POOL_NAME), is(sameInstance(executorService)));
+        assertThat(threadPoolService.getExecutor("Unknown"), is(nullValue()));
+    }
+
+    @Test
+    public void shouldDeregisterTerminatedExecutor() throws Exception {
+        ExecutorService executorService = threadPoolService.newSingleThreadExecutor(ANY_THREAD_POOL_NAME);
+        int threadPoolNumber = threadPoolService.getThreadPoolNumber();
+
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertThat(threadPoolService.getExecutor(ANY_THREAD_POOL_NAME), is(nullValue()));
+        assertThat(threadPoolService.getThreadPoolNumber(), is(threadPoolNumber - 1));
+        threadPoolService.newSingleThreadExecutor(ANY_THREAD_POOL_NAME);
+    }
+
+    @Test
+    public void shouldRegisterEveryNameOnceUnderContention() throws Exception {
+        ExecutorService testThreads = Executors.newFixedThreadPool(THREAD_NUMBER);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger registeredCount = new AtomicInteger();
+        AtomicInteger rejectedCount = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        try {
+            for (int thread = 0; thread < THREAD_NUMBER; thread++) {
+                futures.add(testThreads.submit(() -> {
+                    start.await();
+                    for (int round = 0; round < ROUND_NUMBER; round++) {
+                        for (int i = 0; i < NAME_NUMBER; i++) {
+                            register("Tenant-" + round + "-" + i, registeredCount, rejectedCount);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            testThreads.shutdownNow();
+        }
+
+        assertThat(registeredCount.get(), is(NAME_NUMBER * ROUND_NUMBER));
+        assertThat(rejectedCount.get(), is((THREAD_NUMBER - 1) * NAME_NUMBER * ROUND_NUMBER));
+        for (int round = 0; round < ROUND_NUMBER; round++) {
+            for (int i = 0; i < NAME_NUMBER; i++) {
+                assertThat(threadPoolService.getExecutor("Tenant-" + round + "-" + i).isShutdown(), is(false));
+            }
+        }
+        verify(statisticsHandler, atLeastOnce()).handle(any(), anyString());
+    }
+
+    @Test
+    public void shouldReuseNamesOfRetiredExecutorsUnderContention() throws Exception {
+        ExecutorService testThreads = Executors.newFixedThreadPool(THREAD_NUMBER);
+        List<Future<?>> futures = new ArrayList<>();
+
+        try {
+            for (int thread = 0; thread < THREAD_NUMBER; thread++) {
+                String name = "Tenant-" + thread;
+                futures.add(testThreads.submit(() -> {
+                    for (int round = 0; round < ROUND_NUMBER; round++) {
+                        ExecutorService executorService = threadPoolService.newSingleThreadExecutor(name);
+                        executorService.submit(() -> name).get();
+                        executorService.shutdown();
+                        assertTrue(executorService.awaitTermination(10, TimeUnit.SECONDS));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            testThreads.shutdownNow();
+        }
+
+        for (int thread = 0; thread < THREAD_NUMBER; thread++) {
+            assertThat(threadPoolService.getExecutor("Tenant-" + thread), is(nullValue()));
+        }
+    }
+
+    private void register(String name, AtomicInteger registeredCount, AtomicInteger rejectedCount) {
+        try {
+            threadPoolService.newSingleThreadExecutor(name);
+            registeredCount.incrementAndGet();
+        } catch (IllegalArgumentException e) {
+            rejectedCount.incrementAndGet();
+        }
+    }
+
+}
@@ -0,0 +1,178 @@
+package com.dubravsky.threadpoolservice;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static com.dubravsky.threadpoolservice.ThreadPoolServiceTest.*;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.*;
+
+public class FixedRateSchedulingTest {
+
+    private static final long PERIOD = 50;
+    private static final long PAUSE = 270;
+    private static final String TASK_NAME = "Heartbeat";
+
+    private ThreadPoolService threadPoolService;
+    private Consumer<Exception> exceptionHandler;
+    private ScheduledExecutorService executorService;
+    private long scheduleNanos;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void init() {
+        exceptionHandler = mock(Consumer.class);
+        threadPoolService = ThreadPoolService.builder()
+                .exceptionHandler(exceptionHandler)
+                .build();
+        executorService = threadPoolService.newSingleScheduledThreadPool(ANY_THREAD_POOL_NAME);
+    }
+
+    @After
+    public void shutdown() {
+        threadPoolService.shutdownNow();
+    }
+
+    @Test
+    public void shouldSkipMissedRuns() throws Exception {
+        List<Long> startTimes = scheduleWithPause(CatchUpPolicy.skip(), 2);
+
+        assertTrue(startTimes.get(1) - startTimes.get(0) >= TimeUnit.MILLISECONDS.toNanos(PAUSE));
+        assertThat(periodicTaskStatistics().getSkippedRunCount(), is(5L));
+    }
+
+    @Test
+    public void shouldCatchUpWithBoundedBurst() throws Exception {
+        List<Long> startTimes = scheduleWithPause(CatchUpPolicy.burst(2), 4);
+
+        assertTrue(startTimes.get(2) - startTimes.get(1) < TimeUnit.MILLISECONDS.toNanos(SHORT_DELAY));
+        assertTrue(startTimes.get(3) - scheduleNanos >= TimeUnit.MILLISECONDS.toNanos(6 * PERIOD));
+        PeriodicTaskStatistics periodicTaskStatistics = periodicTaskStatistics();
+        assertThat(periodicTaskStatistics.getSkippedRunCount(), is(3L));
+        assertTrue(periodicTaskStatistics.getLateness().getMax() >= TimeUnit.MILLISECONDS.toNanos(PAUSE - PERIOD));
+    }
+
+    @Test
+    public void shouldRealignAfterPause() throws Exception {
+        List<Long> startTimes = scheduleWithPause(CatchUpPolicy.realign(), 3);
+
+        assertTrue(startTimes.get(1) - startTimes.get(0) < TimeUnit.MILLISECONDS.toNanos(PAUSE + SHORT_DELAY));
+        assertTrue(startTimes.get(2) - startTimes.get(0) >= TimeUnit.MILLISECONDS.toNanos(PAUSE + PERIOD));
+        assertThat(periodicTaskStatistics().getSkippedRunCount(), is(4L));
+    }
+
+    @Test
+    public void shouldReportRunTime() throws Exception {
+        scheduleWithPause(CatchUpPolicy.skip(), 2);
+
+        PeriodicTaskStatistics periodicTaskStatistics = periodicTaskStatistics();
+        assertThat(periodicTaskStatistics.getName(), is(TASK_NAME));
+        assertThat(periodicTaskStatistics.getPeriodNanos(), is(TimeUnit.MILLISECONDS.toNanos(PERIOD)));
+        assertTrue(periodicTaskStatistics.getRunTime().getMax() >= TimeUnit.MILLISECONDS.toNanos(PAUSE));
+    }
+
+    @Test
+    public void shouldKeepRunningAfterException() {
+        executorService.scheduleAtFixedRate(PeriodicTask.of(TASK_NAME, CatchUpPolicy.skip(), () -> {
+            throw ANY_EXCEPTION;
+        }), 0, SHORT_DELAY, TimeUnit.MILLISECONDS);
+
+        verify(exceptionHandler, timeout(2 * DELAY).atLeast(2)).accept(ANY_EXCEPTION);
+    }
+
+    @Test
+    public void shouldStopRunningWhenCancelled() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        ScheduledFuture<?> future = executorService.scheduleAtFixedRate(PeriodicTask.of(TASK_NAME, CatchUpPolicy.skip(), runs::incrementAndGet),
+                0, SHORT_DELAY, TimeUnit.MILLISECONDS);
+        TimeUnit.MILLISECONDS.sleep(DELAY);
+
+        assertTrue(future.cancel(false));
+        int cancelledRuns = runs.get();
+        TimeUnit.MILLISECONDS.sleep(DELAY);
+
+        assertTrue(future.isCancelled());
+        assertThat(runs.get(), is(cancelledRuns));
+        assertTrue(threadPoolService.getExecutor(ANY_THREAD_POOL_NAME).getStatistics().getPeriodicTaskStatistics().isEmpty());
+    }
+
+    @Test
+    public void shouldCancelOnShutdown() throws Exception {
+        ScheduledFuture<?> future = executorService.scheduleAtFixedRate(PeriodicTask.of(TASK_NAME, CatchUpPolicy.skip(), () -> {
+        }), 0, SHORT_DELAY, TimeUnit.MILLISECONDS);
+
+        executorService.shutdown();
+
+        assertTrue(executorService.awaitTermination(1, TimeUnit.SECONDS));
+        assertTrue(future.isCancelled());
+    }
+
+    @Test
+    public void shouldCancelPendingRunOnShutdown() throws Exception {
+        ScheduledFuture<?> future = executorService.scheduleAtFixedRate(PeriodicTask.of(TASK_NAME, CatchUpPolicy.skip(), () -> {
+        }), 1, 1, TimeUnit.HOURS);
+
+        executorService.shutdown();
+
+        assertTrue(executorService.awaitTermination(1, TimeUnit.SECONDS));
+        assertTrue(future.isCancelled());
+    }
+
+    @Test(expected = CancellationException.class)
+    public void shouldCompleteFutureOnShutdownNow() throws Exception {
+        ScheduledFuture<?> future = executorService.scheduleAtFixedRate(PeriodicTask.of(TASK_NAME, CatchUpPolicy.skip(), () -> {
+        }), 1, 1, TimeUnit.HOURS);
+
+        executorService.shutdownNow();
+
+        future.get(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void shouldCountSubmissionOnce() throws Exception {
+        scheduleWithPause(CatchUpPolicy.skip(), 3);
+
+        assertThat(threadPoolService.getExecutor(ANY_THREAD_POOL_NAME).getStatistics().getSubmittedTaskCount(), is(1L));
+    }
+
+    private List<Long> scheduleWithPause(CatchUpPolicy catchUpPolicy, int runs) throws InterruptedException {
+        List<Long> startTimes = new CopyOnWriteArrayList<>();
+        CountDownLatch completed = new CountDownLatch(runs);
+        scheduleNanos = System.nanoTime();
+        executorService.scheduleAtFixedRate(PeriodicTask.of(TASK_NAME, catchUpPolicy, () -> {
+            startTimes.add(System.nanoTime());
+            if (startTimes.size() == 1) {
+                sleep(PAUSE);
+            }
+            completed.countDown();
+        }), 0, PERIOD, TimeUnit.MILLISECONDS);
+        assertTrue(completed.await(1, TimeUnit.SECONDS));
+        return startTimes;
+    }
+
+    private PeriodicTaskStatistics periodicTaskStatistics() {
+        return threadPoolService.getExecutor(ANY_THREAD_POOL_NAME).getStatistics(false).getPeriodicTaskStatistics().get(0);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,152 @@
+package com.dubravsky.threadpoolservice;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.dubravsky.threadpoolservice.ThreadPoolServiceTest.ANY_THREAD_POOL_NAME;
+import static com.dubravsky.threadpoolservice.ThreadPoolServiceTest.SECOND_ANY_THREAD_POOL_NAME;
+import static com.dubravsky.threadpoolservice.ThreadPoolServiceTest.SHORT_DELAY;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class GracefulShutdownTest {
+
+    private static final int TASK_NUMBER = 5;
+
+    private ThreadPoolService threadPoolService;
+
+    @Before
+    public void init() {
+        threadPoolService = ThreadPoolService.create();
+    }
+
+    @After
+    public void shutdown() {
+        threadPoolService.shutdownNow();
+    }
+
+    @Test
+    public void shouldDrainQueuedTasks() {
+        ExecutorService executorService = threadPoolService.newSingleThreadExecutor(ANY_THREAD_POOL_NAME);
+        for (int i = 0; i < TASK_NUMBER; i++) {
+            executorService.execute(() -> sleep(SHORT_DELAY));
+        }
+
+        List<ShutdownReport> reports = threadPoolService.shutdownGracefully(1, TimeUnit.SECONDS);
+
+        assertThat(reports.size(), is(1));
+        ShutdownReport report = reports.get(0);
+        assertThat(report.getThreadPoolName(), is(ANY_THREAD_POOL_NAME));
+        assertTrue(report.isTerminated());
+        assertThat(report.getDrainedTaskCount(), is((long) TASK_NUMBER));
+        assertThat(report.getAbandonedTaskCount(), is(0L));
+        assertThat(report.getInterruptedTaskCount(), is(0L));
+    }
+
+    @Test
+    public void shouldStopPoolsAtDeadline() throws Exception {
+        ExecutorService executorService = threadPoolService.newSingleThreadExecutor(ANY_THREAD_POOL_NAME);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        executorService.execute(() -> {
+            startLatch.countDown();
+            sleep(TimeUnit.MINUTES.toMillis(1));
+        });
+        for (int i = 0; i < TASK_NUMBER; i++) {
+            executorService.execute(() -> {
+            });
+        }
+        assertTrue(startLatch.await(1, TimeUnit.SECONDS));
+
+        ShutdownReport report = threadPoolService.shutdownGracefully(SHORT_DELAY, TimeUnit.MILLISECONDS).get(0);
+
+        assertThat(report.getDrainedTaskCount(), is(0L));
+        assertThat(report.getAbandonedTaskCount(), is((long) TASK_NUMBER));
+        assertThat(report.getInterruptedTaskCount(), is(1L));
+        assertTrue(executorService.awaitTermination(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldShutDownSchedulersBeforeWorkers() throws Exception {
+        ScheduledExecutorService scheduledExecutorService = threadPoolService.newSingleScheduledThreadPool(ANY_THREAD_POOL_NAME);
+        ExecutorService executorService = threadPoolService.newSingleThreadExecutor(SECOND_ANY_THREAD_POOL_NAME);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        AtomicBoolean workerTaskCompleted = new AtomicBoolean();
+        scheduledExecutorService.execute(() -> {
+            startLatch.countDown();
+            sleep(SHORT_DELAY);
+            executorService.execute(() -> workerTaskCompleted.set(true));
+        });
+        assertTrue(startLatch.await(1, TimeUnit.SECONDS));
+
+        List<ShutdownReport> reports = threadPoolService.shutdownGracefully(1, TimeUnit.SECONDS);
+
+        assertThat(reports.get(0).getThreadPoolName(), is(ANY_THREAD_POOL_NAME));
+        assertThat(reports.get(1).getThreadPoolName(), is(SECOND_ANY_THREAD_POOL_NAME));
+        assertTrue(workerTaskCompleted.get());
+        assertThat(reports.get(1).getDrainedTaskCount(), is(1L));
+    }
+
+    @Test
+    public void shouldAbandonDelayedTasks() {
+        ScheduledExecutorService scheduledExecutorService = threadPoolService.newSingleScheduledThreadPool(ANY_THREAD_POOL_NAME);
+        ScheduledExecutorService timerWheelScheduler = threadPoolService.newTimerWheelScheduler(SECOND_ANY_THREAD_POOL_NAME, 1, TimeUnit.MILLISECONDS, 64);
+        scheduledExecutorService.schedule(() -> {
+        }, 1, TimeUnit.HOURS);
+        timerWheelScheduler.schedule(() -> {
+        }, 1, TimeUnit.HOURS);
+        long startNanos = System.nanoTime();
+
+        List<ShutdownReport> reports = threadPoolService.shutdownGracefully(1, TimeUnit.MINUTES);
+
+        assertTrue(System.nanoTime() - startNanos < TimeUnit.SECONDS.toNanos(1));
+        for (ShutdownReport report : reports) {
+            assertTrue(report.isTerminated());
+            assertThat(report.getAbandonedTaskCount(), is(1L));
+        }
+    }
+
+    @Test
+    public void shouldShutDownServicePoolLast() {
+        threadPoolService = ThreadPoolService.builder()
+                .statisticsHandler(mock(StatisticsHandler.class))
+                .build();
+        threadPoolService.newSingleThreadExecutor(ANY_THREAD_POOL_NAME);
+
+        List<ShutdownReport> reports = threadPoolService.shutdownGracefully(1, TimeUnit.SECONDS);
+
+        assertThat(reports.get(reports.size() - 1).getThreadPoolName(), is("ServicePool"));
+        assertTrue(threadPoolService.isTerminated());
+    }
+
+    @Test
+    public void shouldAwaitTerminationOfAllPools() throws Exception {
+        ExecutorService executorService = threadPoolService.newSingleThreadExecutor(ANY_THREAD_POOL_NAME);
+        threadPoolService.newSingleThreadExecutor(SECOND_ANY_THREAD_POOL_NAME);
+        executorService.execute(() -> sleep(SHORT_DELAY));
+
+        threadPoolService.shutdown();
+
+        assertFalse(threadPoolService.awaitTermination(1, TimeUnit.MILLISECONDS));
+        assertTrue(threadPoolService.awaitTermination(1, TimeUnit.SECONDS));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
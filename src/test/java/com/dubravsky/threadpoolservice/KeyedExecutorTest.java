@@ -0,0 +1,191 @@
+package com.dubravsky.threadpoolservice;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static com.dubravsky.threadpoolservice.ThreadPoolServiceTest.*;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.*;
+
+public class KeyedExecutorTest {
+
+    private static final int PARALLELISM = 4;
+    private static final int KEY_NUMBER = 16;
+    private static final int TASKS_PER_KEY = 500;
+
+    private ThreadPoolService threadPoolService;
+    private Consumer<Exception> exceptionHandler;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void init() {
+        exceptionHandler = mock(Consumer.class);
+        threadPoolService = ThreadPoolService.builder()
+                .exceptionHandler(exceptionHandler)
+                .build();
+    }
+
+    @After
+    public void shutdown() {
+        threadPoolService.shutdownNow();
+    }
+
+    @Test
+    public void shouldRunTasksOfKeyInOrderWithoutOverlap() throws Exception {
+        KeyedExecutorService executorService = threadPoolService.newKeyedExecutor(PARALLELISM, ANY_THREAD_POOL_NAME);
+        List<List<Integer>> executed = new ArrayList<>();
+        AtomicInteger[] running = new AtomicInteger[KEY_NUMBER];
+        AtomicInteger overlaps = new AtomicInteger();
+        CountDownLatch completed = new CountDownLatch(KEY_NUMBER * TASKS_PER_KEY);
+        for (int key = 0; key < KEY_NUMBER; key++) {
+            executed.add(new ArrayList<>());
+            running[key] = new AtomicInteger();
+        }
+
+        for (int i = 0; i < TASKS_PER_KEY; i++) {
+            for (int key = 0; key < KEY_NUMBER; key++) {
+                int index = i;
+                int taskKey = key;
+                executorService.execute(taskKey, () -> {
+                    if (running[taskKey].incrementAndGet() > 1) {
+                        overlaps.incrementAndGet();
+                    }
+                    executed.get(taskKey).add(index);
+                    running[taskKey].decrementAndGet();
+                    completed.countDown();
+                });
+            }
+        }
+
+        assertTrue(completed.await(5, TimeUnit.SECONDS));
+        assertThat(overlaps.get(), is(0));
+        for (List<Integer> keyTasks : executed) {
+            assertThat(keyTasks.size(), is(TASKS_PER_KEY));
+            for (int i = 0; i < TASKS_PER_KEY; i++) {
+                assertThat(keyTasks.get(i), is(i));
+            }
+        }
+    }
+
+    @Test
+    public void shouldRunDifferentKeysInParallel() throws Exception {
+        KeyedExecutorService executorService = threadPoolService.newKeyedExecutor(PARALLELISM, ANY_THREAD_POOL_NAME);
+        CountDownLatch bothRunning = new CountDownLatch(2);
+
+        executorService.submit("first", () -> awaitBoth(bothRunning));
+        boolean parallel = executorService.submit("second", () -> awaitBoth(bothRunning)).get(1, TimeUnit.SECONDS);
+
+        assertTrue(parallel);
+    }
+
+    @Test
+    public void shouldEvictEmptyMailboxes() throws Exception {
+        KeyedExecutorService executorService = threadPoolService.newKeyedExecutor(PARALLELISM, ANY_THREAD_POOL_NAME);
+
+        for (int key = 0; key < KEY_NUMBER; key++) {
+            executorService.submit(key, () -> null).get(1, TimeUnit.SECONDS);
+        }
+        sleep(SHORT_DELAY);
+
+        assertThat(threadPoolService.getExecutor(ANY_THREAD_POOL_NAME).getStatistics().getMetric("Active Keys"), is(0L));
+    }
+
+    @Test
+    public void shouldReportMaxMailboxDepth() throws Exception {
+        KeyedExecutorService executorService = threadPoolService.newKeyedExecutor(PARALLELISM, ANY_THREAD_POOL_NAME);
+        CountDownLatch release = new CountDownLatch(1);
+
+        executorService.execute("key", () -> await(release));
+        for (int i = 0; i < 5; i++) {
+            executorService.execute("key", () -> {
+            });
+        }
+        StatisticsObject statisticsObject = threadPoolService.getExecutor(ANY_THREAD_POOL_NAME).getStatistics();
+        release.countDown();
+
+        assertThat(statisticsObject.getMetric("Active Keys"), is(1L));
+        assertThat(statisticsObject.getMetric("Max Mailbox Depth"), is(6L));
+        assertThat(statisticsObject.getQueueSize() >= 5, is(true));
+    }
+
+    @Test
+    public void shouldCountKeyedTasks() throws Exception {
+        KeyedExecutorService executorService = threadPoolService.newKeyedExecutor(PARALLELISM, ANY_THREAD_POOL_NAME);
+
+        for (int i = 0; i < TASKS_PER_KEY; i++) {
+            executorService.execute("key", () -> {
+            });
+        }
+        executorService.shutdown();
+
+        assertTrue(executorService.awaitTermination(1, TimeUnit.SECONDS));
+        StatisticsObject statisticsObject = ((NamedThreadPoolExecutor) executorService).getStatistics();
+        assertThat(statisticsObject.getSubmittedTaskCount(), is((long) TASKS_PER_KEY));
+        assertThat(statisticsObject.getStartedTaskCount(), is((long) TASKS_PER_KEY));
+        assertThat(statisticsObject.getCompletedTaskCount(), is((long) TASKS_PER_KEY));
+        assertThat(statisticsObject.getRunTime().getCount(), is((long) TASKS_PER_KEY));
+    }
+
+    @Test
+    public void shouldCatchExceptions() {
+        KeyedExecutorService executorService = threadPoolService.newKeyedExecutor(PARALLELISM, ANY_THREAD_POOL_NAME);
+        Callable<String> task = () -> {
+            throw ANY_EXCEPTION;
+        };
+
+        executorService.submit("key", task);
+        executorService.execute("key", () -> {
+            throw ANY_EXCEPTION;
+        });
+
+        verify(exceptionHandler, timeout(DELAY).times(2)).accept(ANY_EXCEPTION);
+    }
+
+    @Test
+    public void shouldReturnQueuedTasksOnShutdownNow() {
+        KeyedExecutorService executorService = threadPoolService.newKeyedExecutor(1, ANY_THREAD_POOL_NAME);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        executorService.execute("key", () -> {
+            started.countDown();
+            await(release);
+        });
+        await(started);
+        executorService.execute("key", () -> {
+        });
+        executorService.execute("key", () -> {
+        });
+
+        assertThat(executorService.shutdownNow().size(), is(2));
+    }
+
+    private static boolean awaitBoth(CountDownLatch bothRunning) throws InterruptedException {
+        bothRunning.countDown();
+        return bothRunning.await(1, TimeUnit.SECONDS);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) throws InterruptedException {
+        TimeUnit.MILLISECONDS.sleep(millis);
+    }
+
+}
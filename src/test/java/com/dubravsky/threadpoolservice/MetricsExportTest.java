@@ -0,0 +1,165 @@
+package com.dubravsky.threadpoolservice;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.dubravsky.threadpoolservice.ThreadPoolServiceTest.ANY_THREAD_POOL_NAME;
+import static com.dubravsky.threadpoolservice.ThreadPoolServiceTest.SECOND_ANY_THREAD_POOL_NAME;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class MetricsExportTest {
+
+    private static final int TASK_NUMBER = 10;
+    private static final String MBEAN_THREAD_POOL_NAME = "MBeanThreadPool";
+
+    private ThreadPoolService threadPoolService;
+
+    @Before
+    public void init() {
+        threadPoolService = ThreadPoolService.builder()
+                .jmxEnabled(true)
+                .build();
+    }
+
+    @After
+    public void shutdown() {
+        threadPoolService.shutdownNow();
+    }
+
+    @Test
+    public void shouldReturnStatisticsOfAllPools() {
+        threadPoolService.newFixedThreadPool(2, ANY_THREAD_POOL_NAME);
+        threadPoolService.newWorkStealingPool(2, SECOND_ANY_THREAD_POOL_NAME);
+
+        List<StatisticsObject> statistics = threadPoolService.getStatistics();
+
+        assertThat(statistics.size(), is(2));
+    }
+
+    @Test
+    public void pullingStatisticsShouldNotResetInterval() throws Exception {
+        NamedThreadPoolExecutor executorService = (NamedThreadPoolExecutor) threadPoolService.newFixedThreadPool(2, ANY_THREAD_POOL_NAME);
+        runTasks(executorService);
+
+        threadPoolService.getStatistics();
+        StatisticsObject statisticsObject = executorService.getStatistics();
+
+        assertThat(statisticsObject.getRunTime().getCount(), is((long) TASK_NUMBER));
+        assertThat(statisticsObject.getRunTimeHistogram().getCount(), is((long) TASK_NUMBER));
+    }
+
+    @Test
+    public void histogramShouldBeCumulative() throws Exception {
+        NamedThreadPoolExecutor executorService = (NamedThreadPoolExecutor) threadPoolService.newFixedThreadPool(2, ANY_THREAD_POOL_NAME);
+        runTasks(executorService);
+
+        executorService.getStatistics();
+        StatisticsObject statisticsObject = executorService.getStatistics();
+
+        assertThat(statisticsObject.getRunTime().getCount(), is(0L));
+        assertThat(statisticsObject.getRunTimeHistogram().getCount(), is((long) TASK_NUMBER));
+    }
+
+    @Test
+    public void shouldRenderPrometheusTextFormat() throws Exception {
+        NamedThreadPoolExecutor executorService = (NamedThreadPoolExecutor) threadPoolService.newFixedThreadPool(2, "Pool \"A\"\\B");
+        runTasks(executorService);
+
+        String text = PrometheusTextFormat.render(threadPoolService.getStatistics());
+
+        assertThat(text, containsString("# TYPE threadpool_threads gauge\n"));
+        assertThat(text, containsString("# TYPE threadpool_completed_tasks_total counter\n"));
+        assertThat(text, containsString("# TYPE threadpool_task_run_seconds histogram\n"));
+        assertThat(text, containsString("threadpool_completed_tasks_total{pool=\"Pool \\\"A\\\"\\\\B\"} " + TASK_NUMBER + "\n"));
+        assertThat(text, containsString("threadpool_task_run_seconds_bucket{pool=\"Pool \\\"A\\\"\\\\B\",le=\"+Inf\"} " + TASK_NUMBER + "\n"));
+        assertThat(text, containsString("threadpool_task_run_seconds_count{pool=\"Pool \\\"A\\\"\\\\B\"} " + TASK_NUMBER + "\n"));
+    }
+
+    @Test
+    public void shouldDeclarePoolSpecificMetricTypes() {
+        threadPoolService.newWorkStealingPool(2, ANY_THREAD_POOL_NAME);
+
+        String text = PrometheusTextFormat.render(threadPoolService.getStatistics());
+
+        assertThat(text, containsString("# TYPE threadpool_metric gauge\n"));
+        assertThat(text, containsString("# TYPE threadpool_metric_total counter\n"));
+        assertThat(text, containsString("threadpool_metric_total{pool=\"" + ANY_THREAD_POOL_NAME + "\",metric=\"Steals\"} 0\n"));
+        assertFalse(text.contains("untyped"));
+    }
+
+    @Test
+    public void bucketsShouldBeCumulative() throws Exception {
+        NamedThreadPoolExecutor executorService = (NamedThreadPoolExecutor) threadPoolService.newFixedThreadPool(2, ANY_THREAD_POOL_NAME);
+        runTasks(executorService);
+
+        String text = PrometheusTextFormat.render(threadPoolService.getStatistics());
+
+        long previousCount = 0;
+        for (String line : text.split("\n")) {
+            if (line.startsWith("threadpool_task_wait_seconds_bucket")) {
+                long count = Long.parseLong(line.substring(line.lastIndexOf(' ') + 1));
+                assertTrue(line, count >= previousCount);
+                previousCount = count;
+            }
+        }
+        assertThat(previousCount, is((long) TASK_NUMBER));
+    }
+
+    @Test
+    public void shouldRegisterMBean() throws Exception {
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        ExecutorService executorService = threadPoolService.newFixedThreadPool(2, MBEAN_THREAD_POOL_NAME);
+        runTasks((NamedThreadPoolExecutor) executorService);
+        ObjectName objectName = ThreadPoolMXBeanAdapter.objectName(MBEAN_THREAD_POOL_NAME);
+
+        assertThat(mBeanServer.getAttribute(objectName, "PoolSize"), is(2));
+        assertThat(mBeanServer.getAttribute(objectName, "RunTimeCount"), is((long) TASK_NUMBER));
+
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(1, TimeUnit.SECONDS));
+        threadPoolService.getThreadPoolNumber();
+
+        assertFalse(mBeanServer.isRegistered(objectName));
+    }
+
+    @Test
+    public void shouldNotRegisterMBeanByDefault() throws Exception {
+        ThreadPoolService service = ThreadPoolService.create();
+        try {
+            service.newFixedThreadPool(1, SECOND_ANY_THREAD_POOL_NAME);
+
+            assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(ThreadPoolMXBeanAdapter.objectName(SECOND_ANY_THREAD_POOL_NAME)));
+        } finally {
+            service.shutdownNow();
+        }
+    }
+
+    private static void runTasks(NamedThreadPoolExecutor executorService) throws Exception {
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < TASK_NUMBER; i++) {
+            futures.add(executorService.submit(() -> {
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(1, TimeUnit.SECONDS);
+        }
+        while (executorService.getStatistics(false).getCompletedTaskCount() < TASK_NUMBER) {
+            Thread.sleep(1);
+        }
+    }
+
+}
@@ -0,0 +1,168 @@
+package com.dubravsky.threadpoolservice;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static com.dubravsky.threadpoolservice.ThreadPoolServiceTest.*;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.*;
+
+public class PriorityThreadPoolTest {
+
+    private static final int PRIORITY_LEVELS = 3;
+    private static final int HIGH = 0;
+    private static final int LOW = PRIORITY_LEVELS - 1;
+
+    private ThreadPoolService threadPoolService;
+    private Consumer<Exception> exceptionHandler;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void init() {
+        exceptionHandler = mock(Consumer.class);
+        threadPoolService = ThreadPoolService.builder()
+                .exceptionHandler(exceptionHandler)
+                .build();
+    }
+
+    @After
+    public void shutdown() {
+        threadPoolService.shutdownNow();
+    }
+
+    @Test
+    public void shouldRunHigherPriorityTasksFirst() throws Exception {
+        PriorityExecutorService executorService = threadPoolService.newPriorityThreadPool(1, ANY_THREAD_POOL_NAME, PRIORITY_LEVELS, 1, TimeUnit.MINUTES);
+        CountDownLatch release = block(executorService);
+        Queue<Integer> order = new ConcurrentLinkedQueue<>();
+
+        executorService.execute(() -> order.add(LOW));
+        executorService.execute(() -> order.add(1), 1);
+        Future<?> last = executorService.submit(() -> order.add(HIGH), HIGH);
+        release.countDown();
+        executorService.submit(() -> null, LOW).get(1, TimeUnit.SECONDS);
+
+        assertTrue(last.isDone());
+        assertThat(order.toString(), is("[0, 1, 2]"));
+    }
+
+    @Test
+    public void shouldAgeLowPriorityTasks() throws Exception {
+        PriorityExecutorService executorService = threadPoolService.newPriorityThreadPool(1, ANY_THREAD_POOL_NAME, PRIORITY_LEVELS, 1, TimeUnit.MILLISECONDS);
+        CountDownLatch release = block(executorService);
+        Queue<Integer> order = new ConcurrentLinkedQueue<>();
+
+        executorService.execute(() -> order.add(LOW), LOW);
+        sleep(SHORT_DELAY);
+        executorService.execute(() -> order.add(HIGH), HIGH);
+        release.countDown();
+        executorService.submit(() -> null, LOW).get(1, TimeUnit.SECONDS);
+
+        assertThat(order.toString(), is("[2, 0]"));
+    }
+
+    @Test
+    public void shouldCatchExceptions() {
+        PriorityExecutorService executorService = threadPoolService.newPriorityThreadPool(1, ANY_THREAD_POOL_NAME, PRIORITY_LEVELS);
+        Callable<String> task = () -> {
+            throw ANY_EXCEPTION;
+        };
+
+        executorService.submit(task, HIGH);
+        executorService.execute(() -> {
+            throw ANY_EXCEPTION;
+        }, HIGH);
+
+        verify(exceptionHandler, timeout(DELAY).times(2)).accept(ANY_EXCEPTION);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectUnknownPriority() {
+        PriorityExecutorService executorService = threadPoolService.newPriorityThreadPool(1, ANY_THREAD_POOL_NAME, PRIORITY_LEVELS);
+
+        executorService.execute(() -> {
+        }, PRIORITY_LEVELS);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotAcceptNonPositivePriorityLevels() {
+        threadPoolService.newPriorityThreadPool(1, ANY_THREAD_POOL_NAME, 0);
+    }
+
+    @Test
+    public void shouldReportQueueSizeAndWaitTimePerPriority() throws Exception {
+        PriorityExecutorService executorService = threadPoolService.newPriorityThreadPool(1, ANY_THREAD_POOL_NAME, PRIORITY_LEVELS, 1, TimeUnit.MINUTES);
+        CountDownLatch release = block(executorService);
+
+        executorService.execute(() -> {
+        }, HIGH);
+        executorService.execute(() -> {
+        }, HIGH);
+        executorService.execute(() -> {
+        });
+        StatisticsObject queued = threadPoolService.getExecutor(ANY_THREAD_POOL_NAME).getStatistics(false);
+        release.countDown();
+        executorService.submit(() -> null, LOW).get(1, TimeUnit.SECONDS);
+        StatisticsObject completed = threadPoolService.getExecutor(ANY_THREAD_POOL_NAME).getStatistics(false);
+
+        List<PriorityStatistics> queuedPriorities = queued.getPriorityStatistics();
+        assertThat(queuedPriorities.size(), is(PRIORITY_LEVELS));
+        assertThat(queuedPriorities.get(HIGH).getQueueSize(), is(2));
+        assertThat(queuedPriorities.get(1).getQueueSize(), is(0));
+        assertThat(queuedPriorities.get(LOW).getQueueSize(), is(1));
+        assertThat(queued.getQueueSize(), is(3));
+        assertThat(completed.getPriorityStatistics().get(HIGH).getWaitTime().getCount(), is(2L));
+        assertThat(completed.getPriorityStatistics().get(HIGH).getQueueSize(), is(0));
+        assertThat(completed.toString(), containsString("P0 Wait (us)"));
+    }
+
+    @Test
+    public void shouldReturnQueuedTasksOnShutdownNow() {
+        PriorityExecutorService executorService = threadPoolService.newPriorityThreadPool(1, ANY_THREAD_POOL_NAME, PRIORITY_LEVELS);
+        block(executorService);
+
+        executorService.execute(() -> {
+        }, HIGH);
+        executorService.submit(() -> {
+        }, LOW);
+
+        assertThat(executorService.shutdownNow().size(), is(2));
+    }
+
+    private static CountDownLatch block(PriorityExecutorService executorService) {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executorService.execute(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, LOW);
+        try {
+            started.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+        return release;
+    }
+
+    private static void sleep(long millis) throws InterruptedException {
+        TimeUnit.MILLISECONDS.sleep(millis);
+    }
+
+}
@@ -0,0 +1,158 @@
+package com.dubravsky.threadpoolservice;
+
+import com.dubravsky.threadpoolservice.util.ThreadResourceMeter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.dubravsky.threadpoolservice.ThreadPoolServiceTest.ANY_THREAD_POOL_NAME;
+import static com.dubravsky.threadpoolservice.ThreadPoolServiceTest.DELAY;
+import static com.dubravsky.threadpoolservice.ThreadPoolServiceTest.SECOND_ANY_THREAD_POOL_NAME;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class ResourceAccountingTest {
+
+    private static final int ALLOCATED_BYTES = 4 * 1024 * 1024;
+
+    private ThreadPoolService threadPoolService;
+    private NamedThreadPoolExecutor executorService;
+    private volatile Object allocation;
+
+    @Before
+    public void init() {
+        threadPoolService = ThreadPoolService.create();
+        executorService = (NamedThreadPoolExecutor) threadPoolService.newFixedThreadPool(1, ANY_THREAD_POOL_NAME);
+    }
+
+    @After
+    public void shutdown() {
+        threadPoolService.shutdownNow();
+    }
+
+    @Test
+    public void shouldBeDisabledByDefault() throws Exception {
+        executorService.submit(this::allocate).get();
+
+        StatisticsObject statisticsObject = awaitStatistics();
+
+        assertFalse(statisticsObject.isResourceAccountingEnabled());
+        assertThat(statisticsObject.getTotalResourceUsage().getTaskCount(), is(0L));
+        assertThat(statisticsObject.toString(), not(containsString("CPU (ms)")));
+    }
+
+    @Test
+    public void shouldAccountCpuTime() throws Exception {
+        assumeTrue(ThreadResourceMeter.currentThreadCpuNanos() >= 0);
+        executorService.setResourceAccountingEnabled(true);
+
+        executorService.submit(ResourceAccountingTest::spin).get();
+        StatisticsObject statisticsObject = awaitStatistics();
+
+        assertTrue(statisticsObject.isResourceAccountingEnabled());
+        assertThat(statisticsObject.getResourceUsage().getTaskCount(), is(1L));
+        assertTrue(statisticsObject.getResourceUsage().getCpuTimeMillis() >= DELAY / 2);
+        assertTrue(statisticsObject.getResourceUsage().getOffCpuRatio() < 0.5);
+        assertThat(statisticsObject.toString(), containsString("CPU (ms)"));
+    }
+
+    @Test
+    public void shouldAccountAllocatedBytes() throws Exception {
+        assumeTrue(ThreadResourceMeter.currentThreadAllocatedBytes() >= 0);
+        executorService.setResourceAccountingEnabled(true);
+
+        executorService.submit(this::allocate).get();
+        StatisticsObject statisticsObject = awaitStatistics();
+
+        assertTrue(statisticsObject.getResourceUsage().getAllocatedBytes() >= ALLOCATED_BYTES);
+    }
+
+    @Test
+    public void shouldAccountBlockedTime() throws Exception {
+        assumeTrue(ThreadResourceMeter.currentThreadCpuNanos() >= 0);
+        executorService.setResourceAccountingEnabled(true);
+
+        executorService.submit(() -> sleep(DELAY)).get();
+        StatisticsObject statisticsObject = awaitStatistics();
+
+        assertTrue(statisticsObject.getResourceUsage().getOffCpuRatio() > 0.5);
+    }
+
+    @Test
+    public void shouldStartNewInterval() throws Exception {
+        executorService.setResourceAccountingEnabled(true);
+        executorService.submit(this::allocate).get();
+        awaitStatistics();
+
+        executorService.getStatistics();
+        StatisticsObject statisticsObject = executorService.getStatistics();
+
+        assertThat(statisticsObject.getResourceUsage().getTaskCount(), is(0L));
+        assertThat(statisticsObject.getTotalResourceUsage().getTaskCount(), is(1L));
+    }
+
+    @Test
+    public void shouldAccountScheduledTasks() throws Exception {
+        NamedThreadPoolExecutor scheduledExecutorService = (NamedThreadPoolExecutor) threadPoolService.newScheduledThreadPool(1, SECOND_ANY_THREAD_POOL_NAME);
+        scheduledExecutorService.setResourceAccountingEnabled(true);
+
+        scheduledExecutorService.submit(this::allocate).get();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (scheduledExecutorService.getStatistics(false).getTotalResourceUsage().getTaskCount() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+
+        assertThat(scheduledExecutorService.getStatistics(false).getTotalResourceUsage().getTaskCount(), is(1L));
+    }
+
+    @Test
+    public void shouldAccountWorkStealingPoolTasks() throws Exception {
+        assumeTrue(ThreadResourceMeter.currentThreadAllocatedBytes() >= 0);
+        NamedThreadPoolExecutor workStealingPool = (NamedThreadPoolExecutor) threadPoolService.newWorkStealingPool(1, SECOND_ANY_THREAD_POOL_NAME);
+        workStealingPool.setResourceAccountingEnabled(true);
+
+        workStealingPool.submit(this::allocate).get();
+        workStealingPool.shutdown();
+        assertTrue(workStealingPool.awaitTermination(1, TimeUnit.SECONDS));
+
+        assertThat(workStealingPool.getStatistics(false).getTotalResourceUsage().getTaskCount(), is(1L));
+        assertTrue(workStealingPool.getStatistics(false).getTotalResourceUsage().getAllocatedBytes() >= ALLOCATED_BYTES);
+    }
+
+    private StatisticsObject awaitStatistics() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (executorService.getStatistics(false).getCompletedTaskCount() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        return executorService.getStatistics(false);
+    }
+
+    private void allocate() {
+        allocation = new byte[ALLOCATED_BYTES];
+    }
+
+    private static long spin() {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DELAY);
+        long iterations = 0;
+        while (System.nanoTime() < deadline) {
+            iterations++;
+        }
+        return iterations;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
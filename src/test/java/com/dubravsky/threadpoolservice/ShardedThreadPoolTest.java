@@ -0,0 +1,151 @@
+package com.dubravsky.threadpoolservice;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static com.dubravsky.threadpoolservice.ThreadPoolServiceTest.*;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.*;
+
+public class ShardedThreadPoolTest {
+
+    private static final int THREADS = 4;
+    private static final int TASK_NUMBER = 10_000;
+
+    private ThreadPoolService threadPoolService;
+    private Consumer<Exception> exceptionHandler;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void init() {
+        exceptionHandler = mock(Consumer.class);
+        threadPoolService = ThreadPoolService.builder()
+                .exceptionHandler(exceptionHandler)
+                .build();
+    }
+
+    @After
+    public void shutdown() {
+        threadPoolService.shutdownNow();
+    }
+
+    @Test
+    public void shouldNameThreads() throws Exception {
+        ShardedExecutorService executorService = threadPoolService.newShardedThreadPool(THREADS, ANY_THREAD_POOL_NAME);
+
+        String threadName = executorService.submit(() -> Thread.currentThread().getName()).get();
+
+        assertThat(threadName, startsWith(ANY_THREAD_POOL_NAME + "-"));
+    }
+
+    @Test
+    public void shouldRunAllTasks() throws Exception {
+        ShardedExecutorService executorService = threadPoolService.newShardedThreadPool(THREADS, ANY_THREAD_POOL_NAME);
+        CountDownLatch completed = new CountDownLatch(TASK_NUMBER);
+
+        for (int i = 0; i < TASK_NUMBER; i++) {
+            executorService.execute(i, completed::countDown);
+        }
+        executorService.shutdown();
+
+        assertTrue(executorService.awaitTermination(5, TimeUnit.SECONDS));
+        assertThat(completed.getCount(), is(0L));
+        assertThat(((NamedThreadPoolExecutor) executorService).getStatistics().getCompletedTaskCount(), is((long) TASK_NUMBER));
+    }
+
+    @Test
+    public void shouldStealFromBusyShard() throws Exception {
+        ShardedExecutorService executorService = threadPoolService.newShardedThreadPool(THREADS, ANY_THREAD_POOL_NAME);
+        CountDownLatch release = new CountDownLatch(1);
+        Set<String> threadNames = ConcurrentHashMap.newKeySet();
+        CountDownLatch completed = new CountDownLatch(THREADS);
+
+        for (int i = 0; i < THREADS; i++) {
+            executorService.execute("key", () -> {
+                threadNames.add(Thread.currentThread().getName());
+                completed.countDown();
+                await(release);
+            });
+        }
+
+        boolean allStarted = completed.await(1, TimeUnit.SECONDS);
+        release.countDown();
+        assertTrue(allStarted);
+        assertThat(threadNames.size(), is(THREADS));
+        assertTrue(threadPoolService.getExecutor(ANY_THREAD_POOL_NAME).getStatistics().getMetric("Steals") > 0);
+    }
+
+    @Test
+    public void shouldPinWorkers() throws Exception {
+        Set<Integer> pinnedShards = ConcurrentHashMap.newKeySet();
+        CountDownLatch pinned = new CountDownLatch(THREADS);
+
+        threadPoolService.newShardedThreadPool(THREADS, ANY_THREAD_POOL_NAME, (shard, shardCount) -> {
+            pinnedShards.add(shard);
+            pinned.countDown();
+        });
+
+        assertTrue(pinned.await(1, TimeUnit.SECONDS));
+        assertThat(pinnedShards.size(), is(THREADS));
+    }
+
+    @Test
+    public void shouldCatchExceptions() {
+        ShardedExecutorService executorService = threadPoolService.newShardedThreadPool(THREADS, ANY_THREAD_POOL_NAME);
+        Callable<String> task = () -> {
+            throw ANY_EXCEPTION;
+        };
+
+        executorService.submit(task);
+        executorService.execute(() -> {
+            throw ANY_EXCEPTION;
+        });
+
+        verify(exceptionHandler, timeout(DELAY).times(2)).accept(ANY_EXCEPTION);
+        assertThat(threadPoolService.getExecutor(ANY_THREAD_POOL_NAME).getStatistics().getFailedTaskCount(), is(2L));
+    }
+
+    @Test
+    public void shouldDrainQueuedTasksOnShutdown() throws Exception {
+        ShardedExecutorService executorService = threadPoolService.newShardedThreadPool(1, ANY_THREAD_POOL_NAME);
+        CountDownLatch completed = new CountDownLatch(TASK_NUMBER);
+
+        for (int i = 0; i < TASK_NUMBER; i++) {
+            executorService.execute(completed::countDown);
+        }
+        executorService.shutdown();
+
+        assertTrue(executorService.awaitTermination(5, TimeUnit.SECONDS));
+        assertThat(completed.getCount(), is(0L));
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void shouldRejectTasksAfterShutdown() {
+        ShardedExecutorService executorService = threadPoolService.newShardedThreadPool(THREADS, ANY_THREAD_POOL_NAME);
+
+        executorService.shutdown();
+        executorService.execute(() -> {
+        });
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
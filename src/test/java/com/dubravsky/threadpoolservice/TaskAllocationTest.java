@@ -0,0 +1,130 @@
+package com.dubravsky.threadpoolservice;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.dubravsky.threadpoolservice.ThreadPoolServiceTest.ANY_THREAD_POOL_NAME;
+import static com.dubravsky.threadpoolservice.ThreadPoolServiceTest.SECOND_ANY_THREAD_POOL_NAME;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class TaskAllocationTest {
+
+    private static final int TASK_NUMBER = 10_000;
+    private static final long EXECUTE_BUDGET = 56L;
+    private static final long SUBMIT_CALLABLE_BUDGET = 72L;
+    private static final long SUBMIT_RUNNABLE_BUDGET = 96L;
+    private static final long SCHEDULE_BUDGET = 144L;
+
+    private static final Runnable ANY_RUNNABLE = () -> {
+    };
+    private static final Callable<String> ANY_CALLABLE = () -> "result";
+
+    private ThreadPoolService threadPoolService;
+    private CountDownLatch workerLatch;
+
+    @Before
+    public void init() {
+        assumeTrue(allocationCounter() != null);
+        threadPoolService = ThreadPoolService.builder()
+                .exceptionHandler(exception -> {
+                })
+                .build();
+        workerLatch = new CountDownLatch(1);
+    }
+
+    @After
+    public void shutdown() {
+        if (threadPoolService != null) {
+            workerLatch.countDown();
+            threadPoolService.shutdown();
+        }
+    }
+
+    @Test
+    public void executeShouldAllocateWithinBudget() throws Exception {
+        ExecutorService executorService = blockedExecutor();
+
+        long bytesPerTask = bytesPerTask(() -> executorService.execute(ANY_RUNNABLE));
+
+        assertWithinBudget(bytesPerTask, EXECUTE_BUDGET);
+    }
+
+    @Test
+    public void submitCallableShouldAllocateWithinBudget() throws Exception {
+        ExecutorService executorService = blockedExecutor();
+
+        long bytesPerTask = bytesPerTask(() -> executorService.submit(ANY_CALLABLE));
+
+        assertWithinBudget(bytesPerTask, SUBMIT_CALLABLE_BUDGET);
+    }
+
+    @Test
+    public void submitRunnableShouldAllocateWithinBudget() throws Exception {
+        ExecutorService executorService = blockedExecutor();
+
+        long bytesPerTask = bytesPerTask(() -> executorService.submit(ANY_RUNNABLE));
+
+        assertWithinBudget(bytesPerTask, SUBMIT_RUNNABLE_BUDGET);
+    }
+
+    @Test
+    public void scheduleShouldAllocateWithinBudget() throws Exception {
+        ScheduledExecutorService scheduledExecutorService = threadPoolService.newSingleScheduledThreadPool(SECOND_ANY_THREAD_POOL_NAME);
+        scheduledExecutorService.execute(this::awaitLatch);
+
+        long bytesPerTask = bytesPerTask(() -> scheduledExecutorService.schedule(ANY_RUNNABLE, 1, TimeUnit.HOURS));
+
+        assertWithinBudget(bytesPerTask, SCHEDULE_BUDGET);
+    }
+
+    private static void assertWithinBudget(long bytesPerTask, long budget) {
+        assertTrue("Allocated " + bytesPerTask + " bytes per task, budget is " + budget, bytesPerTask <= budget);
+    }
+
+    private ExecutorService blockedExecutor() {
+        ExecutorService executorService = threadPoolService.newSingleThreadExecutor(ANY_THREAD_POOL_NAME);
+        executorService.execute(this::awaitLatch);
+        return executorService;
+    }
+
+    private void awaitLatch() {
+        try {
+            workerLatch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static long bytesPerTask(Runnable submission) {
+        for (int i = 0; i < TASK_NUMBER; i++) {
+            submission.run();
+        }
+
+        com.sun.management.ThreadMXBean allocationCounter = allocationCounter();
+        long threadId = Thread.currentThread().getId();
+        long before = allocationCounter.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < TASK_NUMBER; i++) {
+            submission.run();
+        }
+        long after = allocationCounter.getThreadAllocatedBytes(threadId);
+        return (after - before) / TASK_NUMBER;
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return threadMXBean.isThreadAllocatedMemorySupported() && threadMXBean.isThreadAllocatedMemoryEnabled() ? threadMXBean : null;
+    }
+
+}
@@ -0,0 +1,115 @@
+package com.dubravsky.threadpoolservice;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static com.dubravsky.threadpoolservice.ThreadPoolServiceTest.ANY_EXCEPTION;
+import static com.dubravsky.threadpoolservice.ThreadPoolServiceTest.ANY_THREAD_POOL_NAME;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TaskCountersTest {
+
+    private static final int TASK_NUMBER = 10;
+    private static final int FAILED_TASK_NUMBER = 3;
+
+    private ThreadPoolService threadPoolService;
+
+    @Before
+    public void init() {
+        threadPoolService = ThreadPoolService.builder()
+                .exceptionHandler(exception -> {
+                })
+                .build();
+    }
+
+    @After
+    public void shutdown() {
+        threadPoolService.shutdownNow();
+    }
+
+    @Test
+    public void fixedThreadPoolShouldCountTasks() throws Exception {
+        assertTasksCounted(threadPoolService.newFixedThreadPool(2, ANY_THREAD_POOL_NAME));
+    }
+
+    @Test
+    public void scheduledThreadPoolShouldCountTasks() throws Exception {
+        assertTasksCounted(threadPoolService.newScheduledThreadPool(2, ANY_THREAD_POOL_NAME));
+    }
+
+    @Test
+    public void workStealingPoolShouldCountTasks() throws Exception {
+        assertTasksCounted(threadPoolService.newWorkStealingPool(2, ANY_THREAD_POOL_NAME));
+    }
+
+    @Test
+    public void virtualThreadExecutorShouldCountTasks() throws Exception {
+        assertTasksCounted(threadPoolService.newVirtualThreadExecutor(ANY_THREAD_POOL_NAME));
+    }
+
+    @Test
+    public void shouldCountActiveTasksAndThreads() throws Exception {
+        ExecutorService executorService = threadPoolService.newFixedThreadPool(2, ANY_THREAD_POOL_NAME);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        CountDownLatch workerLatch = new CountDownLatch(1);
+        executorService.execute(() -> {
+            startLatch.countDown();
+            await(workerLatch);
+        });
+        assertTrue(startLatch.await(1, TimeUnit.SECONDS));
+
+        StatisticsObject statisticsObject = ((NamedThreadPoolExecutor) executorService).getStatistics();
+
+        assertThat(statisticsObject.getActiveCount(), is(1));
+        assertThat(statisticsObject.getPoolSize(), is(1));
+        workerLatch.countDown();
+    }
+
+    private static void assertTasksCounted(ExecutorService executorService) throws Exception {
+        for (int i = 0; i < TASK_NUMBER; i++) {
+            boolean failed = i < FAILED_TASK_NUMBER;
+            Future<?> future = executorService.submit(() -> {
+                if (failed) {
+                    throw ANY_EXCEPTION;
+                }
+            });
+            future.get(1, TimeUnit.SECONDS);
+        }
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(1, TimeUnit.SECONDS));
+        try {
+            executorService.execute(() -> {
+            });
+            fail();
+        } catch (RejectedExecutionException expected) {
+        }
+
+        StatisticsObject statisticsObject = ((NamedThreadPoolExecutor) executorService).getStatistics();
+
+        assertThat(statisticsObject.getSubmittedTaskCount(), is((long) TASK_NUMBER + 1));
+        assertThat(statisticsObject.getStartedTaskCount(), is((long) TASK_NUMBER));
+        assertThat(statisticsObject.getCompletedTaskCount(), is((long) TASK_NUMBER));
+        assertThat(statisticsObject.getFailedTaskCount(), is((long) FAILED_TASK_NUMBER));
+        assertThat(statisticsObject.getRejectedTaskCount(), is(1L));
+        assertThat(statisticsObject.getActiveCount(), is(0));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,123 @@
+package com.dubravsky.threadpoolservice;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static com.dubravsky.threadpoolservice.ThreadPoolServiceTest.*;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class TaskLatencyTest {
+
+    private static final long TASK_DURATION_MILLIS = 20;
+
+    private ThreadPoolService threadPoolService;
+
+    @Before
+    public void init() {
+        threadPoolService = ThreadPoolService.create();
+    }
+
+    @After
+    public void shutdown() {
+        threadPoolService.shutdown();
+    }
+
+    @Test
+    public void shouldRecordWaitAndRunTime() throws Exception {
+        ExecutorService executorService = threadPoolService.newSingleThreadExecutor(ANY_THREAD_POOL_NAME);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        CountDownLatch workerLatch = new CountDownLatch(1);
+        executorService.submit(() -> {
+            startLatch.countDown();
+            await(workerLatch);
+        });
+        Future<?> waitingTask = executorService.submit(() -> sleep(TASK_DURATION_MILLIS));
+
+        startLatch.await();
+        Thread.sleep(TASK_DURATION_MILLIS);
+        workerLatch.countDown();
+        waitingTask.get();
+
+        StatisticsObject statisticsObject = awaitStatistics(executorService, 2);
+
+        assertAtLeast(statisticsObject.getRunTime().getP50(), TASK_DURATION_MILLIS);
+        assertAtLeast(statisticsObject.getWaitTime().getMax(), TASK_DURATION_MILLIS);
+        assertThat(statisticsObject.getWaitTime().getCount(), is(2L));
+    }
+
+    @Test
+    public void shouldRecordLatenessOfScheduledTasks() throws Exception {
+        ScheduledExecutorService scheduledExecutorService = threadPoolService.newSingleScheduledThreadPool(ANY_THREAD_POOL_NAME);
+        CountDownLatch workerLatch = new CountDownLatch(1);
+        scheduledExecutorService.execute(() -> await(workerLatch));
+        Future<?> lateTask = scheduledExecutorService.schedule(() -> {
+        }, 1, TimeUnit.MILLISECONDS);
+
+        Thread.sleep(TASK_DURATION_MILLIS);
+        workerLatch.countDown();
+        lateTask.get();
+
+        assertAtLeast(awaitStatistics(scheduledExecutorService, 2).getWaitTime().getMax(), TASK_DURATION_MILLIS - 1);
+    }
+
+    @Test
+    public void shouldResetLatenciesEveryInterval() throws Exception {
+        ExecutorService executorService = threadPoolService.newSingleThreadExecutor(ANY_THREAD_POOL_NAME);
+        executorService.submit(() -> sleep(1)).get();
+        awaitStatistics(executorService, 1);
+
+        StatisticsObject statisticsObject = ((NamedThreadPoolExecutor) executorService).getStatistics();
+
+        assertThat(statisticsObject.getRunTime().getCount(), is(0L));
+    }
+
+    @Test
+    public void workStealingPoolShouldRecordRunTime() throws Exception {
+        ExecutorService executorService = threadPoolService.newWorkStealingPool(1, ANY_THREAD_POOL_NAME);
+        executorService.submit(() -> sleep(TASK_DURATION_MILLIS)).get();
+
+        assertAtLeast(awaitStatistics(executorService, 1).getRunTime().getMax(), TASK_DURATION_MILLIS);
+    }
+
+    private static StatisticsObject awaitStatistics(ExecutorService executorService, long taskNumber) throws InterruptedException {
+        if (executorService instanceof ThreadPoolExecutor) {
+            ThreadPoolExecutor threadPoolExecutor = (ThreadPoolExecutor) executorService;
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DELAY);
+            while (threadPoolExecutor.getCompletedTaskCount() < taskNumber && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+        }
+        return ((NamedThreadPoolExecutor) executorService).getStatistics();
+    }
+
+    private static void assertAtLeast(long actualNanos, long expectedMillis) {
+        assertTrue(actualNanos + "ns is less than " + expectedMillis + "ms", actualNanos >= TimeUnit.MILLISECONDS.toNanos(expectedMillis));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,216 @@
+package com.dubravsky.threadpoolservice;
+
+import com.dubravsky.threadpoolservice.task.JoinPolicy;
+import com.dubravsky.threadpoolservice.task.TaskScope;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static com.dubravsky.threadpoolservice.ThreadPoolServiceTest.*;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.*;
+
+public class TaskScopeTest {
+
+    private static final int THREADS = 4;
+
+    private ThreadPoolService threadPoolService;
+    private Consumer<Exception> exceptionHandler;
+    private NamedThreadPoolExecutor executorService;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void init() {
+        exceptionHandler = mock(Consumer.class);
+        threadPoolService = ThreadPoolService.builder()
+                .exceptionHandler(exceptionHandler)
+                .build();
+        executorService = (NamedThreadPoolExecutor) threadPoolService.newFixedThreadPool(THREADS, ANY_THREAD_POOL_NAME);
+    }
+
+    @After
+    public void shutdown() {
+        threadPoolService.shutdownNow();
+    }
+
+    @Test
+    public void shouldJoinAllResultsInForkOrder() throws Exception {
+        try (TaskScope<String> scope = executorService.newScope(JoinPolicy.ALL_SUCCESSFUL)) {
+            scope.fork(() -> {
+                TimeUnit.MILLISECONDS.sleep(SHORT_DELAY);
+                return "first";
+            });
+            scope.fork(() -> "second");
+
+            assertThat(scope.join().results(), is(Arrays.asList("first", "second")));
+        }
+    }
+
+    @Test
+    public void shouldCancelSiblingsOnFailure() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        AtomicBoolean siblingRunning = new AtomicBoolean();
+        try (TaskScope<String> scope = executorService.newScope(JoinPolicy.ALL_SUCCESSFUL)) {
+            Future<String> sibling = scope.fork(() -> {
+                siblingRunning.set(true);
+                started.countDown();
+                String result = awaitInterruption(interrupted);
+                TimeUnit.MILLISECONDS.sleep(SHORT_DELAY);
+                siblingRunning.set(false);
+                return result;
+            });
+            started.await();
+            scope.fork(() -> {
+                throw ANY_EXCEPTION;
+            });
+
+            try {
+                scope.join();
+                fail();
+            } catch (ExecutionException e) {
+                assertThat(e.getCause(), is(ANY_EXCEPTION));
+            }
+            assertTrue(sibling.isCancelled());
+            assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+        }
+        assertFalse(siblingRunning.get());
+        verify(exceptionHandler, never()).accept(any());
+    }
+
+    @Test
+    public void shouldReturnFirstSuccessfulResult() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        try (TaskScope<String> scope = executorService.newScope(JoinPolicy.ANY_SUCCESSFUL)) {
+            scope.fork(() -> {
+                throw ANY_EXCEPTION;
+            });
+            Future<String> sibling = scope.fork(() -> awaitInterruption(interrupted));
+            scope.fork(() -> {
+                TimeUnit.MILLISECONDS.sleep(SHORT_DELAY);
+                return "winner";
+            });
+
+            assertThat(scope.join().result(), is("winner"));
+            assertTrue(sibling.isCancelled());
+            assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void shouldFailWhenEverySubtaskFails() throws Exception {
+        try (TaskScope<String> scope = executorService.newScope(JoinPolicy.ANY_SUCCESSFUL)) {
+            scope.fork(() -> {
+                throw ANY_EXCEPTION;
+            });
+            scope.fork(() -> {
+                throw ANY_EXCEPTION;
+            });
+
+            try {
+                scope.join();
+                fail();
+            } catch (ExecutionException e) {
+                assertThat(e.getCause(), is(ANY_EXCEPTION));
+            }
+        }
+    }
+
+    @Test
+    public void shouldCancelSubtasksOnDeadline() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        try (TaskScope<String> scope = executorService.newScope(JoinPolicy.ALL_SUCCESSFUL)) {
+            Future<String> subtask = scope.fork(() -> awaitInterruption(interrupted));
+
+            try {
+                scope.join(SHORT_DELAY, TimeUnit.MILLISECONDS);
+                fail();
+            } catch (TimeoutException e) {
+                assertTrue(subtask.isCancelled());
+            }
+            assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void shouldSkipQueuedSubtasksAfterFailure() throws Exception {
+        NamedThreadPoolExecutor singleThreadExecutor = (NamedThreadPoolExecutor) threadPoolService.newSingleThreadExecutor(SECOND_ANY_THREAD_POOL_NAME);
+        CountDownLatch started = new CountDownLatch(1);
+        try (TaskScope<String> scope = singleThreadExecutor.newScope(JoinPolicy.ALL_SUCCESSFUL)) {
+            scope.fork(() -> {
+                throw ANY_EXCEPTION;
+            });
+            Future<String> queued = scope.fork(() -> {
+                started.countDown();
+                return "queued";
+            });
+
+            try {
+                scope.join();
+                fail();
+            } catch (ExecutionException e) {
+                assertTrue(queued.isCancelled());
+            }
+        }
+        singleThreadExecutor.shutdown();
+        assertTrue(singleThreadExecutor.awaitTermination(1, TimeUnit.SECONDS));
+        assertThat(started.getCount(), is(1L));
+    }
+
+    @Test
+    public void shouldCancelUnfinishedSubtasksOnClose() {
+        Future<String> subtask;
+        try (TaskScope<String> scope = executorService.newScope(JoinPolicy.ALL_SUCCESSFUL)) {
+            subtask = scope.fork(() -> awaitInterruption(new CountDownLatch(1)));
+        }
+
+        assertTrue(subtask.isCancelled());
+    }
+
+    @Test
+    public void shouldRejectJoinFromOtherThread() throws Exception {
+        TaskScope<String> scope = executorService.newScope(JoinPolicy.ALL_SUCCESSFUL);
+        AtomicReference<Exception> exception = new AtomicReference<>();
+
+        Thread thread = new Thread(() -> {
+            try {
+                scope.join();
+            } catch (Exception e) {
+                exception.set(e);
+            }
+        });
+        thread.start();
+        thread.join();
+
+        assertTrue(exception.get() instanceof IllegalStateException);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionWhenJoinPolicyIsNull() {
+        executorService.newScope(null);
+    }
+
+    private static String awaitInterruption(CountDownLatch interrupted) {
+        try {
+            TimeUnit.SECONDS.sleep(10);
+        } catch (InterruptedException e) {
+            interrupted.countDown();
+        }
+        return "interrupted";
+    }
+
+}
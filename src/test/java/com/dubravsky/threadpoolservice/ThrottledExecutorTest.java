@@ -0,0 +1,203 @@
+package com.dubravsky.threadpoolservice;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static com.dubravsky.threadpoolservice.ThreadPoolServiceTest.*;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.*;
+
+public class ThrottledExecutorTest {
+
+    private static final int THREADS = 8;
+    private static final int MAX_CONCURRENCY = 2;
+    private static final int TASK_NUMBER = 100;
+
+    private ThreadPoolService threadPoolService;
+    private Consumer<Exception> exceptionHandler;
+    private ExecutorService sharedPool;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void init() {
+        exceptionHandler = mock(Consumer.class);
+        threadPoolService = ThreadPoolService.builder()
+                .exceptionHandler(exceptionHandler)
+                .build();
+        sharedPool = threadPoolService.newFixedThreadPool(THREADS, SECOND_ANY_THREAD_POOL_NAME);
+    }
+
+    @After
+    public void shutdown() {
+        threadPoolService.shutdownNow();
+    }
+
+    @Test
+    public void shouldLimitRate() throws Exception {
+        ExecutorService executorService = threadPoolService.newRateLimitedExecutor(sharedPool, ANY_THREAD_POOL_NAME, 50, 1);
+        CountDownLatch completed = new CountDownLatch(6);
+        long startNanos = System.nanoTime();
+
+        for (int i = 0; i < 6; i++) {
+            executorService.execute(completed::countDown);
+        }
+
+        assertTrue(completed.await(1, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - startNanos >= TimeUnit.MILLISECONDS.toNanos(90));
+    }
+
+    @Test
+    public void shouldLimitRateOfBatch() throws Exception {
+        ExecutorService executorService = threadPoolService.newRateLimitedExecutor(sharedPool, ANY_THREAD_POOL_NAME, 50, 1);
+        AtomicInteger executed = new AtomicInteger();
+        long startNanos = System.nanoTime();
+
+        ((NamedThreadPoolExecutor) executorService).submitAll(Collections.nCopies(6, executed::incrementAndGet))
+                .get(1, TimeUnit.SECONDS);
+
+        assertTrue(System.nanoTime() - startNanos >= TimeUnit.MILLISECONDS.toNanos(90));
+        assertThat(executed.get(), is(6));
+        assertThat(((NamedThreadPoolExecutor) executorService).getStatistics().getSubmittedTaskCount(), is(6L));
+    }
+
+    @Test
+    public void shouldRunBurstWithoutDelay() throws Exception {
+        ExecutorService executorService = threadPoolService.newRateLimitedExecutor(sharedPool, ANY_THREAD_POOL_NAME, 1, 5);
+        CountDownLatch completed = new CountDownLatch(5);
+
+        for (int i = 0; i < 5; i++) {
+            executorService.execute(completed::countDown);
+        }
+
+        assertTrue(completed.await(DELAY, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void shouldRejectBacklogAfterServiceShutdown() throws Exception {
+        ExecutorService executorService = threadPoolService.newRateLimitedExecutor(sharedPool, ANY_THREAD_POOL_NAME, 2, 1);
+        CountDownLatch completed = new CountDownLatch(1);
+
+        executorService.execute(completed::countDown);
+        for (int i = 1; i < 5; i++) {
+            executorService.execute(mock(Runnable.class));
+        }
+        assertTrue(completed.await(1, TimeUnit.SECONDS));
+        threadPoolService.shutdown();
+
+        assertTrue(executorService.awaitTermination(5, TimeUnit.SECONDS));
+        verify(exceptionHandler, times(4)).accept(any(RejectedExecutionException.class));
+    }
+
+    @Test
+    public void shouldLimitConcurrency() throws Exception {
+        ExecutorService executorService = threadPoolService.newConcurrencyLimitedExecutor(sharedPool, ANY_THREAD_POOL_NAME, MAX_CONCURRENCY);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch completed = new CountDownLatch(TASK_NUMBER);
+
+        for (int i = 0; i < TASK_NUMBER; i++) {
+            executorService.execute(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.yield();
+                running.decrementAndGet();
+                completed.countDown();
+            });
+        }
+
+        assertTrue(completed.await(5, TimeUnit.SECONDS));
+        assertTrue(maxRunning.get() <= MAX_CONCURRENCY);
+    }
+
+    @Test
+    public void shouldReportBacklog() {
+        ExecutorService executorService = threadPoolService.newConcurrencyLimitedExecutor(sharedPool, ANY_THREAD_POOL_NAME, 1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        executorService.execute(() -> await(release));
+        for (int i = 0; i < 5; i++) {
+            executorService.execute(() -> {
+            });
+        }
+        StatisticsObject statisticsObject = threadPoolService.getExecutor(ANY_THREAD_POOL_NAME).getStatistics();
+        release.countDown();
+
+        assertThat(statisticsObject.getQueueSize(), is(5));
+        assertThat(statisticsObject.getMetric("In Flight"), is(1L));
+        assertThat(statisticsObject.getMetric("Max Concurrency"), is(1L));
+    }
+
+    @Test
+    public void shouldReportThrottledWaitTime() throws Exception {
+        ExecutorService executorService = threadPoolService.newRateLimitedExecutor(sharedPool, ANY_THREAD_POOL_NAME, 20, 1);
+
+        executorService.execute(() -> {
+        });
+        executorService.execute(() -> {
+        });
+        executorService.shutdown();
+
+        assertTrue(executorService.awaitTermination(1, TimeUnit.SECONDS));
+        StatisticsObject statisticsObject = ((NamedThreadPoolExecutor) executorService).getStatistics();
+        assertThat(statisticsObject.getCompletedTaskCount(), is(2L));
+        assertTrue(statisticsObject.getWaitTime().getMax() >= TimeUnit.MILLISECONDS.toNanos(SHORT_DELAY));
+    }
+
+    @Test
+    public void shouldCatchExceptions() {
+        ExecutorService executorService = threadPoolService.newConcurrencyLimitedExecutor(sharedPool, ANY_THREAD_POOL_NAME, MAX_CONCURRENCY);
+        Callable<String> task = () -> {
+            throw ANY_EXCEPTION;
+        };
+
+        executorService.submit(task);
+        executorService.execute(() -> {
+            throw ANY_EXCEPTION;
+        });
+
+        verify(exceptionHandler, timeout(DELAY).times(2)).accept(ANY_EXCEPTION);
+    }
+
+    @Test
+    public void shouldTerminateAfterBacklogIsDrained() throws Exception {
+        ExecutorService executorService = threadPoolService.newRateLimitedExecutor(sharedPool, ANY_THREAD_POOL_NAME, 100, 1);
+        CountDownLatch completed = new CountDownLatch(5);
+
+        for (int i = 0; i < 5; i++) {
+            executorService.execute(completed::countDown);
+        }
+        executorService.shutdown();
+
+        assertTrue(executorService.awaitTermination(1, TimeUnit.SECONDS));
+        assertThat(completed.getCount(), is(0L));
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void shouldRejectTasksAfterShutdown() {
+        ExecutorService executorService = threadPoolService.newConcurrencyLimitedExecutor(sharedPool, ANY_THREAD_POOL_NAME, MAX_CONCURRENCY);
+
+        executorService.shutdown();
+        executorService.execute(() -> {
+        });
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,128 @@
+package com.dubravsky.threadpoolservice;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static com.dubravsky.threadpoolservice.ThreadPoolServiceTest.*;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.*;
+
+public class TimerWheelSchedulerTest {
+
+    private static final long TICK_MILLIS = 5;
+    private static final int WHEEL_SIZE = 8;
+    private static final int TIMER_NUMBER = 10_000;
+
+    private ThreadPoolService threadPoolService;
+    private Consumer<Exception> exceptionHandler;
+    private ScheduledExecutorService scheduledExecutorService;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void init() {
+        exceptionHandler = mock(Consumer.class);
+        threadPoolService = ThreadPoolService.builder()
+                .exceptionHandler(exceptionHandler)
+                .build();
+        scheduledExecutorService = threadPoolService.newTimerWheelScheduler(ANY_THREAD_POOL_NAME, TICK_MILLIS, TimeUnit.MILLISECONDS, WHEEL_SIZE);
+    }
+
+    @After
+    public void shutdown() {
+        threadPoolService.shutdownNow();
+    }
+
+    @Test
+    public void shouldNotFireBeforeDelay() throws Exception {
+        long startNanos = System.nanoTime();
+
+        long firedNanos = scheduledExecutorService.schedule(System::nanoTime, DELAY, TimeUnit.MILLISECONDS).get();
+
+        assertTrue(firedNanos - startNanos >= TimeUnit.MILLISECONDS.toNanos(DELAY));
+    }
+
+    @Test
+    public void shouldFireTimersBeyondFirstWheelLevel() throws Exception {
+        long delayMillis = 3 * WHEEL_SIZE * TICK_MILLIS;
+
+        String threadName = scheduledExecutorService.schedule(() -> Thread.currentThread().getName(), delayMillis, TimeUnit.MILLISECONDS)
+                .get(10, TimeUnit.SECONDS);
+
+        assertThat(threadName, startsWith(ANY_THREAD_POOL_NAME + "-"));
+    }
+
+    @Test
+    public void shouldNotFireCancelledTimers() throws Exception {
+        AtomicInteger firedTimers = new AtomicInteger();
+        for (int i = 0; i < TIMER_NUMBER; i++) {
+            scheduledExecutorService.schedule(firedTimers::incrementAndGet, SHORT_DELAY, TimeUnit.MILLISECONDS).cancel(false);
+        }
+        scheduledExecutorService.schedule(firedTimers::incrementAndGet, SHORT_DELAY, TimeUnit.MILLISECONDS).get();
+
+        assertThat(firedTimers.get(), is(1));
+        StatisticsObject statisticsObject = ((NamedThreadPoolExecutor) scheduledExecutorService).getStatistics();
+        assertThat(statisticsObject.getMetric("Pending Timers"), is(0L));
+        assertThat(statisticsObject.getMetric("Cancelled Timers"), is((long) TIMER_NUMBER));
+    }
+
+    @Test
+    public void shouldRunPeriodicTaskAfterException() throws Exception {
+        CountDownLatch runs = new CountDownLatch(3);
+
+        ScheduledFuture<?> future = scheduledExecutorService.scheduleAtFixedRate(() -> {
+            runs.countDown();
+            throw ANY_EXCEPTION;
+        }, 0, SHORT_DELAY, TimeUnit.MILLISECONDS);
+
+        assertTrue(runs.await(10, TimeUnit.SECONDS));
+        future.cancel(false);
+        verify(exceptionHandler, timeout(DELAY).atLeast(3)).accept(ANY_EXCEPTION);
+    }
+
+    @Test
+    public void shouldCatchExceptionInCallable() throws Exception {
+        Callable<String> task = () -> {
+            throw ANY_EXCEPTION;
+        };
+
+        scheduledExecutorService.schedule(task, SHORT_DELAY, TimeUnit.MILLISECONDS).get();
+
+        verify(exceptionHandler).accept(ANY_EXCEPTION);
+    }
+
+    @Test
+    public void shouldCancelPendingTimersOnShutdown() throws Exception {
+        ScheduledFuture<?> future = scheduledExecutorService.schedule(mock(Runnable.class), 1, TimeUnit.HOURS);
+
+        scheduledExecutorService.shutdown();
+
+        assertTrue(scheduledExecutorService.awaitTermination(10, TimeUnit.SECONDS));
+        assertThat(future.isCancelled(), is(true));
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void shouldRejectTimersAfterShutdown() {
+        scheduledExecutorService.shutdown();
+
+        scheduledExecutorService.schedule(mock(Runnable.class), SHORT_DELAY, TimeUnit.MILLISECONDS);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionIfTickDurationIsNotPositive() {
+        threadPoolService.newTimerWheelScheduler(SECOND_ANY_THREAD_POOL_NAME, 0, TimeUnit.MILLISECONDS, WHEEL_SIZE);
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.dubravsky.threadpoolservice;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class TimingWheelTest {
+
+    private static final int WHEEL_SIZE = 4;
+
+    @Test
+    public void shouldExpireEntriesExactlyAtTheirDeadlineOnEveryLevel() {
+        TimingWheel timingWheel = new TimingWheel(WHEEL_SIZE);
+        Map<TimingWheel.Entry<?>, Long> deadlines = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 1_000; i++) {
+            TestEntry entry = new TestEntry();
+            long deadlineTick = 1 + random.nextInt(5_000);
+            timingWheel.add(entry, deadlineTick);
+            deadlines.put(entry, deadlineTick);
+        }
+
+        Map<TimingWheel.Entry<?>, Long> expirations = new HashMap<>();
+        while (timingWheel.size() > 0) {
+            timingWheel.advance(entry -> expirations.put(entry, timingWheel.getCurrentTick()));
+        }
+
+        assertThat(expirations, is(deadlines));
+    }
+
+    @Test
+    public void shouldNotExpireRemovedEntries() {
+        TimingWheel timingWheel = new TimingWheel(WHEEL_SIZE);
+        TestEntry removedEntry = new TestEntry();
+        TestEntry entry = new TestEntry();
+        timingWheel.add(removedEntry, 100);
+        timingWheel.add(entry, 100);
+
+        assertThat(timingWheel.remove(removedEntry), is(true));
+        assertThat(timingWheel.remove(removedEntry), is(false));
+
+        Map<TimingWheel.Entry<?>, Long> expirations = new HashMap<>();
+        for (int i = 0; i < 200; i++) {
+            timingWheel.advance(expiredEntry -> expirations.put(expiredEntry, timingWheel.getCurrentTick()));
+        }
+        assertThat(expirations.size(), is(1));
+        assertThat(expirations.get(entry), is(100L));
+        assertThat(timingWheel.size(), is(0));
+    }
+
+    @Test
+    public void shouldRejectExpiredDeadline() {
+        TimingWheel timingWheel = new TimingWheel(WHEEL_SIZE);
+        timingWheel.advance(entry -> {
+        });
+
+        assertThat(timingWheel.add(new TestEntry(), 1), is(false));
+        assertThat(timingWheel.size(), is(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionIfWheelSizeIsNotPositive() {
+        new TimingWheel(0);
+    }
+
+    private static class TestEntry extends TimingWheel.Entry<Void> {
+
+        TestEntry() {
+            super(() -> {
+            }, null);
+        }
+
+    }
+
+}
@@ -0,0 +1,169 @@
+package com.dubravsky.threadpoolservice;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static com.dubravsky.threadpoolservice.ThreadPoolServiceTest.*;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.*;
+
+public class VirtualThreadExecutorTest {
+
+    private static final int MAX_CONCURRENCY = 2;
+    private static final int TASK_NUMBER = 20;
+
+    private ThreadPoolService threadPoolService;
+    private Consumer<Exception> exceptionHandler;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void init() {
+        exceptionHandler = mock(Consumer.class);
+        threadPoolService = ThreadPoolService.builder()
+                .exceptionHandler(exceptionHandler)
+                .build();
+    }
+
+    @After
+    public void shutdown() {
+        threadPoolService.shutdownNow();
+    }
+
+    @Test
+    public void shouldNameThreads() throws Exception {
+        ExecutorService executorService = threadPoolService.newVirtualThreadExecutor(ANY_THREAD_POOL_NAME);
+
+        String threadName = executorService.submit(() -> Thread.currentThread().getName()).get();
+
+        assertThat(threadName, startsWith(ANY_THREAD_POOL_NAME + "-"));
+    }
+
+    @Test
+    public void shouldCatchExceptions() {
+        ExecutorService executorService = threadPoolService.newVirtualThreadExecutor(ANY_THREAD_POOL_NAME);
+        Callable<String> task = () -> {
+            throw ANY_EXCEPTION;
+        };
+
+        executorService.submit(task);
+        executorService.execute(() -> {
+            throw ANY_EXCEPTION;
+        });
+
+        verify(exceptionHandler, timeout(DELAY).times(2)).accept(ANY_EXCEPTION);
+    }
+
+    @Test
+    public void shouldLimitConcurrency() throws Exception {
+        ExecutorService executorService = threadPoolService.newVirtualThreadExecutor(ANY_THREAD_POOL_NAME, MAX_CONCURRENCY);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch completed = new CountDownLatch(TASK_NUMBER);
+
+        for (int i = 0; i < TASK_NUMBER; i++) {
+            executorService.execute(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                sleep(5);
+                running.decrementAndGet();
+                completed.countDown();
+            });
+        }
+
+        assertTrue(completed.await(10, TimeUnit.SECONDS));
+        assertTrue("Max running tasks: " + maxRunning.get(), maxRunning.get() <= MAX_CONCURRENCY);
+    }
+
+    @Test
+    public void shouldTerminateAfterShutdown() throws Exception {
+        ExecutorService executorService = threadPoolService.newVirtualThreadExecutor(ANY_THREAD_POOL_NAME);
+        executorService.execute(() -> sleep(SHORT_DELAY));
+
+        threadPoolService.shutdown();
+
+        assertThat(threadPoolService.isShutdown(), is(true));
+        assertTrue(executorService.awaitTermination(10, TimeUnit.SECONDS));
+        assertThat(threadPoolService.isTerminated(), is(true));
+    }
+
+    @Test
+    public void shutdownNowShouldInterruptRunningTasks() throws Exception {
+        ExecutorService executorService = threadPoolService.newVirtualThreadExecutor(ANY_THREAD_POOL_NAME);
+        CountDownLatch started = new CountDownLatch(1);
+        executorService.execute(() -> {
+            started.countDown();
+            sleep(TimeUnit.MINUTES.toMillis(1));
+        });
+        started.await();
+
+        threadPoolService.shutdownNow();
+
+        assertTrue(executorService.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shutdownNowShouldReturnTasksWaitingForPermit() throws Exception {
+        ExecutorService executorService = threadPoolService.newVirtualThreadExecutor(ANY_THREAD_POOL_NAME, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        Runnable waitingTask = mock(Runnable.class);
+        executorService.execute(() -> {
+            started.countDown();
+            sleep(TimeUnit.MINUTES.toMillis(1));
+        });
+        started.await();
+        for (int i = 0; i < 3; i++) {
+            executorService.execute(waitingTask);
+        }
+
+        List<Runnable> notExecutedTasks = executorService.shutdownNow();
+
+        assertThat(notExecutedTasks.size(), is(3));
+        assertTrue(executorService.awaitTermination(10, TimeUnit.SECONDS));
+        verify(waitingTask, never()).run();
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void shouldRejectTasksAfterShutdown() {
+        ExecutorService executorService = threadPoolService.newVirtualThreadExecutor(ANY_THREAD_POOL_NAME);
+        executorService.shutdown();
+
+        executorService.execute(mock(Runnable.class));
+    }
+
+    @Test
+    public void shouldCountStartedAndCompletedTasks() throws Exception {
+        ExecutorService executorService = threadPoolService.newVirtualThreadExecutor(ANY_THREAD_POOL_NAME);
+        for (int i = 0; i < TASK_NUMBER; i++) {
+            executorService.submit(mock(Runnable.class)).get();
+        }
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(10, TimeUnit.SECONDS));
+
+        StatisticsObject statisticsObject = ((NamedThreadPoolExecutor) executorService).getStatistics();
+
+        assertThat(statisticsObject.getStartedTaskCount(), is((long) TASK_NUMBER));
+        assertThat(statisticsObject.getCompletedTaskCount(), is((long) TASK_NUMBER));
+        assertThat(statisticsObject.getMetric("Live"), is(0L));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,179 @@
+package com.dubravsky.threadpoolservice;
+
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.dubravsky.threadpoolservice.ThreadPoolServiceTest.ANY_THREAD_POOL_NAME;
+import static com.dubravsky.threadpoolservice.ThreadPoolServiceTest.DELAY;
+import static com.dubravsky.threadpoolservice.ThreadPoolServiceTest.SHORT_DELAY;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+public class WatchdogTest {
+
+    private static final int WATCHDOG_PERIOD = 5;
+    private static final int THREAD_NUMBER = 8;
+
+    private final WatchdogHandler watchdogHandler = mock(WatchdogHandler.class);
+    private final CountDownLatch workerLatch = new CountDownLatch(1);
+    private ThreadPoolService threadPoolService;
+
+    @After
+    public void shutdown() {
+        workerLatch.countDown();
+        threadPoolService.shutdownNow();
+    }
+
+    @Test
+    public void shouldReportSlowTaskOnceWithStackTrace() throws Exception {
+        threadPoolService = watchedThreadPoolService();
+        ExecutorService executorService = threadPoolService.newFixedThreadPool(1, ANY_THREAD_POOL_NAME);
+
+        executorService.execute(this::awaitWorkerLatch);
+        Thread.sleep(3 * DELAY);
+
+        ArgumentCaptor<WatchdogEvent> watchdogEvent = ArgumentCaptor.forClass(WatchdogEvent.class);
+        verify(watchdogHandler, times(1)).handle(watchdogEvent.capture(), anyString());
+        assertThat(watchdogEvent.getValue().getType(), is(WatchdogEvent.Type.SLOW_TASK));
+        assertThat(watchdogEvent.getValue().getThreadPoolName(), is(ANY_THREAD_POOL_NAME));
+        assertThat(watchdogEvent.getValue().getThreadName(), startsWith(ANY_THREAD_POOL_NAME + "-"));
+        assertTrue(watchdogEvent.getValue().getDurationNanos() >= TimeUnit.MILLISECONDS.toNanos(SHORT_DELAY));
+        assertTrue(watchdogEvent.getValue().toString().contains("awaitWorkerLatch"));
+    }
+
+    @Test
+    public void shouldReportSlowTaskOfWorkStealingPool() throws Exception {
+        threadPoolService = watchedThreadPoolService();
+        ExecutorService executorService = threadPoolService.newWorkStealingPool(1, ANY_THREAD_POOL_NAME);
+
+        executorService.execute(this::awaitWorkerLatch);
+        Thread.sleep(3 * DELAY);
+
+        ArgumentCaptor<WatchdogEvent> watchdogEvent = ArgumentCaptor.forClass(WatchdogEvent.class);
+        verify(watchdogHandler, times(1)).handle(watchdogEvent.capture(), anyString());
+        assertThat(watchdogEvent.getValue().getType(), is(WatchdogEvent.Type.SLOW_TASK));
+        assertThat(watchdogEvent.getValue().getThreadPoolName(), is(ANY_THREAD_POOL_NAME));
+        assertTrue(watchdogEvent.getValue().toString().contains("awaitWorkerLatch"));
+    }
+
+    @Test
+    public void shouldNotReportFastTasks() throws Exception {
+        threadPoolService = watchedThreadPoolService();
+        ExecutorService executorService = threadPoolService.newFixedThreadPool(2, ANY_THREAD_POOL_NAME);
+
+        for (int i = 0; i < 100; i++) {
+            executorService.execute(() -> {
+            });
+        }
+        Thread.sleep(DELAY);
+
+        verify(watchdogHandler, never()).handle(any(), anyString());
+    }
+
+    @Test
+    public void shouldUsePerPoolThreshold() throws Exception {
+        threadPoolService = watchedThreadPoolService();
+        ExecutorService executorService = threadPoolService.newFixedThreadPool(1, ANY_THREAD_POOL_NAME);
+        ((NamedThreadPoolExecutor) executorService).setSlowTaskThreshold(1, TimeUnit.MINUTES);
+
+        executorService.execute(this::awaitWorkerLatch);
+        Thread.sleep(2 * DELAY);
+
+        verify(watchdogHandler, never()).handle(any(), anyString());
+    }
+
+    @Test
+    public void shouldReportSaturatedPool() throws Exception {
+        threadPoolService = watchedThreadPoolService();
+        ExecutorService executorService = threadPoolService.newFixedThreadPool(1, ANY_THREAD_POOL_NAME);
+        ((NamedThreadPoolExecutor) executorService).setSlowTaskThreshold(1, TimeUnit.MINUTES);
+
+        executorService.execute(this::awaitWorkerLatch);
+        executorService.execute(() -> {
+        });
+
+        verify(watchdogHandler, timeout(3 * DELAY).atLeastOnce())
+                .handle(argThat(watchdogEvent -> watchdogEvent.getType() == WatchdogEvent.Type.POOL_SATURATED
+                        && watchdogEvent.getThreadPoolName().equals(ANY_THREAD_POOL_NAME)
+                        && watchdogEvent.getDurationNanos() >= TimeUnit.MILLISECONDS.toNanos(SHORT_DELAY)), anyString());
+    }
+
+    @Test
+    public void shouldNotReportIdleScheduledPools() throws Exception {
+        threadPoolService = ThreadPoolService.builder()
+                .watchdogHandler(watchdogHandler)
+                .watchdogPeriod(WATCHDOG_PERIOD)
+                .saturationThreshold(SHORT_DELAY)
+                .statisticsHandler((statisticsObject, message) -> {
+                })
+                .statisticsOutputDelay(TimeUnit.MINUTES.toMillis(1))
+                .build();
+        ScheduledExecutorService executorService = threadPoolService.newScheduledThreadPool(1, ANY_THREAD_POOL_NAME);
+        ((NamedThreadPoolExecutor) executorService).setSlowTaskThreshold(1, TimeUnit.MINUTES);
+
+        executorService.execute(this::awaitWorkerLatch);
+        executorService.scheduleAtFixedRate(() -> {
+        }, 1, 1, TimeUnit.MINUTES);
+        Thread.sleep(3 * DELAY);
+
+        verify(watchdogHandler, never()).handle(any(), anyString());
+    }
+
+    @Test
+    public void shouldRateLimitStackTraces() throws Exception {
+        threadPoolService = ThreadPoolService.create();
+        NamedThreadPoolExecutor executorService = (NamedThreadPoolExecutor) threadPoolService.newFixedThreadPool(THREAD_NUMBER, ANY_THREAD_POOL_NAME);
+        executorService.setSlowTaskThreshold(SHORT_DELAY, TimeUnit.MILLISECONDS);
+        Watchdog watchdog = new Watchdog(() -> Collections.singletonList(executorService), watchdogHandler, TimeUnit.MINUTES.toNanos(1));
+        CountDownLatch startLatch = new CountDownLatch(THREAD_NUMBER);
+        for (int i = 0; i < THREAD_NUMBER; i++) {
+            executorService.execute(() -> {
+                startLatch.countDown();
+                awaitWorkerLatch();
+            });
+        }
+        assertTrue(startLatch.await(1, TimeUnit.SECONDS));
+        Thread.sleep(2 * SHORT_DELAY);
+
+        watchdog.run();
+        watchdog.run();
+
+        ArgumentCaptor<WatchdogEvent> watchdogEvents = ArgumentCaptor.forClass(WatchdogEvent.class);
+        verify(watchdogHandler, times(THREAD_NUMBER)).handle(watchdogEvents.capture(), anyString());
+        List<WatchdogEvent> slowTaskEvents = watchdogEvents.getAllValues();
+        assertThat(slowTaskEvents.stream().filter(watchdogEvent -> watchdogEvent.getStackTrace().length > 0).count(),
+                is((long) Watchdog.MAX_STACK_TRACES_PER_CHECK));
+    }
+
+    private ThreadPoolService watchedThreadPoolService() {
+        return ThreadPoolService.builder()
+                .watchdogHandler(watchdogHandler)
+                .watchdogPeriod(WATCHDOG_PERIOD)
+                .slowTaskThreshold(SHORT_DELAY)
+                .saturationThreshold(SHORT_DELAY)
+                .build();
+    }
+
+    private void awaitWorkerLatch() {
+        try {
+            workerLatch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,163 @@
+package com.dubravsky.threadpoolservice;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static com.dubravsky.threadpoolservice.ThreadPoolServiceTest.*;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.*;
+
+public class WorkStealingPoolTest {
+
+    private ThreadPoolService threadPoolService;
+    private Consumer<Exception> exceptionHandler;
+    private ExecutorService executorService;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void init() {
+        exceptionHandler = mock(Consumer.class);
+        threadPoolService = ThreadPoolService.builder()
+                .exceptionHandler(exceptionHandler)
+                .build();
+        executorService = threadPoolService.newWorkStealingPool(2, ANY_THREAD_POOL_NAME);
+    }
+
+    @After
+    public void shutdown() {
+        threadPoolService.shutdown();
+    }
+
+    @Test
+    public void shouldNameWorkerThreads() throws Exception {
+        String threadName = executorService.submit(() -> Thread.currentThread().getName()).get();
+
+        assertThat(threadName, startsWith(ANY_THREAD_POOL_NAME + "-"));
+    }
+
+    @Test
+    public void shouldCatchExceptionInRunnable() {
+        executorService.execute(() -> {
+            throw ANY_EXCEPTION;
+        });
+
+        verify(exceptionHandler, timeout(DELAY).times(1)).accept(ANY_EXCEPTION);
+    }
+
+    @Test
+    public void shouldCatchExceptionInCallable() throws Exception {
+        Callable<String> task = () -> {
+            throw ANY_EXCEPTION;
+        };
+
+        assertThat(executorService.submit(task).get(), is(nullValue()));
+        verify(exceptionHandler, timeout(DELAY).times(1)).accept(ANY_EXCEPTION);
+    }
+
+    @Test
+    public void shouldCatchExceptionsInInvokeAll() throws Exception {
+        Callable<String> failingTask = () -> {
+            throw ANY_EXCEPTION;
+        };
+        List<Future<String>> futures = executorService.invokeAll(Arrays.asList(failingTask, () -> "result"));
+
+        assertThat(futures.get(0).get(), is(nullValue()));
+        assertThat(futures.get(1).get(), is("result"));
+        verify(exceptionHandler, timeout(DELAY).times(1)).accept(ANY_EXCEPTION);
+    }
+
+    @Test
+    public void shouldRunRecursiveTasks() {
+        long sum = ((ForkJoinPool) executorService).invoke(new SumTask(0, 100_000));
+
+        assertThat(sum, is(99_999L * 100_000L / 2));
+    }
+
+    @Test
+    public void shouldProvideWorkStealingStatistics() throws Exception {
+        executorService.submit(() -> "result").get();
+        ((ForkJoinPool) executorService).invoke(new SumTask(0, 100_000));
+
+        StatisticsObject statisticsObject = ((NamedThreadPoolExecutor) executorService).getStatistics();
+
+        assertThat(statisticsObject.getName(), is(ANY_THREAD_POOL_NAME));
+        assertThat(statisticsObject.getCompletedTaskCount(), is(2L));
+        assertThat(statisticsObject.getMetrics().containsKey("Steals"), is(true));
+        assertThat(statisticsObject.getMetrics().containsKey("Queued Submissions"), is(true));
+        assertThat(statisticsObject.getMetrics().containsKey("Running Threads"), is(true));
+    }
+
+    @Test
+    public void shouldInstrumentForkJoinTasks() throws Exception {
+        ForkJoinTask<Long> task = ((ForkJoinPool) executorService).submit(new SumTask(0, 100_000));
+        ForkJoinTask<?> failingTask = ForkJoinTask.adapt(() -> {
+            throw ANY_EXCEPTION;
+        });
+        ((ForkJoinPool) executorService).execute(failingTask);
+
+        assertThat(task.get(), is(99_999L * 100_000L / 2));
+        verify(exceptionHandler, timeout(DELAY).times(1)).accept(ANY_EXCEPTION);
+        assertThat(failingTask.isCompletedAbnormally(), is(true));
+        executorService.shutdown();
+        assertThat(executorService.awaitTermination(1, TimeUnit.SECONDS), is(true));
+        StatisticsObject statisticsObject = ((NamedThreadPoolExecutor) executorService).getStatistics();
+        assertThat(statisticsObject.getSubmittedTaskCount(), is(2L));
+        assertThat(statisticsObject.getStartedTaskCount(), is(2L));
+        assertThat(statisticsObject.getCompletedTaskCount(), is(2L));
+        assertThat(statisticsObject.getFailedTaskCount(), is(1L));
+    }
+
+    @Test
+    public void shouldBeShutDownByService() {
+        threadPoolService.shutdownNow();
+
+        assertThat(executorService.isShutdown(), is(true));
+    }
+
+    private static class SumTask extends RecursiveTask<Long> {
+
+        private static final long serialVersionUID = 1L;
+
+        private static final int THRESHOLD = 1_000;
+
+        private final int from;
+        private final int to;
+
+        SumTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Long compute() {
+            if (to - from <= THRESHOLD) {
+                long sum = 0;
+                for (int i = from; i < to; i++) {
+                    sum += i;
+                }
+                return sum;
+            }
+            int middle = (from + to) >>> 1;
+            SumTask left = new SumTask(from, middle);
+            left.fork();
+            return new SumTask(middle, to).compute() + left.join();
+        }
+
+    }
+
+}
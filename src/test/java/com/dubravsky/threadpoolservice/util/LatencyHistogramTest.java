@@ -0,0 +1,140 @@
+package com.dubravsky.threadpoolservice.util;
+
+import org.junit.Test;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    private static final double MAX_RELATIVE_ERROR = 0.125;
+
+    @Test
+    public void bucketShouldContainItsValue() {
+        for (long value = 0; value < 1_000_000; value = value * 3 / 2 + 1) {
+            int bucketIndex = LatencyHistogram.bucketIndex(value);
+            long highestValue = LatencyHistogram.highestValue(bucketIndex);
+            assertTrue(value + " is above " + highestValue, value <= highestValue);
+            assertTrue(value + " is too far from " + highestValue, highestValue - value <= value * MAX_RELATIVE_ERROR);
+        }
+        assertThat(LatencyHistogram.highestValue(LatencyHistogram.bucketIndex(Long.MAX_VALUE)), is(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void shouldNotLoseValuesRecordedConcurrently() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        int threadNumber = 8;
+        int valuesPerThread = 100_000;
+        Thread[] threads = new Thread[threadNumber];
+        for (int i = 0; i < threadNumber; i++) {
+            threads[i] = new Thread(() -> {
+                for (int value = 0; value < valuesPerThread; value++) {
+                    histogram.record(100);
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(histogram.cumulativeSnapshot().getCount(), is((long) threadNumber * valuesPerThread));
+        assertThat(histogram.snapshotAndReset().getCount(), is((long) threadNumber * valuesPerThread));
+        assertTrue(histogram.getStripeCount() <= LatencyHistogram.maxStripeCount(Runtime.getRuntime().availableProcessors()));
+    }
+
+    @Test
+    public void maxStripeCountShouldBePowerOfTwo() {
+        assertThat(LatencyHistogram.maxStripeCount(1), is(1));
+        assertThat(LatencyHistogram.maxStripeCount(2), is(2));
+        assertThat(LatencyHistogram.maxStripeCount(6), is(8));
+        assertThat(LatencyHistogram.maxStripeCount(16), is(16));
+    }
+
+    @Test
+    public void shouldCalculatePercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 10_000; value++) {
+            histogram.record(value);
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshotAndReset();
+
+        assertThat(snapshot.getCount(), is(10_000L));
+        assertThat(snapshot.getMax(), is(10_000L));
+        assertApproximately(snapshot.getP50(), 5_000);
+        assertApproximately(snapshot.getP90(), 9_000);
+        assertApproximately(snapshot.getP99(), 9_900);
+        assertApproximately(snapshot.getP999(), 9_990);
+    }
+
+    @Test
+    public void snapshotShouldResetInterval() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(100);
+        histogram.snapshotAndReset();
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshotAndReset();
+
+        assertThat(snapshot.getCount(), is(0L));
+        assertThat(snapshot.getMax(), is(0L));
+        assertThat(snapshot.getP99(), is(0L));
+    }
+
+    @Test
+    public void shouldRecordNegativeValuesAsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshotAndReset();
+
+        assertThat(snapshot.getCount(), is(1L));
+        assertThat(snapshot.getP50(), is(0L));
+    }
+
+    @Test
+    public void cumulativeSnapshotShouldSpanIntervals() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(100);
+        histogram.record(1_000);
+        histogram.snapshotAndReset();
+        histogram.record(10_000);
+
+        LatencyHistogram.Cumulative cumulative = histogram.cumulativeSnapshot();
+
+        assertThat(cumulative.getCount(), is(3L));
+        assertThat(cumulative.getSum(), is(11_100L));
+        assertThat(cumulative.getCountAtOrBelow(64), is(0L));
+        assertThat(cumulative.getCountAtOrBelow(128), is(1L));
+        assertThat(cumulative.getCountAtOrBelow(1_024), is(2L));
+        assertThat(cumulative.getCountAtOrBelow(16_384), is(3L));
+    }
+
+    @Test
+    public void cumulativeSnapshotShouldCountUpperBoundInclusively() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1_024);
+        histogram.record(1_025);
+
+        LatencyHistogram.Cumulative cumulative = histogram.cumulativeSnapshot();
+
+        assertThat(cumulative.getCountAtOrBelow(1_023), is(0L));
+        assertThat(cumulative.getCountAtOrBelow(1_024), is(1L));
+        assertThat(cumulative.getCountAtOrBelow(2_048), is(2L));
+    }
+
+    @Test
+    public void snapshotShouldNotResetInterval() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(100);
+        histogram.snapshot();
+
+        assertThat(histogram.snapshotAndReset().getCount(), is(1L));
+    }
+
+    private static void assertApproximately(long actual, long expected) {
+        assertTrue(actual + " is not close to " + expected, Math.abs(actual - expected) <= expected * MAX_RELATIVE_ERROR);
+    }
+
+}
@@ -0,0 +1,294 @@
+package com.dubravsky.threadpoolservice.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class MpmcArrayBlockingQueueTest {
+
+    private static final int PRODUCER_NUMBER = 8;
+    private static final int CONSUMER_NUMBER = 8;
+    private static final int ELEMENTS_PER_PRODUCER = 100_000;
+    private static final long STRESS_TIMEOUT_SECONDS = 60;
+
+    @Test
+    public void shouldRoundCapacityUpToPowerOfTwo() {
+        assertThat(new MpmcArrayBlockingQueue<>(1).capacity(), is(2));
+        assertThat(new MpmcArrayBlockingQueue<>(5).capacity(), is(8));
+        assertThat(new MpmcArrayBlockingQueue<>(16).capacity(), is(16));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionIfCapacityIsNotPositive() {
+        new MpmcArrayBlockingQueue<>(0);
+    }
+
+    @Test
+    public void shouldKeepFifoOrderAndRespectCapacity() {
+        BlockingQueue<Integer> queue = new MpmcArrayBlockingQueue<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertThat(queue.offer(i), is(true));
+        }
+
+        assertThat(queue.offer(4), is(false));
+        assertThat(queue.size(), is(4));
+        assertThat(queue.remainingCapacity(), is(0));
+        assertThat(queue.peek(), is(0));
+        for (int i = 0; i < 4; i++) {
+            assertThat(queue.poll(), is(i));
+        }
+        assertThat(queue.poll(), is(nullValue()));
+        assertThat(queue.isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldDrainAllElements() {
+        BlockingQueue<Integer> queue = new MpmcArrayBlockingQueue<>(8);
+        for (int i = 0; i < 5; i++) {
+            queue.offer(i);
+        }
+        List<Integer> drained = new ArrayList<>();
+
+        assertThat(queue.drainTo(drained, 2), is(2));
+        assertThat(queue.drainTo(drained), is(3));
+        assertThat(drained.size(), is(5));
+        assertThat(queue.isEmpty(), is(true));
+    }
+
+    @Test
+    public void pollShouldReturnNullAfterTimeout() throws InterruptedException {
+        BlockingQueue<Integer> queue = new MpmcArrayBlockingQueue<>(2);
+
+        assertThat(queue.poll(10, TimeUnit.MILLISECONDS), is(nullValue()));
+    }
+
+    @Test
+    public void offerShouldReturnFalseAfterTimeout() throws InterruptedException {
+        BlockingQueue<Integer> queue = new MpmcArrayBlockingQueue<>(2);
+        queue.put(1);
+        queue.put(2);
+
+        assertThat(queue.offer(3, 10, TimeUnit.MILLISECONDS), is(false));
+    }
+
+    @Test(timeout = 10_000)
+    public void takeShouldWakeUpWhenElementIsAdded() throws Exception {
+        BlockingQueue<Integer> queue = new MpmcArrayBlockingQueue<>(2);
+        AtomicReference<Integer> taken = new AtomicReference<>();
+        Thread consumer = new Thread(() -> {
+            try {
+                taken.set(queue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        consumer.start();
+
+        Thread.sleep(50);
+        queue.put(42);
+        consumer.join();
+
+        assertThat(taken.get(), is(42));
+    }
+
+    @Test(timeout = 10_000)
+    public void putShouldWakeUpWhenSpaceIsFreed() throws Exception {
+        BlockingQueue<Integer> queue = new MpmcArrayBlockingQueue<>(2);
+        queue.put(1);
+        queue.put(2);
+        Thread producer = new Thread(() -> {
+            try {
+                queue.put(3);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+
+        Thread.sleep(50);
+        assertThat(queue.take(), is(1));
+        producer.join();
+
+        assertThat(queue.take(), is(2));
+        assertThat(queue.take(), is(3));
+    }
+
+    @Test(timeout = STRESS_TIMEOUT_SECONDS * 1_000)
+    public void shouldDeliverEveryElementExactlyOnceUnderContention() throws Exception {
+        BlockingQueue<Integer> queue = new MpmcArrayBlockingQueue<>(64);
+        int total = PRODUCER_NUMBER * ELEMENTS_PER_PRODUCER;
+        AtomicIntegerArray received = new AtomicIntegerArray(total);
+        CyclicBarrier start = new CyclicBarrier(PRODUCER_NUMBER + CONSUMER_NUMBER);
+        CountDownLatch consumed = new CountDownLatch(total);
+        List<Thread> threads = new ArrayList<>();
+
+        for (int p = 0; p < PRODUCER_NUMBER; p++) {
+            int firstElement = p * ELEMENTS_PER_PRODUCER;
+            threads.add(new Thread(() -> {
+                await(start);
+                try {
+                    for (int i = 0; i < ELEMENTS_PER_PRODUCER; i++) {
+                        if (i % 2 == 0) {
+                            queue.put(firstElement + i);
+                        } else {
+                            while (!queue.offer(firstElement + i)) {
+                                Thread.yield();
+                            }
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        for (int c = 0; c < CONSUMER_NUMBER; c++) {
+            int consumerIndex = c;
+            threads.add(new Thread(() -> {
+                await(start);
+                try {
+                    while (consumed.getCount() > 0) {
+                        Integer element = consumerIndex % 2 == 0 ? queue.poll(1, TimeUnit.MILLISECONDS) : queue.poll();
+                        if (element != null) {
+                            received.incrementAndGet(element);
+                            consumed.countDown();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+
+        assertThat(consumed.await(STRESS_TIMEOUT_SECONDS, TimeUnit.SECONDS), is(true));
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (int i = 0; i < total; i++) {
+            assertThat(received.get(i), is(1));
+        }
+        assertThat(queue.isEmpty(), is(true));
+    }
+
+    @Test(timeout = STRESS_TIMEOUT_SECONDS * 1_000)
+    public void shouldWorkAsThreadPoolExecutorQueue() throws Exception {
+        int taskNumber = 200_000;
+        CountDownLatch completed = new CountDownLatch(taskNumber);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(4, 4, 0L, TimeUnit.MILLISECONDS,
+                new MpmcArrayBlockingQueue<>(1024), new ThreadPoolExecutor.CallerRunsPolicy());
+
+        for (int i = 0; i < taskNumber; i++) {
+            executor.execute(completed::countDown);
+        }
+
+        assertThat(completed.await(STRESS_TIMEOUT_SECONDS, TimeUnit.SECONDS), is(true));
+        executor.shutdown();
+        assertThat(executor.awaitTermination(STRESS_TIMEOUT_SECONDS, TimeUnit.SECONDS), is(true));
+    }
+
+    @Test
+    public void shutdownNowShouldDrainQueuedTasks() throws Exception {
+        CountDownLatch workerLatch = new CountDownLatch(1);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new MpmcArrayBlockingQueue<>(8));
+        executor.execute(() -> {
+            try {
+                workerLatch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        for (int i = 0; i < 5; i++) {
+            executor.execute(() -> {
+            });
+        }
+
+        List<Runnable> notExecutedTasks = executor.shutdownNow();
+
+        assertThat(notExecutedTasks.size(), is(5));
+        assertThat(executor.awaitTermination(STRESS_TIMEOUT_SECONDS, TimeUnit.SECONDS), is(true));
+    }
+
+    @Test
+    public void shouldRemoveElementFromMiddle() {
+        BlockingQueue<Integer> queue = new MpmcArrayBlockingQueue<>(4);
+        for (int i = 0; i < 4; i++) {
+            queue.offer(i);
+        }
+
+        assertThat(queue.remove(1), is(true));
+        assertThat(queue.remove(1), is(false));
+        assertThat(queue.remove(5), is(false));
+        assertThat(queue.size(), is(3));
+        assertThat(queue.poll(), is(0));
+        assertThat(queue.poll(), is(2));
+        assertThat(queue.offer(4), is(true));
+        assertThat(queue.offer(5), is(true));
+        assertThat(queue.poll(), is(3));
+        assertThat(queue.poll(), is(4));
+        assertThat(queue.poll(), is(5));
+        assertThat(queue.isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldBeEmptyWhenOnlyRemovedElementsAreLeft() {
+        BlockingQueue<Integer> queue = new MpmcArrayBlockingQueue<>(4);
+        queue.offer(1);
+        queue.offer(2);
+
+        queue.remove(1);
+        queue.remove(2);
+
+        assertThat(queue.isEmpty(), is(true));
+        assertThat(queue.peek(), is(nullValue()));
+        assertThat(queue.remainingCapacity(), is(4));
+    }
+
+    @Test
+    public void shouldSupportRemovalOfQueuedTasks() throws Exception {
+        CountDownLatch workerLatch = new CountDownLatch(1);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new MpmcArrayBlockingQueue<>(8));
+        executor.execute(() -> {
+            try {
+                workerLatch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Runnable removedTask = () -> {
+        };
+        executor.execute(removedTask);
+        executor.submit(() -> {
+        }).cancel(false);
+
+        assertThat(executor.remove(removedTask), is(true));
+        executor.purge();
+        assertThat(executor.getQueue().isEmpty(), is(true));
+        executor.shutdown();
+        workerLatch.countDown();
+        assertThat(executor.awaitTermination(STRESS_TIMEOUT_SECONDS, TimeUnit.SECONDS), is(true));
+        assertThat(executor.getCompletedTaskCount(), is(1L));
+    }
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}